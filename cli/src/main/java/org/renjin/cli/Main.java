@@ -22,7 +22,7 @@ import jline.UnsupportedTerminal;
 import jline.console.ConsoleReader;
 import org.renjin.aether.AetherPackageLoader;
 import org.renjin.cli.build.Builder;
-import org.renjin.compiler.pipeline.MultiThreadedVectorPipeliner;
+import org.renjin.compiler.ClosureCompiler;
 import org.renjin.compiler.pipeline.VectorPipeliner;
 import org.renjin.eval.Profiler;
 import org.renjin.eval.Session;
@@ -38,15 +38,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.Arrays;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class Main {
 
-  private static ExecutorService threadPool;
-  
   private OptionSet options;
   private AetherPackageLoader packageLoader;
   private Session session;
@@ -78,6 +74,9 @@ public class Main {
     if(optionSet.isFlagSet(OptionSet.COMPILE_LOOPS)) {
       ForFunction.COMPILE_LOOPS = true;
     }
+    if(optionSet.isFlagSet(OptionSet.COMPILE_CLOSURES)) {
+      ClosureCompiler.COMPILE_CLOSURES = true;
+    }
     
     try {
       new Main(optionSet).run();
@@ -157,21 +156,14 @@ public class Main {
     } catch(Exception e) {
       // Stack trace already printed by Repl
       System.err.println("Execution halted");
-      
-    } finally {
-      if (threadPool != null && !threadPool.isShutdown()) {
-        threadPool.shutdown();
-      }
     }
   }
 
   public void initSession() throws Exception {
-    threadPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-
     packageLoader = new AetherPackageLoader();
     this.session = new SessionBuilder()
         .setPackageLoader(packageLoader)
-        .setVectorPipeliner(new MultiThreadedVectorPipeliner(threadPool))
+        .setVectorThreads(Runtime.getRuntime().availableProcessors())
         .build();
     
     loadDefaultPackages();
@@ -32,6 +32,7 @@ public class OptionSet {
   
   
   public static final String COMPILE_LOOPS = "--compile-loops";
+  public static final String COMPILE_CLOSURES = "--compile-closures";
   public static final String PROFILE = "--profile";
   
   private String expression;
@@ -71,6 +72,7 @@ public class OptionSet {
 
         case PROFILE:
         case COMPILE_LOOPS:
+        case COMPILE_CLOSURES:
           flags.add(option);
           break;
         
@@ -29,6 +29,7 @@ import org.renjin.util.FileSystemUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.util.IdentityHashMap;
 import java.util.Set;
 
@@ -44,6 +45,8 @@ import java.util.Set;
  */
 public class BaseFrame implements Frame {
 
+  private static final String RESOURCE_ROOT = "/org/renjin/base/";
+
   private final IdentityHashMap<Symbol, SEXP> loaded = new IdentityHashMap<Symbol, SEXP>(1100);
   
   @Override
@@ -176,18 +179,10 @@ public class BaseFrame implements Frame {
   }
   
   public void load(Context context) throws IOException {
-    Iterable<NamedValue> frame = LazyLoadFrame.load(context, new org.renjin.repackaged.guava.base.Function<String, InputStream>() {
-
-      @Override
-      public InputStream apply(String name) {
-        String resourcePath = "/org/renjin/base/" + name;
-        InputStream in = getClass().getResourceAsStream(resourcePath);
-        if(in == null) {
-          throw new RuntimeException("Could not open resource " + resourcePath);
-        }
-        return in;
-      }
-    });
+    URL environment = BaseFrame.class.getResource(RESOURCE_ROOT + "environment");
+    String imageKey = environment == null ? null : environment.toExternalForm();
+
+    Iterable<NamedValue> frame = LazyLoadFrame.load(context, imageKey, new BaseResourceProvider());
     for(NamedValue name : frame) {
       loaded.put(Symbol.get(name.getName()), name.getValue());
     }
@@ -199,6 +194,22 @@ public class BaseFrame implements Frame {
     
   }
 
+  /**
+   * Opens the serialized base package resources. This does not refer to the frame,
+   * as it may be retained by a shared {@link org.renjin.packaging.NamespaceImage}.
+   */
+  private static class BaseResourceProvider implements org.renjin.repackaged.guava.base.Function<String, InputStream> {
+    @Override
+    public InputStream apply(String name) {
+      String resourcePath = RESOURCE_ROOT + name;
+      InputStream in = BaseFrame.class.getResourceAsStream(resourcePath);
+      if(in == null) {
+        throw new RuntimeException("Could not open resource " + resourcePath);
+      }
+      return in;
+    }
+  }
+
   private void addPrimitiveAlias(String primitiveName, String alias) {
     loaded.put(Symbol.get(alias), Primitives.getBuiltin(primitiveName));
   }
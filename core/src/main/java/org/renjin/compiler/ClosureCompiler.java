@@ -0,0 +1,240 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.compiler.cfg.ControlFlowGraph;
+import org.renjin.compiler.cfg.DominanceTree;
+import org.renjin.compiler.cfg.UseDefMap;
+import org.renjin.compiler.codegen.ByteCodeEmitter;
+import org.renjin.compiler.ir.exception.InvalidSyntaxException;
+import org.renjin.compiler.ir.ssa.SsaTransformer;
+import org.renjin.compiler.ir.tac.IRBody;
+import org.renjin.compiler.ir.tac.IRBodyBuilder;
+import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.eval.Context;
+import org.renjin.eval.Profiler;
+import org.renjin.repackaged.guava.collect.ImmutableSet;
+import org.renjin.sexp.*;
+
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compiles the bodies of frequently called closures to JVM byte code.
+ *
+ * <p>Closures are interpreted until they have been called {@link #COMPILE_THRESHOLD} times. After that,
+ * their bodies are compiled, specialized to the types of the arguments and the other variables
+ * they read. Before each invocation of the compiled body, the assumptions made during compilation are
+ * re-checked: if they no longer hold, the body is compiled again for the new types, or the closure
+ * falls back to the AST interpreter.</p>
+ *
+ * <p>Arguments which are still unevaluated promises are forced by the compiled code where they are first
+ * read, and the code is specialized to the type of the value that the promise is expected to produce, which
+ * must be evident from its expression. If the forced value turns out to have another type, the compiled code
+ * is abandoned for this call with a {@link DeoptimizationException}, and the body is evaluated by the
+ * interpreter instead.</p>
+ *
+ * <p>This is experimental, and can be enabled with the JVM flag -Drenjin.compile.closures=true</p>
+ */
+public class ClosureCompiler {
+
+  private static final Logger LOGGER = Logger.getLogger(ClosureCompiler.class.getName());
+
+  public static boolean COMPILE_CLOSURES = Boolean.getBoolean("renjin.compile.closures");
+
+  /**
+   * The number of times a closure is interpreted before it is compiled.
+   */
+  public static final int COMPILE_THRESHOLD = 100;
+
+  /**
+   * Functions which return their value invisibly.
+   */
+  private static final Set<String> INVISIBLE_FUNCTIONS = ImmutableSet.of(
+      "<-", "<<-", "=", "invisible", "for", "while", "repeat");
+
+  /**
+   * Compiled bodies, keyed by the closure's body. All assumptions, including those about the
+   * enclosing environment, are tested relative to the function environment, so a compiled body
+   * can be safely shared between closures that share the same definition.
+   */
+  private static final CompiledCodeCache<CompiledBody> CACHE = new CompiledCodeCache<>();
+
+  private ClosureCompiler() { }
+
+  /**
+   * Finds or compiles a body for {@code closure} that is specialized to the current
+   * values in the function environment.
+   *
+   * @param functionContext the context of the function call, with all arguments matched into
+   *                        its environment
+   * @return the compiled body, or {@code null} if the closure must be interpreted. Once the closure's
+   * body has been abandoned by the cache, the closure is marked so that it is never considered
+   * for compilation again.
+   */
+  public static CompiledBody tryCompile(Context functionContext, Closure closure) {
+    Environment rho = functionContext.getEnvironment();
+
+    if(CACHE.isAbandoned(closure.getBody())) {
+      closure.disableCompilation();
+      return null;
+    }
+
+    CompiledCodeCache.Entry<CompiledBody> entry = CACHE.lookup(functionContext, rho, closure.getBody());
+    if(entry == null) {
+      if(!argumentsCanBeSpecialized(rho, closure)) {
+        return null;
+      }
+      if(Profiler.ENABLED) {
+        Profiler.compileCacheMiss();
+      }
+      entry = compile(functionContext, rho, closure);
+      CACHE.put(closure.getBody(), entry);
+
+    } else if(Profiler.ENABLED) {
+      Profiler.compileCacheHit();
+    }
+
+    return entry.getCode();
+  }
+
+  /**
+   * Records that the code compiled for {@code closure} has thrown a {@link DeoptimizationException}, and
+   * that the call has been evaluated by the interpreter instead. Closures which are deoptimized too often
+   * are abandoned to the interpreter.
+   */
+  public static void deoptimized(Closure closure) {
+    if(Profiler.ENABLED) {
+      Profiler.closureDeoptimized();
+    }
+    CACHE.recordFailure(closure.getBody());
+  }
+
+  private static CompiledCodeCache.Entry<CompiledBody> compile(Context context, Environment rho, Closure closure) {
+
+    long startTime = System.nanoTime();
+
+    RuntimeState runtimeState = new RuntimeState(context, rho, closure);
+
+    try {
+      if(!isResultVisible(closure.getBody())) {
+        throw new NotCompilableException(closure.getBody(), "Result may be invisible");
+      }
+
+      IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
+      IRBody body = builder.build(closure.getBody());
+
+      ControlFlowGraph cfg = new ControlFlowGraph(body);
+
+      DominanceTree dTree = new DominanceTree(cfg);
+      SsaTransformer ssaTransformer = new SsaTransformer(cfg, dTree);
+      ssaTransformer.transform();
+
+      UseDefMap useDefMap = new UseDefMap(cfg);
+      TypeSolver types = new TypeSolver(cfg, useDefMap);
+      types.execute();
+
+      types.verifyFunctionAssumptions(runtimeState);
+
+      PromisedArgumentVerifier.verify(cfg, runtimeState.getPromisedArguments());
+
+      ssaTransformer.removePhiFunctions(types);
+
+      ByteCodeEmitter emitter = new ByteCodeEmitter(cfg, types);
+      CompiledBody compiledBody = emitter.compile().newInstance();
+
+      if(Profiler.ENABLED) {
+        Profiler.closureCompiled(System.nanoTime() - startTime);
+      }
+
+      return CompiledCodeCache.Entry.compiled(runtimeState.getAssumptions(), compiledBody);
+
+    } catch (NotCompilableException | InvalidSyntaxException e) {
+      // The interpreter will handle this closure, including reporting any errors
+      LOGGER.log(Level.FINE, "Could not compile closure", e);
+      return CompiledCodeCache.Entry.notCompilable(runtimeState.getAssumptions());
+
+    } catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Exception compiling closure", e);
+      return CompiledCodeCache.Entry.notCompilable(runtimeState.getAssumptions());
+    }
+  }
+
+  /**
+   * The compiler can only specialize code to the types of values that are known at compile time.
+   * Arguments are never forced here, as that would change the order in which they are evaluated, so
+   * a closure with an argument whose value can only be determined by evaluating its promise, such as
+   * the result of a function call, is simply interpreted for this call, without counting against the
+   * closure's compilation budget.
+   *
+   * @return false if any of the arguments are missing, or are unevaluated promises whose values cannot
+   * be determined without evaluating them.
+   */
+  private static boolean argumentsCanBeSpecialized(Environment rho, Closure closure) {
+    for (PairList.Node formal : closure.getFormals().nodes()) {
+      SEXP value = rho.getVariable(formal.getTag());
+      if(value == Symbol.MISSING_ARG) {
+        return false;
+      }
+      if(value instanceof Promise && !((Promise) value).isEvaluated()) {
+        SEXP expected = RuntimeState.peekValue(value);
+        if(!(expected instanceof AtomicVector) || expected.hasAttributes()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compiled code does not update the session's visibility flag, so we only compile closures
+   * whose results are always visible.
+   */
+  private static boolean isResultVisible(SEXP expression) {
+    if(!(expression instanceof FunctionCall)) {
+      return true;
+    }
+    FunctionCall call = (FunctionCall) expression;
+    if(!(call.getFunction() instanceof Symbol)) {
+      return true;
+    }
+    String functionName = ((Symbol) call.getFunction()).getPrintName();
+    PairList arguments = call.getArguments();
+
+    switch (functionName) {
+      case "{":
+        if(arguments.length() == 0) {
+          return true;
+        }
+        return isResultVisible(arguments.getElementAsSEXP(arguments.length() - 1));
+
+      case "if":
+        return arguments.length() == 3 &&
+            isResultVisible(arguments.getElementAsSEXP(1)) &&
+            isResultVisible(arguments.getElementAsSEXP(2));
+
+      case "return":
+        return arguments.length() == 0 || isResultVisible(arguments.getElementAsSEXP(0));
+
+      default:
+        return !INVISIBLE_FUNCTIONS.contains(functionName);
+    }
+  }
+}
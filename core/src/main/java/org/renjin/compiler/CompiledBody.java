@@ -21,8 +21,15 @@ package org.renjin.compiler;
 
 import org.renjin.eval.Context;
 import org.renjin.sexp.Environment;
+import org.renjin.sexp.SEXP;
 
 public interface CompiledBody {
 
-  void evaluate(Context context, Environment rho);
+  /**
+   * Evaluates the compiled expression in the environment {@code rho}, 
+   * storing any updated variables back to {@code rho}.
+   * 
+   * @return the value of the expression
+   */
+  SEXP evaluate(Context context, Environment rho);
 }
@@ -0,0 +1,213 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.compiler.ir.tac.RuntimeAssumptions;
+import org.renjin.eval.Context;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.SEXP;
+
+import java.util.Arrays;
+
+/**
+ * Maintains a cache of compiled code for each compiled expression, such as the call
+ * to a loop or the body of a closure, so that code which is evaluated repeatedly is compiled
+ * only once for each distinct set of runtime types.
+ *
+ * @param <T> the type of the compiled code
+ */
+public class CompiledCodeCache<T> {
+
+  /**
+   * The maximum number of specializations retained for a single expression. When an expression is
+   * evaluated with more distinct types, the oldest specialization is discarded.
+   */
+  public static final int MAX_SPECIALIZATIONS = 4;
+
+  /**
+   * The number of times an expression may be compiled before it is considered megamorphic and
+   * abandoned to the interpreter.
+   */
+  public static final int MAX_COMPILATIONS = 2 * MAX_SPECIALIZATIONS;
+
+  /**
+   * The number of times an expression may fail to compile, or fall back to the interpreter
+   * after failing to compile, before it is abandoned to the interpreter.
+   */
+  public static final int MAX_FAILURES = 2;
+
+  /**
+   * Sites are keyed weakly by their expression, but compiled code and its assumptions usually refer
+   * back to the expression, and to the functions and environments of the session in which it was
+   * compiled, so weak keys alone would never be cleared. The sites are therefore held softly: they
+   * live for as long as memory allows, and are released, together with their expressions, under
+   * memory pressure.
+   */
+  private final Cache<SEXP, Site<T>> cache;
+
+  public CompiledCodeCache() {
+    cache = CacheBuilder.newBuilder()
+        .weakKeys()
+        .softValues()
+        .build();
+  }
+
+  /**
+   * Code compiled under a set of runtime assumptions, or a record
+   * that the expression could not be compiled under these assumptions.
+   */
+  public static class Entry<T> {
+    private final ValueBounds[] argumentBounds;
+    private final RuntimeAssumptions assumptions;
+    private final T code;
+
+    private Entry(ValueBounds[] argumentBounds, RuntimeAssumptions assumptions, T code) {
+      this.argumentBounds = argumentBounds;
+      this.assumptions = assumptions;
+      this.code = code;
+    }
+
+    /**
+     * @param assumptions the assumptions made about the environment during compilation
+     * @param code the compiled code
+     * @param argumentBounds the bounds of any values passed directly to the compiled code
+     */
+    public static <T> Entry<T> compiled(RuntimeAssumptions assumptions, T code, ValueBounds... argumentBounds) {
+      return new Entry<>(argumentBounds, assumptions, code);
+    }
+
+    public static <T> Entry<T> notCompilable(RuntimeAssumptions assumptions, ValueBounds... argumentBounds) {
+      return new Entry<>(argumentBounds, assumptions, null);
+    }
+
+    public boolean isCompiled() {
+      return code != null;
+    }
+
+    /**
+     * @return the compiled code, or {@code null} if the expression could not be compiled.
+     */
+    public T getCode() {
+      return code;
+    }
+
+    private boolean test(Context context, Environment rho, SEXP[] arguments) {
+      for (int i = 0; i < argumentBounds.length; i++) {
+        if(!argumentBounds[i].test(arguments[i])) {
+          return false;
+        }
+      }
+      return assumptions.test(context, rho);
+    }
+  }
+
+  private static class Site<T> {
+    private volatile Entry<T>[] entries = new Entry[0];
+    private volatile boolean abandoned;
+    private int compilations;
+    private int failures;
+
+    private Entry<T> find(Context context, Environment rho, SEXP[] arguments) {
+      Entry<T>[] entries = this.entries;
+      for (int i = entries.length - 1; i >= 0; i--) {
+        if(entries[i].test(context, rho, arguments)) {
+          return entries[i];
+        }
+      }
+      return null;
+    }
+
+    private synchronized void recordFailure() {
+      if(++failures >= MAX_FAILURES) {
+        abandoned = true;
+      }
+    }
+
+    private synchronized void add(Entry<T> entry) {
+      if(++compilations >= MAX_COMPILATIONS) {
+        abandoned = true;
+      }
+      if(!entry.isCompiled()) {
+        recordFailure();
+      }
+      Entry<T>[] updated;
+      if(entries.length < MAX_SPECIALIZATIONS) {
+        updated = Arrays.copyOf(entries, entries.length + 1);
+      } else {
+        updated = Arrays.copyOfRange(entries, 1, entries.length + 1);
+      }
+      updated[updated.length - 1] = entry;
+      entries = updated;
+    }
+  }
+
+  /**
+   * Finds previously compiled code for {@code key} whose assumptions hold
+   * in the current runtime environment.
+   *
+   * @param arguments the values that will be passed directly to the compiled code
+   * @return the matching entry, or {@code null} if this expression has not yet been compiled
+   * for the current types.
+   */
+  public Entry<T> lookup(Context context, Environment rho, SEXP key, SEXP... arguments) {
+    Site<T> site = cache.getIfPresent(key);
+    if(site == null) {
+      return null;
+    }
+    Entry<T> entry = site.find(context, rho, arguments);
+    if(entry != null && !entry.isCompiled()) {
+      site.recordFailure();
+    }
+    return entry;
+  }
+
+  /**
+   * @return true if {@code key} has been compiled too many times, or has failed to compile too
+   * often, and should no longer be considered for compilation.
+   */
+  public boolean isAbandoned(SEXP key) {
+    Site<T> site = cache.getIfPresent(key);
+    return site != null && site.abandoned;
+  }
+
+  /**
+   * Records that code compiled for {@code key} has had to fall back to the interpreter while running.
+   */
+  public void recordFailure(SEXP key) {
+    Site<T> site = cache.getIfPresent(key);
+    if(site != null) {
+      site.recordFailure();
+    }
+  }
+
+  public void put(SEXP key, Entry<T> entry) {
+    Site<T> site;
+    synchronized (cache) {
+      site = cache.getIfPresent(key);
+      if(site == null) {
+        site = new Site<>();
+        cache.put(key, site);
+      }
+    }
+    site.add(entry);
+  }
+}
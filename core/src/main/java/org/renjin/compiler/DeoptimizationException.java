@@ -16,29 +16,17 @@
  * along with this program; if not, a copy is available at
  * https://www.gnu.org/licenses/gpl-2.0.txt
  */
-package org.renjin.primitives.match;
-
-import org.renjin.repackaged.guava.collect.UnmodifiableIterator;
-import org.renjin.sexp.Vector;
+package org.renjin.compiler;
 
 /**
- * Iterates over the indexes of a vector, from the end of the 
- * vector (length()-1) to the beginning (0)
+ * Thrown by compiled code when a value which could not be known at compile time does not
+ * have the type for which the code was specialized. Such values are only checked before the
+ * code has had any side effects, apart from forcing promises, whose values are retained, so
+ * the call can be safely evaluated again by the interpreter.
  */
-class ReverseIndexIterator extends UnmodifiableIterator<Integer> {
-  private int index;
-  
-  public ReverseIndexIterator(Vector vector) {
-    this.index = vector.length()-1;
-  }
-
-  @Override
-  public boolean hasNext() {
-    return index >= 0;
-  }
+public class DeoptimizationException extends RuntimeException {
 
-  @Override
-  public Integer next() {
-    return index--;
+  public DeoptimizationException(String message) {
+    super(message);
   }
-}
\ No newline at end of file
+}
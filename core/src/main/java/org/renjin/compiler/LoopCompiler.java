@@ -0,0 +1,225 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.compiler.cfg.ControlFlowGraph;
+import org.renjin.compiler.cfg.DominanceTree;
+import org.renjin.compiler.cfg.UseDefMap;
+import org.renjin.compiler.codegen.ByteCodeEmitter;
+import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.compiler.ir.exception.InvalidSyntaxException;
+import org.renjin.compiler.ir.ssa.SsaTransformer;
+import org.renjin.compiler.ir.tac.IRBody;
+import org.renjin.compiler.ir.tac.IRBodyBuilder;
+import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.compiler.ir.tac.expressions.ReadLoopVector;
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.eval.Profiler;
+import org.renjin.primitives.Deparse;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.FunctionCall;
+import org.renjin.sexp.Vector;
+
+/**
+ * Compiles {@code for}, {@code while} and {@code repeat} loops that are already running in the
+ * interpreter, and transfers control to the compiled code at the start of the next iteration.
+ *
+ * <p>Because the interpreted and compiled loops share all of their state through the environment,
+ * the compiled code can pick up exactly where the interpreter left off.</p>
+ */
+public class LoopCompiler {
+
+  private static final CompiledCodeCache<CompiledLoopBody> FOR_LOOP_CACHE = new CompiledCodeCache<>();
+
+  private static final CompiledCodeCache<CompiledBody> LOOP_CACHE = new CompiledCodeCache<>();
+
+  private LoopCompiler() { }
+
+  /**
+   * Compiles the {@code for} loop {@code call} and runs the remaining iterations, starting with
+   * iteration {@code i}.
+   *
+   * @return true if the remainder of the loop was run by compiled code, or false if the loop
+   * could not be compiled and must continue to be interpreted.
+   */
+  public static boolean tryCompileAndRun(Context context, Environment rho, FunctionCall call,
+                                         Vector elements, int i) {
+
+    if(FOR_LOOP_CACHE.isAbandoned(call)) {
+      return false;
+    }
+
+    CompiledCodeCache.Entry<CompiledLoopBody> entry = FOR_LOOP_CACHE.lookup(context, rho, call, elements);
+    if(entry == null) {
+      if(Profiler.ENABLED) {
+        Profiler.compileCacheMiss();
+      }
+      entry = compileForLoop(context, rho, call, elements);
+      FOR_LOOP_CACHE.put(call, entry);
+
+    } else if(Profiler.ENABLED) {
+      Profiler.compileCacheHit();
+    }
+
+    if(!entry.isCompiled()) {
+      return false;
+    }
+
+    entry.getCode().run(context, rho, elements, i);
+
+    return true;
+  }
+
+  /**
+   * Compiles the {@code while} or {@code repeat} loop {@code call} and runs it to completion, starting
+   * with the next check of the loop's condition.
+   *
+   * @return true if the remainder of the loop was run by compiled code, or false if the loop
+   * could not be compiled and must continue to be interpreted.
+   */
+  public static boolean tryCompileAndRun(Context context, Environment rho, FunctionCall call) {
+
+    if(LOOP_CACHE.isAbandoned(call)) {
+      return false;
+    }
+
+    CompiledCodeCache.Entry<CompiledBody> entry = LOOP_CACHE.lookup(context, rho, call);
+    if(entry == null) {
+      if(Profiler.ENABLED) {
+        Profiler.compileCacheMiss();
+      }
+      entry = compileLoop(context, rho, call);
+      LOOP_CACHE.put(call, entry);
+
+    } else if(Profiler.ENABLED) {
+      Profiler.compileCacheHit();
+    }
+
+    if(!entry.isCompiled()) {
+      return false;
+    }
+
+    entry.getCode().evaluate(context, rho);
+
+    return true;
+  }
+
+  private static CompiledCodeCache.Entry<CompiledLoopBody> compileForLoop(Context context, Environment rho,
+                                                                          FunctionCall call, Vector elements) {
+
+    long startTime = System.nanoTime();
+
+    RuntimeState runtimeState = new RuntimeState(context, rho);
+    ValueBounds sequenceBounds = ReadLoopVector.boundsOf(elements);
+
+    try {
+
+      IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
+      IRBody body = builder.buildLoopBody(call, elements);
+
+      ByteCodeEmitter emitter = prepare(runtimeState, body);
+      CompiledLoopBody compiledBody = emitter.compileLoopBody().newInstance();
+
+      if(Profiler.ENABLED) {
+        Profiler.loopCompiled(System.nanoTime() - startTime);
+      }
+
+      return CompiledCodeCache.Entry.compiled(runtimeState.getAssumptions(), compiledBody, sequenceBounds);
+
+    } catch (NotCompilableException e) {
+      context.warn("Could not compile loop because: " + format(context, e));
+      return CompiledCodeCache.Entry.notCompilable(runtimeState.getAssumptions(), sequenceBounds);
+
+    } catch (InvalidSyntaxException e) {
+      throw new EvalException(e.getMessage());
+
+    } catch (Exception e) {
+      throw new EvalException("Exception compiling loop: " + e.getMessage(), e);
+    }
+  }
+
+  private static CompiledCodeCache.Entry<CompiledBody> compileLoop(Context context, Environment rho,
+                                                                   FunctionCall call) {
+
+    long startTime = System.nanoTime();
+
+    RuntimeState runtimeState = new RuntimeState(context, rho);
+
+    try {
+
+      IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
+      IRBody body = builder.buildLoop(call);
+
+      ByteCodeEmitter emitter = prepare(runtimeState, body);
+      CompiledBody compiledBody = emitter.compile().newInstance();
+
+      if(Profiler.ENABLED) {
+        Profiler.loopCompiled(System.nanoTime() - startTime);
+      }
+
+      return CompiledCodeCache.Entry.compiled(runtimeState.getAssumptions(), compiledBody);
+
+    } catch (NotCompilableException e) {
+      context.warn("Could not compile loop because: " + format(context, e));
+      return CompiledCodeCache.Entry.notCompilable(runtimeState.getAssumptions());
+
+    } catch (InvalidSyntaxException e) {
+      throw new EvalException(e.getMessage());
+
+    } catch (Exception e) {
+      throw new EvalException("Exception compiling loop: " + e.getMessage(), e);
+    }
+  }
+
+  private static ByteCodeEmitter prepare(RuntimeState runtimeState, IRBody body) {
+    ControlFlowGraph cfg = new ControlFlowGraph(body);
+
+    DominanceTree dTree = new DominanceTree(cfg);
+    SsaTransformer ssaTransformer = new SsaTransformer(cfg, dTree);
+    ssaTransformer.transform();
+
+    UseDefMap useDefMap = new UseDefMap(cfg);
+    TypeSolver types = new TypeSolver(cfg, useDefMap);
+    types.execute();
+
+    types.verifyFunctionAssumptions(runtimeState);
+
+    ssaTransformer.removePhiFunctions(types);
+
+    return new ByteCodeEmitter(cfg, types);
+  }
+
+  private static String format(Context context, NotCompilableException e) {
+    StringBuilder s = new StringBuilder();
+    while(e != null) {
+      if(s.length() > 0) {
+        s.append(" > ");
+      }
+      if(e.getSexp() != null) {
+        s.append(Deparse.deparseExp(context, e.getSexp()));
+      }
+      if(e.getMessage() != null) {
+        s.append(": ").append(e.getMessage());
+      }
+      e = e.getCause();
+    }
+    return s.toString();
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.compiler.cfg.BasicBlock;
+import org.renjin.compiler.cfg.ControlFlowGraph;
+import org.renjin.compiler.ir.tac.expressions.*;
+import org.renjin.compiler.ir.tac.statements.Statement;
+import org.renjin.repackaged.guava.collect.Maps;
+import org.renjin.repackaged.guava.collect.Sets;
+import org.renjin.sexp.Symbol;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifies that compiled code which forces promised arguments can be safely abandoned
+ * when the value of an argument does not match the type for which the code was specialized.
+ *
+ * <p>When a {@link ReadPromisedArgument} fails its check, a {@link DeoptimizationException} is thrown and
+ * the call is evaluated again, from the beginning, by the interpreter. This is only safe if nothing but the
+ * forcing of other promises, whose values are retained, can have happened before the check. The first read
+ * of each argument, on every path through the body, must therefore precede any call with side effects.</p>
+ */
+class PromisedArgumentVerifier {
+
+  /**
+   * The state of the arguments at a point in the body.
+   */
+  private static class State {
+
+    /**
+     * Arguments which may not yet have been forced.
+     */
+    private final Set<Symbol> unforced = Sets.newHashSet();
+
+    /**
+     * Arguments which may not yet have been forced when a side effect occurred.
+     */
+    private final Set<Symbol> unsafe = Sets.newHashSet();
+
+    private void merge(State state) {
+      unforced.addAll(state.unforced);
+      unsafe.addAll(state.unsafe);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(!(o instanceof State)) {
+        return false;
+      }
+      State other = (State) o;
+      return unforced.equals(other.unforced) && unsafe.equals(other.unsafe);
+    }
+
+    @Override
+    public int hashCode() {
+      return unforced.hashCode();
+    }
+  }
+
+  private PromisedArgumentVerifier() { }
+
+  /**
+   * @throws NotCompilableException if one of the {@code promisedArguments} may be forced for the first time
+   * after a side effect.
+   */
+  static void verify(ControlFlowGraph cfg, Set<Symbol> promisedArguments) {
+    if(promisedArguments.isEmpty()) {
+      return;
+    }
+
+    // The sets only grow as the states propagate, so if a read is unsafe at the
+    // fixed point, it is found when its block is last visited.
+    Map<BasicBlock, State> exitStates = Maps.newHashMap();
+    Deque<BasicBlock> worklist = new ArrayDeque<>(cfg.getBasicBlocks());
+
+    while(!worklist.isEmpty()) {
+      BasicBlock block = worklist.poll();
+
+      State state = new State();
+      if(block == cfg.getEntry()) {
+        state.unforced.addAll(promisedArguments);
+      }
+      for (BasicBlock predecessor : block.getFlowPredecessors()) {
+        State predecessorState = exitStates.get(predecessor);
+        if(predecessorState != null) {
+          state.merge(predecessorState);
+        }
+      }
+
+      for (Statement statement : block.getStatements()) {
+        for (int i = 0; i < statement.getChildCount(); i++) {
+          visit(state, statement.childAt(i));
+        }
+      }
+
+      if(!state.equals(exitStates.put(block, state))) {
+        worklist.addAll(block.getFlowSuccessors());
+      }
+    }
+  }
+
+  /**
+   * Updates {@code state} with the effects of evaluating {@code expression}, whose
+   * operands are evaluated before the expression itself.
+   */
+  private static void visit(State state, Expression expression) {
+    for (int i = 0; i < expression.getChildCount(); i++) {
+      visit(state, expression.childAt(i));
+    }
+    if(expression instanceof ReadPromisedArgument) {
+      Symbol name = ((ReadPromisedArgument) expression).getName();
+      if(state.unsafe.contains(name)) {
+        throw new NotCompilableException(name, "Argument '" + name + "' may be forced after a side effect");
+      }
+      state.unforced.remove(name);
+
+    } else if(hasSideEffects(expression)) {
+      state.unsafe.addAll(state.unforced);
+    }
+  }
+
+  private static boolean hasSideEffects(Expression expression) {
+    if(expression instanceof BuiltinCall) {
+      return !((BuiltinCall) expression).isSpecializationPure();
+    } else if(expression instanceof SpecializedCallExpression) {
+      return !((SpecializedCallExpression) expression).isFunctionDefinitelyPure();
+    } else {
+      return expression instanceof CallExpression || expression instanceof ClosureCall;
+    }
+  }
+}
@@ -64,6 +64,11 @@ public class ConstantCall implements Specialization {
     return valueBounds;
   }
 
+  @Override
+  public boolean isPure() {
+    return true;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     if(constantValue instanceof Integer) {
@@ -146,6 +146,11 @@ public class DataParallelCall implements Specialization {
     return valueBounds;
   }
 
+  @Override
+  public boolean isPure() {
+    return method.isPure();
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     throw new UnsupportedOperationException();
@@ -58,6 +58,11 @@ public class DataParallelScalarCall implements Specialization {
     return valueBounds;
   }
 
+  @Override
+  public boolean isPure() {
+    return method.isPure();
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     
@@ -53,6 +53,11 @@ public class DoubleBinaryOp implements Specialization {
     return valueBounds;
   }
 
+  @Override
+  public boolean isPure() {
+    return true;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     assert  arguments.size() == 2;
@@ -44,6 +44,11 @@ public class GenericPrimitive implements Specialization {
     return ValueBounds.UNBOUNDED;
   }
 
+  @Override
+  public boolean isPure() {
+    return false;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     throw new FailedToSpecializeException("generic dispatch from primitives not yet implemented.");
@@ -40,6 +40,11 @@ public class LengthCall implements Specialization {
     return ValueBounds.INT_PRIMITIVE;
   }
 
+  @Override
+  public boolean isPure() {
+    return true;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     Expression argument = arguments.get(0).getExpression();
@@ -47,6 +52,6 @@ public class LengthCall implements Specialization {
     emitContext.convert(mv, argument.getType(), Type.getType(SEXP.class));
     
     mv.invokeinterface(Type.getInternalName(SEXP.class), "length", 
-        Type.getMethodDescriptor(Type.INT_TYPE, Type.getType(SEXP.class)));
+        Type.getMethodDescriptor(Type.INT_TYPE));
   }
 }
@@ -33,6 +33,11 @@ public interface Specialization {
 
   ValueBounds getValueBounds();
 
+  /**
+   * @return true if this call has no side effects other than computing its result
+   */
+  boolean isPure();
+
   void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments);
   
 
@@ -62,6 +62,11 @@ public class StaticMethodCall implements Specialization {
     return valueBounds;
   }
 
+  @Override
+  public boolean isPure() {
+    return pure;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
 
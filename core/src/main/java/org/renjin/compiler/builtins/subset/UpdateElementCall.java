@@ -52,6 +52,11 @@ public class UpdateElementCall implements Specialization {
     return ValueBounds.vector(inputVector.getTypeSet(), inputVector.getLength());
   }
 
+  @Override
+  public boolean isPure() {
+    return false;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     throw new UnsupportedOperationException();
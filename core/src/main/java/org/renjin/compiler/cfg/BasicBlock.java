@@ -29,6 +29,7 @@ import org.renjin.repackaged.guava.collect.Lists;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -111,6 +112,24 @@ public class BasicBlock {
     successor.flowPredecessors.add(this);
   }
 
+  /**
+   * Removes incoming and outgoing edges connecting this block to blocks not in {@code live}
+   */
+  void removeEdgesFrom(Set<BasicBlock> live) {
+    Iterator<FlowEdge> incomingIt = incoming.iterator();
+    while(incomingIt.hasNext()) {
+      if(!live.contains(incomingIt.next().getPredecessor())) {
+        incomingIt.remove();
+      }
+    }
+    Iterator<FlowEdge> outgoingIt = outgoing.iterator();
+    while(outgoingIt.hasNext()) {
+      if(!live.contains(outgoingIt.next().getSuccessor())) {
+        outgoingIt.remove();
+      }
+    }
+  }
+
   public void addDominanceSuccessor(BasicBlock basicBlock) {
     dominanceSuccessors.add(basicBlock);
     basicBlock.dominancePredecessors.add(this);
@@ -139,6 +139,7 @@ public class ControlFlowGraph {
     for (BasicBlock basicBlock : basicBlocks) {
       basicBlock.flowPredecessors.retainAll(live);
       basicBlock.flowSuccessors.retainAll(live);
+      basicBlock.removeEdgesFrom(live);
     }
     
     int i=1;
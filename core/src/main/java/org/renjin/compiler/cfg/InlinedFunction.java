@@ -60,7 +60,7 @@ public class InlinedFunction {
    */
   public InlinedFunction(RuntimeState parentState, Closure closure, Set<Symbol> arguments) {
 
-    runtimeState = new RuntimeState(parentState, closure.getEnclosingEnvironment());
+    runtimeState = new RuntimeState(parentState, closure);
     
     IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
     IRBody body = builder.buildFunctionBody(closure, arguments);
@@ -97,9 +97,10 @@ public class ByteCodeEmitter implements Opcodes {
     int argumentSize = 3; // this + context + environment
     VariableSlots variableSlots = new VariableSlots(argumentSize, types);
     EmitContext emitContext = new EmitContext(cfg, argumentSize, variableSlots);
+    emitContext.setReturnType(getType(SEXP.class));
     
     MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "evaluate", 
-        getMethodDescriptor(Type.VOID_TYPE, getType(Context.class), getType(Environment.class)), 
+        getMethodDescriptor(getType(SEXP.class), getType(Context.class), getType(Environment.class)), 
         null, null);
     mv.visitCode();
     writeBody(emitContext, mv);
@@ -46,6 +46,12 @@ public class EmitContext {
   
   private int loopVectorIndex;
   private int loopIterationIndex;
+
+  /**
+   * The return type of the method being emitted: {@code VOID} for loop bodies, 
+   * or {@code SEXP} for compiled function bodies.
+   */
+  private Type returnType = Type.VOID_TYPE;
   
   private int maxInlineVariables = 0;
   
@@ -126,6 +132,14 @@ public class EmitContext {
     this.loopIterationIndex = loopIterationIndex;
   }
 
+  public Type getReturnType() {
+    return returnType;
+  }
+
+  public void setReturnType(Type returnType) {
+    this.returnType = returnType;
+  }
+
   public int getRegister(LValue lValue) {
     return variableSlots.getSlot(lValue);
   }
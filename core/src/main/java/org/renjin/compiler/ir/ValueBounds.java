@@ -96,6 +96,20 @@ public class ValueBounds {
     return valueBounds;
   }
 
+  /**
+   * @return a new {@code ValueBounds} with the type and attributes of {@code value}, but
+   * not its contents or length (unless it is a scalar). Code specialized to these bounds
+   * remains valid for any other value for which {@link #test(SEXP)} is true.
+   */
+  public static ValueBounds typeOf(SEXP value) {
+    ValueBounds valueBounds = new ValueBounds();
+    valueBounds.typeSet = TypeSet.of(value);
+    valueBounds.length = value.length() == SCALAR_LENGTH ? SCALAR_LENGTH : UNKNOWN_LENGTH;
+    valueBounds.constantClassAttribute = value.getAttributes().getClassVector();
+    valueBounds.constantAttributes = value.getAttributes();
+    return valueBounds;
+  }
+
 
   public ValueBounds of(Object value) {
     if(value instanceof SEXP) {
@@ -381,6 +395,43 @@ public class ValueBounds {
     return constantValue;
   }
 
+  /**
+   * Tests whether a runtime {@code value} falls within these bounds.
+   */
+  public boolean test(SEXP value) {
+    if(constantValue != null) {
+      return sameConstant(constantValue, value);
+    }
+    if((TypeSet.of(value) & ~typeSet) != 0) {
+      return false;
+    }
+    if(length != UNKNOWN_LENGTH && value.length() != length) {
+      return false;
+    }
+    if(constantAttributes != null) {
+      return constantAttributes.equals(value.getAttributes());
+    }
+    if(constantClassAttribute != null) {
+      return constantClassAttribute.equals(value.getAttributes().getClassVector());
+    }
+    return true;
+  }
+
+  private static boolean sameConstant(SEXP constant, SEXP value) {
+    if(constant == value) {
+      return true;
+    }
+    if(constant instanceof IntSequence && value instanceof IntSequence) {
+      IntSequence x = (IntSequence) constant;
+      IntSequence y = (IntSequence) value;
+      return x.getFrom() == y.getFrom() &&
+             x.getBy() == y.getBy() &&
+             x.getLength() == y.getLength() &&
+             x.getAttributes().equals(y.getAttributes());
+    }
+    return constant.equals(value) && constant.getAttributes().equals(value.getAttributes());
+  }
+
 
   public static boolean allConstant(Iterable<ValueBounds> argumentTypes) {
     for (ValueBounds argumentType : argumentTypes) {
@@ -231,17 +231,23 @@ public class SsaTransformer {
   public void removePhiFunctions(TypeSolver types) {
     for(BasicBlock bb : cfg.getBasicBlocks()) {
       if (bb != cfg.getExit()) {
+        // Remove the phi functions from this block before inserting the assignments,
+        // as a block that loops back to itself will receive some of them
+        List<Assignment> used = Lists.newArrayList();
         ListIterator<Statement> it = bb.getStatements().listIterator();
         while (it.hasNext()) {
           Statement statement = it.next();
           if (statement instanceof Assignment && statement.getRHS() instanceof PhiFunction) {
             Assignment assignment = (Assignment) statement;
             if(types.isUsed(assignment)) {
-              insertAssignments(assignment.getLHS(), (PhiFunction) statement.getRHS());
+              used.add(assignment);
             }
             it.remove();
           }
         }
+        for (Assignment assignment : used) {
+          insertAssignments(assignment.getLHS(), (PhiFunction) assignment.getRHS());
+        }
       }
     }
   }
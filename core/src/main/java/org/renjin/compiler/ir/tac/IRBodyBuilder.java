@@ -19,7 +19,6 @@
 package org.renjin.compiler.ir.tac;
 
 import org.renjin.compiler.NotCompilableException;
-import org.renjin.compiler.ir.ValueBounds;
 import org.renjin.compiler.ir.exception.InvalidSyntaxException;
 import org.renjin.compiler.ir.tac.expressions.*;
 import org.renjin.compiler.ir.tac.functions.*;
@@ -104,6 +103,26 @@ public class IRBodyBuilder {
     return new IRBody(statements, labels);
   }
   
+  /**
+   * Builds the body of a {@code while} or {@code repeat} loop that is compiled while it is
+   * already running. The resulting body begins at the loop's next iteration.
+   */
+  public IRBody buildLoop(FunctionCall call) {
+    statements = Lists.newArrayList();
+    labels = Maps.newHashMap();
+
+    LoopBodyContext bodyContext = new LoopBodyContext(runtimeContext);
+    translateStatements(bodyContext, call);
+
+    addStatement(new ReturnStatement(new Constant(Null.INSTANCE)));
+
+    removeRedundantJumps();
+    insertVariableInitializations();
+    updateVariableReturn();
+
+    return new IRBody(statements, labels);
+  }
+
   public IRBody buildFunctionBody(Closure closure, Set<Symbol> suppliedArguments) {
     
     statements = Lists.newArrayList();
@@ -183,7 +202,8 @@ public class IRBodyBuilder {
 
         if (value != Symbol.UNBOUND_VALUE) {
           initializations.add(new Assignment(environmentVariable,
-              new ReadEnvironment(environmentVariable.getName(), ValueBounds.of(value))));
+              new ReadEnvironment(environmentVariable.getName(),
+                  runtimeContext.getVariableBounds(environmentVariable.getName()))));
         }
       }
     }
@@ -204,10 +224,15 @@ public class IRBodyBuilder {
     if(exp instanceof ExpressionVector) {
       return translateExpressionList(context, (ExpressionVector)exp);
     } else if(exp instanceof Symbol) {
-      if(exp == Symbol.MISSING_ARG) {
+      Symbol symbol = (Symbol) exp;
+      if(symbol == Symbol.MISSING_ARG) {
         return new Constant(exp);
+      } else if(!variables.containsKey(symbol) && runtimeContext.isPromisedArgument(symbol)) {
+        // Arguments which are assigned to are ordinary variables, read from the environment on
+        // entry, which cannot be compiled while they are bound to unevaluated promises
+        return new ReadPromisedArgument(symbol, runtimeContext.getVariableBounds(symbol));
       } else {
-        return getEnvironmentVariable((Symbol) exp);
+        return getEnvironmentVariable(symbol);
       }
     } else if(exp instanceof FunctionCall) {
       return translateCallExpression(context, (FunctionCall) exp);
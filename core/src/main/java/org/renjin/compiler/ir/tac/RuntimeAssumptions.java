@@ -0,0 +1,167 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.ir.tac;
+
+import org.renjin.compiler.NotCompilableException;
+import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.eval.Context;
+import org.renjin.repackaged.guava.collect.ImmutableList;
+import org.renjin.repackaged.guava.collect.ImmutableSet;
+import org.renjin.repackaged.guava.collect.Maps;
+import org.renjin.sexp.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The set of assumptions recorded by a {@link RuntimeState} during compilation: the types
+ * of the variables read from the environment, the expected types of the promised arguments forced by
+ * the compiled code, and the functions to which symbols were resolved.
+ *
+ * <p>Code compiled under these assumptions can be safely reused in a new runtime environment
+ * as long as {@link #test(Context, Environment)} returns {@code true}.</p>
+ *
+ * <p>The assumptions refer to no particular session. A symbol resolved to a closure is satisfied by
+ * any closure with the same formals and body, such as the copy of the closure in a forked session,
+ * and the assumptions of an inlined closure are tested against the enclosing environment of the
+ * closure to which its symbol currently resolves.</p>
+ */
+public class RuntimeAssumptions {
+
+  private final Map<Symbol, ValueBounds> variables;
+  private final Set<Symbol> promisedArguments;
+  private final Map<Symbol, Function> functions;
+  private final List<Inlined> inlined;
+
+  /**
+   * The assumptions made by a closure inlined into the compiled code.
+   */
+  private static class Inlined {
+
+    /**
+     * The symbol through which the closure was resolved, or {@code null} if it is not known.
+     */
+    private final Symbol function;
+    private final RuntimeAssumptions assumptions;
+
+    private Inlined(Symbol function, RuntimeAssumptions assumptions) {
+      this.function = function;
+      this.assumptions = assumptions;
+    }
+  }
+
+  RuntimeAssumptions(RuntimeState state) {
+    this.variables = Maps.newHashMap(state.getVariableBounds());
+    this.promisedArguments = ImmutableSet.copyOf(state.getPromisedArguments());
+    this.functions = Maps.newHashMap(state.getResolvedFunctions());
+
+    ImmutableList.Builder<Inlined> inlined = ImmutableList.builder();
+    for (RuntimeState inlinedState : state.getInlinedStates()) {
+      inlined.add(new Inlined(findSymbol(inlinedState.getClosure()), new RuntimeAssumptions(inlinedState)));
+    }
+    this.inlined = inlined.build();
+  }
+
+  private Symbol findSymbol(Closure closure) {
+    for (Map.Entry<Symbol, Function> function : functions.entrySet()) {
+      if(function.getValue() == closure) {
+        return function.getKey();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return true if all assumptions still hold in the given environment {@code rho}
+   */
+  public boolean test(Context context, Environment rho) {
+
+    for (Map.Entry<Symbol, ValueBounds> variable : variables.entrySet()) {
+      SEXP value = rho.findVariable(variable.getKey());
+      if(value instanceof Promise) {
+        Promise promise = (Promise) value;
+        if(promisedArguments.contains(variable.getKey())) {
+          // Promised arguments are forced and checked by the compiled code itself, so we only
+          // rule out values that can be seen not to match without evaluating the promise
+          value = RuntimeState.peekValue(promise);
+          if(value == null) {
+            continue;
+          }
+        } else if(!promise.isEvaluated()) {
+          return false;
+        } else {
+          value = promise.getValue();
+        }
+      }
+      ValueBounds bounds = variable.getValue();
+      if(value == Symbol.UNBOUND_VALUE) {
+        if(bounds != null) {
+          return false;
+        }
+      } else if(bounds == null || !bounds.test(value)) {
+        return false;
+      }
+    }
+
+    if(functions.isEmpty()) {
+      return true;
+    }
+
+    RuntimeState state = new RuntimeState(context, rho);
+    for (Map.Entry<Symbol, Function> function : functions.entrySet()) {
+      try {
+        if (!sameDefinition(function.getValue(), state.findFunctionIfExists(function.getKey()))) {
+          return false;
+        }
+      } catch (NotCompilableException e) {
+        return false;
+      }
+    }
+
+    for (Inlined inlinedClosure : inlined) {
+      if(inlinedClosure.function == null) {
+        return false;
+      }
+      Closure closure = (Closure) state.findFunctionIfExists(inlinedClosure.function);
+      if(!inlinedClosure.assumptions.test(context, closure.getEnclosingEnvironment())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if {@code actual} can be used in place of the function {@code expected} to which a
+   * symbol was resolved during compilation. Builtins are shared by all sessions, but closures are
+   * copied when a session is forked, so closures are compared by their formals and body.
+   */
+  private static boolean sameDefinition(Function expected, Function actual) {
+    if(expected == actual) {
+      return true;
+    }
+    if(expected instanceof Closure && actual instanceof Closure) {
+      Closure expectedClosure = (Closure) expected;
+      Closure actualClosure = (Closure) actual;
+      return expectedClosure.getFormals() == actualClosure.getFormals() &&
+             expectedClosure.getBody() == actualClosure.getBody();
+    }
+    return false;
+  }
+}
@@ -19,13 +19,18 @@
 package org.renjin.compiler.ir.tac;
 
 import org.renjin.compiler.NotCompilableException;
+import org.renjin.compiler.ir.ValueBounds;
 import org.renjin.compiler.ir.exception.InvalidSyntaxException;
 import org.renjin.eval.Context;
 import org.renjin.packaging.SerializedPromise;
+import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.repackaged.guava.collect.Maps;
+import org.renjin.repackaged.guava.collect.Sets;
 import org.renjin.sexp.*;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Provides access to the runtime environment at the moment of compilation,
@@ -33,6 +38,12 @@ import java.util.Map;
  * in the runtime.
  */
 public class RuntimeState {
+
+  /**
+   * The maximum number of promises followed when peeking at the value of an argument.
+   */
+  private static final int MAX_PEEK_DEPTH = 10;
+
   private Context context;
   private Environment rho;
 
@@ -44,13 +55,71 @@ public class RuntimeState {
    */
   private Map<Symbol, Function> resolvedFunctions = Maps.newHashMap();
 
+  /**
+   * Bounds of the variables read from the environment at the moment of compilation. 
+   * A {@code null} value indicates that the variable was unbound.
+   */
+  private Map<Symbol, ValueBounds> variableBounds = Maps.newHashMap();
+
+  /**
+   * Arguments of the closure which were bound to unevaluated promises at the moment of compilation,
+   * and which are forced by the compiled code itself. Their bounds are recorded in {@code variableBounds}.
+   */
+  private Set<Symbol> promisedArguments = Sets.newHashSet();
+
+  /**
+   * States of closures inlined into this body, which make their own
+   * assumptions about their enclosing environments.
+   */
+  private List<RuntimeState> inlinedStates = Lists.newArrayList();
+
+  /**
+   * The state into which this closure is being inlined, or {@code null}
+   */
+  private RuntimeState parent;
+
+  /**
+   * The closure being compiled or inlined, or {@code null} if this state is 
+   * compiling a top-level expression or loop.
+   */
+  private Closure closure;
+
   public RuntimeState(Context context, Environment rho) {
     this.context = context;
     this.rho = rho;
   }
 
-  public RuntimeState(RuntimeState parentState, Environment enclosingEnvironment) {
-    this(parentState.context, enclosingEnvironment);
+  /**
+   * Creates a new state for compiling the body of {@code closure}, evaluated in the
+   * function environment {@code rho}
+   */
+  public RuntimeState(Context context, Environment rho, Closure closure) {
+    this(context, rho);
+    this.closure = closure;
+  }
+
+  /**
+   * Creates a new state for inlining {@code closure} into the code compiled by {@code parentState}
+   */
+  public RuntimeState(RuntimeState parentState, Closure closure) {
+    this(parentState.context, closure.getEnclosingEnvironment(), closure);
+    this.parent = parentState;
+    parentState.inlinedStates.add(this);
+  }
+
+  /**
+   * @return true if {@code closure} is already being compiled or inlined by this state or
+   * one of its parents.
+   */
+  public boolean isCompiling(Closure closure) {
+    RuntimeState state = this;
+    while(state != null) {
+      if(state.closure == closure) {
+        return true;
+      }
+      state = state.parent;
+    }
+    return false;
   }
 
   public PairList getEllipsesVariable() {
@@ -73,9 +142,109 @@ public class RuntimeState {
         throw new NotCompilableException(name, "Unevaluated promise encountered");
       }
     }
+    if(value == Symbol.UNBOUND_VALUE) {
+      variableBounds.put(name, null);
+    } else {
+      variableBounds.put(name, ValueBounds.typeOf(value));
+    }
     return value;
   }
 
+  /**
+   * Checks whether {@code name} is an argument of the closure being compiled that is still bound to
+   * an unevaluated promise. Such arguments must be forced by the compiled code where they are read,
+   * in the same order as the interpreter would force them, rather than being read on entry.
+   *
+   * <p>The compiled code is specialized to the type of the value to which the promise is expected to
+   * evaluate, which is determined, without evaluating any code, from the promise's expression.</p>
+   *
+   * @return true if {@code name} is a promised argument, whose expected bounds are then available
+   * through {@link #getVariableBounds(Symbol)}
+   * @throws NotCompilableException if the value of the promise cannot be determined without evaluating it
+   */
+  public boolean isPromisedArgument(Symbol name) {
+    if(promisedArguments.contains(name)) {
+      return true;
+    }
+    if(closure == null || parent != null || !isFormal(name)) {
+      return false;
+    }
+    SEXP binding = rho.getVariable(name);
+    if(!(binding instanceof Promise) || ((Promise) binding).isEvaluated()) {
+      return false;
+    }
+    SEXP value = peekValue(binding);
+    if(!(value instanceof AtomicVector) || value.hasAttributes()) {
+      throw new NotCompilableException(name, "Value of promised argument '" + name + "' cannot be determined " +
+          "without evaluating it");
+    }
+    promisedArguments.add(name);
+    variableBounds.put(name, ValueBounds.typeOf(value));
+    return true;
+  }
+
+  private boolean isFormal(Symbol name) {
+    for (PairList.Node formal : closure.getFormals().nodes()) {
+      if(formal.getTag() == name) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determines the value of a binding without evaluating any code or causing any other side effects:
+   * promises are followed only when their expressions are constants or symbols bound, in turn, to
+   * values or promises that can be followed.
+   *
+   * @return the value, or {@code null} if it cannot be determined without evaluating a promise.
+   */
+  public static SEXP peekValue(SEXP binding) {
+    for (int depth = 0; depth < MAX_PEEK_DEPTH; depth++) {
+      if(!(binding instanceof Promise)) {
+        return binding;
+      }
+      Promise promise = (Promise) binding;
+      if(promise.isEvaluated()) {
+        return promise.getValue();
+      }
+      if(promise.getClass() != Promise.class) {
+        // Serialized and other special promises compute their values by other means
+        return null;
+      }
+      SEXP expression = promise.getExpression();
+      if(expression instanceof FunctionCall ||
+         expression instanceof ExpressionVector ||
+         expression instanceof Promise) {
+        return null;
+      }
+      if(!(expression instanceof Symbol)) {
+        return expression;
+      }
+      Symbol symbol = (Symbol) expression;
+      if(symbol == Symbol.MISSING_ARG || symbol == Symbols.ELLIPSES || symbol.isVarArgReference()) {
+        return null;
+      }
+      binding = promise.getEnvironment().findVariable(symbol);
+      if(binding == Symbol.UNBOUND_VALUE || binding == Symbol.MISSING_ARG) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the bounds of the value to which {@code name} was bound when it was
+   * read through {@link #findVariable(Symbol)}, or the expected bounds of a promised argument.
+   */
+  public ValueBounds getVariableBounds(Symbol name) {
+    ValueBounds bounds = variableBounds.get(name);
+    if(bounds == null) {
+      throw new IllegalStateException("Variable " + name + " has not been read or was unbound");
+    }
+    return bounds;
+  }
+
 
   public Function findFunction(Symbol functionName) {
 
@@ -140,4 +309,32 @@ public class RuntimeState {
   public Map<Symbol, Function> getResolvedFunctions() {
     return resolvedFunctions;
   }
+
+  /**
+   * @return an immutable record of all the assumptions made about the runtime environment
+   * so far, which can be re-tested before reusing code compiled under these assumptions.
+   */
+  public RuntimeAssumptions getAssumptions() {
+    return new RuntimeAssumptions(this);
+  }
+
+  Closure getClosure() {
+    return closure;
+  }
+
+  Map<Symbol, ValueBounds> getVariableBounds() {
+    return variableBounds;
+  }
+
+  /**
+   * @return the arguments which are forced by the compiled code, as determined by
+   * {@link #isPromisedArgument(Symbol)}.
+   */
+  public Set<Symbol> getPromisedArguments() {
+    return promisedArguments;
+  }
+
+  List<RuntimeState> getInlinedStates() {
+    return inlinedStates;
+  }
 }
@@ -76,6 +76,14 @@ public class BuiltinCall implements CallExpression {
     return false;
   }
 
+  /**
+   * @return true if the specialization chosen for this call, apart from the evaluation
+   * of its arguments, has no side effects.
+   */
+  public boolean isSpecializationPure() {
+    return specialization.isPure();
+  }
+
 
   @Override
   public int load(EmitContext emitContext, InstructionAdapter mv) {
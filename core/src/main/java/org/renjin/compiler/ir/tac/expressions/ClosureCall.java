@@ -73,6 +73,9 @@ public class ClosureCall implements Expression {
   public ValueBounds updateTypeBounds(Map<Expression, ValueBounds> typeMap) {
 
     if(inlinedFunction == null) {
+      if(runtimeState.isCompiling(closure)) {
+        throw new NotCompilableException(call, "Recursive calls cannot be inlined");
+      }
       try {
         this.inlinedFunction = new InlinedFunction(runtimeState, closure, this.matching.getSuppliedFormals());
       } catch (NotCompilableException e) {
@@ -86,7 +89,7 @@ public class ClosureCall implements Expression {
     
     for (int i = 0; i < arguments.size(); i++) {
       Expression argumentExpr = arguments.get(i).getExpression();
-      ValueBounds argumentBounds = typeMap.get(argumentExpr);
+      ValueBounds argumentBounds = argumentExpr.updateTypeBounds(typeMap);
       inlinedFunction.updateParam(i, argumentBounds);
     }
     
@@ -85,6 +85,9 @@ public final class Constant implements SimpleExpression {
     } else if (type.equals(Type.getType(String.class))) {
       mv.aconst(((AtomicVector) value).getElementAsString(0));
 
+    } else if (value == Null.INSTANCE) {
+      mv.getstatic(Type.getInternalName(Null.class), "INSTANCE", Type.getDescriptor(Null.class));
+
     } else {
       throw new UnsupportedOperationException("type: " + type);
     }
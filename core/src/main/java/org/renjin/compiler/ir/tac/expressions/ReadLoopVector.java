@@ -20,6 +20,7 @@ package org.renjin.compiler.ir.tac.expressions;
 
 import org.renjin.compiler.codegen.EmitContext;
 import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.primitives.sequence.IntSequence;
 import org.renjin.repackaged.asm.Type;
 import org.renjin.repackaged.asm.commons.InstructionAdapter;
 import org.renjin.sexp.SEXP;
@@ -36,7 +37,20 @@ public class ReadLoopVector implements Expression {
   }
 
   public ReadLoopVector(SEXP elements) {
-    bounds = ValueBounds.of(elements);
+    bounds = boundsOf(elements);
+  }
+
+  /**
+   * Integer sequences are treated as constants so that elements can be computed
+   * directly from the counter; other vectors are specialized only to their type, so that
+   * the compiled body can be reused for other sequences of the same type.
+   */
+  public static ValueBounds boundsOf(SEXP elements) {
+    if(elements instanceof IntSequence) {
+      return ValueBounds.of(elements);
+    } else {
+      return ValueBounds.typeOf(elements);
+    }
   }
 
   @Override
@@ -0,0 +1,133 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.ir.tac.expressions;
+
+import org.renjin.compiler.DeoptimizationException;
+import org.renjin.compiler.codegen.EmitContext;
+import org.renjin.compiler.ir.TypeSet;
+import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.eval.Context;
+import org.renjin.repackaged.asm.Opcodes;
+import org.renjin.repackaged.asm.Type;
+import org.renjin.repackaged.asm.commons.InstructionAdapter;
+import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Symbol;
+
+import java.util.Map;
+
+/**
+ * Reads an argument of the closure that is bound to a promise, forcing the promise
+ * if it has not yet been evaluated.
+ *
+ * <p>The value of the promise cannot be known at compile time, so the compiled code is specialized
+ * to the type of the value to which the promise was expected to evaluate, and the forced value is
+ * checked against these bounds. If the check fails, a {@link DeoptimizationException} is thrown, and
+ * the call is evaluated by the interpreter instead.</p>
+ */
+public class ReadPromisedArgument implements Expression {
+
+  private Symbol name;
+  private ValueBounds valueBounds;
+
+  public ReadPromisedArgument(Symbol name, ValueBounds valueBounds) {
+    this.name = name;
+    this.valueBounds = valueBounds;
+  }
+
+  @Override
+  public boolean isDefinitelyPure() {
+    return false;
+  }
+
+  @Override
+  public int load(EmitContext emitContext, InstructionAdapter mv) {
+    mv.visitVarInsn(Opcodes.ALOAD, emitContext.getContextVarIndex());
+    mv.visitVarInsn(Opcodes.ALOAD, emitContext.getEnvironmentVarIndex());
+    mv.visitLdcInsn(name.getPrintName());
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(Symbol.class), "get",
+        Type.getMethodDescriptor(Type.getType(Symbol.class), Type.getType(String.class)), false);
+    mv.iconst(valueBounds.getTypeSet());
+    mv.iconst(valueBounds.getLength());
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ReadPromisedArgument.class), "force",
+        Type.getMethodDescriptor(Type.getType(SEXP.class),
+            Type.getType(Context.class), Type.getType(Environment.class), Type.getType(Symbol.class),
+            Type.INT_TYPE, Type.INT_TYPE), false);
+    return 5;
+  }
+
+  /**
+   * Forces the argument {@code name} and checks that its value is an atomic vector without attributes,
+   * of the given types and length.
+   *
+   * <p>Called by compiled code.</p>
+   *
+   * @throws DeoptimizationException if the value does not match
+   */
+  public static SEXP force(Context context, Environment rho, Symbol name, int typeSet, int length) {
+    SEXP value = rho.findVariable(name).force(context);
+    if(!(value instanceof AtomicVector) ||
+        value.hasAttributes() ||
+        (TypeSet.of(value) & ~typeSet) != 0 ||
+        (length != ValueBounds.UNKNOWN_LENGTH && value.length() != length)) {
+      throw new DeoptimizationException("Argument '" + name + "' does not have the expected type");
+    }
+    return value;
+  }
+
+  @Override
+  public Type getType() {
+    return Type.getType(SEXP.class);
+  }
+
+  @Override
+  public ValueBounds updateTypeBounds(Map<Expression, ValueBounds> typeMap) {
+    return valueBounds;
+  }
+
+  @Override
+  public ValueBounds getValueBounds() {
+    return valueBounds;
+  }
+
+  public Symbol getName() {
+    return name;
+  }
+
+  @Override
+  public void setChild(int childIndex, Expression child) {
+    throw new IllegalArgumentException();
+  }
+
+  @Override
+  public int getChildCount() {
+    return 0;
+  }
+
+  @Override
+  public Expression childAt(int index) {
+    throw new IllegalArgumentException();
+  }
+
+  @Override
+  public String toString() {
+    return "force(" + name + " = " + valueBounds + ")";
+  }
+}
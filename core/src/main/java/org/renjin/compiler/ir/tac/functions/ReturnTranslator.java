@@ -18,6 +18,7 @@
  */
 package org.renjin.compiler.ir.tac.functions;
 
+import org.renjin.compiler.NotCompilableException;
 import org.renjin.compiler.ir.tac.IRBodyBuilder;
 import org.renjin.compiler.ir.tac.expressions.Constant;
 import org.renjin.compiler.ir.tac.expressions.Expression;
@@ -36,6 +37,11 @@ public class ReturnTranslator extends FunctionCallTranslator {
   public void addStatement(IRBodyBuilder builder, TranslationContext context,
                            Function resolvedFunction, FunctionCall call) {
 
+    if(isInLoopBody(context)) {
+      // The compiled loop would exit, but not the function in which it is running
+      throw new NotCompilableException(call, "return() within a compiled loop");
+    }
+
     Expression returnExpression;
     if(call.getArguments().length() == 1) {
       returnExpression = builder.translateExpression(context, call.getArgument(0));
@@ -44,4 +50,11 @@ public class ReturnTranslator extends FunctionCallTranslator {
     }
     builder.addStatement(new ReturnStatement(returnExpression));
   }
+
+  private boolean isInLoopBody(TranslationContext context) {
+    while(context instanceof LoopContext) {
+      context = ((LoopContext) context).getParentContext();
+    }
+    return context instanceof LoopBodyContext;
+  }
 }
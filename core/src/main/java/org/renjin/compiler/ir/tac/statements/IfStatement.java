@@ -18,10 +18,12 @@
  */
 package org.renjin.compiler.ir.tac.statements;
 
+import org.renjin.compiler.NotCompilableException;
 import org.renjin.compiler.codegen.EmitContext;
 import org.renjin.compiler.codegen.VariableStorage;
 import org.renjin.compiler.ir.tac.IRLabel;
 import org.renjin.compiler.ir.tac.expressions.CmpGE;
+import org.renjin.compiler.ir.tac.expressions.Constant;
 import org.renjin.compiler.ir.tac.expressions.Expression;
 import org.renjin.compiler.ir.tac.expressions.LValue;
 import org.renjin.eval.EvalException;
@@ -169,11 +171,25 @@ public class IfStatement implements Statement, BasicBlockEndingStatement {
       if (storage.getType().equals(Type.BOOLEAN_TYPE) ||
           storage.getType().equals(Type.INT_TYPE)) {
         mv.visitVarInsn(Opcodes.ILOAD, storage.getSlotIndex());
-        mv.visitJumpInsn(IFEQ, emitContext.getAsmLabel(trueTarget));
+        mv.visitJumpInsn(IFEQ, emitContext.getAsmLabel(falseTarget));
+        mv.visitJumpInsn(GOTO, emitContext.getAsmLabel(trueTarget));
+      } else {
+        throw new NotCompilableException(Null.INSTANCE, "Unsupported condition type: " + storage.getType());
+      }
+
+    } else if (condition instanceof Constant) {
+      Logical value = toLogical(((Constant) condition).getValue());
+      if(value == Logical.TRUE) {
+        mv.visitJumpInsn(GOTO, emitContext.getAsmLabel(trueTarget));
+      } else if(value == Logical.FALSE) {
         mv.visitJumpInsn(GOTO, emitContext.getAsmLabel(falseTarget));
+      } else if(naTarget != null) {
+        mv.visitJumpInsn(GOTO, emitContext.getAsmLabel(naTarget));
       } else {
-        throw new UnsupportedOperationException("TODO: " + storage.getType());
+        throw new NotCompilableException(((Constant) condition).getValue(), "Condition is NA");
       }
+    } else {
+      throw new NotCompilableException(Null.INSTANCE, "Unsupported condition: " + condition);
     }
 
     return stackSizeIncrease;
@@ -118,18 +118,7 @@ public class ReturnStatement implements Statement, BasicBlockEndingStatement {
         mv.aconst(environmentVariableNames.get(i).getPrintName());
         
         mv.load(variableStorage.getSlotIndex(), variableStorage.getType());
-        emitContext.convert(mv, variableStorage.getType(), Type.getType(SEXP.class));
-
-        if(variableStorage.getType().getSort() != Type.OBJECT) {
-          ValueBounds bounds = environmentVariables.get(i).getValueBounds();
-          if(bounds.isAttributeConstant()) {
-            if(bounds.getConstantAttributes() != AttributeMap.EMPTY) {
-              generateAttributes(mv, bounds.getConstantAttributes());
-            } 
-          } else {
-            throw new UnsupportedOperationException("Lost attributes");
-          }
-        }
+        convertToSexp(emitContext, mv, variableStorage.getType(), environmentVariables.get(i).getValueBounds());
 
         mv.invokevirtual(Type.getInternalName(Environment.class), "setVariable",
             Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(String.class), Type.getType(SEXP.class)), false);
@@ -137,10 +126,30 @@ public class ReturnStatement implements Statement, BasicBlockEndingStatement {
       }
     }
     
-    mv.areturn(Type.VOID_TYPE);
+    if(emitContext.getReturnType().equals(Type.VOID_TYPE)) {
+      mv.areturn(Type.VOID_TYPE);
+    } else {
+      returnValue.load(emitContext, mv);
+      convertToSexp(emitContext, mv, returnValue.getType(), returnValue.getValueBounds());
+      mv.areturn(Type.getType(SEXP.class));
+    }
     return 0;
   }
 
+  private void convertToSexp(EmitContext emitContext, InstructionAdapter mv, Type type, ValueBounds bounds) {
+    emitContext.convert(mv, type, Type.getType(SEXP.class));
+
+    if(type.getSort() != Type.OBJECT) {
+      if(bounds.isAttributeConstant()) {
+        if(bounds.getConstantAttributes() != AttributeMap.EMPTY) {
+          generateAttributes(mv, bounds.getConstantAttributes());
+        }
+      } else {
+        throw new UnsupportedOperationException("Lost attributes");
+      }
+    }
+  }
+
   private void generateAttributes(InstructionAdapter mv, AttributeMap constantAttributes) {
     
     // SEXP should be on the stack
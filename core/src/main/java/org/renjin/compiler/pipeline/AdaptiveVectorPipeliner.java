@@ -0,0 +1,129 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.primitives.vector.MemoizedDoubleVector;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.LogicalVector;
+import org.renjin.sexp.Vector;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Chooses between serial and parallel materialization for each graph, based on
+ * an estimate of the graph's cost.
+ *
+ * <p>The cost of a graph is estimated as the total number of elements computed by its nodes,
+ * roughly vector length × node count. Graphs below the threshold are computed on the calling thread,
+ * so that small computations don't pay the latency of handing work off to other threads. Larger graphs
+ * with several independent summaries are computed with the {@link MultiThreadedVectorPipeliner}, and
+ * larger graphs with a single summary, like {@code sum(x^2)}, are split into chunks by the
+ * {@link ForkJoinVectorPipeliner}.</p>
+ */
+public class AdaptiveVectorPipeliner implements VectorPipeliner {
+
+  /**
+   * The default minimum estimated cost, in elements, for which a graph is computed in parallel.
+   */
+  public static final long DEFAULT_PARALLEL_THRESHOLD = 1000000;
+
+  private final long parallelThreshold;
+
+  private final SimpleVectorPipeliner serial;
+  private final MultiThreadedVectorPipeliner multiThreaded;
+  private final ForkJoinVectorPipeliner forkJoin;
+
+  public AdaptiveVectorPipeliner(int threads) {
+    this(threads, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * @param threads the number of worker threads to use for parallel materialization
+   * @param parallelThreshold the minimum estimated cost, in elements, for which a graph is
+   *                          computed in parallel
+   */
+  public AdaptiveVectorPipeliner(int threads, long parallelThreshold) {
+    if(threads < 1) {
+      throw new IllegalArgumentException("threads must be positive");
+    }
+    this.parallelThreshold = parallelThreshold;
+
+    // The pool's worker threads are daemon threads which are only started on demand, and
+    // retired again when idle, so there is no need to shut down the pool with the Session.
+    ForkJoinPool pool = new ForkJoinPool(threads);
+
+    this.serial = new SimpleVectorPipeliner();
+    this.multiThreaded = new MultiThreadedVectorPipeliner(pool);
+    this.forkJoin = new ForkJoinVectorPipeliner(pool);
+  }
+
+  @Override
+  public Vector materialize(DeferredComputation root) {
+    DeferredGraph graph = new DeferredGraph(root);
+
+    if(estimateCost(graph) < parallelThreshold) {
+      return serial.materialize(graph);
+    } else if(countMemoized(graph) > 1) {
+      return multiThreaded.materialize(graph);
+    } else {
+      return forkJoin.materialize(graph);
+    }
+  }
+
+  @Override
+  public Vector simplify(DeferredComputation root) {
+    Vector vector = materialize(root);
+    if(vector instanceof MemoizedDoubleVector) {
+      return vector;
+    } else if(vector.isDeferred() && vector instanceof DoubleVector) {
+      return DoubleArrayVector.unsafe(((DoubleVector) vector).toDoubleArray(), vector.getAttributes());
+    } else if(vector.isDeferred() && vector instanceof LogicalVector) {
+      return DeferredNodeComputer.pack((LogicalVector) vector);
+    } else {
+      return vector;
+    }
+  }
+
+  /**
+   * @return the total number of elements computed by the graph's nodes
+   */
+  static long estimateCost(DeferredGraph graph) {
+    long cost = 0;
+    for (DeferredNode node : graph.getNodes()) {
+      if(node.isComputation()) {
+        for (DeferredNode operand : node.getOperands()) {
+          cost += operand.getVector().length();
+        }
+      }
+    }
+    return cost;
+  }
+
+  private static int countMemoized(DeferredGraph graph) {
+    int count = 0;
+    for (DeferredNode node : graph.getNodes()) {
+      if(node.isMemoized() && !node.isComputed()) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
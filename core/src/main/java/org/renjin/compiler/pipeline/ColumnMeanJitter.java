@@ -0,0 +1,44 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * Computes the means of the columns of a matrix, given the matrix and the number of rows as operands.
+ * Columns containing NA or NaN values have a mean of NA.
+ */
+public class ColumnMeanJitter extends ColumnSumJitter {
+
+  @Override
+  public double[] combine(DeferredNode node, double[] partialResult) {
+    return finish(partialResult, node.getOperand(0).getVector().length());
+  }
+
+  public static double[] finish(double[] sums, int length) {
+    for (int i = 0; i < sums.length; i++) {
+      if(Double.isNaN(sums[i])) {
+        sums[i] = DoubleVector.NA;
+      } else {
+        sums[i] = sums[i] / (length / sums.length);
+      }
+    }
+    return sums;
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.Accessors;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.DoubleVector;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Computes the sums of the columns of a matrix, given the matrix and the number of rows as operands.
+ * Columns containing NA or NaN values sum to NA.
+ */
+public class ColumnSumJitter extends ReductionJitter<double[]> {
+
+  @Override
+  public KernelType<double[]> getKernelType() {
+    return KernelType.DOUBLE;
+  }
+
+  @Override
+  protected void writeReduction(ComputeMethod method, InputGraph inputGraph, DeferredNode node,
+                                Accessor matrix, int startLocal, int endLocal) {
+
+    Accessor numRows = Accessors.create(node.getOperand(1), inputGraph);
+    numRows.init(method);
+
+    MethodVisitor mv = method.getVisitor();
+    int sumsLocal = method.reserveLocal(1);
+    int numRowsLocal = method.reserveLocal(1);
+    int rowLocal = method.reserveLocal(1);
+    int colLocal = method.reserveLocal(1);
+
+    mv.visitInsn(ICONST_0);
+    numRows.pushInt(method);
+    mv.visitVarInsn(ISTORE, numRowsLocal);
+
+    // sums = new double[length / numRows]
+    matrix.pushLength(method);
+    mv.visitVarInsn(ILOAD, numRowsLocal);
+    mv.visitInsn(IDIV);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    mv.visitVarInsn(ASTORE, sumsLocal);
+
+    // start at the cell of the first element in our range
+    mv.visitVarInsn(ILOAD, startLocal);
+    mv.visitVarInsn(ILOAD, numRowsLocal);
+    mv.visitInsn(IREM);
+    mv.visitVarInsn(ISTORE, rowLocal);
+    mv.visitVarInsn(ILOAD, startLocal);
+    mv.visitVarInsn(ILOAD, numRowsLocal);
+    mv.visitInsn(IDIV);
+    mv.visitVarInsn(ISTORE, colLocal);
+
+    Loop loop = new Loop(method, startLocal, endLocal);
+
+    // sums[col] += x[i]
+    mv.visitVarInsn(ALOAD, sumsLocal);
+    mv.visitVarInsn(ILOAD, colLocal);
+    mv.visitInsn(DUP2);
+    mv.visitInsn(DALOAD);
+    loop.pushElement(method, matrix);
+    mv.visitInsn(DADD);
+    mv.visitInsn(DASTORE);
+
+    // advance to the next row, moving to the next column at the end of this one
+    mv.visitIincInsn(rowLocal, 1);
+    mv.visitVarInsn(ILOAD, rowLocal);
+    mv.visitVarInsn(ILOAD, numRowsLocal);
+    Label nextElement = new Label();
+    mv.visitJumpInsn(IF_ICMPNE, nextElement);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, rowLocal);
+    mv.visitIincInsn(colLocal, 1);
+    mv.visitLabel(nextElement);
+
+    loop.end();
+
+    mv.visitVarInsn(ALOAD, sumsLocal);
+  }
+
+  @Override
+  public double[] merge(double[] x, double[] y) {
+    return SumJitter.add(x, y);
+  }
+
+  @Override
+  protected boolean hasFinish() {
+    return true;
+  }
+
+  @Override
+  public double[] combine(DeferredNode node, double[] partialResult) {
+    return finish(partialResult, node.getOperand(0).getVector().length());
+  }
+
+  public static double[] finish(double[] sums, int length) {
+    for (int i = 0; i < sums.length; i++) {
+      if(Double.isNaN(sums[i])) {
+        sums[i] = DoubleVector.NA;
+      }
+    }
+    return sums;
+  }
+}
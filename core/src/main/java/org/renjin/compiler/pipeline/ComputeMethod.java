@@ -21,14 +21,27 @@ package org.renjin.compiler.pipeline;
 import org.renjin.repackaged.asm.MethodVisitor;
 
 public class ComputeMethod {
-  private int localCount = 2; // includes instance pointer and argument
+  private int localCount; // includes instance pointer and arguments
 
   private MethodVisitor visitor;
   private int maxStackSize = 0;
   private int currentStack = 0;
 
+  /**
+   * Creates a context for the method {@code compute(Vector[] operands)}
+   */
   public ComputeMethod(MethodVisitor visitor) {
     this.visitor = visitor;
+    this.localCount = 2;
+  }
+
+  /**
+   * Creates a context for a method with {@code argumentSize} local slots
+   * for the instance pointer and arguments.
+   */
+  public ComputeMethod(MethodVisitor visitor, int argumentSize) {
+    this.visitor = visitor;
+    this.localCount = argumentSize;
   }
 
   public MethodVisitor getVisitor() {
@@ -56,6 +69,22 @@ public class ComputeMethod {
     return 1;
   }
 
+  /**
+   * @return the index of the {@code int} argument holding the start of the range
+   * to compute, for methods of the form {@code computePartial(Vector[] operands, int start, int end)}
+   */
+  public int getStartLocalIndex() {
+    return 2;
+  }
+
+  /**
+   * @return the index of the {@code int} argument holding the (exclusive) end of the range
+   * to compute, for methods of the form {@code computePartial(Vector[] operands, int start, int end)}
+   */
+  public int getEndLocalIndex() {
+    return 3;
+  }
+
   public int getMaxLocals() {
     return localCount;
   }
@@ -23,14 +23,13 @@ import org.renjin.primitives.vector.DeferredComputation;
 import org.renjin.primitives.vector.MemoizedComputation;
 import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.repackaged.guava.collect.Maps;
+import org.renjin.repackaged.guava.collect.Sets;
 import org.renjin.sexp.Vector;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.IdentityHashMap;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.*;
 
 /**
  * Directed, acyclic graph (DAG) of a deferred computation.
@@ -42,10 +41,16 @@ import java.util.ListIterator;
 public class DeferredGraph {
 
   private DeferredNode rootNode;
-  private List<DeferredNode> nodes = Lists.newArrayList();
+  private Set<DeferredNode> nodes = Sets.newLinkedHashSet();
   private int nextNodeId = 1;
   private IdentityHashMap<Vector, DeferredNode> nodeMap = Maps.newIdentityHashMap();
 
+  /**
+   * Hash-consing table of nodes, keyed by their structure, so that equivalent nodes
+   * can be merged without scanning the graph.
+   */
+  private Map<DeferredNode.Key, DeferredNode> nodeTable = Maps.newHashMap();
+
   public DeferredGraph(DeferredComputation root) {
     this.rootNode = new DeferredNode(nextNodeId(), root);
     nodes.add(rootNode);
@@ -78,10 +83,17 @@ public class DeferredGraph {
   }
 
   private DeferredNode tryMerge(DeferredNode newNode) {
-    for(DeferredNode node : nodeMap.values()) {
-      if(node.equivalent(newNode)) {
-        return node;
+    DeferredNode.Key key = newNode.equivalenceKey();
+    if(key != null) {
+      DeferredNode existing = nodeTable.get(key);
+      if(existing != null) {
+        // Discard the new node: its operands are now only used by the existing node
+        for(DeferredNode operand : newNode.getOperands()) {
+          operand.removeUse(newNode);
+        }
+        return existing;
       }
+      nodeTable.put(key, newNode);
     }
     nodes.add(newNode);
     return newNode;
@@ -133,39 +145,46 @@ public class DeferredGraph {
     return rootNode;
   }
 
-  public List<DeferredNode> getNodes() {
+  public Collection<DeferredNode> getNodes() {
     return nodes;
   }
 
+  public boolean contains(DeferredNode node) {
+    return nodes.contains(node);
+  }
+
   public void replaceNode(DeferredNode toReplace, DeferredNode replacementValue) {
     nodes.remove(toReplace);
-    if(!nodes.contains(replacementValue)) {
-      nodes.add(replacementValue);
-    }
+    nodes.add(replacementValue);
 
     for(DeferredNode operand : toReplace.getOperands()) {
       operand.removeUse(toReplace);
     }
 
-    for(DeferredNode node : nodes) {
-      node.replaceOperand(toReplace, replacementValue);
-      node.replaceUse(toReplace, replacementValue);
+    // Only the nodes which use the replaced node need to be updated
+    for(DeferredNode user : Lists.newArrayList(toReplace.getUses())) {
+      user.replaceOperand(toReplace, replacementValue);
     }
   }
 
   private void removeOrphans() {
-    boolean removing;
-    do {
-      removing = false;
-      ListIterator<DeferredNode> it = nodes.listIterator();
-      while(it.hasNext()) {
-        DeferredNode node = it.next();
-        if(node != rootNode && !node.isUsed()) {
-          removing = true;
-          it.remove();
+    Deque<DeferredNode> orphans = new ArrayDeque<>();
+    for(DeferredNode node : nodes) {
+      if(node != rootNode && !node.isUsed()) {
+        orphans.add(node);
+      }
+    }
+    while(!orphans.isEmpty()) {
+      DeferredNode orphan = orphans.pop();
+      if(nodes.remove(orphan)) {
+        for(DeferredNode operand : orphan.getOperands()) {
+          operand.removeUse(orphan);
+          if(operand != rootNode && !operand.isUsed()) {
+            orphans.push(operand);
+          }
         }
       }
-    } while(removing);
+    }
   }
 
 }
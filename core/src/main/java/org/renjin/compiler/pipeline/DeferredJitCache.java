@@ -21,20 +21,51 @@ package org.renjin.compiler.pipeline;
 import org.renjin.repackaged.guava.cache.Cache;
 import org.renjin.repackaged.guava.cache.CacheBuilder;
 
+import java.io.File;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Maintains a cache of recently used JITted classes.
+ *
+ * <p>Optionally, the generated classes can also be stored in a directory on disk,
+ * so that they can be reused by later JVM instances. This can be enabled with the JVM flag
+ * -Drenjin.jit.cache.dir=/path/to/cache, or by calling {@link #setPersistentDirectory(File)}.</p>
  */
 public class DeferredJitCache {
 
+  private static final Logger LOGGER = Logger.getLogger(DeferredJitCache.class.getName());
+
   public static final DeferredJitCache INSTANCE = new DeferredJitCache();
 
   private final Cache<JitKey, JittedComputation> cache;
 
+  private volatile PersistentJitCache persistentCache;
+
   private DeferredJitCache() {
+    this(System.getProperty("renjin.jit.cache.dir") == null ? null :
+        new File(System.getProperty("renjin.jit.cache.dir")));
+  }
+
+  DeferredJitCache(File persistentDirectory) {
     cache = CacheBuilder.newBuilder()
             .softValues()
             .maximumSize(100)
             .build();
+
+    setPersistentDirectory(persistentDirectory);
+  }
+
+  /**
+   * Sets the directory in which to store generated classes, or {@code null} to
+   * keep generated classes only in memory.
+   */
+  public void setPersistentDirectory(File directory) {
+    if(directory == null) {
+      persistentCache = null;
+    } else {
+      persistentCache = new PersistentJitCache(directory);
+    }
   }
 
   public JittedComputation compile(DeferredNode node) {
@@ -43,10 +74,34 @@ public class DeferredJitCache {
     if(computation != null) {
       return computation;
     }
-    DeferredJitter jitter = new DeferredJitter();
-    computation = jitter.compile(node);
+    PersistentJitCache persistentCache = this.persistentCache;
+    if(persistentCache == null) {
+      DeferredJitter jitter = new DeferredJitter();
+      computation = jitter.compile(node);
+    } else {
+      computation = compile(persistentCache, key, node);
+    }
     cache.put(key, computation);
 
     return computation;
   }
+
+  private JittedComputation compile(PersistentJitCache persistentCache, JitKey key, DeferredNode node) {
+    String className = persistentCache.className(key);
+
+    byte[] classBytes = persistentCache.read(className);
+    if(classBytes != null) {
+      try {
+        return DeferredJitter.newInstance(className, classBytes);
+      } catch (LinkageError e) {
+        LOGGER.log(Level.WARNING, "Discarding invalid JIT cache entry " + className, e);
+        persistentCache.remove(className);
+      }
+    }
+
+    classBytes = new DeferredJitter(className).generate(node);
+    persistentCache.write(className, classBytes);
+
+    return DeferredJitter.newInstance(className, classBytes);
+  }
 }
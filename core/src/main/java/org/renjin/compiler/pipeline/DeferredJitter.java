@@ -22,9 +22,12 @@ import org.renjin.compiler.JitClassLoader;
 import org.renjin.repackaged.asm.ClassVisitor;
 import org.renjin.repackaged.asm.ClassWriter;
 import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
 import org.renjin.repackaged.asm.tree.MethodNode;
 import org.renjin.repackaged.asm.util.Textifier;
 import org.renjin.repackaged.asm.util.TraceMethodVisitor;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.LogicalVector;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -62,9 +65,15 @@ import static org.renjin.repackaged.asm.Opcodes.*;
  *
  * <p>Because we totally inline getElementAsDouble,
  * we need a new Jitted class for each combination of operators and vector classes.</p>
+ *
+ * <p>The compiled methods return an array of the function's {@link KernelType}, so that integer
+ * and logical results need not be widened to {@code double}. They are exposed to
+ * {@link JittedComputation} through bridge methods returning {@code Object}.</p>
  */
 public class DeferredJitter {
 
+  private static final Type VECTOR_ARRAY = Type.getType("[Lorg/renjin/sexp/Vector;");
+
   private String className;
   private ClassVisitor cv;
 
@@ -72,8 +81,27 @@ public class DeferredJitter {
     className = "Jit" + System.identityHashCode(this);
   }
 
+  public DeferredJitter(String className) {
+    this.className = className;
+  }
+
   public JittedComputation compile(DeferredNode node)  {
     long startTime = System.nanoTime();
+
+    byte[] classBytes = generate(node);
+    long compileTime = System.nanoTime() - startTime;
+
+    if(VectorPipeliner.DEBUG) {
+      System.out.println("compile: " + (compileTime/1e6) + "ms");
+    }
+
+    return newInstance(className, classBytes);
+  }
+
+  /**
+   * Generates the bytecode of a class implementing {@link JittedComputation} for {@code node}.
+   */
+  public byte[] generate(DeferredNode node) {
     ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
     cv = cw;
     cv.visit(V1_6, ACC_PUBLIC + ACC_SUPER, className, null, "java/lang/Object",
@@ -81,19 +109,23 @@ public class DeferredJitter {
 
     writeConstructor();
     writeCompute(node);
+    writeComputePartial(node);
 
     cv.visitEnd();
 
-    byte[] classBytes = cw.toByteArray();
-    long compileTime = System.nanoTime() - startTime;
+    return cw.toByteArray();
+  }
 
-    Class<JittedComputation> jitClass = JitClassLoader.defineClass(JittedComputation.class, className, classBytes);
+  /**
+   * Defines a class previously generated by {@link #generate(DeferredNode)}, and creates a new instance.
+   */
+  static JittedComputation newInstance(String className, byte[] classBytes) {
+    long startTime = System.nanoTime();
 
-    long loadTime = System.nanoTime() - startTime - compileTime;
+    Class<JittedComputation> jitClass = JitClassLoader.defineClass(JittedComputation.class, className, classBytes);
 
     if(VectorPipeliner.DEBUG) {
-      System.out.println("compile: " + (compileTime/1e6) + "ms");
-      System.out.println("load: " + (loadTime/1e6) + "ms");
+      System.out.println("load: " + ((System.nanoTime() - startTime)/1e6) + "ms");
     }
 
     try {
@@ -114,27 +146,71 @@ public class DeferredJitter {
   }
 
   private void writeCompute(DeferredNode node) {
-    MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "compute", "([Lorg/renjin/sexp/Vector;)[D", null, null);
+    FunctionJitter<?> function = getFunction(node);
+    String descriptor = Type.getMethodDescriptor(function.getKernelType().getType(), VECTOR_ARRAY);
+
+    MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "compute", descriptor, null, null);
     mv.visitCode();
 
     ComputeMethod methodContext = new ComputeMethod(mv);
 
-    FunctionJitter function = getFunction(node);
     function.compute(methodContext, node);
 
     mv.visitMaxs(1, methodContext.getMaxLocals());
     mv.visitEnd();
+
+    writeBridge("compute", descriptor, VECTOR_ARRAY);
   }
 
+  private void writeComputePartial(DeferredNode node) {
+    FunctionJitter<?> function = getFunction(node);
+    String descriptor = Type.getMethodDescriptor(function.getKernelType().getType(),
+        VECTOR_ARRAY, Type.INT_TYPE, Type.INT_TYPE);
+
+    MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "computePartial", descriptor, null, null);
+    mv.visitCode();
+
+    // this, operands, start, end
+    ComputeMethod methodContext = new ComputeMethod(mv, 4);
+
+    function.computePartial(methodContext, node);
+
+    mv.visitMaxs(1, methodContext.getMaxLocals());
+    mv.visitEnd();
+
+    writeBridge("computePartial", descriptor, VECTOR_ARRAY, Type.INT_TYPE, Type.INT_TYPE);
+  }
+
+  /**
+   * Writes the method implementing {@link JittedComputation}, which returns {@code Object} and
+   * delegates to the typed method with the given descriptor.
+   */
+  private void writeBridge(String name, String typedDescriptor, Type... argumentTypes) {
+    Type objectType = Type.getType(Object.class);
+    MethodVisitor mv = cv.visitMethod(ACC_PUBLIC | ACC_BRIDGE | ACC_SYNTHETIC, name,
+        Type.getMethodDescriptor(objectType, argumentTypes), null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    int local = 1;
+    for (Type argumentType : argumentTypes) {
+      mv.visitVarInsn(argumentType.getOpcode(ILOAD), local);
+      local += argumentType.getSize();
+    }
+    mv.visitMethodInsn(INVOKEVIRTUAL, className, name, typedDescriptor, false);
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(1 + local, local);
+    mv.visitEnd();
+  }
 
   private void writeComputeDebug(DeferredNode node) {
 
-    MethodNode mv = new MethodNode(ACC_PUBLIC, "compute", "([Lorg/renjin/sexp/Vector;)[D", null, null);
+    FunctionJitter<?> function = getFunction(node);
+    MethodNode mv = new MethodNode(ACC_PUBLIC, "compute",
+        Type.getMethodDescriptor(function.getKernelType().getType(), VECTOR_ARRAY), null, null);
     mv.visitCode();
 
     ComputeMethod methodContext = new ComputeMethod(mv);
 
-    FunctionJitter function = getFunction(node);
     function.compute(methodContext, node);
 
     mv.visitMaxs(1, methodContext.getMaxLocals());
@@ -164,16 +240,57 @@ public class DeferredJitter {
     }
   }
 
-  private FunctionJitter getFunction(DeferredNode node) {
-    if(node.getComputation().getComputationName().equals("mean")) {
-      return new MeanJitter();
-    } else if(node.getComputation().getComputationName().equals("rowMeans")) {
-      return new RowMeanJitter();
-    } else if(node.getComputation().getComputationName().equals("sum")) {
-      return new SumJitter();
-    } else {
+  /**
+   * @return true if {@code node}'s computation can be compiled by this class
+   */
+  public static boolean isSupported(DeferredNode node) {
+    return findFunction(node) != null;
+  }
+
+  static FunctionJitter<?> getFunction(DeferredNode node) {
+    FunctionJitter<?> function = findFunction(node);
+    if(function == null) {
       throw new UnsupportedOperationException(node.toString());
     }
+    return function;
+  }
+
+  private static FunctionJitter<?> findFunction(DeferredNode node) {
+    if(!node.isComputation()) {
+      return null;
+    }
+    if(!node.isMemoized() && node.getVector() instanceof LogicalVector) {
+      return new PackedLogicalJitter();
+    }
+    switch (node.getComputation().getComputationName()) {
+      case "mean":
+        return new MeanJitter();
+      case "rowMeans":
+        return new RowMeanJitter();
+      case "sum":
+        if(node.getVector() instanceof IntVector) {
+          return new IntSumJitter();
+        }
+        return new SumJitter();
+      case "prod":
+        return new ProdJitter();
+      case "min":
+        return new MinJitter();
+      case "max":
+        return new MaxJitter();
+      case "range":
+        return new RangeJitter();
+      case "var":
+        return new VarJitter();
+      case "rowSums":
+        return new RowSumJitter();
+      case "colSums":
+        return new ColumnSumJitter();
+      case "colMeans":
+        return new ColumnMeanJitter();
+      default:
+        return null;
+    }
   }
 
 }
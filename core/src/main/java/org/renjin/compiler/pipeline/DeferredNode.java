@@ -28,6 +28,7 @@ import org.renjin.sexp.DoubleArrayVector;
 import org.renjin.sexp.IntArrayVector;
 import org.renjin.sexp.Vector;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -118,36 +119,69 @@ public class DeferredNode {
    * @return
    */
   public boolean equivalent(DeferredNode newNode) {
-    if(!vector.getClass().equals(newNode.vector.getClass())) {
-      return false;
-    }
+    Key key = equivalenceKey();
+    return key != null && key.equals(newNode.equivalenceKey());
+  }
+
+  /**
+   * @return a key that is equal to the key of every node {@link #equivalent(DeferredNode)} to
+   * this node, or {@code null} if this node can only be merged with nodes for the same vector instance.
+   */
+  public Key equivalenceKey() {
     if(isComputation()) {
-      if(getOperands().size() != newNode.getOperands().size()) {
-        return false;
+      long[] operandIds = new long[operands.size()];
+      for (int i = 0; i < operandIds.length; i++) {
+        operandIds[i] = operands.get(i).getId();
       }
+      return new Key(vector.getClass(), operandIds);
 
-      for(int i=0;i!=getOperands().size();++i) {
-        if(getOperands().get(i).getId() != newNode.getOperands().get(i).getId()) {
-          return false;
-        }
-      }
-      return true;
     } else if(vector instanceof IntArrayVector || vector instanceof DoubleArrayVector) {
-
-      if(vector.length() != newNode.vector.length()) {
-        return false;
-      }
       if(vector.length() > 10) {
-        return false;
+        return null;
       }
-      for(int i=0;i!=vector.length();++i) {
-        if(vector.getVectorType().compareElements(vector, i, newNode.vector, i) != 0) {
-          return false;
+      long[] elements = new long[vector.length()];
+      for (int i = 0; i < elements.length; i++) {
+        if(vector instanceof IntArrayVector) {
+          elements[i] = vector.getElementAsInt(i);
+        } else {
+          elements[i] = Double.doubleToLongBits(vector.getElementAsDouble(i));
         }
       }
-      return true;
+      return new Key(vector.getClass(), elements);
+
     } else {
-      return false;
+      return null;
+    }
+  }
+
+  /**
+   * Structural identity of a node, used to merge equivalent nodes in constant time.
+   */
+  public static final class Key {
+    private final Class vectorClass;
+    private final long[] values;
+    private final int hash;
+
+    private Key(Class vectorClass, long[] values) {
+      this.vectorClass = vectorClass;
+      this.values = values;
+      this.hash = 31 * vectorClass.hashCode() + Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if(!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hash == other.hash &&
+          vectorClass.equals(other.vectorClass) &&
+          Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
     }
   }
 
@@ -234,6 +268,10 @@ public class DeferredNode {
     }
   }
 
+  Set<DeferredNode> getUses() {
+    return uses;
+  }
+
   public void removeUse(DeferredNode node) {
     uses.remove(node);
   }
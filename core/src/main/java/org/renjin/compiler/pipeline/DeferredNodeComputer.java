@@ -18,8 +18,9 @@
  */
 package org.renjin.compiler.pipeline;
 
+import org.renjin.primitives.vector.DeferredComputation;
 import org.renjin.primitives.vector.MemoizedComputation;
-import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.LogicalVector;
 import org.renjin.sexp.Vector;
 
 
@@ -39,24 +40,23 @@ public class DeferredNodeComputer implements Runnable {
     // TODO: at the moment, we can compile only a small number of summary
     // function, eventually we want to generate bytecode on the fly based
     // on their implementations elsewhere.
-    if(node.getComputation().getComputationName().equals("mean") ||
-        node.getComputation().getComputationName().equals("rowMeans") ||
-        node.getComputation().getComputationName().equals("sum")) {
+    if(DeferredJitter.isSupported(node)) {
       try {
         Vector[] operands = node.flattenVectors();
         JittedComputation computer = DeferredJitCache.INSTANCE.compile(node);
 
         long start = System.nanoTime();
 
-        Vector result = DoubleArrayVector.unsafe(computer.compute(operands));
+        Vector result = DeferredJitter.getFunction(node).getKernelType().toVector(computer.compute(operands));
 
         long time = System.nanoTime() - start;
         if(VectorPipeliner.DEBUG) {
           System.out.println("compute: " + (time/1e6) + "ms");
         }
 
-        ((MemoizedComputation)node.getVector()).setResult(result);
-        node.setResult(result);
+        MemoizedComputation memoized = (MemoizedComputation) node.getVector();
+        memoized.setResult(result);
+        node.setResult(memoized.forceResult());
       } catch(Throwable e) {
         throw new RuntimeException("Exception compiling node " + node, e);
       }
@@ -64,4 +64,20 @@ public class DeferredNodeComputer implements Runnable {
       node.setResult(((MemoizedComputation) node.getVector()).forceResult());
     }
   }
+
+  /**
+   * Packs a deferred logical vector which is not memoized into a single bit per element, computing
+   * all of its elements in one compiled loop.
+   *
+   * @return the packed vector, or {@code vector} itself if its computation cannot be compiled.
+   */
+  static Vector pack(LogicalVector vector) {
+    DeferredNode node = new DeferredGraph((DeferredComputation) vector).getRoot();
+    if(node.isMemoized() || !DeferredJitter.isSupported(node)) {
+      return vector;
+    }
+    JittedComputation computer = DeferredJitCache.INSTANCE.compile(node);
+    long[] packed = KernelType.PACKED_LOGICAL.cast(computer.compute(node.flattenVectors()));
+    return KernelType.PACKED_LOGICAL.toVector(packed, vector.getAttributes());
+  }
 }
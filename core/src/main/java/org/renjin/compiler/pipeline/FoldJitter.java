@@ -0,0 +1,82 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.repackaged.asm.MethodVisitor;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Reduces a vector to a single value by repeatedly applying a binary operation, starting
+ * from the operation's identity.
+ */
+public abstract class FoldJitter extends ReductionJitter<double[]> {
+
+  @Override
+  public KernelType<double[]> getKernelType() {
+    return KernelType.DOUBLE;
+  }
+
+  /**
+   * @return the identity of the operation
+   */
+  protected abstract double identity();
+
+  /**
+   * Writes the instructions which apply the operation to the two doubles on the top of the stack.
+   */
+  protected abstract void writeOperation(MethodVisitor mv);
+
+  /**
+   * Applies the operation to two partial results.
+   */
+  protected abstract double apply(double x, double y);
+
+  @Override
+  protected void writeReduction(ComputeMethod method, InputGraph inputGraph, DeferredNode node,
+                                Accessor input, int startLocal, int endLocal) {
+    MethodVisitor mv = method.getVisitor();
+
+    int resultLocal = method.reserveLocal(2);
+    mv.visitLdcInsn(identity());
+    mv.visitVarInsn(DSTORE, resultLocal);
+
+    Loop loop = new Loop(method, startLocal, endLocal);
+    mv.visitVarInsn(DLOAD, resultLocal);
+    loop.pushElement(method, input);
+    writeOperation(mv);
+    mv.visitVarInsn(DSTORE, resultLocal);
+    loop.end();
+
+    mv.visitInsn(ICONST_1);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    mv.visitInsn(DUP);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(DLOAD, resultLocal);
+    mv.visitInsn(DASTORE);
+  }
+
+  @Override
+  public double[] merge(double[] x, double[] y) {
+    x[0] = apply(x[0], y[0]);
+    return x;
+  }
+}
@@ -0,0 +1,179 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.eval.Profiler;
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.primitives.vector.MemoizedDoubleVector;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.LogicalVector;
+import org.renjin.sexp.Vector;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes large summary functions by splitting the input into chunks and reducing them
+ * in parallel on a {@link ForkJoinPool}.
+ *
+ * <p>Where {@link MultiThreadedVectorPipeliner} can only run independent nodes of the graph
+ * concurrently, this pipeliner parallelizes within a single computation like {@code sum(x^2)}.
+ * Each chunk computes a partial result with {@link JittedComputation#computePartial(Vector[], int, int)},
+ * and the partial results are merged at the end, so idle workers can steal the remaining chunks
+ * from busy ones.</p>
+ *
+ * <p>Note that because the elements are reduced in a different order, results may differ from
+ * those of {@link SimpleVectorPipeliner} in the last few bits.</p>
+ */
+public class ForkJoinVectorPipeliner implements VectorPipeliner {
+
+  /**
+   * The number of elements below which a chunk is computed on a single thread.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+  private final ForkJoinPool pool;
+  private final int chunkSize;
+
+  public ForkJoinVectorPipeliner() {
+    this(new ForkJoinPool());
+  }
+
+  public ForkJoinVectorPipeliner(ForkJoinPool pool) {
+    this(pool, DEFAULT_CHUNK_SIZE);
+  }
+
+  public ForkJoinVectorPipeliner(ForkJoinPool pool, int chunkSize) {
+    if(chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive");
+    }
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public Vector materialize(DeferredComputation root) {
+    return materialize(new DeferredGraph(root));
+  }
+
+  Vector materialize(DeferredGraph graph) {
+
+    long start = System.nanoTime();
+
+    if(VectorPipeliner.DEBUG) {
+      System.err.println("materialize");
+      graph.dumpGraph();
+    }
+
+    forceMemoizedValues(graph.getRoot());
+
+    if(Profiler.ENABLED) {
+      Profiler.materialized(System.nanoTime() - start);
+    }
+
+    return graph.getRoot().getVector();
+  }
+
+  @Override
+  public Vector simplify(DeferredComputation root) {
+    Vector vector = materialize(root);
+    if(vector instanceof MemoizedDoubleVector) {
+      return vector;
+    } else if(vector.isDeferred() && vector instanceof DoubleVector) {
+      return DoubleArrayVector.unsafe(((DoubleVector) vector).toDoubleArray(), vector.getAttributes());
+    } else if(vector.isDeferred() && vector instanceof LogicalVector) {
+      return DeferredNodeComputer.pack((LogicalVector) vector);
+    } else {
+      return vector;
+    }
+  }
+
+  private void forceMemoizedValues(DeferredNode node) {
+    for(DeferredNode child : node.getOperands()) {
+      forceMemoizedValues(child);
+    }
+    if(node.isMemoized() && !node.isComputed()) {
+      if(DeferredJitter.isSupported(node) && inputLength(node) >= 2 * chunkSize) {
+        computeInParallel(node);
+      } else {
+        new DeferredNodeComputer(node).run();
+      }
+    }
+  }
+
+  private void computeInParallel(DeferredNode node) {
+    Vector[] operands = node.flattenVectors();
+    JittedComputation computation = DeferredJitCache.INSTANCE.compile(node);
+
+    long start = System.nanoTime();
+
+    Vector result = computeInParallel(DeferredJitter.getFunction(node), computation, node, operands);
+
+    if(VectorPipeliner.DEBUG) {
+      System.out.println("compute: " + ((System.nanoTime() - start) / 1e6) + "ms on " +
+          pool.getParallelism() + " threads");
+    }
+
+    MemoizedComputation memoized = (MemoizedComputation) node.getVector();
+    memoized.setResult(result);
+    node.setResult(memoized.forceResult());
+  }
+
+  private <R> Vector computeInParallel(FunctionJitter<R> function, JittedComputation computation,
+                                       DeferredNode node, Vector[] operands) {
+    R partialResult = pool.invoke(new ChunkTask<>(function, computation, operands, 0, inputLength(node)));
+    return function.getKernelType().toVector(function.combine(node, partialResult), AttributeMap.EMPTY);
+  }
+
+  private static int inputLength(DeferredNode node) {
+    return node.getOperand(0).getVector().length();
+  }
+
+  private class ChunkTask<R> extends RecursiveTask<R> {
+    private final FunctionJitter<R> function;
+    private final JittedComputation computation;
+    private final Vector[] operands;
+    private final int start;
+    private final int end;
+
+    private ChunkTask(FunctionJitter<R> function, JittedComputation computation, Vector[] operands, int start, int end) {
+      this.function = function;
+      this.computation = computation;
+      this.operands = operands;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected R compute() {
+      if(end - start <= chunkSize) {
+        return function.getKernelType().cast(computation.computePartial(operands, start, end));
+      }
+      int middle = start + (end - start) / 2;
+      ChunkTask<R> left = new ChunkTask<>(function, computation, operands, start, middle);
+      ChunkTask<R> right = new ChunkTask<>(function, computation, operands, middle, end);
+      left.fork();
+      R rightResult = right.compute();
+      return function.merge(left.join(), rightResult);
+    }
+  }
+}
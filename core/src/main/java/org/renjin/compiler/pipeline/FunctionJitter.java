@@ -20,7 +20,31 @@ package org.renjin.compiler.pipeline;
 
 /**
  * A Just-in-time compiler for a specific function.
+ *
+ * @param <R> the array type of the function's partial and final results
  */
-public interface FunctionJitter {
+public interface FunctionJitter<R> {
+
+  /**
+   * @return the type of the arrays returned by the compiled methods
+   */
+  KernelType<R> getKernelType();
+
   void compute(ComputeMethod method, DeferredNode node);
+
+  /**
+   * Writes the body of {@code computePartial(Vector[] operands, int start, int end)}, which
+   * computes the partial result of this function over a range of its first operand's elements.
+   */
+  void computePartial(ComputeMethod method, DeferredNode node);
+
+  /**
+   * Merges the partial results of two disjoint ranges.
+   */
+  R merge(R x, R y);
+
+  /**
+   * Computes the final result from the merged partial results.
+   */
+  R combine(DeferredNode node, R partialResult);
 }
@@ -0,0 +1,155 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+import org.renjin.sexp.IntVector;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Sums an integer or logical vector without widening its elements to {@code double}.
+ *
+ * <p>Elements are pushed as {@code int}s and accumulated in a {@code long}, so that
+ * operands like {@code x > 0 & y < 10} or {@code i + j} are computed entirely in integer arithmetic.
+ * The partial result is the array {@code { high word of the sum, low word of the sum, flags }}, so that
+ * the partial sums of chunks can exceed the range of an {@code int} as long as their total does not.</p>
+ *
+ * <p>The final result is the array {@code { sum, flags }}, where the sum is {@code NA} if any element was
+ * missing or if the sum overflowed, and the {@link #OVERFLOW} flag tells the two apart, so that the
+ * overflow warning can be raised when the result is used.</p>
+ */
+public class IntSumJitter extends ReductionJitter<int[]> {
+
+  /**
+   * Set in the flags of the result if the sum of the elements does not fit in an {@code int}
+   */
+  public static final int OVERFLOW = 1;
+
+  /**
+   * Set in the flags of a partial result if any of the elements were {@code NA}
+   */
+  private static final int MISSING = 2;
+
+  private static final int HIGH = 0;
+  private static final int LOW = 1;
+  private static final int PARTIAL_FLAGS = 2;
+
+  /**
+   * The index of the flags in the final result
+   */
+  public static final int FLAGS = 1;
+
+  @Override
+  public KernelType<int[]> getKernelType() {
+    return KernelType.INT;
+  }
+
+  @Override
+  protected void writeReduction(ComputeMethod method, InputGraph inputGraph, DeferredNode node,
+                                Accessor input, int startLocal, int endLocal) {
+    MethodVisitor mv = method.getVisitor();
+
+    int sumLocal = method.reserveLocal(2);
+    mv.visitInsn(LCONST_0);
+    mv.visitVarInsn(LSTORE, sumLocal);
+
+    int naCountLocal = method.reserveLocal(1);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, naCountLocal);
+
+    int valueLocal = method.reserveLocal(1);
+
+    Loop loop = new Loop(method, startLocal, endLocal);
+    loop.pushIntElement(method, input);
+    mv.visitVarInsn(ISTORE, valueLocal);
+
+    // if(value == NA) { naCount++; continue; }
+    Label notNA = new Label();
+    Label next = new Label();
+    mv.visitVarInsn(ILOAD, valueLocal);
+    mv.visitLdcInsn(IntVector.NA);
+    mv.visitJumpInsn(IF_ICMPNE, notNA);
+    mv.visitIincInsn(naCountLocal, 1);
+    mv.visitJumpInsn(GOTO, next);
+
+    // sum += value
+    mv.visitLabel(notNA);
+    mv.visitVarInsn(LLOAD, sumLocal);
+    mv.visitVarInsn(ILOAD, valueLocal);
+    mv.visitInsn(I2L);
+    mv.visitInsn(LADD);
+    mv.visitVarInsn(LSTORE, sumLocal);
+
+    mv.visitLabel(next);
+    loop.end();
+
+    // return partial(sum, naCount)
+    mv.visitVarInsn(LLOAD, sumLocal);
+    mv.visitVarInsn(ILOAD, naCountLocal);
+    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(IntSumJitter.class), "partial", "(JI)[I", false);
+  }
+
+  /**
+   * @return the partial result of a range with the given sum and number of missing values
+   */
+  public static int[] partial(long sum, int naCount) {
+    return new int[] { (int) (sum >>> 32), (int) sum, naCount > 0 ? MISSING : 0 };
+  }
+
+  @Override
+  public int[] merge(int[] x, int[] y) {
+    int[] merged = partial(sum(x) + sum(y), 0);
+    merged[PARTIAL_FLAGS] = x[PARTIAL_FLAGS] | y[PARTIAL_FLAGS];
+    return merged;
+  }
+
+  private static long sum(int[] partial) {
+    return ((long) partial[HIGH] << 32) | (partial[LOW] & 0xFFFFFFFFL);
+  }
+
+  @Override
+  protected boolean hasFinish() {
+    return true;
+  }
+
+  @Override
+  public int[] combine(DeferredNode node, int[] partialResult) {
+    return finish(partialResult, 0);
+  }
+
+  /**
+   * @return the sum and its flags, with a sum of NA if there were any missing values or if the sum
+   * overflows an {@code int}
+   */
+  public static int[] finish(int[] partial, int length) {
+    if((partial[PARTIAL_FLAGS] & MISSING) != 0) {
+      return new int[] { IntVector.NA, 0 };
+    }
+    long sum = sum(partial);
+    if(sum < Integer.MIN_VALUE || sum > Integer.MAX_VALUE) {
+      return new int[] { IntVector.NA, OVERFLOW };
+    }
+    return new int[] { (int) sum, 0 };
+  }
+}
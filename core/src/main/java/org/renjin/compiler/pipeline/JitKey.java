@@ -33,6 +33,21 @@ public class JitKey {
     this.hash = Arrays.hashCode(classes);
   }
 
+  /**
+   * @return a representation of this key that is stable across JVM instances, suitable for
+   * identifying persisted classes.
+   */
+  public String toStableString() {
+    StringBuilder s = new StringBuilder();
+    for (Class aClass : classes) {
+      if(s.length() > 0) {
+        s.append(';');
+      }
+      s.append(aClass.getName());
+    }
+    return s.toString();
+  }
+
   @Override
   public int hashCode() {
     return hash;
@@ -23,13 +23,26 @@ import org.renjin.sexp.Vector;
 /**
  * A Just-in-time compiled computation for a deferred
  * computation graph of specific types
+ *
+ * <p>The result is an array of the type given by the {@link KernelType} of the
+ * computation's {@link FunctionJitter}.</p>
  */
 public interface JittedComputation {
 
   /**
    *
    * @param operands the flattened set of vectors from a {@link DeferredNode} and its descendants.
-   * @return
+   * @return the result, as an array of the computation's {@link KernelType}
+   */
+  public Object compute(Vector[] operands);
+
+  /**
+   * Computes a partial result over the elements {@code [start, end)} of the computation's
+   * first operand. Partial results over disjoint ranges can be merged by
+   * {@link FunctionJitter#merge(Object, Object)}, and then completed by
+   * {@link FunctionJitter#combine(DeferredNode, Object)}
+   *
+   * @param operands the flattened set of vectors from a {@link DeferredNode} and its descendants.
    */
-  public double[] compute(Vector[] operands);
+  public Object computePartial(Vector[] operands, int start, int end);
 }
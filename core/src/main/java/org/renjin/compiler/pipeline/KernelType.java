@@ -0,0 +1,107 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.repackaged.asm.Type;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.LogicalBitSetVector;
+import org.renjin.sexp.Vector;
+
+import java.nio.LongBuffer;
+import java.util.BitSet;
+
+/**
+ * The type of the array returned by a jitted computation, and how it is turned back into a {@link Vector}.
+ *
+ * @param <R> the array type of the kernel's result
+ */
+public abstract class KernelType<R> {
+
+  /**
+   * Results are arrays of doubles.
+   */
+  public static final KernelType<double[]> DOUBLE = new KernelType<double[]>(double[].class) {
+    @Override
+    public Vector toVector(double[] result, AttributeMap attributes) {
+      return DoubleArrayVector.unsafe(result, attributes);
+    }
+  };
+
+  /**
+   * Results are arrays of ints, for integer and logical computations which should not be
+   * widened to {@code double}.
+   */
+  public static final KernelType<int[]> INT = new KernelType<int[]>(int[].class) {
+    @Override
+    public Vector toVector(int[] result, AttributeMap attributes) {
+      return IntArrayVector.unsafe(result, attributes);
+    }
+  };
+
+  /**
+   * Results are logical vectors packed into {@code long} words: the first element holds the length
+   * {@code n} of the vector, followed by {@code (n + 63) / 64} words with the bits of the {@code TRUE}
+   * elements set, and the same number of words with the bits of the {@code NA} elements set.
+   */
+  public static final KernelType<long[]> PACKED_LOGICAL = new KernelType<long[]>(long[].class) {
+    @Override
+    public Vector toVector(long[] result, AttributeMap attributes) {
+      int length = (int) result[0];
+      int words = packedWords(length);
+      BitSet values = BitSet.valueOf(LongBuffer.wrap(result, 1, words));
+      BitSet na = BitSet.valueOf(LongBuffer.wrap(result, 1 + words, words));
+      return new LogicalBitSetVector(values, na, length, attributes);
+    }
+  };
+
+  private final Class<R> arrayClass;
+
+  private KernelType(Class<R> arrayClass) {
+    this.arrayClass = arrayClass;
+  }
+
+  /**
+   * @return the JVM type of the kernel's result
+   */
+  public Type getType() {
+    return Type.getType(arrayClass);
+  }
+
+  public R cast(Object result) {
+    return arrayClass.cast(result);
+  }
+
+  public abstract Vector toVector(R result, AttributeMap attributes);
+
+  /**
+   * Casts and wraps the result of {@link JittedComputation#compute(Vector[])}
+   */
+  public Vector toVector(Object result) {
+    return toVector(cast(result), AttributeMap.EMPTY);
+  }
+
+  /**
+   * @return the number of words needed to pack {@code length} logical values
+   */
+  public static int packedWords(int length) {
+    return (length + 63) >>> 6;
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.primitives.summary.DeferredMax;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+
+import static org.renjin.repackaged.asm.Opcodes.INVOKESTATIC;
+
+public class MaxJitter extends FoldJitter {
+
+  @Override
+  protected double identity() {
+    return Double.NEGATIVE_INFINITY;
+  }
+
+  @Override
+  protected void writeOperation(MethodVisitor mv) {
+    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(DeferredMax.class), "max", "(DD)D", false);
+  }
+
+  @Override
+  protected double apply(double x, double y) {
+    return DeferredMax.max(x, y);
+  }
+}
@@ -26,7 +26,12 @@ import org.renjin.repackaged.asm.MethodVisitor;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
-public class MeanJitter implements FunctionJitter {
+public class MeanJitter implements FunctionJitter<double[]> {
+
+  @Override
+  public KernelType<double[]> getKernelType() {
+    return KernelType.DOUBLE;
+  }
 
   @Override
   public void compute(ComputeMethod method, DeferredNode node) {
@@ -91,4 +96,26 @@ public class MeanJitter implements FunctionJitter {
     mv.visitInsn(DASTORE);
     mv.visitInsn(ARETURN);
   }
+
+  @Override
+  public void computePartial(ComputeMethod method, DeferredNode node) {
+
+    InputGraph inputGraph = new InputGraph(node);
+
+    Accessor accessor = Accessors.create(node.getOperands().get(0), inputGraph);
+    accessor.init(method);
+
+    SumJitter.writePartialSum(method, accessor);
+  }
+
+  @Override
+  public double[] merge(double[] x, double[] y) {
+    return SumJitter.add(x, y);
+  }
+
+  @Override
+  public double[] combine(DeferredNode node, double[] partialSum) {
+    int length = node.getOperand(0).getVector().length();
+    return new double[] { partialSum[0] / length };
+  }
 }
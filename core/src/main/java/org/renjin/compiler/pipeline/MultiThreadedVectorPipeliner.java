@@ -43,10 +43,12 @@ public class MultiThreadedVectorPipeliner implements VectorPipeliner {
 
   @Override
   public Vector materialize(DeferredComputation root) {
-    
+    return materialize(new DeferredGraph(root));
+  }
+
+  Vector materialize(DeferredGraph graph) {
+
     long start = System.nanoTime();
-    
-    DeferredGraph graph = new DeferredGraph(root);
 
     if(VectorPipeliner.DEBUG) {
       graph.dumpGraph();
@@ -66,7 +68,7 @@ public class MultiThreadedVectorPipeliner implements VectorPipeliner {
       Profiler.materialized(time);
     }
     // return result
-    return root;
+    return graph.getRoot().getVector();
   }
 
   @Override
@@ -0,0 +1,142 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.Accessors;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.IntVector;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Materializes a deferred logical vector, like {@code x > 0 & y < 10}, into packed bits rather
+ * than an {@code int} per element.
+ *
+ * <p>The whole expression is evaluated in a single loop, and the result is laid out as described
+ * by {@link KernelType#PACKED_LOGICAL}. Partial results over disjoint ranges
+ * can be merged by or-ing their words together.</p>
+ */
+public class PackedLogicalJitter extends ReductionJitter<long[]> {
+
+  @Override
+  public KernelType<long[]> getKernelType() {
+    return KernelType.PACKED_LOGICAL;
+  }
+
+  @Override
+  protected Accessor createInput(DeferredNode node, InputGraph inputGraph) {
+    // the vector to pack is the node itself
+    return Accessors.create(node, inputGraph);
+  }
+
+  @Override
+  protected void writeReduction(ComputeMethod method, InputGraph inputGraph, DeferredNode node,
+                                Accessor input, int startLocal, int endLocal) {
+    MethodVisitor mv = method.getVisitor();
+
+    // the words are allocated for the full length, even for a partial result
+    int lengthLocal = method.reserveLocal(1);
+    input.pushLength(method);
+    mv.visitVarInsn(ISTORE, lengthLocal);
+
+    int wordsLocal = method.reserveLocal(1);
+    mv.visitVarInsn(ILOAD, lengthLocal);
+    mv.visitIntInsn(BIPUSH, 63);
+    mv.visitInsn(IADD);
+    mv.visitIntInsn(BIPUSH, 6);
+    mv.visitInsn(IUSHR);
+    mv.visitVarInsn(ISTORE, wordsLocal);
+
+    // packed = new long[1 + 2 * words]
+    int packedLocal = method.reserveLocal(1);
+    mv.visitInsn(ICONST_1);
+    mv.visitVarInsn(ILOAD, wordsLocal);
+    mv.visitInsn(ICONST_2);
+    mv.visitInsn(IMUL);
+    mv.visitInsn(IADD);
+    mv.visitIntInsn(NEWARRAY, T_LONG);
+    mv.visitVarInsn(ASTORE, packedLocal);
+
+    // packed[0] = length
+    mv.visitVarInsn(ALOAD, packedLocal);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ILOAD, lengthLocal);
+    mv.visitInsn(I2L);
+    mv.visitInsn(LASTORE);
+
+    int valueLocal = method.reserveLocal(1);
+    int wordLocal = method.reserveLocal(1);
+
+    Loop loop = new Loop(method, startLocal, endLocal);
+    int counterLocal = loop.getCounterLocal();
+    loop.pushIntElement(method, input);
+    mv.visitVarInsn(ISTORE, valueLocal);
+
+    // if(value == 0) continue;
+    Label next = new Label();
+    mv.visitVarInsn(ILOAD, valueLocal);
+    mv.visitJumpInsn(IFEQ, next);
+
+    // word = 1 + (i >>> 6)
+    mv.visitInsn(ICONST_1);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitIntInsn(BIPUSH, 6);
+    mv.visitInsn(IUSHR);
+    mv.visitInsn(IADD);
+    mv.visitVarInsn(ISTORE, wordLocal);
+
+    // if(value == NA) word += words;
+    Label set = new Label();
+    mv.visitVarInsn(ILOAD, valueLocal);
+    mv.visitLdcInsn(IntVector.NA);
+    mv.visitJumpInsn(IF_ICMPNE, set);
+    mv.visitVarInsn(ILOAD, wordLocal);
+    mv.visitVarInsn(ILOAD, wordsLocal);
+    mv.visitInsn(IADD);
+    mv.visitVarInsn(ISTORE, wordLocal);
+
+    // packed[word] |= 1L << i
+    mv.visitLabel(set);
+    mv.visitVarInsn(ALOAD, packedLocal);
+    mv.visitVarInsn(ILOAD, wordLocal);
+    mv.visitInsn(DUP2);
+    mv.visitInsn(LALOAD);
+    mv.visitInsn(LCONST_1);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitInsn(LSHL);
+    mv.visitInsn(LOR);
+    mv.visitInsn(LASTORE);
+
+    mv.visitLabel(next);
+    loop.end();
+
+    mv.visitVarInsn(ALOAD, packedLocal);
+  }
+
+  @Override
+  public long[] merge(long[] x, long[] y) {
+    for (int i = 1; i < x.length; i++) {
+      x[i] |= y[i];
+    }
+    return x;
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.repackaged.guava.base.Charsets;
+import org.renjin.repackaged.guava.hash.Hasher;
+import org.renjin.repackaged.guava.hash.Hashing;
+import org.renjin.repackaged.guava.io.ByteStreams;
+import org.renjin.repackaged.guava.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores the bytecode of JITted classes in a local directory, so that they can be reused
+ * by later JVM instances without being generated again.
+ *
+ * <p>Each class is stored in a file named after a hash of its {@link JitKey} and of the bytecode of
+ * the classes that generate it, so classes generated by a different build are never loaded. The directory
+ * can be safely shared by concurrent processes: classes are written to a temporary file and then
+ * atomically renamed.</p>
+ */
+class PersistentJitCache {
+
+  private static final Logger LOGGER = Logger.getLogger(PersistentJitCache.class.getName());
+
+  /**
+   * Incremented whenever the bytecode generated by the {@link DeferredJitter} changes.
+   */
+  private static final int FORMAT_VERSION = 3;
+
+  /**
+   * The classes of this package and its subpackages generate the JITted bytecode.
+   */
+  private static final String JITTER_PACKAGE_PATH = "org/renjin/compiler/pipeline/";
+
+  private static final String BUILD_FINGERPRINT = buildFingerprint();
+
+  private final File directory;
+
+  PersistentJitCache(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return the name of the class generated for {@code key}
+   */
+  public String className(JitKey key) {
+    return "Jit" + Hashing.sha1().hashString(BUILD_FINGERPRINT + "|" + key.toStableString(), Charsets.UTF_8);
+  }
+
+  /**
+   * @return the bytecode of the class previously stored for {@code className}, or {@code null}
+   * if there is none.
+   */
+  public byte[] read(String className) {
+    File file = classFile(className);
+    if(!file.exists()) {
+      return null;
+    }
+    try {
+      return Files.toByteArray(file);
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not read JIT cache entry " + file, e);
+      return null;
+    }
+  }
+
+  public void write(String className, byte[] classBytes) {
+    File file = classFile(className);
+    try {
+      if(!directory.exists() && !directory.mkdirs() && !directory.isDirectory()) {
+        throw new IOException("Could not create directory " + directory);
+      }
+      File tempFile = File.createTempFile(className, ".tmp", directory);
+      try {
+        Files.write(classBytes, tempFile);
+        java.nio.file.Files.move(tempFile.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        tempFile.delete();
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not write JIT cache entry " + file, e);
+    }
+  }
+
+  /**
+   * Removes an entry that could not be loaded.
+   */
+  public void remove(String className) {
+    classFile(className).delete();
+  }
+
+  private File classFile(String className) {
+    return new File(directory, className + ".class");
+  }
+
+  private static String buildFingerprint() {
+    StringBuilder fingerprint = new StringBuilder();
+    fingerprint.append(FORMAT_VERSION);
+
+    Package jitterPackage = DeferredJitter.class.getPackage();
+    if(jitterPackage != null && jitterPackage.getImplementationVersion() != null) {
+      fingerprint.append(':').append(jitterPackage.getImplementationVersion());
+    }
+
+    // Snapshot and development builds share a version number, so also include
+    // the bytecode of the jitters themselves
+    try {
+      CodeSource codeSource = DeferredJitter.class.getProtectionDomain().getCodeSource();
+      if(codeSource != null) {
+        File location = new File(codeSource.getLocation().toURI());
+        fingerprint.append(':').append(hashJitterClasses(location));
+      }
+    } catch (Exception e) {
+      LOGGER.log(Level.FINE, "Could not hash JIT classes", e);
+    }
+
+    return fingerprint.toString();
+  }
+
+  /**
+   * Computes a hash of the bytecode of all the classes in the jitter package, read from
+   * the directory or jar file at {@code location}.
+   */
+  static String hashJitterClasses(File location) throws IOException {
+    SortedMap<String, byte[]> classes = new TreeMap<>();
+    if(location.isDirectory()) {
+      File packageDir = new File(location, JITTER_PACKAGE_PATH);
+      for (File file : Files.fileTreeTraverser().preOrderTraversal(packageDir)) {
+        if(file.isFile() && file.getName().endsWith(".class")) {
+          classes.put(file.getPath().substring(location.getPath().length()), Files.toByteArray(file));
+        }
+      }
+    } else {
+      try(JarFile jar = new JarFile(location)) {
+        Enumeration<JarEntry> entries = jar.entries();
+        while(entries.hasMoreElements()) {
+          JarEntry entry = entries.nextElement();
+          if(entry.getName().startsWith(JITTER_PACKAGE_PATH) && entry.getName().endsWith(".class")) {
+            try(InputStream in = jar.getInputStream(entry)) {
+              classes.put(entry.getName(), ByteStreams.toByteArray(in));
+            }
+          }
+        }
+      }
+    }
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+      hasher.putString(entry.getKey(), Charsets.UTF_8);
+      hasher.putBytes(entry.getValue());
+    }
+    return hasher.hash().toString();
+  }
+}
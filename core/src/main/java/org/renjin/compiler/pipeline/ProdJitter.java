@@ -16,30 +16,26 @@
  * along with this program; if not, a copy is available at
  * https://www.gnu.org/licenses/gpl-2.0.txt
  */
-package org.renjin.primitives.match;
+package org.renjin.compiler.pipeline;
 
-import org.renjin.sexp.Vector;
+import org.renjin.repackaged.asm.MethodVisitor;
 
-import java.util.Iterator;
+import static org.renjin.repackaged.asm.Opcodes.DMUL;
 
+public class ProdJitter extends FoldJitter {
 
-class IndexSequence implements Iterable<Integer> {
+  @Override
+  protected double identity() {
+    return 1;
+  }
 
-  private Vector vector;
-  private boolean fromLast;
-  
-  public IndexSequence(Vector vector, boolean fromLast) {
-    super();
-    this.vector = vector;
-    this.fromLast = fromLast;
+  @Override
+  protected void writeOperation(MethodVisitor mv) {
+    mv.visitInsn(DMUL);
   }
 
   @Override
-  public Iterator<Integer> iterator() {
-    if(fromLast) {
-      return new ReverseIndexIterator(vector);
-    } else {
-      return new ForwardIndexIterator(vector);
-    }
+  protected double apply(double x, double y) {
+    return x * y;
   }
 }
@@ -0,0 +1,89 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.primitives.summary.DeferredMax;
+import org.renjin.primitives.summary.DeferredMin;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Computes the minimum and maximum of a vector in a single pass.
+ */
+public class RangeJitter extends ReductionJitter<double[]> {
+
+  @Override
+  public KernelType<double[]> getKernelType() {
+    return KernelType.DOUBLE;
+  }
+
+  @Override
+  protected void writeReduction(ComputeMethod method, InputGraph inputGraph, DeferredNode node,
+                                Accessor input, int startLocal, int endLocal) {
+    MethodVisitor mv = method.getVisitor();
+
+    int minLocal = method.reserveLocal(2);
+    mv.visitLdcInsn(Double.POSITIVE_INFINITY);
+    mv.visitVarInsn(DSTORE, minLocal);
+
+    int maxLocal = method.reserveLocal(2);
+    mv.visitLdcInsn(Double.NEGATIVE_INFINITY);
+    mv.visitVarInsn(DSTORE, maxLocal);
+
+    int valueLocal = method.reserveLocal(2);
+
+    Loop loop = new Loop(method, startLocal, endLocal);
+    loop.pushElement(method, input);
+    mv.visitVarInsn(DSTORE, valueLocal);
+
+    mv.visitVarInsn(DLOAD, minLocal);
+    mv.visitVarInsn(DLOAD, valueLocal);
+    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(DeferredMin.class), "min", "(DD)D", false);
+    mv.visitVarInsn(DSTORE, minLocal);
+
+    mv.visitVarInsn(DLOAD, maxLocal);
+    mv.visitVarInsn(DLOAD, valueLocal);
+    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(DeferredMax.class), "max", "(DD)D", false);
+    mv.visitVarInsn(DSTORE, maxLocal);
+    loop.end();
+
+    // return new double[] { min, max }
+    mv.visitInsn(ICONST_2);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    mv.visitInsn(DUP);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(DLOAD, minLocal);
+    mv.visitInsn(DASTORE);
+    mv.visitInsn(DUP);
+    mv.visitInsn(ICONST_1);
+    mv.visitVarInsn(DLOAD, maxLocal);
+    mv.visitInsn(DASTORE);
+  }
+
+  @Override
+  public double[] merge(double[] x, double[] y) {
+    x[0] = DeferredMin.min(x[0], y[0]);
+    x[1] = DeferredMax.max(x[1], y[1]);
+    return x;
+  }
+}
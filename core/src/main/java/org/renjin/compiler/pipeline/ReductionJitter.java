@@ -0,0 +1,161 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.Accessors;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Base class for functions that reduce their first operand in a single pass.
+ *
+ * <p>Subclasses write a loop over a range of the input which leaves a partial result on the stack.
+ * The same loop is used for both the full computation and for partial computations, so
+ * the full computation is simply the partial result over the whole input, passed through
+ * the {@code public static R finish(R partial, int length)} method of the subclass,
+ * if {@link #hasFinish()} is true.</p>
+ *
+ * @param <R> the array type of the partial and final results
+ */
+public abstract class ReductionJitter<R> implements FunctionJitter<R> {
+
+  @Override
+  public final void compute(ComputeMethod method, DeferredNode node) {
+    InputGraph inputGraph = new InputGraph(node);
+
+    Accessor input = createInput(node, inputGraph);
+    input.init(method);
+
+    MethodVisitor mv = method.getVisitor();
+
+    int startLocal = method.reserveLocal(1);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, startLocal);
+
+    int endLocal = method.reserveLocal(1);
+    input.pushLength(method);
+    mv.visitVarInsn(ISTORE, endLocal);
+
+    writeReduction(method, inputGraph, node, input, startLocal, endLocal);
+
+    if(hasFinish()) {
+      mv.visitVarInsn(ILOAD, endLocal);
+      Type resultType = getKernelType().getType();
+      mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(getClass()), "finish",
+          Type.getMethodDescriptor(resultType, resultType, Type.INT_TYPE), false);
+    }
+    mv.visitInsn(ARETURN);
+  }
+
+  @Override
+  public final void computePartial(ComputeMethod method, DeferredNode node) {
+    InputGraph inputGraph = new InputGraph(node);
+
+    Accessor input = createInput(node, inputGraph);
+    input.init(method);
+
+    writeReduction(method, inputGraph, node, input, method.getStartLocalIndex(), method.getEndLocalIndex());
+
+    method.getVisitor().visitInsn(ARETURN);
+  }
+
+  @Override
+  public R combine(DeferredNode node, R partialResult) {
+    return partialResult;
+  }
+
+  /**
+   * @return the accessor for the vector to reduce, by default the node's first operand
+   */
+  protected Accessor createInput(DeferredNode node, InputGraph inputGraph) {
+    return Accessors.create(node.getOperand(0), inputGraph);
+  }
+
+  /**
+   * @return true if the partial result over the whole input must be passed through
+   * this class' static {@code finish} method.
+   */
+  protected boolean hasFinish() {
+    return false;
+  }
+
+  /**
+   * Writes a loop over the elements {@code [start, end)} of {@code input}, leaving the partial
+   * result as an array of the {@link #getKernelType() kernel type} on the stack.
+   */
+  protected abstract void writeReduction(ComputeMethod method, InputGraph inputGraph, DeferredNode node,
+                                         Accessor input, int startLocal, int endLocal);
+
+  /**
+   * A loop over the elements {@code [start, end)}, with the current index in {@code counterLocal}
+   */
+  protected static class Loop {
+    private final MethodVisitor mv;
+    private final int counterLocal;
+    private final Label top = new Label();
+    private final Label done = new Label();
+
+    public Loop(ComputeMethod method, int startLocal, int endLocal) {
+      this.mv = method.getVisitor();
+      this.counterLocal = method.reserveLocal(1);
+
+      mv.visitVarInsn(ILOAD, startLocal);
+      mv.visitVarInsn(ISTORE, counterLocal);
+
+      mv.visitLabel(top);
+      mv.visitVarInsn(ILOAD, counterLocal);
+      mv.visitVarInsn(ILOAD, endLocal);
+      mv.visitJumpInsn(IF_ICMPGE, done);
+    }
+
+    /**
+     * Pushes the current element of {@code input} onto the stack as a double
+     */
+    public void pushElement(ComputeMethod method, Accessor input) {
+      mv.visitVarInsn(ILOAD, counterLocal);
+      input.pushDouble(method);
+    }
+
+    /**
+     * Pushes the current element of {@code input} onto the stack as an int
+     */
+    public void pushIntElement(ComputeMethod method, Accessor input) {
+      mv.visitVarInsn(ILOAD, counterLocal);
+      input.pushInt(method);
+    }
+
+    public int getCounterLocal() {
+      return counterLocal;
+    }
+
+    /**
+     * Writes the increment of the counter and the jump back to the top of the loop.
+     */
+    public void end() {
+      mv.visitIincInsn(counterLocal, 1);
+      mv.visitJumpInsn(GOTO, top);
+      mv.visitLabel(done);
+    }
+  }
+}
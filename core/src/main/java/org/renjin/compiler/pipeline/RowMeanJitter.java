@@ -26,7 +26,12 @@ import org.renjin.repackaged.asm.MethodVisitor;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
-public class RowMeanJitter implements FunctionJitter  {
+public class RowMeanJitter implements FunctionJitter<double[]> {
+
+  @Override
+  public KernelType<double[]> getKernelType() {
+    return KernelType.DOUBLE;
+  }
 
   @Override
   public void compute(ComputeMethod method, DeferredNode node) {
@@ -158,4 +163,25 @@ public class RowMeanJitter implements FunctionJitter  {
     mv.visitVarInsn(ALOAD, meansLocal);
     mv.visitInsn(ARETURN);
   }
+
+  @Override
+  public void computePartial(ComputeMethod method, DeferredNode node) {
+    new RowSumJitter().computePartial(method, node);
+  }
+
+  @Override
+  public double[] merge(double[] x, double[] y) {
+    return SumJitter.add(x, y);
+  }
+
+  @Override
+  public double[] combine(DeferredNode node, double[] partialSum) {
+    int numRows = partialSum.length;
+    double numCols = node.getOperand(0).getVector().length() / numRows;
+    double[] means = new double[numRows];
+    for (int i = 0; i < numRows; i++) {
+      means[i] = partialSum[i] / numCols;
+    }
+    return means;
+  }
 }
@@ -23,12 +23,16 @@ import org.renjin.primitives.vector.DeferredComputation;
 import org.renjin.primitives.vector.MemoizedDoubleVector;
 import org.renjin.sexp.DoubleArrayVector;
 import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.LogicalVector;
 import org.renjin.sexp.Vector;
 
 public class SimpleVectorPipeliner implements VectorPipeliner {
   @Override
   public Vector materialize(DeferredComputation root) {
-    DeferredGraph graph = new DeferredGraph(root);
+    return materialize(new DeferredGraph(root));
+  }
+
+  Vector materialize(DeferredGraph graph) {
 
     if(VectorPipeliner.DEBUG) {
       System.err.println("materialize");
@@ -54,6 +58,8 @@ public class SimpleVectorPipeliner implements VectorPipeliner {
       return vector;
     } else if(vector.isDeferred() && vector instanceof DoubleVector) {
       return DoubleArrayVector.unsafe(((DoubleVector) vector).toDoubleArray(), vector.getAttributes());
+    } else if(vector.isDeferred() && vector instanceof LogicalVector) {
+      return DeferredNodeComputer.pack((LogicalVector) vector);
     } else {
       return vector;
     }
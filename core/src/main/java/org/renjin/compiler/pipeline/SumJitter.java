@@ -27,7 +27,13 @@ import org.renjin.repackaged.asm.MethodVisitor;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
-public class SumJitter implements FunctionJitter {
+public class SumJitter implements FunctionJitter<double[]> {
+
+  @Override
+  public KernelType<double[]> getKernelType() {
+    return KernelType.DOUBLE;
+  }
+
   @Override
   public void compute(ComputeMethod method, DeferredNode node) {
 
@@ -87,4 +93,80 @@ public class SumJitter implements FunctionJitter {
     mv.visitInsn(DASTORE);
     mv.visitInsn(ARETURN);
   }
+
+  @Override
+  public void computePartial(ComputeMethod method, DeferredNode node) {
+
+    InputGraph inputGraph = new InputGraph(node);
+
+    Accessor accessor = Accessors.create(node.getOperands().get(0), inputGraph);
+    accessor.init(method);
+
+    writePartialSum(method, accessor);
+  }
+
+  @Override
+  public double[] merge(double[] x, double[] y) {
+    return add(x, y);
+  }
+
+  @Override
+  public double[] combine(DeferredNode node, double[] partialSum) {
+    return partialSum;
+  }
+
+  /**
+   * Adds {@code y} element-wise to {@code x}
+   */
+  static double[] add(double[] x, double[] y) {
+    for (int i = 0; i < x.length; i++) {
+      x[i] += y[i];
+    }
+    return x;
+  }
+
+  /**
+   * Writes a loop that sums the elements {@code [start, end)} of {@code accessor} and
+   * returns the sum as a single-element array.
+   */
+  static void writePartialSum(ComputeMethod method, Accessor accessor) {
+
+    MethodVisitor mv = method.getVisitor();
+
+    int sumLocal = method.reserveLocal(2);
+    mv.visitInsn(DCONST_0);
+    mv.visitVarInsn(DSTORE, sumLocal);
+
+    int counterLocal = method.reserveLocal(1);
+    mv.visitVarInsn(ILOAD, method.getStartLocalIndex());
+    mv.visitVarInsn(ISTORE, counterLocal);
+
+    Label loop = new Label();
+    mv.visitLabel(loop);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitVarInsn(ILOAD, method.getEndLocalIndex());
+
+    Label done = new Label();
+    mv.visitJumpInsn(IF_ICMPGE, done);
+
+    // sum += x[i]
+    mv.visitVarInsn(DLOAD, sumLocal);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    accessor.pushDouble(method);
+    mv.visitInsn(DADD);
+    mv.visitVarInsn(DSTORE, sumLocal);
+
+    mv.visitIincInsn(counterLocal, 1);
+    mv.visitJumpInsn(GOTO, loop);
+    mv.visitLabel(done);
+
+    // return new double[] { sum }
+    mv.visitInsn(ICONST_1);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    mv.visitInsn(DUP);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(DLOAD, sumLocal);
+    mv.visitInsn(DASTORE);
+    mv.visitInsn(ARETURN);
+  }
 }
@@ -0,0 +1,161 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.DoubleVector;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Computes the sample variance of a vector in a single pass, using Welford's algorithm.
+ *
+ * <p>The partial result is the array {@code { count, mean, sum of squared deviations, count of NAs }}. Partial
+ * results are merged using the pairwise update of Chan et al, so that the variance can be computed in
+ * parallel.</p>
+ */
+public class VarJitter extends ReductionJitter<double[]> {
+
+  @Override
+  public KernelType<double[]> getKernelType() {
+    return KernelType.DOUBLE;
+  }
+
+  private static final int COUNT = 0;
+  private static final int MEAN = 1;
+  private static final int M2 = 2;
+  private static final int NA_COUNT = 3;
+
+  @Override
+  protected void writeReduction(ComputeMethod method, InputGraph inputGraph, DeferredNode node,
+                                Accessor input, int startLocal, int endLocal) {
+    MethodVisitor mv = method.getVisitor();
+
+    int countLocal = method.reserveLocal(2);
+    int meanLocal = method.reserveLocal(2);
+    int m2Local = method.reserveLocal(2);
+    int naCountLocal = method.reserveLocal(2);
+    int valueLocal = method.reserveLocal(2);
+    int deltaLocal = method.reserveLocal(2);
+
+    for (int local : new int[] { countLocal, meanLocal, m2Local, naCountLocal }) {
+      mv.visitInsn(DCONST_0);
+      mv.visitVarInsn(DSTORE, local);
+    }
+
+    Loop loop = new Loop(method, startLocal, endLocal);
+    loop.pushElement(method, input);
+    mv.visitVarInsn(DSTORE, valueLocal);
+
+    // if(value != value) { naCount++; continue; }
+    Label notNaN = new Label();
+    Label next = new Label();
+    mv.visitVarInsn(DLOAD, valueLocal);
+    mv.visitVarInsn(DLOAD, valueLocal);
+    mv.visitInsn(DCMPL);
+    mv.visitJumpInsn(IFEQ, notNaN);
+    mv.visitVarInsn(DLOAD, naCountLocal);
+    mv.visitInsn(DCONST_1);
+    mv.visitInsn(DADD);
+    mv.visitVarInsn(DSTORE, naCountLocal);
+    mv.visitJumpInsn(GOTO, next);
+
+    mv.visitLabel(notNaN);
+
+    // count += 1
+    mv.visitVarInsn(DLOAD, countLocal);
+    mv.visitInsn(DCONST_1);
+    mv.visitInsn(DADD);
+    mv.visitVarInsn(DSTORE, countLocal);
+
+    // delta = value - mean
+    mv.visitVarInsn(DLOAD, valueLocal);
+    mv.visitVarInsn(DLOAD, meanLocal);
+    mv.visitInsn(DSUB);
+    mv.visitVarInsn(DSTORE, deltaLocal);
+
+    // mean += delta / count
+    mv.visitVarInsn(DLOAD, meanLocal);
+    mv.visitVarInsn(DLOAD, deltaLocal);
+    mv.visitVarInsn(DLOAD, countLocal);
+    mv.visitInsn(DDIV);
+    mv.visitInsn(DADD);
+    mv.visitVarInsn(DSTORE, meanLocal);
+
+    // m2 += delta * (value - mean)
+    mv.visitVarInsn(DLOAD, m2Local);
+    mv.visitVarInsn(DLOAD, deltaLocal);
+    mv.visitVarInsn(DLOAD, valueLocal);
+    mv.visitVarInsn(DLOAD, meanLocal);
+    mv.visitInsn(DSUB);
+    mv.visitInsn(DMUL);
+    mv.visitInsn(DADD);
+    mv.visitVarInsn(DSTORE, m2Local);
+
+    mv.visitLabel(next);
+    loop.end();
+
+    mv.visitInsn(ICONST_4);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    storeElement(mv, COUNT, countLocal);
+    storeElement(mv, MEAN, meanLocal);
+    storeElement(mv, M2, m2Local);
+    storeElement(mv, NA_COUNT, naCountLocal);
+  }
+
+  private void storeElement(MethodVisitor mv, int index, int local) {
+    mv.visitInsn(DUP);
+    mv.visitLdcInsn(index);
+    mv.visitVarInsn(DLOAD, local);
+    mv.visitInsn(DASTORE);
+  }
+
+  @Override
+  public double[] merge(double[] x, double[] y) {
+    double count = x[COUNT] + y[COUNT];
+    if(count > 0) {
+      double delta = y[MEAN] - x[MEAN];
+      x[MEAN] = x[MEAN] + delta * y[COUNT] / count;
+      x[M2] = x[M2] + y[M2] + delta * delta * x[COUNT] * y[COUNT] / count;
+    }
+    x[COUNT] = count;
+    x[NA_COUNT] += y[NA_COUNT];
+    return x;
+  }
+
+  @Override
+  protected boolean hasFinish() {
+    return true;
+  }
+
+  @Override
+  public double[] combine(DeferredNode node, double[] partialResult) {
+    return finish(partialResult, 0);
+  }
+
+  public static double[] finish(double[] partial, int length) {
+    if(partial[NA_COUNT] > 0 || partial[COUNT] < 2) {
+      return new double[] { DoubleVector.NA };
+    }
+    return new double[] { partial[M2] / (partial[COUNT] - 1) };
+  }
+}
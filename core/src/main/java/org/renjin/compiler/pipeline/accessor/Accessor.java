@@ -21,8 +21,10 @@ package org.renjin.compiler.pipeline.accessor;
 import org.renjin.compiler.pipeline.ComputeMethod;
 import org.renjin.repackaged.asm.MethodVisitor;
 import org.renjin.repackaged.asm.Opcodes;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.IntVector;
 
-import static org.renjin.repackaged.asm.Opcodes.D2I;
+import static org.renjin.repackaged.asm.Opcodes.INVOKESTATIC;
 
 public abstract class Accessor {
 
@@ -54,9 +56,51 @@ public abstract class Accessor {
     }
   }
 
+  /**
+   * The index is on the stack, the method should push the corresponding
+   * int on to the stack, with NA as {@link IntVector#NA}.
+   */
   public void pushInt(ComputeMethod method) {
     pushDouble(method);
-    method.getVisitor().visitInsn(D2I);
+    writeDoubleToInt(method.getVisitor());
+  }
+
+  /**
+   * @return true if the elements of this vector are natively {@code int}s, so that
+   * {@link #pushInt(ComputeMethod)} is cheaper than {@link #pushDouble(ComputeMethod)}.
+   */
+  public boolean isIntegral() {
+    return false;
+  }
+
+  /**
+   * Converts the {@code int} on the top of the stack to a {@code double}, mapping
+   * {@code NA_integer_} to {@code NA_real_}
+   */
+  protected static void writeIntToDouble(MethodVisitor mv) {
+    mv.visitMethodInsn(INVOKESTATIC, "org/renjin/compiler/pipeline/accessor/Accessor", "intToDouble", "(I)D", false);
+  }
+
+  /**
+   * Converts the {@code double} on the top of the stack to an {@code int}, mapping
+   * {@code NA_real_} and {@code NaN} to {@code NA_integer_}
+   */
+  protected static void writeDoubleToInt(MethodVisitor mv) {
+    mv.visitMethodInsn(INVOKESTATIC, "org/renjin/compiler/pipeline/accessor/Accessor", "doubleToInt", "(D)I", false);
+  }
+
+  public static double intToDouble(int value) {
+    if(value == IntVector.NA) {
+      return DoubleVector.NA;
+    }
+    return value;
+  }
+
+  public static int doubleToInt(double value) {
+    if(Double.isNaN(value)) {
+      return IntVector.NA;
+    }
+    return (int) value;
   }
 
 }
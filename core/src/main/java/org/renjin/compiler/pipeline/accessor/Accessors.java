@@ -22,6 +22,7 @@ import org.renjin.compiler.pipeline.DeferredNode;
 import org.renjin.primitives.matrix.TransposingMatrix;
 import org.renjin.sexp.DoubleArrayVector;
 import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.LogicalArrayVector;
 
 public class Accessors {
 
@@ -31,6 +32,9 @@ public class Accessors {
     
     } else if(node.getVector() instanceof IntArrayVector) {
       return new IntArrayAccessor(inputGraph.getOperandIndex(node));
+
+    } else if(node.getVector() instanceof LogicalArrayVector) {
+      return new IntArrayAccessor(LogicalArrayVector.class, inputGraph.getOperandIndex(node));
       
     } else if(UnaryVectorOpAccessor.accept(node)) {
       return new UnaryVectorOpAccessor(node, inputGraph);
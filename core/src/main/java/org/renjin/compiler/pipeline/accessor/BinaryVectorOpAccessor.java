@@ -21,7 +21,6 @@ package org.renjin.compiler.pipeline.accessor;
 import org.renjin.compiler.pipeline.ComputeMethod;
 import org.renjin.compiler.pipeline.DeferredNode;
 import org.renjin.repackaged.asm.MethodVisitor;
-import org.renjin.repackaged.asm.Opcodes;
 import org.renjin.repackaged.asm.Type;
 import org.renjin.sexp.Vector;
 
@@ -167,7 +166,7 @@ public class BinaryVectorOpAccessor extends Accessor {
     pushComputation(method);
     
     if(applyMethod.getReturnType().equals(int.class)) {
-      method.getVisitor().visitInsn(Opcodes.I2D);
+      writeIntToDouble(method.getVisitor());
     } else if(applyMethod.getReturnType().equals(double.class)) {
       // NOOP
     } else {
@@ -182,9 +181,14 @@ public class BinaryVectorOpAccessor extends Accessor {
     if(applyMethod.getReturnType().equals(int.class)) {
       // NOOP
     } else if(applyMethod.getReturnType().equals(double.class)) {
-      method.getVisitor().visitInsn(Opcodes.D2I);
+      writeDoubleToInt(method.getVisitor());
     } else {
       throw new UnsupportedOperationException("returnType: " + applyMethod.getReturnType());
     }  
   }
+
+  @Override
+  public boolean isIntegral() {
+    return applyMethod.getReturnType().equals(int.class);
+  }
 }
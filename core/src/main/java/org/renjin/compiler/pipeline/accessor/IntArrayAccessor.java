@@ -20,19 +20,32 @@ package org.renjin.compiler.pipeline.accessor;
 
 import org.renjin.compiler.pipeline.ComputeMethod;
 import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.Vector;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
+/**
+ * Accesses the elements of an {@code IntArrayVector} or {@code LogicalArrayVector}
+ * directly from their backing {@code int[]} arrays.
+ */
 public class IntArrayAccessor extends Accessor {
 
   /**
    * The local variable where we're storing the
-   * raw array, double[]
+   * raw array, int[]
    */
   private int arrayLocalIndex;
   private int operandIndex;
+  private String vectorClass;
 
   public IntArrayAccessor(int operandIndex) {
+    this(IntArrayVector.class, operandIndex);
+  }
+
+  public IntArrayAccessor(Class<? extends Vector> vectorClass, int operandIndex) {
+    this.vectorClass = Type.getInternalName(vectorClass);
     this.operandIndex = operandIndex;
   }
 
@@ -44,8 +57,8 @@ public class IntArrayAccessor extends Accessor {
     mv.visitVarInsn(ALOAD, method.getOperandsLocalIndex());
     pushOperandIndex(mv, operandIndex);
     mv.visitInsn(AALOAD);
-    mv.visitTypeInsn(CHECKCAST, "org/renjin/sexp/IntArrayVector");
-    mv.visitMethodInsn(INVOKEVIRTUAL, "org/renjin/sexp/IntArrayVector", "toIntArrayUnsafe", "()[I");
+    mv.visitTypeInsn(CHECKCAST, vectorClass);
+    mv.visitMethodInsn(INVOKEVIRTUAL, vectorClass, "toIntArrayUnsafe", "()[I", false);
     mv.visitVarInsn(ASTORE, arrayLocalIndex);
   }
 
@@ -62,7 +75,7 @@ public class IntArrayAccessor extends Accessor {
     mv.visitVarInsn(ALOAD, arrayLocalIndex);
     mv.visitInsn(SWAP);
     mv.visitInsn(IALOAD);
-    mv.visitInsn(I2D);
+    writeIntToDouble(mv);
   }
 
   @Override
@@ -72,5 +85,10 @@ public class IntArrayAccessor extends Accessor {
     mv.visitInsn(SWAP);
     mv.visitInsn(IALOAD);
   }
+
+  @Override
+  public boolean isIntegral() {
+    return true;
+  }
    
 }
@@ -21,7 +21,6 @@ package org.renjin.compiler.pipeline.accessor;
 import org.renjin.compiler.pipeline.ComputeMethod;
 import org.renjin.compiler.pipeline.DeferredNode;
 import org.renjin.repackaged.asm.MethodVisitor;
-import org.renjin.repackaged.asm.Opcodes;
 import org.renjin.repackaged.asm.Type;
 import org.renjin.sexp.Vector;
 
@@ -100,7 +99,7 @@ public class UnaryVectorOpAccessor extends Accessor {
     push(method);
 
     if(returnType.equals(int.class)) {
-      method.getVisitor().visitInsn(Opcodes.I2D);
+      writeIntToDouble(method.getVisitor());
     } else if(returnType.equals(double.class)) {
       // NOOP 
     } else {
@@ -115,9 +114,14 @@ public class UnaryVectorOpAccessor extends Accessor {
     if(returnType.equals(int.class)) {
       // NOOP 
     } else if(returnType.equals(double.class)) {
-      method.getVisitor().visitInsn(Opcodes.D2I);
+      writeDoubleToInt(method.getVisitor());
     } else {
       throw new UnsupportedOperationException("returnType: " + returnType);
     }
   }
+
+  @Override
+  public boolean isIntegral() {
+    return returnType.equals(int.class);
+  }
 }
@@ -21,6 +21,8 @@ package org.renjin.compiler.pipeline.accessor;
 import org.renjin.compiler.pipeline.ComputeMethod;
 import org.renjin.compiler.pipeline.VectorPipeliner;
 import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.LogicalVector;
 import org.renjin.sexp.Vector;
 
 import java.lang.reflect.Modifier;
@@ -39,6 +41,7 @@ public class VirtualAccessor extends Accessor {
   private int ptrLocalIndex;
   private String vectorClass;
   private int operandIndex;
+  private boolean integral;
 
   public VirtualAccessor(Vector vector, int operandIndex) {
     if(VectorPipeliner.DEBUG) {
@@ -50,6 +53,7 @@ public class VirtualAccessor extends Accessor {
     } 
     this.vectorClass = findFirstPublicSuperClass(vector.getClass()).getName().replace('.', '/');
     this.operandIndex = operandIndex;
+    this.integral = vector instanceof IntVector || vector instanceof LogicalVector;
   }
 
   
@@ -95,4 +99,9 @@ public class VirtualAccessor extends Accessor {
     mv.visitInsn(SWAP);
     mv.visitMethodInsn(INVOKEVIRTUAL, vectorClass, "getElementAsInt", "(I)I", false);
   }
+
+  @Override
+  public boolean isIntegral() {
+    return integral;
+  }
 }
@@ -40,7 +40,10 @@ public class Optimizers {
       List<DeferredNode> nodes = Lists.newArrayList(graph.getNodes());
       for(DeferredNode node : nodes) {
         for(Optimizer optimizer : optimizers) {
-          changed |= optimizer.optimize(graph, node);
+          // skip nodes which have been replaced by an earlier optimization
+          if(graph.contains(node)) {
+            changed |= optimizer.optimize(graph, node);
+          }
         }
       }
     } while(changed);
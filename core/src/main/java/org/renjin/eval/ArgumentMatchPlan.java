@@ -0,0 +1,261 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.renjin.sexp.*;
+
+/**
+ * The result of matching the actual arguments of a call to the formal arguments of a closure,
+ * recorded as a mapping from argument positions to formal positions.
+ *
+ * <p>The result of matching depends only on the closure's formals and on the number and names of the
+ * actual arguments, which rarely change from one evaluation of a given call to the next. A call
+ * keeps the plans it has used, so that matching the arguments of subsequent calls only
+ * requires a check of the arguments' names.</p>
+ */
+public final class ArgumentMatchPlan {
+
+  /**
+   * The maximum number of plans kept for a single call.
+   */
+  private static final int MAX_PLANS_PER_CALL = 4;
+
+  private static final int ELLIPSES = -1;
+
+  private final PairList formals;
+
+  /**
+   * The tags of the actual arguments, or {@code Null.INSTANCE} for untagged arguments.
+   */
+  private final SEXP[] actualTags;
+
+  /**
+   * The index of the formal to which each actual argument is matched, or {@link #ELLIPSES}
+   * if the argument is included in {@code ...}
+   */
+  private final int[] actualToFormal;
+
+  private final int formalCount;
+
+  /**
+   * The next plan used by the same call.
+   */
+  private final ArgumentMatchPlan next;
+
+  private ArgumentMatchPlan(PairList formals, SEXP[] actualTags, int[] actualToFormal, int formalCount,
+                            ArgumentMatchPlan next) {
+    this.formals = formals;
+    this.actualTags = actualTags;
+    this.actualToFormal = actualToFormal;
+    this.formalCount = formalCount;
+    this.next = next;
+  }
+
+  /**
+   * Finds the plan previously used by {@code call} to match {@code actuals} to {@code formals},
+   * or builds and records a new plan.
+   *
+   * @throws EvalException if the arguments cannot be matched.
+   */
+  public static ArgumentMatchPlan forCall(FunctionCall call, PairList formals, PairList actuals) {
+    ArgumentMatchPlan first = call.getArgumentMatchPlan();
+    int count = 0;
+    for(ArgumentMatchPlan plan = first; plan != null; plan = plan.next) {
+      if(plan.matches(formals, actuals)) {
+        return plan;
+      }
+      count++;
+    }
+    ArgumentMatchPlan plan = build(formals, actuals, count < MAX_PLANS_PER_CALL ? first : null);
+    call.setArgumentMatchPlan(plan);
+    return plan;
+  }
+
+  /**
+   * Builds a plan for matching {@code actuals} to {@code formals}, following the three-pass process
+   * described in {@link ClosureDispatcher#matchArguments(PairList, PairList, boolean)}.
+   *
+   * @throws EvalException if the arguments cannot be matched.
+   */
+  public static ArgumentMatchPlan build(PairList formals, PairList actuals) {
+    return build(formals, actuals, null);
+  }
+
+  private static ArgumentMatchPlan build(PairList formals, PairList actuals, ArgumentMatchPlan next) {
+
+    int formalCount = formals.length();
+    Symbol[] formalNames = new Symbol[formalCount];
+    int ellipsesIndex = -1;
+    int formalIndex = 0;
+    for (PairList.Node formal : formals.nodes()) {
+      if(formal.hasTag()) {
+        formalNames[formalIndex] = formal.getTag();
+        if(formal.getTag() == Symbols.ELLIPSES && ellipsesIndex == -1) {
+          ellipsesIndex = formalIndex;
+        }
+      }
+      formalIndex++;
+    }
+
+    int actualCount = actuals.length();
+    SEXP[] actualTags = new SEXP[actualCount];
+    int actualIndex = 0;
+    for (PairList.Node actual : actuals.nodes()) {
+      actualTags[actualIndex++] = actual.getRawTag();
+    }
+
+    int[] actualToFormal = new int[actualCount];
+    boolean[] formalMatched = new boolean[formalCount];
+    for (int i = 0; i < actualCount; i++) {
+      actualToFormal[i] = -2;
+    }
+
+    // do exact matching
+    for (int f = 0; f < formalCount; f++) {
+      Symbol name = formalNames[f];
+      if(name != null && name != Symbols.ELLIPSES) {
+        int match = -1;
+        for (int a = 0; a < actualCount; a++) {
+          if(actualToFormal[a] == -2 && actualTags[a] instanceof Symbol &&
+              ((Symbol) actualTags[a]).getPrintName().equals(name.getPrintName())) {
+            if(match != -1) {
+              throw new EvalException(String.format("Multiple named values provided for argument '%s'", name.getPrintName()));
+            }
+            match = a;
+          }
+        }
+        if(match != -1) {
+          actualToFormal[match] = f;
+          formalMatched[f] = true;
+        }
+      }
+    }
+
+    // Partial matching, only on formal arguments preceding ELLIPSES
+    for (int a = 0; a < actualCount; a++) {
+      if(actualToFormal[a] == -2 && actualTags[a] != Null.INSTANCE && actualTags[a] != Symbols.ELLIPSES) {
+        String argumentName = ((Symbol) actualTags[a]).getPrintName();
+        int partialMatch = -1;
+        for (int f = 0; f < formalCount; f++) {
+          if(formalNames[f] == Symbols.ELLIPSES) {
+            break;
+          }
+          if(!formalMatched[f] && formalNames[f] != null && formalNames[f].getPrintName().startsWith(argumentName)) {
+            if(partialMatch == -1) {
+              partialMatch = f;
+            } else {
+              throw new EvalException(String.format("Provided argument '%s' matches multiple named formal arguments",
+                  argumentName));
+            }
+          }
+        }
+        if(partialMatch != -1) {
+          actualToFormal[a] = partialMatch;
+          formalMatched[partialMatch] = true;
+        }
+      }
+    }
+
+    // match any unnamed args positionally
+    int nextActual = nextUnmatched(actualToFormal, 0);
+    for (int f = 0; f < formalCount; f++) {
+      if(formalMatched[f]) {
+        continue;
+      }
+      if(f == ellipsesIndex) {
+        while(nextActual < actualCount) {
+          actualToFormal[nextActual] = ELLIPSES;
+          nextActual = nextUnmatched(actualToFormal, nextActual + 1);
+        }
+      } else if(nextActual < actualCount && actualTags[nextActual] == Null.INSTANCE) {
+        actualToFormal[nextActual] = f;
+        nextActual = nextUnmatched(actualToFormal, nextActual + 1);
+      }
+    }
+    if(nextActual < actualCount) {
+      throw new EvalException("Unmatched positional arguments");
+    }
+
+    return new ArgumentMatchPlan(formals, actualTags, actualToFormal, formalCount, next);
+  }
+
+  private static int nextUnmatched(int[] actualToFormal, int start) {
+    int a = start;
+    while(a < actualToFormal.length && actualToFormal[a] != -2) {
+      a++;
+    }
+    return a;
+  }
+
+  /**
+   * @return true if this plan can be used to match {@code actuals} to {@code formals}
+   */
+  private boolean matches(PairList formals, PairList actuals) {
+    if(this.formals != formals) {
+      return false;
+    }
+    int i = 0;
+    for (PairList.Node actual : actuals.nodes()) {
+      if(i == actualTags.length || actual.getRawTag() != actualTags[i]) {
+        return false;
+      }
+      i++;
+    }
+    return i == actualTags.length;
+  }
+
+  /**
+   * Binds the matched arguments in the function environment {@code innerEnv}. Formals
+   * without a matching argument are bound to a promise to evaluate their default value, or
+   * to {@code Symbol.MISSING_ARG} if they have no default value.
+   */
+  public void bindArguments(PairList actuals, Environment innerEnv) {
+    SEXP[] values = new SEXP[formalCount];
+    PromisePairList.Builder ellipses = null;
+
+    int a = 0;
+    for (PairList.Node actual : actuals.nodes()) {
+      int f = actualToFormal[a++];
+      if(f == ELLIPSES) {
+        if(ellipses == null) {
+          ellipses = new PromisePairList.Builder();
+        }
+        ellipses.add(actual.getRawTag(), actual.getValue());
+      } else {
+        values[f] = actual.getValue();
+      }
+    }
+
+    int f = 0;
+    for (PairList.Node formal : formals.nodes()) {
+      SEXP value = values[f++];
+      if(formal.getTag() == Symbols.ELLIPSES) {
+        value = ellipses == null ? Null.INSTANCE : ellipses.build();
+      } else if(value == null || value == Symbol.MISSING_ARG) {
+        SEXP defaultValue = formal.getValue();
+        if(defaultValue != Symbol.MISSING_ARG) {
+          value = Promise.promiseMissing(innerEnv, defaultValue);
+        } else {
+          value = Symbol.MISSING_ARG;
+        }
+      }
+      innerEnv.setVariable(formal.getTag(), value);
+    }
+  }
+}
@@ -36,7 +36,7 @@ public class Calls {
     Environment functionEnvironment = functionContext.getEnvironment();
 
     try {
-      matchArgumentsInto(closure.getFormals(), promisedArgs, functionContext, functionEnvironment);
+      ClosureDispatcher.matchArgumentsInto(call, closure.getFormals(), promisedArgs, functionEnvironment);
 
       // copy supplied environment values into the function environment
       for(Symbol name : suppliedEnvironment.getSymbols()) {
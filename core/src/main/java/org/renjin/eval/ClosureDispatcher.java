@@ -18,6 +18,9 @@
  */
 package org.renjin.eval;
 
+import org.renjin.compiler.ClosureCompiler;
+import org.renjin.compiler.CompiledBody;
+import org.renjin.compiler.DeoptimizationException;
 import org.renjin.primitives.CollectionUtils;
 import org.renjin.primitives.special.ReturnException;
 import org.renjin.repackaged.guava.base.Joiner;
@@ -58,19 +61,27 @@ public class ClosureDispatcher {
     return apply(closure, promisedArgs);
   }
 
+  /**
+   * Applies {@code closure} to arguments which have already been wrapped in promises, as
+   * by {@link Calls#promiseArgs(PairList, Context, Environment)}.
+   */
+  public SEXP applyPromised(Closure closure, PairList promisedArgs) {
+    return apply(closure, promisedArgs);
+  }
+
   private SEXP apply(Closure closure, PairList promisedArgs) {
 
     Context functionContext = callingContext.beginFunction(callingEnvironment, call, closure, promisedArgs);
     Environment functionEnvironment = functionContext.getEnvironment();
 
     try {
-      matchArgumentsInto(closure.getFormals(), promisedArgs, functionContext, functionEnvironment);
+      matchArgumentsInto(call, closure.getFormals(), promisedArgs, functionEnvironment);
 
       if(dispatchChain != null) {
         dispatchChain.populateEnvironment(functionEnvironment);
       }
 
-      return closure.doApply(functionContext);
+      return evaluateBody(closure, functionContext);
 
     } catch(ReturnException e) {
 
@@ -106,6 +117,25 @@ public class ClosureDispatcher {
     }
   }
   
+  private static SEXP evaluateBody(Closure closure, Context functionContext) {
+    if(ClosureCompiler.COMPILE_CLOSURES &&
+        !closure.isCompilationDisabled() &&
+        closure.incrementInvocationCount() > ClosureCompiler.COMPILE_THRESHOLD) {
+
+      CompiledBody compiledBody = ClosureCompiler.tryCompile(functionContext, closure);
+      if(compiledBody != null) {
+        try {
+          return compiledBody.evaluate(functionContext, functionContext.getEnvironment());
+        } catch (DeoptimizationException e) {
+          // An argument did not have the expected type. Nothing has happened yet that
+          // cannot be repeated, so the interpreter can start again from the beginning
+          ClosureCompiler.deoptimized(closure);
+        }
+      }
+    }
+    return closure.doApply(functionContext);
+  }
+
   private static SEXP findHandler(Context context, Iterable<String> conditionClasses) {
     for(String conditionClass : conditionClasses) {
       SEXP handler = context.getConditionHandler(conditionClass);
@@ -119,17 +149,22 @@ public class ClosureDispatcher {
   public static void matchArgumentsInto(PairList formals, PairList actuals, 
       Context innerContext, Environment innerEnv) {
 
-    PairList matched = matchArguments(formals, actuals);
-    for(PairList.Node node : matched.nodes()) {
-      SEXP value = node.getValue();
-      if(value == Symbol.MISSING_ARG) {
-        SEXP defaultValue = formals.findByTag(node.getTag());
-        if(defaultValue != Symbol.MISSING_ARG) {
-          value =  Promise.promiseMissing(innerEnv, defaultValue);
-        }
-      }
-      innerEnv.setVariable(node.getTag(), value);
+    ArgumentMatchPlan.build(formals, actuals).bindArguments(actuals, innerEnv);
+  }
+
+  /**
+   * Matches the arguments supplied to {@code call} to the closure's {@code formals}, reusing
+   * the {@link ArgumentMatchPlan} from previous evaluations of the call if the names of the arguments
+   * have not changed.
+   */
+  public static void matchArgumentsInto(FunctionCall call, PairList formals, PairList actuals, Environment innerEnv) {
+    ArgumentMatchPlan plan;
+    if(call == null) {
+      plan = ArgumentMatchPlan.build(formals, actuals);
+    } else {
+      plan = ArgumentMatchPlan.forCall(call, formals, actuals);
     }
+    plan.bindArguments(actuals, innerEnv);
   }
 
   public static PairList matchArguments(PairList formals, PairList actuals) {
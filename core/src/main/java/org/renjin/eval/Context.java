@@ -30,6 +30,7 @@ import org.renjin.primitives.packaging.NamespaceRegistry;
 import org.renjin.primitives.special.ControlFlowException;
 import org.renjin.primitives.vector.DeferredComputation;
 import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.primitives.vector.WarningComputation;
 import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.repackaged.guava.collect.Maps;
 import org.renjin.sexp.*;
@@ -38,8 +39,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Contexts are the internal mechanism used to keep track of where a
@@ -170,17 +174,23 @@ public class Context {
   /**
    * If the S-Expression is an {@code DeferredComputation}, then it is executed with the
    * VectorPipeliner.
+   *
+   * <p>Any warnings raised while computing the deferred values, such as an integer overflow,
+   * are signaled in this context.</p>
    * @param sexp
    * @return
    */
   public SEXP materialize(SEXP sexp) {
 
     if(sexp instanceof MemoizedComputation && ((MemoizedComputation) sexp).isCalculated()) {
+      warnDeferred((DeferredComputation) sexp);
       return sexp;
     }
     
     if(sexp instanceof DeferredComputation && !((DeferredComputation) sexp).isConstantAccessTime()) {
-      return session.getVectorEngine().materialize((DeferredComputation)sexp);
+      Vector result = session.getVectorEngine().materialize((DeferredComputation)sexp);
+      warnDeferred((DeferredComputation) sexp);
+      return result;
     } else {
       return sexp;
     }
@@ -188,18 +198,43 @@ public class Context {
   
   public Vector materialize(Vector sexp) {
     if(sexp instanceof DeferredComputation && !sexp.isConstantAccessTime()) {
-      if(sexp instanceof MemoizedComputation) {
-        MemoizedComputation memo = (MemoizedComputation) sexp;
-        if(memo.isCalculated()) {
-          return memo.forceResult();
-        }
+      Vector result;
+      if(sexp instanceof MemoizedComputation && ((MemoizedComputation) sexp).isCalculated()) {
+        result = ((MemoizedComputation) sexp).forceResult();
+      } else {
+        result = session.getVectorEngine().materialize((DeferredComputation)sexp);
       }
-      return session.getVectorEngine().materialize((DeferredComputation)sexp);
+      warnDeferred((DeferredComputation) sexp);
+      return result;
     } else {
       return sexp;
     }
   }
 
+  /**
+   * Signals the warnings held by {@code computation} and its operands.
+   */
+  private void warnDeferred(DeferredComputation computation) {
+    warnDeferred(computation, Collections.newSetFromMap(new IdentityHashMap<Vector, Boolean>()));
+  }
+
+  private void warnDeferred(DeferredComputation computation, Set<Vector> visited) {
+    if(!visited.add(computation)) {
+      return;
+    }
+    if(computation instanceof WarningComputation) {
+      String message = ((WarningComputation) computation).takeWarning();
+      if(message != null) {
+        warn(message);
+      }
+    }
+    for (Vector operand : computation.getOperands()) {
+      if(operand instanceof DeferredComputation) {
+        warnDeferred((DeferredComputation) operand, visited);
+      }
+    }
+  }
+
   public SEXP simplify(SEXP sexp) {
     if(sexp instanceof MemoizedComputation && ((MemoizedComputation) sexp).isCalculated()) {
       return sexp;
@@ -292,7 +327,7 @@ public class Context {
     clearInvisibleFlag();
 
     SEXP fn = call.getFunction();
-    Function functionExpr = evaluateFunction(fn, rho);
+    Function functionExpr = evaluateFunction(call, rho);
 
     boolean profiling = Profiler.ENABLED && fn instanceof Symbol && !((Symbol) fn).isReservedWord();
     if(Profiler.ENABLED && profiling) {
@@ -317,13 +352,14 @@ public class Context {
     }
   }
 
-  private Function evaluateFunction(SEXP functionExp, Environment rho) {
+  private Function evaluateFunction(FunctionCall call, Environment rho) {
+    SEXP functionExp = call.getFunction();
     if(functionExp instanceof Symbol) {
       Symbol symbol = (Symbol) functionExp;
       if(symbol.isReservedWord()) {
         return Primitives.getReservedBuiltin(symbol);
       }
-      Function fn = rho.findFunction(this, symbol);
+      Function fn = rho.findFunction(this, call, symbol);
       if(fn == null) {
         throw new EvalException("could not find function '%s'", symbol.getPrintName());      
       }
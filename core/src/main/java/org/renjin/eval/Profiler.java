@@ -45,6 +45,14 @@ public class Profiler {
   private static long MATERIALIZATION_TIME = 0;
   private static long MATERIALIZATION_COUNT = 0;
 
+  private static long LOOP_COMPILE_TIME = 0;
+  private static long LOOP_COMPILE_COUNT = 0;
+  private static long CLOSURE_COMPILE_TIME = 0;
+  private static long CLOSURE_COMPILE_COUNT = 0;
+  private static long COMPILE_CACHE_HITS = 0;
+  private static long COMPILE_CACHE_MISSES = 0;
+  private static long CLOSURE_DEOPTIMIZATIONS = 0;
+
   private static class FunctionProfile {
     private Symbol symbol;
     private long count;
@@ -153,6 +161,74 @@ public class Profiler {
     }
   }
 
+  /**
+   * Reports the compilation of a loop body
+   * @param time the nanoseconds spent compiling
+   */
+  public static void loopCompiled(long time) {
+    LOOP_COMPILE_TIME += time;
+    LOOP_COMPILE_COUNT ++;
+  }
+
+  /**
+   * Reports the compilation of a closure body
+   * @param time the nanoseconds spent compiling
+   */
+  public static void closureCompiled(long time) {
+    CLOSURE_COMPILE_TIME += time;
+    CLOSURE_COMPILE_COUNT ++;
+  }
+
+  /**
+   * Reports that compiled code fell back to the interpreter because an argument did not have
+   * the expected type
+   */
+  public static void closureDeoptimized() {
+    CLOSURE_DEOPTIMIZATIONS ++;
+  }
+
+  /**
+   * @return the number of closure bodies compiled
+   */
+  public static long getClosuresCompiled() {
+    return CLOSURE_COMPILE_COUNT;
+  }
+
+  /**
+   * @return the number of times compiled code fell back to the interpreter
+   */
+  public static long getClosureDeoptimizations() {
+    return CLOSURE_DEOPTIMIZATIONS;
+  }
+
+  /**
+   * Reports that previously compiled code was reused
+   */
+  public static void compileCacheHit() {
+    COMPILE_CACHE_HITS ++;
+  }
+
+  /**
+   * Reports that no compiled code was available for the current types
+   */
+  public static void compileCacheMiss() {
+    COMPILE_CACHE_MISSES ++;
+  }
+
+  /**
+   * @return the number of times previously compiled code has been reused
+   */
+  public static long getCompileCacheHits() {
+    return COMPILE_CACHE_HITS;
+  }
+
+  /**
+   * @return the number of times no compiled code was available for the current types
+   */
+  public static long getCompileCacheMisses() {
+    return COMPILE_CACHE_MISSES;
+  }
+
   /**
    * Reports the end of a function call
    */
@@ -240,6 +316,7 @@ public class Profiler {
     printFunctionTimings(out, totalRunningTime);
     printLoopTimings(out);
     printMaterializationStats(out);
+    printCompilerStats(out);
   }
 
 
@@ -336,6 +413,20 @@ public class Profiler {
 
   }
 
+  private static void printCompilerStats(PrintStream out) {
+    out.println();
+    out.println("COMPILER");
+    out.println("========");
+
+    out.println("Loops compiled: " + LOOP_COMPILE_COUNT);
+    out.println("Loop compilation time (ms): " + TimeUnit.NANOSECONDS.toMillis(LOOP_COMPILE_TIME));
+    out.println("Closures compiled: " + CLOSURE_COMPILE_COUNT);
+    out.println("Closure compilation time (ms): " + TimeUnit.NANOSECONDS.toMillis(CLOSURE_COMPILE_TIME));
+    out.println("Cache hits: " + COMPILE_CACHE_HITS);
+    out.println("Cache misses: " + COMPILE_CACHE_MISSES);
+    out.println("Closure deoptimizations: " + CLOSURE_DEOPTIMIZATIONS);
+  }
+
   private static String formatAlloc(long bytes) {
     if(bytes < 1024) {
       return "";
@@ -22,7 +22,11 @@ import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemManager;
 import org.renjin.compiler.pipeline.VectorPipeliner;
+import org.renjin.methods.MethodDispatch;
+import org.renjin.methods.PrimitiveMethodTable;
 import org.renjin.primitives.io.connections.ConnectionTable;
+import org.renjin.primitives.packaging.Namespace;
+import org.renjin.primitives.packaging.NamespaceFrame;
 import org.renjin.primitives.packaging.NamespaceRegistry;
 import org.renjin.primitives.packaging.PackageLoader;
 import org.renjin.repackaged.guava.collect.ImmutableList;
@@ -39,6 +43,7 @@ import java.io.Reader;
 import java.lang.invoke.MethodHandle;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Outermost context for R evaluation.
@@ -344,4 +349,91 @@ public class Session {
   public MethodHandle getRngMethod() {
     return rng.getMethodHandle();
   }
+
+  /**
+   * Captures the current state of this session, so that new sessions can be quickly
+   * {@linkplain SessionSnapshot#fork() forked} from it. Changes made to this session after the snapshot
+   * has been taken are not seen by the snapshot or by its forks.
+   */
+  public SessionSnapshot snapshot() {
+    return new SessionSnapshot(this);
+  }
+
+  /**
+   * Creates a new session with the same configuration as this one, but without any packages loaded.
+   */
+  Session newEmptySession() {
+    return new Session(fileSystemManager, classLoader, namespaceRegistry.getPackageLoader(), vectorPipeliner);
+  }
+
+  /**
+   * Copies the global environment, loaded namespaces, options and random number generator
+   * state of this session to {@code target}, a session created by {@link #newEmptySession()}.
+   *
+   * @param template the nodes to copy, or {@code null} to copy all nodes that refer to one of
+   *                 this session's environments.
+   * @return the copier, whose {@link SexpGraphCopier#getCopies() copies} can serve as the template
+   * to copy {@code target} in turn.
+   */
+  SexpGraphCopier copyTo(final Session target, Set<SEXP> template) {
+
+    SexpGraphCopier.EnvironmentResolver resolver = new SexpGraphCopier.EnvironmentResolver() {
+      @Override
+      public Environment resolve(Environment environment) {
+        if(environment == baseEnvironment) {
+          return target.baseEnvironment;
+        } else if(environment == baseNamespaceEnv) {
+          return target.baseNamespaceEnv;
+        } else if(environment == globalEnvironment) {
+          return target.globalEnvironment;
+        } else if(environment.getFrame() instanceof NamespaceFrame) {
+          return Environment.createChildEnvironment(Environment.EMPTY, new NamespaceFrame(target.namespaceRegistry));
+        } else {
+          return null;
+        }
+      }
+    };
+    SexpGraphCopier copier;
+    if(template == null) {
+      copier = new SexpGraphCopier(resolver);
+    } else {
+      copier = new SexpGraphCopier(resolver, template);
+    }
+
+    // The base environment and namespace share a frame, but are locked separately
+    copier.copyBindings(baseEnvironment, target.baseEnvironment);
+    copier.copyBindings(baseNamespaceEnv, target.baseNamespaceEnv);
+
+    copier.copyBindings(globalEnvironment, target.globalEnvironment);
+    target.globalEnvironment.setParent(copier.copyEnvironment(globalEnvironment.getParent()));
+
+    for (Namespace namespace : namespaceRegistry.getNamespaces()) {
+      target.namespaceRegistry.registerCopy(namespace, copier.copyEnvironment(namespace.getNamespaceEnvironment()));
+    }
+
+    Options options = (Options) singletons.get(Options.class);
+    if(options != null) {
+      Options targetOptions = target.getSingleton(Options.class);
+      for (String name : options.names()) {
+        targetOptions.set(name, copier.copy(options.get(name)));
+      }
+    }
+    MethodDispatch methodDispatch = (MethodDispatch) singletons.get(MethodDispatch.class);
+    if(methodDispatch != null) {
+      target.getSingleton(MethodDispatch.class).copyFrom(methodDispatch, copier);
+    }
+    PrimitiveMethodTable methodTable = (PrimitiveMethodTable) singletons.get(PrimitiveMethodTable.class);
+    if(methodTable != null) {
+      target.getSingleton(PrimitiveMethodTable.class).copyFrom(methodTable, copier);
+    }
+
+    target.rng.copyFrom(rng);
+    target.systemEnvironment.clear();
+    target.systemEnvironment.putAll(systemEnvironment);
+    target.workingDirectory = workingDirectory;
+    target.commandLineArguments = commandLineArguments;
+    target.securityManager = securityManager;
+
+    return copier;
+  }
 }
\ No newline at end of file
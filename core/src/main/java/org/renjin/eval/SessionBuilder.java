@@ -19,6 +19,7 @@
 package org.renjin.eval;
 
 import org.apache.commons.vfs2.FileSystemManager;
+import org.renjin.compiler.pipeline.AdaptiveVectorPipeliner;
 import org.renjin.compiler.pipeline.SimpleVectorPipeliner;
 import org.renjin.compiler.pipeline.VectorPipeliner;
 import org.renjin.primitives.packaging.ClasspathPackageLoader;
@@ -38,6 +39,8 @@ public class SessionBuilder {
   private FileSystemManager fileSystemManager;
   private PackageLoader packageLoader;
   private VectorPipeliner vectorPipeliner;
+  private int vectorThreads = 1;
+  private long parallelThreshold = AdaptiveVectorPipeliner.DEFAULT_PARALLEL_THRESHOLD;
   private ClassLoader classLoader;
  
   public SessionBuilder() {
@@ -113,6 +116,32 @@ public class SessionBuilder {
     return this;
   }
 
+  /**
+   * Sets the number of threads used to compute deferred vector operations.
+   *
+   * <p>By default, deferred computations are run on the calling thread. If {@code threads} is greater
+   * than one, and no {@code VectorPipeliner} has been set, the new {@code Session} will compute
+   * large graphs of deferred computations in parallel. Graphs whose estimated cost is below the
+   * {@linkplain #setParallelThreshold(long) parallel threshold} are still computed on the calling thread.</p>
+   */
+  public SessionBuilder setVectorThreads(int threads) {
+    if(threads < 1) {
+      throw new IllegalArgumentException("threads must be positive");
+    }
+    this.vectorThreads = threads;
+    return this;
+  }
+
+  /**
+   * Sets the minimum estimated cost, roughly vector length × number of operations, for which a
+   * graph of deferred computations is computed in parallel. Only used when more than one
+   * {@linkplain #setVectorThreads(int) thread} is configured.
+   */
+  public SessionBuilder setParallelThreshold(long minElements) {
+    this.parallelThreshold = minElements;
+    return this;
+  }
+
   /**
    * Sets the {@link ClassLoader} to use to resolve JVM classes by the {@code import()} builtin.
    */
@@ -154,7 +183,11 @@ public class SessionBuilder {
       }
 
       if(vectorPipeliner == null) {
-        vectorPipeliner = new SimpleVectorPipeliner();
+        if(vectorThreads > 1) {
+          vectorPipeliner = new AdaptiveVectorPipeliner(vectorThreads, parallelThreshold);
+        } else {
+          vectorPipeliner = new SimpleVectorPipeliner();
+        }
       }
 
       if(packageLoader == null) {
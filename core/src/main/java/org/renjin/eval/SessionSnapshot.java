@@ -0,0 +1,59 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.renjin.sexp.SEXP;
+
+import java.util.Set;
+
+/**
+ * A frozen copy of an initialized {@link Session}, from which new sessions can be forked
+ * much more quickly than they can be built and initialized from scratch.
+ *
+ * <p>Each fork receives its own copy of the snapshot's global environment, loaded namespaces, options
+ * and random number generator state. Vectors, function bodies and other immutable values are shared
+ * by all forks, as are JVM objects referenced by external pointers. Connections, graphics devices,
+ * finalizers and caches are not copied: each fork starts with fresh ones, as if it had just been built.</p>
+ *
+ * <p>The snapshot itself is never evaluated, so {@link #fork()} can be called concurrently from
+ * several threads, for example to populate a pool of script engines.</p>
+ */
+public class SessionSnapshot {
+
+  private final Session session;
+
+  /**
+   * The nodes of the snapshot's object graph which must be copied for each fork.
+   */
+  private final Set<SEXP> template;
+
+  SessionSnapshot(Session source) {
+    this.session = source.newEmptySession();
+    this.template = source.copyTo(session, null).getCopies();
+  }
+
+  /**
+   * Creates a new session in the state captured by this snapshot.
+   */
+  public Session fork() {
+    Session fork = session.newEmptySession();
+    session.copyTo(fork, template);
+    return fork;
+  }
+}
@@ -250,6 +250,11 @@ public class DeferredVectorBuilder {
     for(DeferredArgument argument : arguments) {
       JVar param = method.param(argument.accessorType(), "p" + argument.index);
       params.add(argument.convert(param));
+
+      // jitted pipelines call this method directly, so it must handle NAs just as the accessor does
+      if(!overload.isPassNA() && argument.type != ArgumentType.BYTE) {
+        method.body()._if(argument.isNA(param))._then()._return(na());
+      }
     }
     returnValue(method.body(), buildInvocation(params));
   }
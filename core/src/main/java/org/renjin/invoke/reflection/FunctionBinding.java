@@ -23,13 +23,14 @@ import org.renjin.eval.EvalException;
 import org.renjin.invoke.codegen.ArgumentIterator;
 import org.renjin.invoke.reflection.converters.Converter;
 import org.renjin.invoke.reflection.converters.Converters;
+import org.renjin.repackaged.guava.annotations.VisibleForTesting;
 import org.renjin.repackaged.guava.collect.Iterables;
 import org.renjin.repackaged.guava.collect.Lists;
-import org.renjin.sexp.Environment;
-import org.renjin.sexp.ListVector;
-import org.renjin.sexp.PairList;
-import org.renjin.sexp.SEXP;
+import org.renjin.sexp.*;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -81,12 +82,34 @@ public class FunctionBinding {
   public static class Overload extends AbstractOverload {
     private Method method;
     private Converter returnValueConverter;
+
+    /**
+     * A handle to {@code method} adapted to the signature {@code (Object, Object[])Object}, created
+     * on first invocation. Invoking through the handle avoids the access checks and argument
+     * unpacking that {@link Method#invoke(Object, Object...)} repeats on every call.
+     */
+    private MethodHandle handle;
+
+    /**
+     * True if we could not obtain a {@code MethodHandle} and must invoke {@code method} reflectively.
+     */
+    private boolean reflective;
     
     public Overload(Method method) {
+      this(method, false);
+    }
+
+    /**
+     * @param reflective true if {@code method} should always be invoked reflectively, rather than
+     *                   through a {@code MethodHandle}
+     */
+    @VisibleForTesting
+    Overload(Method method, boolean reflective) {
       super(method.getParameterTypes(),
             method.getParameterAnnotations(), 
             method.isVarArgs());
       this.method = method;
+      this.reflective = reflective;
       this.returnValueConverter = Converters.get(method.getReturnType());    
     
       // workaround reflection problem calling 
@@ -113,6 +136,40 @@ public class FunctionBinding {
     
     public SEXP invoke(Context context, Object instance, List<SEXP> args) {
       Object[] converted = convertArguments(context, args);
+      MethodHandle handle = getHandle();
+      if(handle == null) {
+        return invokeReflectively(instance, converted);
+      }
+      Object result;
+      try {
+        result = (Object) handle.invokeExact(instance, converted);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+      return returnValueConverter.convertToR(result);
+    }
+
+    private MethodHandle getHandle() {
+      if(handle == null && !reflective) {
+        try {
+          MethodHandle target = MethodHandles.lookup().unreflect(method).asFixedArity();
+          if(Modifier.isStatic(method.getModifiers())) {
+            // accept, and ignore, the instance argument so that all handles share a signature
+            target = MethodHandles.dropArguments(target, 0, Object.class);
+          }
+          handle = target
+              .asType(MethodType.genericMethodType(getArgCount() + 1))
+              .asSpreader(Object[].class, getArgCount());
+        } catch (IllegalAccessException e) {
+          reflective = true;
+        }
+      }
+      return handle;
+    }
+
+    private SEXP invokeReflectively(Object instance, Object[] converted) {
       try {
         Object result = method.invoke(instance, converted);
         return returnValueConverter.convertToR(result);
@@ -140,6 +197,67 @@ public class FunctionBinding {
     }
   }
 
+  /**
+   * The overload selected for the arguments of a {@link FunctionCall}, kept on the call so that
+   * later evaluations can skip overload selection.
+   *
+   * <p>Converters accept or reject an argument based on its class, on whether it has zero, one,
+   * or more elements, and, for an {@link ExternalPtr}, on the class of the JVM object it wraps.
+   * The selection is reused only while all three are unchanged for every argument.</p>
+   */
+  public static final class CallSite {
+    private final FunctionBinding binding;
+    private final Overload overload;
+    private final Class[] argumentClasses;
+    private final int[] argumentLengths;
+    private final Class[] instanceClasses;
+
+    private CallSite(FunctionBinding binding, Overload overload, List<SEXP> args) {
+      this.binding = binding;
+      this.overload = overload;
+      this.argumentClasses = new Class[args.size()];
+      this.argumentLengths = new int[args.size()];
+      this.instanceClasses = new Class[args.size()];
+      for(int i=0;i!=args.size();++i) {
+        SEXP arg = args.get(i);
+        argumentClasses[i] = arg.getClass();
+        argumentLengths[i] = lengthClass(arg);
+        instanceClasses[i] = instanceClass(arg);
+      }
+    }
+
+    public Overload getOverload() {
+      return overload;
+    }
+
+    private boolean matches(FunctionBinding binding, List<SEXP> args) {
+      if(this.binding != binding || args.size() != argumentClasses.length) {
+        return false;
+      }
+      for(int i=0;i!=argumentClasses.length;++i) {
+        SEXP arg = args.get(i);
+        if(arg.getClass() != argumentClasses[i] ||
+           lengthClass(arg) != argumentLengths[i] ||
+           instanceClass(arg) != instanceClasses[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static int lengthClass(SEXP arg) {
+      return Math.min(arg.length(), 2);
+    }
+
+    private static Class instanceClass(SEXP arg) {
+      if(arg instanceof ExternalPtr) {
+        Object instance = ((ExternalPtr) arg).getInstance();
+        return instance == null ? null : instance.getClass();
+      }
+      return null;
+    }
+  }
+
   /**
    *
    * @param instance the JVM object instance
@@ -148,14 +266,35 @@ public class FunctionBinding {
    * @param arguments the UNEVALUATED arguments
    */
   public SEXP evaluateArgsAndInvoke(Object instance, Context context, Environment rho, PairList arguments) {
-    
-    // eval arguments
+    return invoke(instance, context, evaluateArgs(context, rho, arguments));
+  }
+
+  /**
+   *
+   * @param instance the JVM object instance
+   * @param context the calling context
+   * @param rho the calling environment
+   * @param call the call being evaluated, on which the selected overload is cached
+   * @param arguments the UNEVALUATED arguments
+   */
+  public SEXP evaluateArgsAndInvoke(Object instance, Context context, Environment rho, FunctionCall call,
+                                    PairList arguments) {
+    List<SEXP> args = evaluateArgs(context, rho, arguments);
+    CallSite site = call.getJvmCallSite();
+    if(site == null || !site.matches(this, args)) {
+      site = new CallSite(this, selectOverload(args), args);
+      call.setJvmCallSite(site);
+    }
+    return site.overload.invoke(context, instance, args);
+  }
+
+  private List<SEXP> evaluateArgs(Context context, Environment rho, PairList arguments) {
     List<SEXP> args = Lists.newArrayListWithCapacity(maxArgCount);
     ArgumentIterator it = new ArgumentIterator(context, rho, arguments);
     while(it.hasNext()) {
       args.add(context.evaluate( it.next(), rho));
     }
-    return invoke(instance, context, args);
+    return args;
   }
 
   /**
@@ -170,10 +309,13 @@ public class FunctionBinding {
   }
 
   private SEXP invoke(Object instance, Context context, List<SEXP> args) {
-    // find overload
+    return selectOverload(args).invoke(context, instance, args);
+  }
+
+  private Overload selectOverload(List<SEXP> args) {
     for(Overload overload : overloads) {
       if(overload.accept(args)) {
-        return overload.invoke(context, instance, args);
+        return overload;
       }
     }
     throw new EvalException("Cannot match arguments (%s) to any JVM method overload:\n%s",
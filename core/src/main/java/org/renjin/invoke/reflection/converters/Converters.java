@@ -61,7 +61,7 @@ public class Converters  {
       return BooleanArrayConverter.INSTANCE;
       
     } else if(IntegerArrayConverter.accept(clazz)) {
-      return IntegerArrayConverter.INSTANCE;
+      return new IntegerArrayConverter(clazz);
       
     }else if(DoubleArrayConverter.accept(clazz)) {
       return new DoubleArrayConverter(clazz);
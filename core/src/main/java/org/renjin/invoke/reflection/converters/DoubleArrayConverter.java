@@ -72,11 +72,15 @@ public class DoubleArrayConverter implements Converter<Object> {
   public Object convertToJava(SEXP value) {  
     if(!(value instanceof AtomicVector)) {
       throw new EvalException("It's not an AtomicVector", value.getTypeName());
-    } else if(value.length() < 1) {
-      //to keep its type info
-      return new Double[0];
     }
     AtomicVector dv= (AtomicVector)value;
+    if(componentClass == Double.TYPE) {
+      // share the storage of array-backed vectors: JVM methods must not modify double[] arguments
+      if(dv instanceof DoubleArrayVector) {
+        return ((DoubleArrayVector) dv).toDoubleArrayUnsafe();
+      }
+      return dv.toDoubleArray();
+    }
     int length = dv.length();
    
     Object array = Array.newInstance(componentClass, value.length());
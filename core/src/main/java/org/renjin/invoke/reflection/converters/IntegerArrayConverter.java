@@ -32,9 +32,12 @@ import java.lang.reflect.Array;
  */
 public class IntegerArrayConverter implements Converter<Object> {
 
-  public static final IntegerArrayConverter INSTANCE = new IntegerArrayConverter();
+  public static final IntegerArrayConverter INSTANCE = new IntegerArrayConverter(Integer[].class);
 
-  private IntegerArrayConverter() {
+  public final Class componentClass;
+
+  public IntegerArrayConverter(Class clazz) {
+    componentClass = clazz.getComponentType();
   }
 
   @Override
@@ -72,11 +75,15 @@ public class IntegerArrayConverter implements Converter<Object> {
   public Object convertToJava(SEXP value) {  
     if(!(value instanceof AtomicVector)) {
       throw new EvalException("It's not an AtomicVector", value.getTypeName());
-    } else if(value.length() < 1) {
-      //to keep its type info
-      return new Integer[0];
     }
     IntVector lv= (IntVector)value;
+    if(componentClass == Integer.TYPE) {
+      // share the storage of array-backed vectors: JVM methods must not modify int[] arguments
+      if(lv instanceof IntArrayVector) {
+        return ((IntArrayVector) lv).toIntArrayUnsafe();
+      }
+      return lv.toIntArray();
+    }
     int length = lv.length();
     Integer[] values = new Integer[length];
     for(int i=0;i<length;i++){
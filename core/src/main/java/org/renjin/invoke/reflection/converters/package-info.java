@@ -18,5 +18,8 @@
  */
 /**
  * Provides classes which convert between S-expressions and JVM classes at runtime.
+ *
+ * <p>{@code double[]} and {@code int[]} arguments share the storage of R vectors that are
+ * already backed by an array of that type, so JVM methods called from R must not modify them.</p>
  */
 package org.renjin.invoke.reflection.converters;
\ No newline at end of file
@@ -28,6 +28,7 @@ import org.renjin.repackaged.guava.collect.Maps;
 import org.renjin.sexp.*;
 
 import java.util.HashMap;
+import java.util.Map;
 
 @SessionScoped
 public class MethodDispatch {
@@ -105,6 +106,20 @@ public class MethodDispatch {
     methodsNamespace = environment;
   }
 
+  /**
+   * Copies the state of {@code source}, from another session, to this instance.
+   */
+  public void copyFrom(MethodDispatch source, SexpGraphCopier copier) {
+    enabled = source.enabled;
+    tableDispatchEnabled = source.tableDispatchEnabled;
+    if(source.methodsNamespace != null) {
+      methodsNamespace = copier.copyEnvironment(source.methodsNamespace);
+    }
+    for (Map.Entry<String, SEXP> entry : source.extendsTable.entrySet()) {
+      extendsTable.put(entry.getKey(), copier.copy(entry.getValue()));
+    }
+  }
+
   public boolean isEnabled() {
     return enabled;
   }
@@ -25,7 +25,9 @@ import org.renjin.sexp.Closure;
 import org.renjin.sexp.Null;
 import org.renjin.sexp.PrimitiveFunction;
 import org.renjin.sexp.SEXP;
+import org.renjin.sexp.SexpGraphCopier;
 
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 public class PrimitiveMethodTable {
@@ -75,6 +77,21 @@ public class PrimitiveMethodTable {
     }
   }
 
+  /**
+   * Copies the methods registered in {@code source}, from another session, to this table.
+   */
+  public void copyFrom(PrimitiveMethodTable source, SexpGraphCopier copier) {
+    for (Map.Entry<PrimitiveFunction, Entry> entry : source.map.asMap().entrySet()) {
+      Entry copy = get(entry.getKey());
+      copy.methods = entry.getValue().methods;
+      if(entry.getValue().generic != null) {
+        copy.generic = (Closure) copier.copy(entry.getValue().generic);
+      }
+      copy.methodList = copier.copy(entry.getValue().methodList);
+    }
+    primitiveMethodsAllowed = source.primitiveMethodsAllowed;
+  }
+
   public boolean isPrimitiveMethodsAllowed() {
     return primitiveMethodsAllowed;
   }
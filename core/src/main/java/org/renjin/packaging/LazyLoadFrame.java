@@ -31,9 +31,24 @@ import java.io.InputStream;
 
 public class LazyLoadFrame {
   
-  private static final int OLD_VERSION = 1;
-  private static final int VERSION = 2;
+  static final int OLD_VERSION = 1;
+  static final int VERSION = 2;
 
+  /**
+   * Loads the frame from the {@link NamespaceImage} identified by {@code imageKey}, building the image
+   * if this is the first session in the JVM to load it. Falls back to deserializing the frame for this
+   * session alone if images are disabled, or if {@code imageKey} is {@code null}.
+   */
+  public static Iterable<NamedValue> load(Context context, String imageKey,
+                                          Function<String, InputStream> resourceProvider) throws IOException {
+    if(imageKey != null && NamespaceImage.ENABLED) {
+      NamespaceImage image = NamespaceImage.get(imageKey, resourceProvider);
+      if(image != null) {
+        return image.instantiate(context);
+      }
+    }
+    return load(context, resourceProvider);
+  }
   
   public static Iterable<NamedValue> load(Context context,
                                           Function<String, InputStream> resourceProvider) throws IOException {
@@ -0,0 +1,285 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.packaging;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.primitives.io.serialization.RDataReader;
+import org.renjin.primitives.io.serialization.ReadContext;
+import org.renjin.primitives.io.serialization.SessionReadContext;
+import org.renjin.repackaged.guava.base.Function;
+import org.renjin.repackaged.guava.collect.Maps;
+import org.renjin.sexp.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A lazy-load frame that has been deserialized once and is shared by all the sessions in the JVM.
+ *
+ * <p>The frame is deserialized with placeholders in place of the session's base, global and namespace
+ * environments. Each new session receives a copy of the frame in which the placeholders are replaced
+ * with its own environments. Only the parts of the object graph that lead to an environment need to be
+ * copied: closures and environments are created anew, but function bodies, formals and constants are
+ * immutable and are shared by all sessions.</p>
+ *
+ * <p>This is experimental, and can be enabled with the JVM flag -Drenjin.namespace.images=true</p>
+ */
+public class NamespaceImage {
+
+  public static boolean ENABLED = Boolean.getBoolean("renjin.namespace.images");
+
+  private static final ConcurrentMap<String, NamespaceImage> IMAGES = new ConcurrentHashMap<>();
+
+  private final Function<String, InputStream> resourceProvider;
+
+  private final String[] names;
+
+  /**
+   * The deserialized values, or {@code null} for values that are only deserialized when first
+   * forced.
+   */
+  private final Template[] values;
+
+  private final Map<String, Template> lazyValues = Maps.newHashMap();
+
+  private final ImageReadContext readContext = new ImageReadContext();
+
+  private NamespaceImage(Function<String, InputStream> resourceProvider, DataInputStream din) throws IOException {
+    this.resourceProvider = resourceProvider;
+
+    int count = din.readInt();
+    this.names = new String[count];
+    this.values = new Template[count];
+
+    for(int i=0;i!=count;++i) {
+      names[i] = din.readUTF();
+      int length = din.readInt();
+      if(length >= 0) {
+        byte[] serialized = new byte[length];
+        din.readFully(serialized);
+        RDataReader reader = new RDataReader(readContext, new ByteArrayInputStream(serialized));
+        values[i] = new Template(reader.readFile());
+      }
+    }
+  }
+
+  /**
+   * Finds or builds the image of the lazy-load frame identified by {@code key}.
+   *
+   * @param key a key that uniquely identifies the frame's resources within the JVM, such as the URL
+   *            of its {@code environment} resource
+   * @return the image, or {@code null} if the frame is in a format which cannot be imaged.
+   */
+  public static NamespaceImage get(String key, Function<String, InputStream> resourceProvider) throws IOException {
+    NamespaceImage image = IMAGES.get(key);
+    if(image == null) {
+      try(DataInputStream din = new DataInputStream(resourceProvider.apply("environment"))) {
+        int version = din.readInt();
+        if(version != LazyLoadFrame.VERSION) {
+          return null;
+        }
+        image = new NamespaceImage(resourceProvider, din);
+      }
+      NamespaceImage existing = IMAGES.putIfAbsent(key, image);
+      if(existing != null) {
+        image = existing;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Creates a copy of this frame for the session of the given {@code context}.
+   */
+  public Iterable<NamedValue> instantiate(Context context) {
+    ListVector.NamedBuilder vector = new ListVector.NamedBuilder(0, names.length);
+    for (int i = 0; i != names.length; ++i) {
+      if(values[i] == null) {
+        vector.add(names[i], new ImagePromise(this, names[i]));
+      } else {
+        vector.add(names[i], values[i].instantiate(context));
+      }
+    }
+    return vector.build().namedValues();
+  }
+
+  private synchronized Template getLazyValue(String name) throws IOException {
+    Template template = lazyValues.get(name);
+    if(template == null) {
+      try(RDataReader reader = new RDataReader(readContext,
+          resourceProvider.apply(SerializedPromise.resourceName(name)))) {
+        template = new Template(reader.readFile());
+      }
+      lazyValues.put(name, template);
+    }
+    return template;
+  }
+
+  /**
+   * Lazily loaded value which is deserialized once for all sessions, and then copied for each session.
+   */
+  private static class ImagePromise extends SerializedPromise {
+
+    private NamespaceImage image;
+    private String name;
+
+    public ImagePromise(NamespaceImage image, String name) {
+      super(image.resourceProvider, name);
+      this.image = image;
+      this.name = name;
+    }
+
+    @Override
+    protected SEXP doEval(Context context) {
+      try {
+        return image.getLazyValue(name).instantiate(context);
+      } catch (IOException e) {
+        throw new EvalException(e);
+      }
+    }
+
+    @Override
+    public Promise copyUnevaluated(Environment environment, SEXP expression) {
+      return new ImagePromise(image, name);
+    }
+  }
+
+  /**
+   * Stands in for one of the session's environments while the frame is deserialized.
+   */
+  private static class Placeholder extends Environment {
+    private final Kind kind;
+    private final Symbol namespace;
+
+    private Placeholder(Kind kind, Symbol namespace) {
+      this.kind = kind;
+      this.namespace = namespace;
+    }
+
+    public Placeholder duplicate() {
+      return new Placeholder(kind, namespace);
+    }
+
+    public Environment resolve(ReadContext target) {
+      switch (kind) {
+        case BASE_ENVIRONMENT:
+          return target.getBaseEnvironment();
+        case GLOBAL_ENVIRONMENT:
+          return target.getGlobalEnvironment();
+        case BASE_NAMESPACE:
+          return target.getBaseNamespaceEnvironment();
+        default:
+          return target.findNamespace(namespace);
+      }
+    }
+  }
+
+  private enum Kind {
+    BASE_ENVIRONMENT,
+    GLOBAL_ENVIRONMENT,
+    BASE_NAMESPACE,
+    NAMESPACE
+  }
+
+  private static class ImageReadContext implements ReadContext {
+
+    private final Placeholder baseEnvironment = new Placeholder(Kind.BASE_ENVIRONMENT, null);
+    private final Placeholder globalEnvironment = new Placeholder(Kind.GLOBAL_ENVIRONMENT, null);
+    private final Placeholder baseNamespace = new Placeholder(Kind.BASE_NAMESPACE, null);
+    private final Map<Symbol, Placeholder> namespaces = Maps.newHashMap();
+
+    @Override
+    public Environment getBaseEnvironment() {
+      return baseEnvironment;
+    }
+
+    @Override
+    public Promise createPromise(SEXP expr, Environment environment) {
+      return Promise.repromise(environment, expr);
+    }
+
+    @Override
+    public Environment findNamespace(Symbol symbol) {
+      Placeholder namespace = namespaces.get(symbol);
+      if(namespace == null) {
+        namespace = new Placeholder(Kind.NAMESPACE, symbol);
+        namespaces.put(symbol, namespace);
+      }
+      return namespace;
+    }
+
+    @Override
+    public Environment getBaseNamespaceEnvironment() {
+      return baseNamespace;
+    }
+
+    @Override
+    public Environment getGlobalEnvironment() {
+      return globalEnvironment;
+    }
+  }
+
+  /**
+   * A deserialized value, together with the set of its nodes that refer, directly or indirectly,
+   * to an environment, and so cannot be shared between sessions.
+   */
+  private static class Template {
+    private final SEXP root;
+    private final Set<SEXP> sessionSpecific;
+
+    /**
+     * Copies {@code deserialized} once, replacing each placeholder with a new one, so that the copier
+     * records every node that leads to an environment. The copy is kept as the template's root.
+     */
+    private Template(SEXP deserialized) {
+      SexpGraphCopier copier = new SexpGraphCopier(new SexpGraphCopier.EnvironmentResolver() {
+        @Override
+        public Environment resolve(Environment environment) {
+          if(environment instanceof Placeholder) {
+            return ((Placeholder) environment).duplicate();
+          }
+          return null;
+        }
+      });
+      this.root = copier.copy(deserialized);
+      this.sessionSpecific = copier.getCopies();
+    }
+
+    public SEXP instantiate(Context context) {
+      final ReadContext target = new SessionReadContext(context);
+      SexpGraphCopier copier = new SexpGraphCopier(new SexpGraphCopier.EnvironmentResolver() {
+        @Override
+        public Environment resolve(Environment environment) {
+          if(environment instanceof Placeholder) {
+            return ((Placeholder) environment).resolve(target);
+          }
+          return null;
+        }
+      }, sessionSpecific);
+      return copier.copy(root);
+    }
+  }
+}
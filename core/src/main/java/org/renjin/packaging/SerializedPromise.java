@@ -52,6 +52,11 @@ public class SerializedPromise extends Promise {
     }
   }
 
+  @Override
+  public Promise copyUnevaluated(Environment environment, SEXP expression) {
+    return new SerializedPromise(resourceProvider, name);
+  }
+
   /**
    * Composes a file name for a serialized symbol.
    * 
@@ -50,4 +50,9 @@ public class SerializedPromise1 extends Promise {
       throw new EvalException(e);
     }
   }
+
+  @Override
+  public Promise copyUnevaluated(Environment environment, SEXP expression) {
+    return new SerializedPromise1(bytes);
+  }
 }
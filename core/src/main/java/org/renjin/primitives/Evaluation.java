@@ -18,6 +18,8 @@
  */
 package org.renjin.primitives;
 
+import org.renjin.eval.Calls;
+import org.renjin.eval.ClosureDispatcher;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.Builtin;
@@ -105,14 +107,26 @@ public class Evaluation {
   public static ListVector lapply(@Current Context context, @Current Environment rho, Vector vector,
       Function function) {
 
+    SEXP extraArgs = rho.findVariable(Symbols.ELLIPSES);
+    boolean direct = function instanceof Closure && hasDefaultElementAccess(vector) &&
+        extraArgs instanceof PromisePairList;
+
     ListVector.Builder builder = ListVector.newBuilder();
+    FunctionCall previousCall = null;
     for(int i=0;i!=vector.length();++i) {
       // For historical reasons, the calls created by lapply are unevaluated, and code has
       // been written (e.g. bquote) that relies on this.
       FunctionCall getElementCall = FunctionCall.newCall(Symbol.get("[["), vector, new IntArrayVector(i+1));
       FunctionCall applyFunctionCall = new FunctionCall((SEXP)function, new PairList.Node(getElementCall,
           new PairList.Node(Symbols.ELLIPSES, Null.INSTANCE)));
-      builder.add( context.evaluate(applyFunctionCall, rho) );
+      if(direct) {
+        PairList promisedArgs = new PairList.Node(
+            new Promise(getElementCall, vector.getElementAsSEXP(i)), (PairList) extraArgs);
+        builder.add(applyClosure(context, rho, (Closure) function, applyFunctionCall, promisedArgs, previousCall));
+        previousCall = applyFunctionCall;
+      } else {
+        builder.add( context.evaluate(applyFunctionCall, rho) );
+      }
     }
     builder.setAttribute(Symbols.NAMES, vector.getNames());
     return builder.build();
@@ -125,6 +139,9 @@ public class Evaluation {
     // Retrieve the additional arguments from the `...` value 
     // in the closure that called us
     PairList extraArgs = (PairList)rho.getVariable(Symbols.ELLIPSES);
+    boolean direct = function instanceof Closure && hasDefaultElementAccess(vector) &&
+        extraArgs instanceof PromisePairList;
+    FunctionCall previousCall = null;
     
     Vector.Builder result = funValue.getVectorType().newBuilderWithInitialCapacity(vector.length());
     for(int i=0;i!=vector.length();++i) {
@@ -140,7 +157,14 @@ public class Evaluation {
       FunctionCall call = new FunctionCall(function, args.build());
       
       // evaluate
-      SEXP x = context.evaluate(call);
+      SEXP x;
+      if(direct) {
+        PairList promisedArgs = new PairList.Node(new Promise(getCall, vector.getElementAsSEXP(i)), extraArgs);
+        x = applyClosure(context, context.getEnvironment(), (Closure) function, call, promisedArgs, previousCall);
+        previousCall = call;
+      } else {
+        x = context.evaluate(call);
+      }
       
       // check the result
       if(!(x instanceof Vector) || 
@@ -180,9 +204,37 @@ public class Evaluation {
     }
 
     
+    boolean direct = f instanceof Closure;
+    for(int j = 0; j < varyingArgs.length(); j++) {
+      if(!hasDefaultElementAccess(varyingArgs.getElementAsSEXP(j))) {
+        direct = false;
+      }
+    }
+    PairList constantArgList = Null.INSTANCE;
+    if(constantArgs.length() > 0) {
+      constantArgList = new PairList.Builder().addAll((ListVector)constantArgs).build();
+    }
+
+    // The constant arguments are promised once for all calls. Unless they are language objects,
+    // which the interpreter would evaluate again on each call, this is indistinguishable from
+    // promising them anew each time.
+    PairList promisedConstantArgs = Null.INSTANCE;
+    if(direct) {
+      for(int j = 0; j < constantArgs.length(); j++) {
+        if(constantArgs.getElementAsSEXP(j) instanceof Symbol ||
+           constantArgs.getElementAsSEXP(j) instanceof FunctionCall) {
+          direct = false;
+        }
+      }
+    }
+    if(direct) {
+      promisedConstantArgs = Calls.promiseArgs(constantArgList, context, rho);
+    }
+
     ListVector.Builder result = ListVector.newBuilder();
     
     Symbol doubleBracket = Symbol.get("[[");
+    FunctionCall previousCall = null;
     
     for(int i = 0; i<longest; ++i) {
     
@@ -191,20 +243,53 @@ public class Evaluation {
       */
       
       PairList.Builder args = new PairList.Builder();
+      PairList.Builder promisedArgs = direct ? new PairList.Builder() : null;
       for(int j = 0; j!=varyingArgs.length();++ j) {
         SEXP arg = varyingArgs.getElementAsSEXP(j);
-        args.add(varyingArgs.getName(j),
-            FunctionCall.newCall(doubleBracket, arg, IntVector.valueOf( (i % arg.length()) + 1 )));
+        int elementIndex = i % arg.length();
+        FunctionCall getCall = FunctionCall.newCall(doubleBracket, arg, IntVector.valueOf(elementIndex + 1));
+        args.add(varyingArgs.getName(j), getCall);
+        if(direct) {
+          promisedArgs.add(varyingArgs.getName(j), new Promise(getCall, arg.getElementAsSEXP(elementIndex)));
+        }
       }
       if(constantArgs.length() > 0) {
-        args.addAll((ListVector)constantArgs);
+        args.addAll(constantArgList);
+      }
+      FunctionCall call = new FunctionCall(f, args.build());
+      if(direct) {
+        promisedArgs.addAll(promisedConstantArgs);
+        result.add(applyClosure(context, rho, (Closure) f, call, promisedArgs.build(), previousCall));
+        previousCall = call;
+      } else {
+        result.add(context.evaluate(call, rho));
       }
-      result.add(context.evaluate(new FunctionCall(f, args.build()), rho));
     }
        
     return result.build();
   }
 
+  /**
+   * @return true if {@code x[[i]]} is simply {@code x.getElementAsSEXP(i-1)}, and so does
+   * not need to be evaluated by the interpreter.
+   */
+  private static boolean hasDefaultElementAccess(SEXP x) {
+    return (x instanceof ListVector || x instanceof AtomicVector) && !x.isObject();
+  }
+
+  /**
+   * Applies {@code closure} to already promised arguments, without the cost of evaluating {@code call}
+   * through the interpreter. Successive calls made by the apply functions have the same shape, so the
+   * argument matching plan of the previous call can be reused.
+   */
+  private static SEXP applyClosure(Context context, Environment rho, Closure closure, FunctionCall call,
+                                   PairList promisedArgs, FunctionCall previousCall) {
+    if(previousCall != null) {
+      call.setArgumentMatchPlan(previousCall.getArgumentMatchPlan());
+    }
+    return new ClosureDispatcher(context, rho, call).applyPromised(closure, promisedArgs);
+  }
+
   @Builtin("return")
   public static SEXP doReturn(@Current Environment rho, SEXP value) {
     throw new ReturnException(rho, value);
@@ -39,17 +39,16 @@ import org.renjin.primitives.packaging.Namespace;
 import org.renjin.repackaged.guava.base.Charsets;
 import org.renjin.repackaged.guava.base.Optional;
 import org.renjin.repackaged.guava.base.Strings;
-import org.renjin.repackaged.guava.collect.Iterables;
 import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.sexp.*;
 
 import java.awt.*;
 import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Type;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class Native {
 
@@ -58,6 +57,11 @@ public class Native {
 
   public static final ThreadLocal<Context> CURRENT_CONTEXT = new ThreadLocal<>();
 
+  /**
+   * Classes named by the CLASS argument to .Fortran(), which are loaded by this class's loader
+   */
+  private static final ConcurrentMap<String, Class<?>> FORTRAN_CLASSES = new ConcurrentHashMap<>();
+
   public static Context currentContext() {
     Context context = Native.CURRENT_CONTEXT.get();
     if(context == null) {
@@ -77,62 +81,57 @@ public class Native {
                           @NamedFlag("COPY") boolean copy,
                           @NamedFlag("ENCODING") boolean encoding) throws IllegalAccessException {
 
-    MethodHandle method;
-    String methodName;
-    
+    NativeRoutine routine;
+
     if(methodExp instanceof StringVector) {
-      methodName = ((StringVector) methodExp).getElementAsString(0);
+      String methodName = ((StringVector) methodExp).getElementAsString(0);
 
 
       if("base".equals(packageName)) {
         return delegateToJavaMethod(context, Base.class, methodName, callArguments);
       }
 
-      List<Method> methods = findMethod(getPackageClass(context, packageName, methodName), methodName);
-      if (methods.isEmpty()) {
+      routine = NativeRoutine.lookup(getPackageClass(context, packageName, methodName), methodName);
+      if (routine == null) {
         throw new EvalException("Can't find method %s in package %s", methodName, packageName);
       }
 
-      Method methodObject = Iterables.getOnlyElement(methods);
-      method = MethodHandles.publicLookup().unreflect(methodObject);
-      methodName = methodObject.getName();
-
     } else if(methodExp instanceof ExternalPtr && ((ExternalPtr) methodExp).getInstance() instanceof Method) {
-      Method methodObject = (Method) ((ExternalPtr) methodExp).getInstance();
-      method = MethodHandles.publicLookup().unreflect(methodObject);
-      methodName = methodObject.getName();
+      routine = NativeRoutine.forAddress((ExternalPtr) methodExp, null);
 
     } else if(methodExp instanceof ListVector) {
       ListVector methodObject = (ListVector) methodExp;
       ExternalPtr<MethodHandle> address = (ExternalPtr<MethodHandle>)  methodObject.get("address");
-      method = address.getInstance();
-      methodName = methodObject.get("name").asString();
+      routine = NativeRoutine.forAddress(address, methodObject.get("name").asString());
 
     } else {
       throw new EvalException("Invalid method argument of type %s", methodExp.getTypeName());
     }
 
-    Object[] nativeArguments = new Object[method.type().parameterCount()];
+    Object[] nativeArguments = new Object[routine.getParameterCount()];
     for(int i=0;i!=nativeArguments.length;++i) {
-      Type type = method.type().parameterType(i);
-      if(type.equals(IntPtr.class)) {
-        nativeArguments[i] = intPtrFromVector(callArguments.get(i));
-      } else if(type.equals(DoublePtr.class)) {
-        nativeArguments[i] = doublePtrFromVector(callArguments.get(i));
-      } else if(type.equals(ObjectPtr.class)) {
-        nativeArguments[i] = stringPtrToCharPtrPtr(callArguments.get(i));
-      } else {
-        throw new EvalException("Don't know how to marshall type " + callArguments.get(i).getClass().getName() +
-            " to for C argument " +  type + " in call to " + method);
+      switch (routine.getParameterType(i)) {
+        case INT:
+          nativeArguments[i] = intPtrFromVector(callArguments.get(i));
+          break;
+        case DOUBLE:
+          nativeArguments[i] = doublePtrFromVector(callArguments.get(i));
+          break;
+        case STRING:
+          nativeArguments[i] = stringPtrToCharPtrPtr(callArguments.get(i));
+          break;
+        default:
+          throw new EvalException("Don't know how to marshall type " + callArguments.get(i).getClass().getName() +
+              " to for C argument " +  routine.getParameterClass(i) + " in call to " + routine.getHandle());
       }
     }
     
     if(Profiler.ENABLED) {
-      Profiler.functionStart(Symbol.get(methodName), 'C');
+      Profiler.functionStart(Symbol.get(routine.getName()), 'C');
     }
 
     try {
-      method.invokeWithArguments(nativeArguments);
+      routine.invoke(nativeArguments);
     } catch (EvalException | Error e) {
       throw e;
     } catch (Throwable e) {
@@ -237,36 +236,34 @@ public class Native {
     // TODO: map package names to implementation classes
 
 
-    MethodHandle method;
+    NativeRoutine routine;
     String methodName;
 
     if(methodExp instanceof ListVector) {
       ListVector methodObject = (ListVector) methodExp;
       ExternalPtr<MethodHandle> address = (ExternalPtr<MethodHandle>) methodObject.get("address");
-      method = address.getInstance();
       methodName = ((StringVector) methodObject.get("name")).getElementAsString(0);
+      routine = NativeRoutine.forAddress(address, methodName);
       
     } else if(methodExp instanceof StringVector) {
       if("base".equals(packageName)) {
         className = "org.renjin.appl.Appl";
       } 
       methodName = ((StringVector) methodExp).getElementAsString(0);
-      method = findFortranMethod(context, className, methodName);
+      routine = findFortranMethod(context, className, methodName);
 
     } else if(methodExp instanceof ExternalPtr && ((ExternalPtr) methodExp).getInstance() instanceof Method) {
-      Method methodRef = (Method) ((ExternalPtr) methodExp).getInstance();
-      methodName = methodRef.getName();
-      method =  MethodHandles.publicLookup().unreflect(methodRef);
+      routine = NativeRoutine.forAddress((ExternalPtr) methodExp, null);
+      methodName = routine.getName();
     } else {
       throw new EvalException("Invalid argument type for method = %s", methodExp.getTypeName());
     }
 
-    Class<?>[] fortranTypes = method.type().parameterArray();
-    if(fortranTypes.length != callArguments.length()) {
+    if(routine.getParameterCount() != callArguments.length()) {
       throw new EvalException("Invalid number of args");
     }
 
-    Object[] fortranArgs = new Object[fortranTypes.length];
+    Object[] fortranArgs = new Object[routine.getParameterCount()];
     ListVector.NamedBuilder returnValues = ListVector.newNamedBuilder();
 
     if(Profiler.ENABLED) {
@@ -279,28 +276,32 @@ public class Native {
 
     for(int i=0;i!=callArguments.length();++i) {
       AtomicVector vector = (AtomicVector) callArguments.get(i);
-      if(fortranTypes[i].equals(DoublePtr.class)) {
-        double[] array = vector.toDoubleArray();
-        fortranArgs[i] = new DoublePtr(array, 0);
-        returnValues.add(callArguments.getName(i), DoubleArrayVector.unsafe(array, vector.getAttributes()));
-
-      } else if(fortranTypes[i].equals(IntPtr.class)) {
-        int[] array = vector.toIntArray();
-        fortranArgs[i] = new IntPtr(array, 0);
-        returnValues.add(callArguments.getName(i), IntArrayVector.unsafe(array, vector.getAttributes()));
-
-      } else if(fortranTypes[i].equals(BooleanPtr.class)) {
-        boolean[] array = toBooleanArray(vector);
-        fortranArgs[i] = new BooleanPtr(array);
-        returnValues.add(callArguments.getName(i), BooleanArrayVector.unsafe(array));
-
-      } else {
-        throw new UnsupportedOperationException("fortran type: " + fortranTypes[i]);
+      switch (routine.getParameterType(i)) {
+        case DOUBLE: {
+          double[] array = vector.toDoubleArray();
+          fortranArgs[i] = new DoublePtr(array, 0);
+          returnValues.add(callArguments.getName(i), DoubleArrayVector.unsafe(array, vector.getAttributes()));
+          break;
+        }
+        case INT: {
+          int[] array = vector.toIntArray();
+          fortranArgs[i] = new IntPtr(array, 0);
+          returnValues.add(callArguments.getName(i), IntArrayVector.unsafe(array, vector.getAttributes()));
+          break;
+        }
+        case LOGICAL: {
+          boolean[] array = toBooleanArray(vector);
+          fortranArgs[i] = new BooleanPtr(array);
+          returnValues.add(callArguments.getName(i), BooleanArrayVector.unsafe(array));
+          break;
+        }
+        default:
+          throw new UnsupportedOperationException("fortran type: " + routine.getParameterClass(i));
       }
     }
 
     try {
-      method.invokeWithArguments(fortranArgs);
+      routine.invoke(fortranArgs);
     } catch (Error e) {
       throw e;
     } catch (Throwable e) {
@@ -327,7 +328,7 @@ public class Native {
   }
 
 
-  private static MethodHandle findFortranMethod(Context context, String className, String methodName) throws IllegalAccessException {
+  private static NativeRoutine findFortranMethod(Context context, String className, String methodName) throws IllegalAccessException {
 
     String mangledName = methodName.toLowerCase() + "_";
 
@@ -340,19 +341,20 @@ public class Native {
       declaringClass = namespaceClass.get();
       
     } else {
-      try {
-        declaringClass = Class.forName(className);
-      } catch (ClassNotFoundException e) {
-        throw new EvalException(String.format("Could not find class named %s", className), e);
+      declaringClass = FORTRAN_CLASSES.get(className);
+      if(declaringClass == null) {
+        try {
+          declaringClass = Class.forName(className);
+        } catch (ClassNotFoundException e) {
+          throw new EvalException(String.format("Could not find class named %s", className), e);
+        }
+        FORTRAN_CLASSES.putIfAbsent(className, declaringClass);
       }
     }
 
-    for(Method method : declaringClass.getMethods()) {
-      if(method.getName().equals(mangledName) &&
-          Modifier.isPublic(method.getModifiers()) &&
-          Modifier.isStatic(method.getModifiers())) {
-        return MethodHandles.publicLookup().unreflect(method);
-      }
+    NativeRoutine routine = NativeRoutine.lookup(declaringClass, mangledName);
+    if(routine != null) {
+      return routine;
     }
     throw new EvalException("Could not find method %s in class %s", methodName, className);
   }
@@ -0,0 +1,205 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives;
+
+import org.renjin.eval.EvalException;
+import org.renjin.gcc.runtime.BooleanPtr;
+import org.renjin.gcc.runtime.DoublePtr;
+import org.renjin.gcc.runtime.IntPtr;
+import org.renjin.gcc.runtime.ObjectPtr;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.repackaged.guava.collect.Maps;
+import org.renjin.sexp.ExternalPtr;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A C or Fortran routine, compiled to a static JVM method, that is called through {@code .C()}
+ * or {@code .Fortran()}.
+ *
+ * <p>Routines that are named by string are resolved once for each class and name, and routines
+ * that are passed by address, such as registered native symbols, once for each address. Both are
+ * then shared by all later calls. The method handle is adapted to take its arguments as a single
+ * {@code Object[]}, so that it can be invoked exactly, without the lookup and boxing done by
+ * {@link MethodHandle#invokeWithArguments(Object...)} on each call. The kind of pointer expected by each
+ * parameter is also worked out in advance.</p>
+ */
+final class NativeRoutine {
+
+  /**
+   * The pointer types to which R vectors are converted before they are passed to a routine.
+   */
+  enum ParameterType {
+    INT,
+    DOUBLE,
+    LOGICAL,
+    STRING,
+    UNSUPPORTED
+  }
+
+  private static final MethodType SPREAD_TYPE = MethodType.methodType(void.class, Object[].class);
+
+  /**
+   * Resolved routines, by declaring class and JVM method name. The routines' method handles refer
+   * to their declaring class, so the table is attached to the class itself, and does not keep
+   * the classes of unloaded packages alive.
+   */
+  private static final ClassValue<ConcurrentMap<String, NativeRoutine>> BY_NAME =
+      new ClassValue<ConcurrentMap<String, NativeRoutine>>() {
+        @Override
+        protected ConcurrentMap<String, NativeRoutine> computeValue(Class<?> type) {
+          return Maps.newConcurrentMap();
+        }
+      };
+
+  /**
+   * Routines passed by address, keyed weakly by the {@code ExternalPtr} that holds
+   * the address. The routines refer only to the method, not to the pointer, so entries are
+   * cleared once the pointer, typically held by a package's namespace, is collected.
+   */
+  private static final Cache<ExternalPtr<?>, NativeRoutine> BY_ADDRESS = CacheBuilder.newBuilder()
+      .weakKeys()
+      .build();
+
+  private final String name;
+  private final MethodHandle handle;
+  private final MethodHandle spreader;
+  private final ParameterType[] parameterTypes;
+
+  private NativeRoutine(String name, MethodHandle handle) {
+    this.name = name;
+    this.handle = handle;
+
+    Class<?>[] parameterClasses = handle.type().parameterArray();
+    this.parameterTypes = new ParameterType[parameterClasses.length];
+    for (int i = 0; i < parameterClasses.length; i++) {
+      parameterTypes[i] = parameterType(parameterClasses[i]);
+    }
+    this.spreader = handle
+        .asSpreader(Object[].class, parameterClasses.length)
+        .asType(SPREAD_TYPE);
+  }
+
+  private NativeRoutine(Method method) throws IllegalAccessException {
+    this(method.getName(), MethodHandles.publicLookup().unreflect(method));
+  }
+
+  private static ParameterType parameterType(Class<?> type) {
+    if(type.equals(IntPtr.class)) {
+      return ParameterType.INT;
+    } else if(type.equals(DoublePtr.class)) {
+      return ParameterType.DOUBLE;
+    } else if(type.equals(BooleanPtr.class)) {
+      return ParameterType.LOGICAL;
+    } else if(type.equals(ObjectPtr.class)) {
+      return ParameterType.STRING;
+    } else {
+      return ParameterType.UNSUPPORTED;
+    }
+  }
+
+  /**
+   * Finds the public static method {@code methodName} in {@code declaringClass}.
+   *
+   * @return the routine, or {@code null} if the class has no such method.
+   */
+  static NativeRoutine lookup(Class<?> declaringClass, String methodName) throws IllegalAccessException {
+    ConcurrentMap<String, NativeRoutine> routines = BY_NAME.get(declaringClass);
+    NativeRoutine routine = routines.get(methodName);
+    if(routine == null) {
+      Method method = findMethod(declaringClass, methodName);
+      if(method == null) {
+        return null;
+      }
+      routine = new NativeRoutine(method);
+      NativeRoutine existing = routines.putIfAbsent(methodName, routine);
+      if(existing != null) {
+        routine = existing;
+      }
+    }
+    return routine;
+  }
+
+  /**
+   * Finds the routine whose address, either a {@link MethodHandle} or a {@link Method}, is held
+   * by {@code address}.
+   *
+   * @param name the name of the routine, used if the address is a method handle
+   */
+  static NativeRoutine forAddress(ExternalPtr<?> address, String name) throws IllegalAccessException {
+    NativeRoutine routine = BY_ADDRESS.getIfPresent(address);
+    if(routine == null) {
+      Object instance = address.getInstance();
+      if(instance instanceof Method) {
+        routine = new NativeRoutine((Method) instance);
+      } else {
+        routine = new NativeRoutine(name, (MethodHandle) instance);
+      }
+      BY_ADDRESS.put(address, routine);
+    }
+    return routine;
+  }
+
+  private static Method findMethod(Class<?> declaringClass, String methodName) {
+    Method found = null;
+    for(Method method : declaringClass.getMethods()) {
+      if(method.getName().equals(methodName) &&
+          Modifier.isStatic(method.getModifiers())) {
+        if(found != null) {
+          throw new EvalException("Method %s in class %s is overloaded", methodName, declaringClass.getName());
+        }
+        found = method;
+      }
+    }
+    return found;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public MethodHandle getHandle() {
+    return handle;
+  }
+
+  public int getParameterCount() {
+    return parameterTypes.length;
+  }
+
+  public ParameterType getParameterType(int index) {
+    return parameterTypes[index];
+  }
+
+  public Class<?> getParameterClass(int index) {
+    return handle.type().parameterType(index);
+  }
+
+  /**
+   * Invokes the routine with the given pointers, which must match the parameter types exactly.
+   */
+  public void invoke(Object[] arguments) throws Throwable {
+    spreader.invokeExact(arguments);
+  }
+}
@@ -50,6 +50,7 @@ import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.repackaged.guava.collect.Sets;
 import org.renjin.sexp.*;
 import org.renjin.stats.internals.CompleteCases;
+import org.renjin.stats.internals.Covariance;
 import org.renjin.stats.internals.Distributions;
 import org.renjin.stats.internals.distributions.RNG;
 import org.renjin.stats.internals.distributions.Sampling;
@@ -332,6 +333,8 @@ public class Primitives {
     f("duplicated", Duplicates.class, 11);
     f("unique", Duplicates.class, 11);
     f("anyDuplicated", Duplicates.class, 11);
+    f("duplicatedRows", Duplicates.class, 11);
+    f("anyDuplicatedRows", Duplicates.class, 11);
     f("which.min", Sort.class, 11);
     f("which", Match.class, 11);
     f("pmin", Summary.class, 11);
@@ -342,6 +345,7 @@ public class Primitives {
     f("charmatch", Match.class, 11);
     f("match.call", Match.class, 11);
     f("complete.cases", CompleteCases.class, 11);
+    f("var", Covariance.class, 11);
 
     f("attach", Environments.class, 111);
     f("detach", Environments.class, 111);
@@ -740,7 +744,7 @@ public class Primitives {
     f("is.unsorted", Sort.class, 11);
     f("psort", Sort.class, null, 11);
     f("qsort", Sort.class, 11);
-    f("radixsort", /*radixsort*/ null, 11);
+    f("radixsort", Sort.class, 11);
     f("order", Sort.class, 11);
     f("rank", Sort.class, 11);
     f("missing", Evaluation.class, "missing", 0);
@@ -24,10 +24,14 @@ import org.renjin.invoke.annotations.Builtin;
 import org.renjin.invoke.annotations.Current;
 import org.renjin.invoke.annotations.Internal;
 import org.renjin.invoke.codegen.ArgumentIterator;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.repackaged.guava.collect.ImmutableList;
 import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.repackaged.guava.collect.Sets;
 import org.renjin.sexp.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -399,6 +403,12 @@ public class S3 {
      */
     private Context previousContext;
 
+    /**
+     * True if the selected method was found in the frame of the calling environment,
+     * and so cannot be cached.
+     */
+    private boolean foundInCallingFrame;
+
     
     private static Resolver start(Context context, String genericMethodName, SEXP object) {
       return start(context, null, genericMethodName, object);
@@ -507,7 +517,7 @@ public class S3 {
         return next;
       } else {
         Environment methodTable = getMethodTable();
-        GenericMethod function = findNext(methodTable, genericMethodName, "default");
+        GenericMethod function = findNext(methodTable, genericMethodName, "default", null);
         if(function != null) {
           return function;
         }
@@ -525,36 +535,99 @@ public class S3 {
 
     public GenericMethod findNext() {
       Environment methodTable = getMethodTable();
-      GenericMethod method;
+
+      if(callingEnvironment == Environment.EMPTY) {
+        return select(methodTable, null).toMethod(this);
+      }
+
+      DispatchCache cache = context.getSession().getSingleton(DispatchCache.class);
+      DispatchKey key = new DispatchKey(genericMethodName, group, classes,
+          callingEnvironment.getParent(), definitionEnvironment);
+
+      Selection selection = cache.selections.getIfPresent(key);
+      if(selection == null || !selection.isValid(context, callingEnvironment.getFrame(), methodTable)) {
+        foundInCallingFrame = false;
+        selection = select(methodTable, new ArrayList<Symbol>());
+        if(!foundInCallingFrame && callingEnvironment.getParent().sharesFunctionBindingsVersionWithParents()) {
+          cache.selections.put(key.copy(), selection);
+        }
+      }
+      return selection.toMethod(this);
+    }
+
+    /**
+     * Searches for the first method defined for our classes.
+     *
+     * @param candidates if not null, a list to which the names of all the methods searched for are added.
+     */
+    private Selection select(Environment methodTable, List<Symbol> candidates) {
+      Environment.FunctionBindingsVersion bindingsVersion = null;
+      Environment.FunctionBindingsVersion tableBindingsVersion = null;
+      if(candidates != null) {
+        bindingsVersion = callingEnvironment.getParent().getFunctionBindingsVersion();
+        if(methodTable != null) {
+          tableBindingsVersion = methodTable.getFunctionBindingsVersion();
+        }
+      }
+      Selection selection = new Selection(bindingsVersion, tableBindingsVersion, methodTable);
+      GenericMethod method = null;
 
       for(String className : classes) {
-        
-        method = findNext(methodTable, genericMethodName, className);
+        method = findNext(methodTable, genericMethodName, className, candidates);
         if(method != null) {
-          return method;
+          break;
         }
         if(group != null) {
-          method = findNext(methodTable, group, className);
+          method = findNext(methodTable, group, className, candidates);
           if(method != null) {
-            return method;
+            break;
           }
         }
       }
-      return null;
+      selection.setResult(candidates, method);
+      return selection;
     }
 
-    private GenericMethod findNext(Environment methodTable, String name, String className) {
+    private GenericMethod findNext(Environment methodTable, String name, String className, List<Symbol> candidates) {
       Symbol method = Symbol.get(name + "." + className);
-      SEXP function = callingEnvironment.findFunction(context, method);
+      SEXP function;
+      if(candidates == null) {
+        function = callingEnvironment.findFunction(context, method);
+      } else {
+        candidates.add(method);
+        function = findFunctionForCache(method);
+      }
       if(function != null) {
         return new GenericMethod(this, method, className, (Function) function);
-        
-      } else if(methodTable != null && methodTable.hasVariable(method)) {
-        return new GenericMethod(this, method, className, (Function) methodTable.getVariable(method).force(context));
-      
-      } else {
-        return null;
+
+      }
+      if(methodTable != null) {
+        if(candidates != null) {
+          methodTable.markSearchedByCachedLookup();
+        }
+        if(methodTable.hasVariable(method)) {
+          return new GenericMethod(this, method, className, (Function) methodTable.getVariable(method).force(context));
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Finds a function like {@code callingEnvironment.findFunction()}, but marks the enclosing
+     * environments searched so that the result can be cached. The frame of the calling environment is
+     * usually a new function environment, and is checked again by {@link Selection#isValid}.
+     */
+    private Function findFunctionForCache(Symbol method) {
+      Frame frame = callingEnvironment.getFrame();
+      if(frame.isMissingArgument(method)) {
+        throw new EvalException("argument '%s' is missing, with no default", method.toString());
+      }
+      Function function = frame.getFunction(context, method);
+      if(function != null) {
+        foundInCallingFrame = true;
+        return function;
       }
+      return callingEnvironment.getParent().findFunctionForCache(context, method);
     }
 
     private Environment getMethodTable() {
@@ -569,6 +642,139 @@ public class S3 {
     }
   }
 
+  /**
+   * Caches the methods selected for each generic and class vector, so that repeated dispatch
+   * on objects of the same classes, for example calls to {@code [.data.frame} or {@code Ops.factor},
+   * does not need to search the environments again for each class.
+   *
+   * <p>Selections depend on the enclosure of the calling environment and the generic's definition
+   * environment, which are part of the key, and on the function bindings of all the environments searched,
+   * which are checked against the {@link Environment#getFunctionBindingsVersion() versions} of the
+   * enclosure and the methods table. Registering a method, or defining a function in any of these
+   * environments, invalidates the cached selections of the session.</p>
+   */
+  public static final class DispatchCache {
+
+    private static final int MAXIMUM_SIZE = 1000;
+
+    private final Cache<DispatchKey, Selection> selections = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .build();
+  }
+
+  private static final class DispatchKey {
+    private final String generic;
+    private final String group;
+    private final List<String> classes;
+    private final Environment enclosure;
+    private final Environment definitionEnvironment;
+    private final int hashCode;
+
+    private DispatchKey(String generic, String group, List<String> classes,
+                        Environment enclosure, Environment definitionEnvironment) {
+      this.generic = generic;
+      this.group = group;
+      this.classes = classes;
+      this.enclosure = enclosure;
+      this.definitionEnvironment = definitionEnvironment;
+      this.hashCode = 31 * (31 * generic.hashCode() + classes.hashCode()) +
+          java.lang.System.identityHashCode(enclosure);
+    }
+
+    /**
+     * @return a copy of this key that does not share the list of classes with the resolver
+     */
+    private DispatchKey copy() {
+      return new DispatchKey(generic, group, ImmutableList.copyOf(classes), enclosure, definitionEnvironment);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if(!(obj instanceof DispatchKey)) {
+        return false;
+      }
+      DispatchKey other = (DispatchKey) obj;
+      return enclosure == other.enclosure &&
+          definitionEnvironment == other.definitionEnvironment &&
+          generic.equals(other.generic) &&
+          (group == null ? other.group == null : group.equals(other.group)) &&
+          classes.equals(other.classes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The method selected by a {@link Resolver}, or the absence of any method.
+   */
+  private static final class Selection {
+    private final Environment.FunctionBindingsVersion bindingsVersion;
+    private final int version;
+    private final Environment.FunctionBindingsVersion tableBindingsVersion;
+    private final int tableVersion;
+    private final Environment methodTable;
+
+    /**
+     * The names of the methods that were searched for, up to and including the selected method.
+     */
+    private Symbol[] candidates;
+
+    private Symbol method;
+    private String className;
+    private Function function;
+
+    /**
+     * Creates a selection, reading the versions of function bindings before the search, so that any change
+     * made during the search invalidates it.
+     */
+    private Selection(Environment.FunctionBindingsVersion bindingsVersion,
+                      Environment.FunctionBindingsVersion tableBindingsVersion, Environment methodTable) {
+      this.bindingsVersion = bindingsVersion;
+      this.version = bindingsVersion == null ? 0 : bindingsVersion.get();
+      this.tableBindingsVersion = tableBindingsVersion;
+      this.tableVersion = tableBindingsVersion == null ? 0 : tableBindingsVersion.get();
+      this.methodTable = methodTable;
+    }
+
+    private void setResult(List<Symbol> candidates, GenericMethod method) {
+      this.candidates = candidates == null ? null : candidates.toArray(new Symbol[candidates.size()]);
+      if(method != null) {
+        this.method = method.method;
+        this.className = method.className;
+        this.function = method.function;
+      }
+    }
+
+    /**
+     * @return true if the same method would be selected again when dispatching from a
+     * calling environment with the given frame.
+     */
+    private boolean isValid(Context context, Frame callingFrame, Environment methodTable) {
+      if(methodTable != this.methodTable || bindingsVersion == null || version != bindingsVersion.get()) {
+        return false;
+      }
+      if(tableBindingsVersion != null && tableVersion != tableBindingsVersion.get()) {
+        return false;
+      }
+      for (Symbol candidate : candidates) {
+        if(callingFrame.isMissingArgument(candidate) || callingFrame.getFunction(context, candidate) != null) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private GenericMethod toMethod(Resolver resolver) {
+      if(method == null) {
+        return null;
+      }
+      return new GenericMethod(resolver, method, className, function);
+    }
+  }
+
   public static class GenericMethod {
     private Resolver resolver;
 
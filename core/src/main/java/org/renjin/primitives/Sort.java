@@ -21,6 +21,7 @@ package org.renjin.primitives;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.*;
+import org.renjin.primitives.sort.IndexSorter;
 import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.sexp.*;
 
@@ -250,56 +251,30 @@ public class Sort {
       }
     }
 
-    List<Integer> ordering = Lists.newArrayListWithCapacity(numRows);
-    for (int i = 0; i != numRows; ++i) {
-      ordering.add(i);
+    List<AtomicVector> keys = Lists.newArrayListWithCapacity(columns.length());
+    for (SEXP column : columns) {
+      keys.add((AtomicVector) column);
     }
 
-    Collections.sort(ordering, new Comparator<Integer>() {
-
-      @Override
-      public int compare(Integer row1, Integer row2) {
-        int col = 0;
-        int rel;
-        while ((rel = compare(row1, row2, col)) == 0) {
-          col++;
-          if (col == columns.length()) {
-            return 0;
-          }
-        }
-        return rel;
-      }
-
-      private int compare(Integer row1, Integer row2, int col) {
-        AtomicVector column = (AtomicVector) columns.get(col);
-        boolean na1 = column.isElementNA(row1);
-        boolean na2 = column.isElementNA(row2);
-        if(na1 && na2) {
-          // Both values are NA, consider equal
-          return 0;
-        } else if(na1) {
-          // NA <-> 42
-          return naLast ? +1 : -1;
-        } else if(na2) {
-          // 42 <-> NA
-          return naLast ? -1 : +1;
-        } else {
-          // 42 <-> 41
-          return decreasing ?
-              -column.compare(row1, row2) :
-              +column.compare(row1, row2);
-        }
-      }
+    int[] ordering = new IndexSorter(keys, naLast, decreasing).sort();
+    for (int i = 0; i < ordering.length; i++) {
+      ordering[i]++;
+    }
 
-    });
+    return IntArrayVector.unsafe(ordering);
+  }
 
-    IntArrayVector.Builder result = new IntArrayVector.Builder();
-    for (Integer index : ordering) {
-      result.add(index + 1);
+  /**
+   * Returns the permutation which sorts an integer vector, using a radix sort.
+   */
+  @Internal
+  public static IntVector radixsort(IntVector x, boolean naLast, boolean decreasing) {
+    int[] ordering = new IndexSorter(x, naLast, decreasing).sort();
+    for (int i = 0; i < ordering.length; i++) {
+      ordering[i]++;
     }
-
-    return result.build();
-  }   
+    return IntArrayVector.unsafe(ordering);
+  }
 
   @Internal("which.min")
   public static IntVector whichMin(Vector input) {
@@ -360,91 +335,60 @@ public class Sort {
   @Internal
   public static Vector rank(final AtomicVector input, String tiesMethod) {
 
-    boolean decreasing = false;
-
-    AtomicVector sortedInput;
-
-    String typeVector = input.getTypeName();
-    switch (typeVector){
-      case "character":
-        StringVector inputStringVector = ((StringVector) input.setAttributes(AttributeMap.EMPTY));
-        sortedInput = ((AtomicVector) sort(inputStringVector, decreasing));
-        break;
-      case "double":
-        DoubleVector inputDoubleVector = ((DoubleVector) input.setAttributes(AttributeMap.EMPTY));
-        sortedInput = ((AtomicVector) sort(inputDoubleVector, decreasing));
-        break;
-      default:
-        IntVector inputIntVector = ((IntVector) input.setAttributes(AttributeMap.EMPTY));
-        sortedInput = ((AtomicVector) sort(inputIntVector, decreasing));
-        break;
-    }
-
-
-
+    IndexSorter sorter = new IndexSorter(input, true, false);
+    int[] ordering = sorter.sort();
 
     switch(tiesMethod.toUpperCase()){
       case "MIN":
-        return rankMin(input, sortedInput);
-
       case "MAX":
-        return rankMax(input, sortedInput);
-
-      case "AVERAGE":
-        return rankAverage(input, sortedInput);
-
-      case "FIRST":
-        throw new EvalException("ties.method=first not implemented");
+      case "FIRST": {
+        int[] ranks = new int[ordering.length];
+        rank(sorter, ordering, tiesMethod.toUpperCase(), ranks, null);
+        return IntArrayVector.unsafe(ranks);
+      }
 
+      case "AVERAGE": {
+        double[] ranks = new double[ordering.length];
+        rank(sorter, ordering, "AVERAGE", null, ranks);
+        return DoubleArrayVector.unsafe(ranks);
+      }
 
       case "RANDOM":
         throw new EvalException("ties.method=random not implemented");
 
-
       default:
         throw new EvalException("Invalid ties.method.");
-
     }
-
   }
 
-  private static Vector rankAverage(AtomicVector input, AtomicVector sortedInput) {
-    DoubleArrayVector.Builder ranks = new DoubleArrayVector.Builder();
-    for ( int i=0; i < sortedInput.length(); i++ ) {
-      int minRank = sortedInput.indexOf(input, i, 0);
-      int maxRank = minRank;
-      while ( maxRank+1 < sortedInput.length() &&
-              sortedInput.compare(minRank, maxRank+1) == 0) {
-        maxRank++;
+  /**
+   * Assigns ranks to each run of tied rows in {@code ordering}.
+   */
+  private static void rank(IndexSorter sorter, int[] ordering, String tiesMethod, int[] intRanks, double[] doubleRanks) {
+    int start = 0;
+    while(start < ordering.length) {
+      int end = start + 1;
+      while(end < ordering.length && sorter.compare(ordering[start], ordering[end]) == 0) {
+        end++;
       }
-
-      double average = (((double) minRank) + ((double) maxRank)) / 2d;
-      ranks.add(average + 1);
-    }
-    return ranks.build();
-  }
-
-  private static Vector rankMax(AtomicVector input, AtomicVector sortedInput) {
-    IntArrayVector.Builder ranks = new IntArrayVector.Builder();
-    for ( int i=0; i < sortedInput.length(); i++ ) {
-      int minRank = sortedInput.indexOf(input, i, 0);
-      int maxRank = minRank;
-      while ( maxRank+1 < sortedInput.length() &&
-              sortedInput.compare(minRank, maxRank+1) == 0) {
-        maxRank++;
+      for (int i = start; i < end; i++) {
+        switch (tiesMethod) {
+          case "MIN":
+            intRanks[ordering[i]] = start + 1;
+            break;
+          case "MAX":
+            intRanks[ordering[i]] = end;
+            break;
+          case "FIRST":
+            intRanks[ordering[i]] = i + 1;
+            break;
+          default:
+            doubleRanks[ordering[i]] = (start + 1 + end) / 2d;
+            break;
+        }
       }
-      ranks.add(maxRank + 1);
-    }
-    return ranks.build();
-  }
-
-  private static Vector rankMin(AtomicVector input, AtomicVector sortedInput) {
-    IntArrayVector.Builder ranks = new IntArrayVector.Builder();
-
-    for (int i=0; i < sortedInput.length(); i++) {
-      ranks.add( sortedInput.indexOf( input, i, 0 ) + 1 );
+      start = end;
     }
-    return ranks.build();
   }
 
   @Builtin
@@ -24,8 +24,7 @@ import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.*;
 import org.renjin.parser.NumericLiterals;
 import org.renjin.parser.StringLiterals;
-import org.renjin.primitives.summary.DeferredMean;
-import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.primitives.summary.*;
 import org.renjin.sexp.*;
 
 import java.io.IOException;
@@ -43,6 +42,11 @@ public class Summary {
   public static SEXP min(@ArgumentList ListVector arguments,
                          @NamedFlag("na.rm") boolean removeNA) {
 
+    Vector deferrable = deferrableArgument(arguments, removeNA);
+    if(deferrable != null) {
+      return new DeferredMin(deferrable, AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .addList(arguments)
@@ -54,12 +58,31 @@ public class Summary {
   public static SEXP max(@ArgumentList ListVector arguments,
                          @NamedFlag("na.rm") boolean removeNA) {
 
+    Vector deferrable = deferrableArgument(arguments, removeNA);
+    if(deferrable != null) {
+      return new DeferredMax(deferrable, AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .addList(arguments)
             .getMaximum();
   }
 
+  /**
+   * @return the argument to a summary function if it is a single, non-empty double vector which is
+   * either deferred itself or large enough to warrant a deferred summary; otherwise {@code null}.
+   */
+  private static Vector deferrableArgument(ListVector arguments, boolean removeNA) {
+    if(arguments.length() == 1 && arguments.get(0) instanceof DoubleVector && !removeNA) {
+      DoubleVector argument = (DoubleVector) arguments.get(0);
+      if(argument.length() > 0 && (argument.isDeferred() || argument.length() > 300)) {
+        return argument;
+      }
+    }
+    return null;
+  }
+
 
   /**
    * range returns a vector containing the minimum and maximum of all the given arguments.
@@ -82,6 +105,11 @@ public class Summary {
     // another oddity: the min() and max() functions do not accept lists or 
     // other recursive structures. The range() implementation does.
 
+    Vector deferrable = deferrableArgument(arguments, removeNA);
+    if(deferrable != null) {
+      return new DeferredRange(deferrable, AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .setRecursive(true)
@@ -391,6 +419,11 @@ public class Summary {
   @GroupGeneric
   public static AtomicVector prod(@ArgumentList ListVector arguments, @NamedFlag("na.rm") boolean removeNA) {
 
+    Vector deferrable = deferrableArgument(arguments, removeNA);
+    if(deferrable != null) {
+      return new DeferredProd(deferrable, AttributeMap.EMPTY);
+    }
+
     double realProduct = realProduct(arguments, removeNA);
     Complex complexProduct = complexProduct(arguments, removeNA);
     
@@ -466,6 +499,15 @@ public class Summary {
       }
     }
 
+    // An overflow of a deferred integer sum is signaled as a warning when the sum is materialized
+    if(arguments.length() == 1 && !removeNA &&
+        (arguments.get(0) instanceof IntVector || arguments.get(0) instanceof LogicalVector)) {
+      AtomicVector argument = (AtomicVector) arguments.get(0);
+      if(argument.isDeferred() && argument.length() > 0) {
+        return new DeferredIntSum(argument, AttributeMap.EMPTY);
+      }
+    }
+
     for(SEXP argument : arguments) {
       if(argument instanceof IntVector || argument instanceof LogicalVector) {
         AtomicVector vector = (AtomicVector)argument;
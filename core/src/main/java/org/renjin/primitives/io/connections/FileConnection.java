@@ -23,13 +23,13 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.vfs2.FileNotFoundException;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.provider.local.LocalFile;
 import org.renjin.eval.EvalException;
+import org.renjin.repackaged.guava.io.CountingInputStream;
 import org.tukaani.xz.XZInputStream;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.PushbackInputStream;
+import java.io.*;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
 
@@ -40,6 +40,11 @@ public class FileConnection extends AbstractConnection {
 
   private InputStream in;  
   private OutputStream out;
+
+  /**
+   * If the file is read without decompression, counts the bytes read from the file
+   */
+  private CountingInputStream uncompressedIn;
   
   private FileObject file;
   private OpenSpec openSpec = null;
@@ -108,8 +113,48 @@ public class FileConnection extends AbstractConnection {
     if(Arrays.equals(header, XzFileConnection.XZ_MAGIC_BYTES)) {
       return new XZInputStream(in);
     }
-    
-    return in;
+
+    uncompressedIn = new CountingInputStream(in);
+    return uncompressedIn;
+  }
+
+  /**
+   * Opens a new channel onto this connection's file, positioned at the next unread byte,
+   * so that the remainder of the file can be read without copying, for example through
+   * {@link FileChannel#map(FileChannel.MapMode, long, long)}.
+   *
+   * <p>Once the caller has finished with the channel, it must call {@link #skipInputTo(long)}
+   * so that subsequent reads from this connection start where the channel left off.</p>
+   *
+   * @return the channel, or {@code null} if the file is not a local, uncompressed file
+   * that has been opened for input.
+   */
+  public FileChannel openChannelForInput() throws IOException {
+    if(!(file instanceof LocalFile)) {
+      return null;
+    }
+    assureOpenForInput();
+    if(uncompressedIn == null) {
+      return null;
+    }
+    FileChannel channel = new FileInputStream(new File(file.getURL().getFile())).getChannel();
+    channel.position(uncompressedIn.getCount());
+    return channel;
+  }
+
+  /**
+   * Advances this connection's input to {@code position}, after the bytes up to that position
+   * have been read through a channel opened by {@link #openChannelForInput()}.
+   */
+  public void skipInputTo(long position) throws IOException {
+    long remaining = position - uncompressedIn.getCount();
+    while(remaining > 0) {
+      long skipped = uncompressedIn.skip(remaining);
+      if(skipped <= 0) {
+        throw new EOFException();
+      }
+      remaining -= skipped;
+    }
   }
   
   private OutputStream assureOpenForOutput() throws IOException {
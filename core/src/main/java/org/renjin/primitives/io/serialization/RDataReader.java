@@ -32,8 +32,10 @@ import org.renjin.sexp.*;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
 import java.nio.IntBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.util.List;
 
@@ -45,6 +47,7 @@ import static org.renjin.sexp.SexpType.LISTSXP;
 public class RDataReader implements AutoCloseable {
 
   private InputStream conn;
+  private FileChannel channel;
   private StreamReader in;
 
   private int version;
@@ -71,8 +74,34 @@ public class RDataReader implements AutoCloseable {
     this.conn = conn;
   }
 
+  public RDataReader(ReadContext readContext, InputStream conn) {
+    this.readContext = readContext;
+    this.conn = conn;
+  }
+
+  /**
+   * Creates a reader for an uncompressed file, starting at the current position of {@code channel}.
+   *
+   * <p>XDR and binary files are memory-mapped rather than read through a stream, and vectors are
+   * bulk-copied out of the mapping into heap arrays. No value returned by {@link #readFile()} refers
+   * to the mapping, so the file can later be overwritten or truncated without affecting them. When
+   * {@link #readFile()} returns, the channel is positioned at the end of the object read.</p>
+   */
+  public RDataReader(Context context, FileChannel channel) {
+    this(context, Channels.newInputStream(channel));
+    this.channel = channel;
+  }
+
   public SEXP readFile() throws IOException {
     byte streamType = readStreamType(conn);
+    if(channel != null && (streamType == XDR_FORMAT || streamType == BINARY_FORMAT)) {
+      MappedXdrReader mappedReader = new MappedXdrReader(channel, channel.position());
+      in = mappedReader;
+      readAndVerifyVersion();
+      SEXP exp = readExp();
+      channel.position(mappedReader.position());
+      return exp;
+    }
     in = createStreamReader(streamType, conn);
     readAndVerifyVersion();
     return readExp();
@@ -565,34 +594,39 @@ public class RDataReader implements AutoCloseable {
 
   private SEXP readComplexExp(int flags) throws IOException {
     int length = in.readInt();
+    double[] parts = in.readDoubleArray(length * 2);
     Complex[] values = new Complex[length];
     for(int i=0;i!=length;++i) {
-      values[i] = new Complex(in.readDouble(), in.readDouble());
+      values[i] = new Complex(parts[i * 2], parts[i * 2 + 1]);
     }
     return new ComplexArrayVector(values, readAttributes(flags));
   }
 
   private SEXP readDoubleExp(int flags) throws IOException {
     int length = in.readInt();
-    double[] values = new double[length];
-    for(int i=0;i!=length;++i) {
-      values[i] = in.readDouble();
-    }
-    return new DoubleArrayVector(values, readAttributes(flags));
+    double[] values = in.readDoubleArray(length);
+    return DoubleArrayVector.unsafe(values, readAttributes(flags));
   }
 
   private SEXP readIntVector(int flags) throws IOException {
     int length = in.readInt();
     IntBuffer buffer = in.readIntBuffer(length);
+    if(buffer.hasArray()) {
+      return IntArrayVector.unsafe(buffer.array(), readAttributes(flags));
+    }
     return new IntBufferVector(buffer, length, readAttributes(flags));
   }
 
 
   private SEXP readLogical(int flags) throws IOException {
     int length = in.readInt();
-    int values[] = new int[length];
-    for(int i=0;i!=length;++i) {
-      values[i] = in.readInt();
+    IntBuffer buffer = in.readIntBuffer(length);
+    int[] values;
+    if(buffer.hasArray()) {
+      values = buffer.array();
+    } else {
+      values = new int[length];
+      buffer.get(values);
     }
     return new LogicalArrayVector(values, readAttributes(flags));
   }
@@ -661,6 +695,7 @@ public class RDataReader implements AutoCloseable {
   private interface StreamReader {
     int readInt() throws IOException;
     IntBuffer readIntBuffer(int size) throws IOException;
+    double[] readDoubleArray(int size) throws IOException;
     byte[] readString(int length) throws IOException;
     double readDouble() throws IOException;
   }
@@ -713,6 +748,15 @@ public class RDataReader implements AutoCloseable {
       return IntBuffer.wrap(array);
     }
 
+    @Override
+    public double[] readDoubleArray(int size) throws IOException {
+      double[] array = new double[size];
+      for(int i=0;i!=size;++i) {
+        array[i] = readDouble();
+      }
+      return array;
+    }
+
     @Override
     public double readDouble() throws IOException {
       String word = readWord();
@@ -811,6 +855,22 @@ public class RDataReader implements AutoCloseable {
       return intBuffer;
     }
 
+    @Override
+    public double[] readDoubleArray(int size) throws IOException {
+      double[] array = new double[size];
+      byte[] bytes = new byte[Math.min(size, 8192) * 8];
+      DoubleBuffer chunk = ByteBuffer.wrap(bytes).asDoubleBuffer();
+      int read = 0;
+      while(read < size) {
+        int count = Math.min(size - read, bytes.length / 8);
+        in.readFully(bytes, 0, count * 8);
+        chunk.rewind();
+        chunk.get(array, read, count);
+        read += count;
+      }
+      return array;
+    }
+
     @Override
     public byte[] readString(int length) throws IOException {
       byte buf[] = new byte[length];
@@ -825,6 +885,104 @@ public class RDataReader implements AutoCloseable {
     }
   }
 
+  /**
+   * Reads the XDR format from a memory-mapped file.
+   *
+   * <p>The file is mapped in windows, and vectors are copied out of the mapping into arrays, so that
+   * the values read never depend on the contents of the file after it has been read.</p>
+   */
+  private static class MappedXdrReader implements StreamReader {
+
+    private static final int WINDOW_SIZE = 8 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+
+    private long windowStart;
+    private ByteBuffer window = ByteBuffer.allocate(0);
+
+    private MappedXdrReader(FileChannel channel, long position) throws IOException {
+      this.channel = channel;
+      this.size = channel.size();
+      this.windowStart = position;
+    }
+
+    /**
+     * @return the position in the file of the next byte to be read
+     */
+    public long position() {
+      return windowStart + window.position();
+    }
+
+    /**
+     * @return the current window, with at least {@code bytes} remaining
+     */
+    private ByteBuffer require(int bytes) throws IOException {
+      if(window.remaining() < bytes) {
+        long start = position();
+        long length = Math.min(Math.max(bytes, WINDOW_SIZE), size - start);
+        if(length < bytes) {
+          throw new EOFException();
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        windowStart = start;
+      }
+      return window;
+    }
+
+    /**
+     * @return a view of the next {@code bytes} bytes of the file
+     */
+    private ByteBuffer slice(int bytes) throws IOException {
+      ByteBuffer buffer = require(bytes);
+      ByteBuffer slice = buffer.slice();
+      slice.limit(bytes);
+      buffer.position(buffer.position() + bytes);
+      return slice.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      return require(4).getInt();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+      return require(8).getDouble();
+    }
+
+    @Override
+    public byte[] readString(int length) throws IOException {
+      byte[] buf = new byte[length];
+      require(length).get(buf);
+      return buf;
+    }
+
+    @Override
+    public IntBuffer readIntBuffer(int size) throws IOException {
+      int[] array = new int[size];
+      int read = 0;
+      while(read < size) {
+        int count = Math.min(size - read, WINDOW_SIZE / 4);
+        slice(count * 4).asIntBuffer().get(array, read, count);
+        read += count;
+      }
+      return IntBuffer.wrap(array);
+    }
+
+    @Override
+    public double[] readDoubleArray(int size) throws IOException {
+      double[] array = new double[size];
+      int read = 0;
+      while(read < size) {
+        int count = Math.min(size - read, WINDOW_SIZE / 8);
+        slice(count * 8).asDoubleBuffer().get(array, read, count);
+        read += count;
+      }
+      return array;
+    }
+  }
+
   /**
    * Interface that allows Renjin containers to restore objects
    * previously stored by {@link RDataWriter.PersistenceHook}
@@ -25,6 +25,7 @@ import org.renjin.invoke.annotations.DotCall;
 import org.renjin.invoke.annotations.Internal;
 import org.renjin.primitives.io.connections.Connection;
 import org.renjin.primitives.io.connections.Connections;
+import org.renjin.primitives.io.connections.FileConnection;
 import org.renjin.primitives.io.connections.OpenSpec;
 import org.renjin.primitives.io.serialization.RDataWriter.PersistenceHook;
 import org.renjin.sexp.*;
@@ -33,6 +34,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * Implementation of serialization builtins and internal functions.
@@ -47,17 +49,35 @@ public class Serialization {
   @Internal
   public static SEXP unserializeFromConn(@Current Context context,
       SEXP conn, Environment rho) throws IOException {
-    
-    RDataReader reader = new RDataReader(context, Connections.getConnection(context, conn).getInputStream());
-    return reader.readFile();
+
+    return readFromConnection(context, Connections.getConnection(context, conn));
   }
 
   @Internal
   public static SEXP unserializeFromConn(@Current Context context,
       SEXP conn, Null nz) throws IOException {
-    
-    RDataReader reader = new RDataReader(context, 
-        Connections.getConnection(context, conn).getInputStream());
+
+    return readFromConnection(context, Connections.getConnection(context, conn));
+  }
+
+  /**
+   * Reads a single object from {@code connection}. Uncompressed local files are memory-mapped
+   * rather than read through the connection's stream, so that vectors can be bulk-copied out
+   * of the mapping instead of being decoded element by element.
+   */
+  private static SEXP readFromConnection(Context context, Connection connection) throws IOException {
+    if(connection instanceof FileConnection) {
+      FileConnection fileConnection = (FileConnection) connection;
+      FileChannel channel = fileConnection.openChannelForInput();
+      if(channel != null) {
+        try(RDataReader reader = new RDataReader(context, channel)) {
+          SEXP exp = reader.readFile();
+          fileConnection.skipInputTo(channel.position());
+          return exp;
+        }
+      }
+    }
+    RDataReader reader = new RDataReader(context, connection.getInputStream());
     return reader.readFile();
   }
 
@@ -204,13 +224,17 @@ public class Serialization {
   public static SEXP loadFromConn2(@Current Context context, SEXP conn,
       Environment env) throws IOException {
 
-    InputStream inputStream = Connections.getConnection(context, conn).getInputStream();
-    return load(context, env, inputStream);
+    HasNamedValues data = EvalException.checkedCast(readFromConnection(context, Connections.getConnection(context, conn)));
+    return load(env, data);
   }
 
   public static SEXP load(@Current Context context, Environment env, InputStream inputStream) throws IOException {
     RDataReader reader = new RDataReader(context, inputStream);
     HasNamedValues data = EvalException.checkedCast(reader.readFile());
+    return load(env, data);
+  }
+
+  private static SEXP load(Environment env, HasNamedValues data) {
 
     StringArrayVector.Builder names = new StringArrayVector.Builder();
 
@@ -18,10 +18,13 @@
  */
 package org.renjin.primitives.match;
 
+import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.Internal;
 import org.renjin.primitives.match.DuplicateSearchAlgorithm.Action;
 import org.renjin.repackaged.guava.collect.Maps;
 import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.ListVector;
+import org.renjin.sexp.LogicalVector;
 import org.renjin.sexp.Vector;
 
 import java.util.HashMap;
@@ -76,18 +79,105 @@ public class Duplicates {
         new AnyDuplicateAlgorithm());
   }
   
+  /**
+   * Determines which rows of a list of equal-length columns, such as a data frame, are
+   * duplicates of rows with smaller subscripts.
+   */
+  @Internal
+  public static LogicalVector duplicatedRows(ListVector columns, boolean fromLast) {
+    return searchRows(columns, fromLast, new DuplicatedAlgorithm());
+  }
+
+  @Internal
+  public static int anyDuplicatedRows(ListVector columns, boolean fromLast) {
+    return searchRows(columns, fromLast, new AnyDuplicateAlgorithm());
+  }
+
+  private static <ResultType> ResultType searchRows(
+      ListVector columns,
+      boolean fromLast,
+      DuplicateSearchAlgorithm<ResultType> algorithm) {
+
+    if(columns.length() == 0) {
+      throw new EvalException("at least one column is required");
+    }
+    Vector rows = (Vector) columns.getElementAsSEXP(0);
+    for (int j = 1; j < columns.length(); j++) {
+      if(columns.getElementAsSEXP(j).length() != rows.length()) {
+        throw new EvalException("columns must have equal lengths");
+      }
+    }
+
+    return search(rows, HashIndex.rows(columns), null, fromLast, algorithm);
+  }
+
   private static <ResultType> ResultType search(
       Vector x, 
       Vector incomparables,
       boolean fromLast,
       DuplicateSearchAlgorithm<ResultType> algorithm) {
+
+    HashIndex index = HashIndex.create(x.getVectorType(), x.length());
+    if(index == null) {
+      return searchUsingHashMap(x, fromLast, algorithm);
+    }
+
+    HashIndex incomparableIndex = null;
+    if(incomparables.length() > 0 && !incomparables.equals(LogicalVector.FALSE)) {
+      incomparableIndex = HashIndex.build(x.getVectorType().to(incomparables));
+    }
+
+    return search(x, index, incomparableIndex, fromLast, algorithm);
+  }
+
+  /**
+   * Searches for duplicates using an index specialized to the type of {@code x}, so that
+   * elements are compared without boxing.
+   */
+  private static <ResultType> ResultType search(
+      Vector x,
+      HashIndex index,
+      HashIndex incomparables,
+      boolean fromLast,
+      DuplicateSearchAlgorithm<ResultType> algorithm) {
+
+    algorithm.init(x);
+
+    int length = x.length();
+    for (int k = 0; k < length; k++) {
+      int i = fromLast ? length - 1 - k : k;
+
+      if(incomparables != null && incomparables.indexOf(x, i) != -1) {
+        algorithm.onUnique(i);
+        continue;
+      }
+
+      int originalIndex = index.putIfAbsent(x, i);
+      if(originalIndex == -1) {
+        algorithm.onUnique(i);
+
+      } else {
+        if(algorithm.onDuplicate(i, originalIndex) == Action.STOP) {
+          return algorithm.getResult();
+        }
+      }
+    }
+    return algorithm.getResult();
+  }
+
+  private static <ResultType> ResultType searchUsingHashMap(
+      Vector x,
+      boolean fromLast,
+      DuplicateSearchAlgorithm<ResultType> algorithm) {
    
     algorithm.init(x);
     
     /** Maps elements -> first encountered index */
     HashMap<Object, Integer> seen = Maps.newHashMap();
-   
-    for(Integer index : new IndexSequence(x, fromLast)) {
+
+    int length = x.length();
+    for (int k = 0; k < length; k++) {
+      int index = fromLast ? length - 1 - k : k;
       
       Object element = x.getElementAsObject(index);
       
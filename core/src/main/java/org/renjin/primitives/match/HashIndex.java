@@ -0,0 +1,450 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.match;
+
+import org.renjin.eval.EvalException;
+import org.renjin.sexp.*;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Open-addressing hash table that maps the elements of a vector to the index at which
+ * they first occur, using the same notion of equality as {@code match()}: {@code NA} matches only
+ * {@code NA}, {@code NaN} matches {@code NaN} but not {@code NA}, and {@code 0} matches {@code -0}.
+ *
+ * <p>Keys are stored unboxed in a table specialized to the vector's type, so that building an index
+ * and looking up an element do not allocate.</p>
+ */
+abstract class HashIndex {
+
+  private static final int EMPTY = -1;
+
+  private static final int MIN_CAPACITY = 16;
+
+  /**
+   * The largest power of two that can be used as the size of an array.
+   */
+  static final int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * The index of the first occurrence of the key in each slot, or {@code EMPTY}
+   */
+  protected int[] positions;
+
+  protected int mask;
+
+  private int size;
+
+  private HashIndex(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * @return the initial table size for {@code expectedSize} elements: the smallest power of two
+   * that keeps the table at most half full, up to {@link #MAX_CAPACITY}
+   */
+  static int capacityFor(int expectedSize) {
+    long required = Math.min(2L * expectedSize, MAX_CAPACITY);
+    int capacity = MIN_CAPACITY;
+    while(capacity < required) {
+      capacity *= 2;
+    }
+    return capacity;
+  }
+
+  /**
+   * Creates an index of all elements of {@code vector}.
+   *
+   * @return the index, or {@code null} if elements of this type cannot be hashed.
+   */
+  public static HashIndex build(Vector vector) {
+    HashIndex index = create(vector.getVectorType(), vector.length());
+    if(index != null) {
+      for (int i = 0; i < vector.length(); i++) {
+        index.putIfAbsent(vector, i);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Creates an empty index for elements of the given type.
+   *
+   * @return the index, or {@code null} if elements of this type cannot be hashed.
+   */
+  public static HashIndex create(Vector.Type type, int expectedSize) {
+    if(type == IntVector.VECTOR_TYPE || type == LogicalVector.VECTOR_TYPE) {
+      return new IntIndex(expectedSize);
+    } else if(type == DoubleVector.VECTOR_TYPE) {
+      return new DoubleIndex(expectedSize);
+    } else if(type == StringVector.VECTOR_TYPE) {
+      return new StringIndex(expectedSize);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Creates an empty index of the rows of a list of equal-length columns, such as a data frame.
+   * Rows are added and looked up by their row number; the {@code vector} argument of
+   * {@link #putIfAbsent(Vector, int)} and {@link #indexOf(Vector, int)} is ignored.
+   */
+  public static HashIndex rows(ListVector columns) {
+    Vector[] vectors = new Vector[columns.length()];
+    for (int j = 0; j < vectors.length; j++) {
+      vectors[j] = (Vector) columns.getElementAsSEXP(j);
+    }
+    return new RowIndex(vectors, vectors.length == 0 ? 0 : vectors[0].length());
+  }
+
+  /**
+   * @return the index at which the element {@code vector[i]} was first added to this index,
+   * or -1 if it has not been added.
+   */
+  public final int indexOf(Vector vector, int i) {
+    int slot = find(vector, i);
+    return positions[slot];
+  }
+
+  /**
+   * Adds the element {@code vector[i]} to this index, if an equal element has not yet been added.
+   *
+   * @return the index at which an equal element was first added, or -1 if {@code vector[i]}
+   * is new, in which case {@code i} is recorded as its first index.
+   */
+  public final int putIfAbsent(Vector vector, int i) {
+    int slot = find(vector, i);
+    int existing = positions[slot];
+    if(existing != EMPTY) {
+      return existing;
+    }
+    store(slot, vector, i);
+    positions[slot] = i;
+    size++;
+    if(2L * size > positions.length) {
+      if(positions.length < MAX_CAPACITY) {
+        rehash(positions.length * 2);
+      } else if(size == positions.length - 1) {
+        // At least one slot must remain empty so that lookups terminate
+        throw new EvalException("Too many distinct elements to index: %d", size);
+      }
+    }
+    return EMPTY;
+  }
+
+  /**
+   * @return the slot which holds {@code vector[i]}, or the empty slot where it should be stored.
+   */
+  private int find(Vector vector, int i) {
+    int slot = hash(vector, i) & mask;
+    while(positions[slot] != EMPTY && !keyEquals(slot, vector, i)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void rehash(int newCapacity) {
+    int[] oldPositions = positions;
+    Object oldKeys = keys();
+    allocate(newCapacity);
+    for (int oldSlot = 0; oldSlot < oldPositions.length; oldSlot++) {
+      if(oldPositions[oldSlot] != EMPTY) {
+        int slot = rehash(oldKeys, oldSlot) & mask;
+        while(positions[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        move(oldKeys, oldSlot, slot);
+        positions[slot] = oldPositions[oldSlot];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    positions = new int[capacity];
+    Arrays.fill(positions, EMPTY);
+    mask = capacity - 1;
+    allocateKeys(capacity);
+  }
+
+  protected abstract void allocateKeys(int capacity);
+
+  protected abstract Object keys();
+
+  protected abstract int hash(Vector vector, int i);
+
+  protected abstract int rehash(Object keys, int slot);
+
+  protected abstract boolean keyEquals(int slot, Vector vector, int i);
+
+  protected abstract void store(int slot, Vector vector, int i);
+
+  protected abstract void move(Object oldKeys, int oldSlot, int slot);
+
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static int mix(long bits) {
+    return mix((int)(bits ^ (bits >>> 32)));
+  }
+
+  private static int hashElement(Vector vector, int i) {
+    if(vector instanceof IntVector || vector instanceof LogicalVector) {
+      return vector.getElementAsInt(i);
+    } else if(vector instanceof DoubleVector) {
+      long bits = DoubleIndex.bits(vector, i);
+      return (int)(bits ^ (bits >>> 32));
+    } else if(vector instanceof StringVector) {
+      return Objects.hashCode(vector.getElementAsString(i));
+    } else {
+      return Objects.hashCode(vector.getElementAsObject(i));
+    }
+  }
+
+  private static boolean elementsEqual(Vector vector, int i, int j) {
+    if(vector instanceof IntVector || vector instanceof LogicalVector) {
+      return vector.getElementAsInt(i) == vector.getElementAsInt(j);
+    } else if(vector instanceof DoubleVector) {
+      return DoubleIndex.bits(vector, i) == DoubleIndex.bits(vector, j);
+    } else if(vector instanceof StringVector) {
+      return Objects.equals(vector.getElementAsString(i), vector.getElementAsString(j));
+    } else {
+      return Objects.equals(vector.getElementAsObject(i), vector.getElementAsObject(j));
+    }
+  }
+
+  /**
+   * Index of integer or logical elements, which are compared by their integer value.
+   */
+  private static class IntIndex extends HashIndex {
+    private int[] keys;
+
+    private IntIndex(int expectedSize) {
+      super(expectedSize);
+    }
+
+    @Override
+    protected void allocateKeys(int capacity) {
+      keys = new int[capacity];
+    }
+
+    @Override
+    protected Object keys() {
+      return keys;
+    }
+
+    @Override
+    protected int hash(Vector vector, int i) {
+      return mix(vector.getElementAsInt(i));
+    }
+
+    @Override
+    protected int rehash(Object keys, int slot) {
+      return mix(((int[]) keys)[slot]);
+    }
+
+    @Override
+    protected boolean keyEquals(int slot, Vector vector, int i) {
+      return keys[slot] == vector.getElementAsInt(i);
+    }
+
+    @Override
+    protected void store(int slot, Vector vector, int i) {
+      keys[slot] = vector.getElementAsInt(i);
+    }
+
+    @Override
+    protected void move(Object oldKeys, int oldSlot, int slot) {
+      keys[slot] = ((int[]) oldKeys)[oldSlot];
+    }
+  }
+
+  /**
+   * Index of double elements, which are compared by the bits of their canonical value, so
+   * that all {@code NaN}s, and both zeros, are equal to each other, while {@code NA} remains distinct.
+   */
+  private static class DoubleIndex extends HashIndex {
+    private static final long NA_BITS = Double.doubleToRawLongBits(DoubleVector.NA);
+    private static final long NAN_BITS = Double.doubleToLongBits(Double.NaN);
+
+    private long[] keys;
+
+    private DoubleIndex(int expectedSize) {
+      super(expectedSize);
+    }
+
+    private static long bits(Vector vector, int i) {
+      double value = vector.getElementAsDouble(i);
+      if(Double.isNaN(value)) {
+        return DoubleVector.isNA(value) ? NA_BITS : NAN_BITS;
+      } else if(value == 0) {
+        return 0L;
+      } else {
+        return Double.doubleToRawLongBits(value);
+      }
+    }
+
+    @Override
+    protected void allocateKeys(int capacity) {
+      keys = new long[capacity];
+    }
+
+    @Override
+    protected Object keys() {
+      return keys;
+    }
+
+    @Override
+    protected int hash(Vector vector, int i) {
+      return mix(bits(vector, i));
+    }
+
+    @Override
+    protected int rehash(Object keys, int slot) {
+      return mix(((long[]) keys)[slot]);
+    }
+
+    @Override
+    protected boolean keyEquals(int slot, Vector vector, int i) {
+      return keys[slot] == bits(vector, i);
+    }
+
+    @Override
+    protected void store(int slot, Vector vector, int i) {
+      keys[slot] = bits(vector, i);
+    }
+
+    @Override
+    protected void move(Object oldKeys, int oldSlot, int slot) {
+      keys[slot] = ((long[]) oldKeys)[oldSlot];
+    }
+  }
+
+  /**
+   * Index of string elements. Strings in a vector are frequently shared, so the identity
+   * comparison in {@link String#equals(Object)} usually settles a lookup without comparing characters.
+   */
+  private static class StringIndex extends HashIndex {
+    private String[] keys;
+
+    private StringIndex(int expectedSize) {
+      super(expectedSize);
+    }
+
+    @Override
+    protected void allocateKeys(int capacity) {
+      keys = new String[capacity];
+    }
+
+    @Override
+    protected Object keys() {
+      return keys;
+    }
+
+    @Override
+    protected int hash(Vector vector, int i) {
+      String value = vector.getElementAsString(i);
+      return value == null ? 0 : mix(value.hashCode());
+    }
+
+    @Override
+    protected int rehash(Object keys, int slot) {
+      String value = ((String[]) keys)[slot];
+      return value == null ? 0 : mix(value.hashCode());
+    }
+
+    @Override
+    protected boolean keyEquals(int slot, Vector vector, int i) {
+      String key = keys[slot];
+      String value = vector.getElementAsString(i);
+      return key == null ? value == null : key.equals(value);
+    }
+
+    @Override
+    protected void store(int slot, Vector vector, int i) {
+      keys[slot] = vector.getElementAsString(i);
+    }
+
+    @Override
+    protected void move(Object oldKeys, int oldSlot, int slot) {
+      keys[slot] = ((String[]) oldKeys)[oldSlot];
+    }
+  }
+
+  /**
+   * Index of the rows of a list of columns. Only the row numbers are stored: keys are compared
+   * by looking up the elements of both rows in each column.
+   */
+  private static class RowIndex extends HashIndex {
+    private final Vector[] columns;
+
+    private RowIndex(Vector[] columns, int expectedSize) {
+      super(expectedSize);
+      this.columns = columns;
+    }
+
+    @Override
+    protected void allocateKeys(int capacity) {
+    }
+
+    @Override
+    protected Object keys() {
+      return positions;
+    }
+
+    @Override
+    protected int hash(Vector vector, int i) {
+      int hash = 1;
+      for (Vector column : columns) {
+        hash = 31 * hash + hashElement(column, i);
+      }
+      return mix(hash);
+    }
+
+    @Override
+    protected int rehash(Object keys, int slot) {
+      return hash(null, ((int[]) keys)[slot]);
+    }
+
+    @Override
+    protected boolean keyEquals(int slot, Vector vector, int i) {
+      int row = positions[slot];
+      for (Vector column : columns) {
+        if(!elementsEqual(column, row, i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    protected void store(int slot, Vector vector, int i) {
+    }
+
+    @Override
+    protected void move(Object oldKeys, int oldSlot, int slot) {
+    }
+  }
+}
@@ -29,7 +29,6 @@ import org.renjin.primitives.sequence.IntSequence;
 import org.renjin.primitives.vector.ConvertingStringVector;
 import org.renjin.sexp.*;
 
-import java.util.HashMap;
 
 
 /**
@@ -40,6 +39,9 @@ public class Match {
   private static final int UNMATCHED = -1;
   private static final int MULTIPLE_MATCH = -2;
 
+  private static final int MIN_HASHED_SEARCH_LENGTH = 4;
+  private static final int MIN_HASHED_COMPARISONS = 256;
+
   private Match() { }
 
   /**
@@ -83,6 +85,42 @@ public class Match {
     search = commonType.to(search);
     table = commonType.to(table);
 
+    if(isWorthHashing(search, table)) {
+      HashIndex index = HashIndex.build(table);
+      if(index != null) {
+        return matchUsingIndex(search, index, noMatch, incomparables);
+      }
+    }
+
+    return matchByScan(search, table, noMatch, incomparables);
+  }
+
+  /**
+   * Building a hash index costs about as much as a single scan of the table, so we
+   * only build one when we would otherwise scan the table several times.
+   */
+  private static boolean isWorthHashing(Vector search, Vector table) {
+    return search.length() >= MIN_HASHED_SEARCH_LENGTH &&
+        (long) search.length() * table.length() >= MIN_HASHED_COMPARISONS;
+  }
+
+  private static IntVector matchUsingIndex(Vector search, HashIndex index, int noMatch, AtomicVector incomparables) {
+    int[] matches = new int[search.length()];
+    for(int i=0;i!=search.length();++i) {
+      if(incomparables.length() > 0 && incomparables.contains(search, i)) {
+        matches[i] = noMatch;
+      } else {
+        int pos = index.indexOf(search, i);
+        matches[i] = pos >= 0 ? pos+1 : noMatch;
+      }
+    }
+    return IntArrayVector.unsafe(matches);
+  }
+
+  /**
+   * Matches each element of {@code search} by scanning {@code table} from the start.
+   */
+  static IntVector matchByScan(Vector search, Vector table, int noMatch, AtomicVector incomparables) {
     int[] matches = new int[search.length()];
     for(int i=0;i!=search.length();++i) {
       if( incomparables.contains(search, i)) {
@@ -155,36 +193,6 @@ public class Match {
     return null;
   }
 
-  private static IntVector matchUsingStringHash(Vector search, Vector table, int noMatch, AtomicVector incomparables) {
-
-    // Build HashMap... 
-    // If items are repeated in the table, only the first is used.
-    HashMap<String, Integer> lookup = new HashMap<>();
-    for (int i = 0; i < table.length(); i++) {
-      String tableElement = table.getElementAsString(i);
-      if(!lookup.containsKey(tableElement)) {
-        lookup.put(tableElement, i);
-      }
-    }
-
-    for (int i = 0; i < incomparables.length(); i++) {
-      lookup.put(incomparables.getElementAsString(i), noMatch);
-    }
-    
-    int match[] = new int[search.length()];
-    for (int i = 0; i < search.length(); i++) {
-      String toMatch = search.getElementAsString(i);
-      Integer index = lookup.get(toMatch);
-      if(index == null) {
-        match[i] = noMatch;
-      } else {
-        match[i] = index;
-      }
-    }
-    
-    return new IntArrayVector(match);
-  }
-
   private static int indexOfNA(Vector table) {
     for(int i=0;i!=table.length();++i) {
       if(table.isElementNA(i)) {
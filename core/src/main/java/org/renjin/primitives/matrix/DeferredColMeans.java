@@ -0,0 +1,57 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.matrix;
+
+import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * The means of the columns of a matrix, where columns with NA or NaN values have a mean of NA.
+ */
+public class DeferredColMeans extends DeferredMatrixSummary {
+
+  public DeferredColMeans(AtomicVector vector, int numRows, AttributeMap attributes) {
+    super(vector, numRows, attributes);
+  }
+
+  @Override
+  public String getComputationName() {
+    return "colMeans";
+  }
+
+  @Override
+  public int length() {
+    return numCols;
+  }
+
+  @Override
+  protected double[] calculate() {
+    double[] means = new double[numCols];
+    int i = 0;
+    for(int col=0;col < numCols; col++) {
+      double sum = 0;
+      for(int row=0;row < numRows; row++) {
+        sum += vector.getElementAsDouble(i++);
+      }
+      means[col] = Double.isNaN(sum) ? DoubleVector.NA : sum / numRows;
+    }
+    return means;
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.matrix;
+
+import org.renjin.primitives.vector.AttributeDecoratingVector;
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.*;
+
+/**
+ * Base class for deferred summaries of the rows or columns of a matrix.
+ */
+public abstract class DeferredMatrixSummary extends DoubleVector implements MemoizedComputation {
+
+  protected final AtomicVector vector;
+  protected final int numRows;
+  protected final int numCols;
+  private double[] result;
+
+  protected DeferredMatrixSummary(AtomicVector vector, int numRows, AttributeMap attributes) {
+    super(attributes);
+    this.vector = vector;
+    this.numRows = numRows;
+    this.numCols = vector.length() / numRows;
+  }
+
+  @Override
+  public final Vector[] getOperands() {
+    return new Vector[] { vector, new IntArrayVector(numRows) };
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new AttributeDecoratingVector(this, attributes);
+  }
+
+  @Override
+  public final double getElementAsDouble(int index) {
+    if(result == null) {
+      result = calculate();
+    }
+    return result[index];
+  }
+
+  protected abstract double[] calculate();
+
+  @Override
+  public final boolean isConstantAccessTime() {
+    return false;
+  }
+
+  @Override
+  public final boolean isCalculated() {
+    return result != null;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return !isCalculated();
+  }
+
+  @Override
+  public final Vector forceResult() {
+    if(result == null) {
+      result = calculate();
+    }
+    return DoubleArrayVector.unsafe(result);
+  }
+
+  @Override
+  public final void setResult(Vector result) {
+    this.result = ((DoubleArrayVector) result).toDoubleArrayUnsafe();
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.matrix;
+
+import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.AttributeMap;
+
+public class DeferredRowSums extends DeferredMatrixSummary {
+
+  public DeferredRowSums(AtomicVector vector, int numRows, AttributeMap attributes) {
+    super(vector, numRows, attributes);
+  }
+
+  @Override
+  public String getComputationName() {
+    return "rowSums";
+  }
+
+  @Override
+  public int length() {
+    return numRows;
+  }
+
+  @Override
+  protected double[] calculate() {
+    double[] sums = new double[numRows];
+    int row = 0;
+    for(int i=0;i!=vector.length();++i) {
+      sums[row] += vector.getElementAsDouble(i);
+      row++;
+      if(row == numRows) {
+        row = 0;
+      }
+    }
+    return sums;
+  }
+}
@@ -183,6 +183,10 @@ public class Matrices {
 
   @Internal
   public static DoubleVector rowSums(AtomicVector x, int numRows, int rowLength, boolean naRm) {
+    if(!naRm && x.isDeferred() && numRows > 0) {
+      return new DeferredRowSums(x, numRows, AttributeMap.EMPTY);
+    }
+
     double sums[] = new double[numRows];
     int sourceIndex = 0;
     for(int col=0;col < rowLength; col++) {
@@ -231,6 +235,9 @@ public class Matrices {
 
   @Internal
   public static DoubleVector colSums(AtomicVector x, int columnLength, int numColumns, boolean naRm) {
+    if(!naRm && x.isDeferred() && columnLength > 0) {
+      return new DeferredColSums(x, columnLength, AttributeMap.EMPTY);
+    }
 
     double sums[] = new double[numColumns];
     for(int column=0;column < numColumns; column++) {
@@ -256,6 +263,10 @@ public class Matrices {
 
   @Internal
   public static DoubleVector colMeans(AtomicVector x, int columnLength, int numColumns, boolean naRm) {
+    if(!naRm && x.isDeferred() && columnLength > 0) {
+      return new DeferredColMeans(x, columnLength, AttributeMap.EMPTY);
+    }
+
     double sums[] = new double[numColumns];
     int counts[] = new int[numColumns];
 
@@ -85,6 +85,12 @@ public class ClasspathPackage extends FileBasedPackage {
         name;
   }
 
+  @Override
+  protected String getImageKey() {
+    URL url = classLoader.getResource(qualifyResourceName("environment"));
+    return url == null ? null : url.toExternalForm();
+  }
+
   @Override
   public boolean resourceExists(String name) {
     URL url = classLoader.getResource(qualifyResourceName(name));
@@ -51,4 +51,9 @@ public class DatasetObjectPromise extends Promise {
       throw new EvalException("Exception loading '%s' from dataset '%s'", objectName, dataset.getName());
     }
   }
+
+  @Override
+  public Promise copyUnevaluated(Environment environment, SEXP expression) {
+    return new DatasetObjectPromise(dataset, objectName);
+  }
 }
@@ -46,7 +46,7 @@ public abstract class FileBasedPackage extends Package {
 
   @Override
   public Iterable<NamedValue> loadSymbols(Context context) throws IOException {
-    return LazyLoadFrame.load(context, new Function<String, InputStream>() {
+    return LazyLoadFrame.load(context, getImageKey(), new Function<String, InputStream>() {
 
       @Override
       public InputStream apply(String name) {
@@ -61,6 +61,15 @@ public abstract class FileBasedPackage extends Package {
 
   public abstract boolean resourceExists(String name);
 
+  /**
+   * @return a key which identifies this package's resources within the JVM, so that its
+   * {@link org.renjin.packaging.NamespaceImage} can be shared by all sessions, or {@code null}
+   * if the package cannot be shared.
+   */
+  protected String getImageKey() {
+    return null;
+  }
+
 
   private Properties readDatasetIndex() throws IOException {
     Properties datasets = new Properties();
@@ -30,6 +30,7 @@ import org.renjin.sexp.*;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -77,6 +78,10 @@ public class NamespaceRegistry {
     envirMap.put(baseNamespaceEnv, baseNamespace);
   }
 
+  public PackageLoader getPackageLoader() {
+    return loader;
+  }
+
   public Namespace getBaseNamespace() {
     return baseNamespace;
   }
@@ -97,6 +102,13 @@ public class NamespaceRegistry {
   public Iterable<Symbol> getLoadedNamespaces() {
     return localNameMap.keySet();
   }
+
+  /**
+   * @return the namespaces loaded into this session, other than the base namespace.
+   */
+  public Collection<Namespace> getNamespaces() {
+    return Collections.unmodifiableCollection(namespaceMap.values());
+  }
   
   public Optional<Namespace> getNamespaceIfPresent(Symbol name) {
     Collection<Namespace> matching = localNameMap.get(name);
@@ -284,6 +296,25 @@ public class NamespaceRegistry {
     return namespace;
   }
 
+  /**
+   * Registers a copy of {@code namespace}, loaded into another session, whose namespace environment
+   * has already been copied to {@code namespaceEnv}.
+   */
+  public Namespace registerCopy(Namespace namespace, Environment namespaceEnv) {
+    Package pkg = namespace.getPackage();
+    Namespace copy = new Namespace(pkg, namespaceEnv);
+    for (Symbol export : namespace.getExports()) {
+      copy.addExport(export);
+    }
+    copy.getNativeSymbolMap().putAll(namespace.getNativeSymbolMap());
+
+    localNameMap.put(pkg.getName().getPackageSymbol(), copy);
+    namespaceMap.put(pkg.getName(), copy);
+    envirMap.put(namespaceEnv, copy);
+    nativeSymbolMap.putAll(copy.getNativeSymbolMap());
+    return copy;
+  }
+
   public boolean isNamespaceEnv(Environment envir) {
     return envirMap.containsKey(envir);
   }
@@ -0,0 +1,504 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.sort;
+
+import org.renjin.sexp.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the permutation which stably sorts the rows of one or more key vectors, as
+ * {@code order()} does.
+ *
+ * <p>Rows are sorted as a primitive {@code int[]} of indexes. Integer, logical and factor keys, and
+ * double keys, are first encoded into sortable {@code int} or {@code long} values, with the
+ * direction of the sort and the position of {@code NA}s folded into the encoding, and then sorted with
+ * an LSD radix sort which skips any byte that is the same for all rows. Strings and other types are
+ * sorted with a merge sort. Multiple keys are handled by sorting stably by each key, starting with the last.</p>
+ *
+ * <p>Very large inputs can be sorted in parallel, by sorting chunks of the rows concurrently and then
+ * merging them. This is experimental, and can be enabled with the JVM flag -Drenjin.sort.parallel=true</p>
+ */
+public class IndexSorter {
+
+  public static boolean PARALLEL = Boolean.getBoolean("renjin.sort.parallel");
+
+  /**
+   * The minimum number of rows for which the sort is run in parallel
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  private static final int RADIX_SORT_THRESHOLD = 256;
+
+  private static ForkJoinPool pool;
+
+  private final SortKey[] keys;
+  private final int length;
+
+  /**
+   * @param columns the keys by which to sort the rows, in order of precedence
+   * @param naLast true if {@code NA}s should be sorted after all other values, false if before
+   * @param decreasing true if the rows should be sorted in decreasing order
+   */
+  public IndexSorter(List<? extends AtomicVector> columns, boolean naLast, boolean decreasing) {
+    if(columns.isEmpty()) {
+      throw new IllegalArgumentException("at least one key is required");
+    }
+    this.length = columns.get(0).length();
+    this.keys = new SortKey[columns.size()];
+    for (int i = 0; i < keys.length; i++) {
+      AtomicVector column = columns.get(i);
+      if(column.length() != length) {
+        throw new IllegalArgumentException("argument lengths differ");
+      }
+      keys[i] = createKey(column, naLast, decreasing);
+    }
+  }
+
+  public IndexSorter(AtomicVector column, boolean naLast, boolean decreasing) {
+    this(singletonList(column), naLast, decreasing);
+  }
+
+  private static List<AtomicVector> singletonList(AtomicVector column) {
+    List<AtomicVector> list = new ArrayList<>(1);
+    list.add(column);
+    return list;
+  }
+
+  private static SortKey createKey(AtomicVector column, boolean naLast, boolean decreasing) {
+    if(column instanceof IntVector || column instanceof LogicalVector) {
+      return new IntKey(column, naLast, decreasing);
+    } else if(column instanceof DoubleVector) {
+      return new DoubleKey(column, naLast, decreasing);
+    } else if(column instanceof StringVector) {
+      return new StringKey((StringVector) column, naLast, decreasing);
+    } else {
+      return new GenericKey(column, naLast, decreasing);
+    }
+  }
+
+  /**
+   * @return the zero-based indexes of the rows, in sorted order. Rows with equal keys
+   * remain in their original order.
+   */
+  public int[] sort() {
+    if(PARALLEL && length >= PARALLEL_THRESHOLD) {
+      return sort(getPool());
+    }
+    int[] order = identity(length);
+    for (int i = keys.length - 1; i >= 0; i--) {
+      keys[i].sort(order, 0, length);
+    }
+    return order;
+  }
+
+  /**
+   * Sorts the rows using the threads of the given {@code pool}.
+   */
+  public int[] sort(ForkJoinPool pool) {
+    int[] order = identity(length);
+    int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, length / INSERTION_SORT_THRESHOLD));
+    int[] buffer = new int[length];
+    for (int i = keys.length - 1; i >= 0; i--) {
+      pool.invoke(new ParallelSort(keys[i], order, buffer, 0, length, chunks));
+    }
+    return order;
+  }
+
+  /**
+   * @return a negative number, zero, or a positive number as row {@code i} sorts before,
+   * together with, or after row {@code j}.
+   */
+  public int compare(int i, int j) {
+    for (SortKey key : keys) {
+      int rel = key.compare(i, j);
+      if(rel != 0) {
+        return rel;
+      }
+    }
+    return 0;
+  }
+
+  private static int[] identity(int length) {
+    int[] order = new int[length];
+    for (int i = 0; i < length; i++) {
+      order[i] = i;
+    }
+    return order;
+  }
+
+  private static synchronized ForkJoinPool getPool() {
+    if(pool == null) {
+      pool = new ForkJoinPool();
+    }
+    return pool;
+  }
+
+  /**
+   * Sorts {@code chunks} ranges of the rows concurrently, and then merges the sorted ranges.
+   */
+  private static class ParallelSort extends RecursiveAction {
+    private final SortKey key;
+    private final int[] order;
+    private final int[] buffer;
+    private final int from;
+    private final int to;
+    private final int chunks;
+
+    private ParallelSort(SortKey key, int[] order, int[] buffer, int from, int to, int chunks) {
+      this.key = key;
+      this.order = order;
+      this.buffer = buffer;
+      this.from = from;
+      this.to = to;
+      this.chunks = chunks;
+    }
+
+    @Override
+    protected void compute() {
+      if(chunks <= 1) {
+        key.sort(order, from, to);
+      } else {
+        int leftChunks = chunks / 2;
+        int mid = from + (int)((long)(to - from) * leftChunks / chunks);
+        invokeAll(
+            new ParallelSort(key, order, buffer, from, mid, leftChunks),
+            new ParallelSort(key, order, buffer, mid, to, chunks - leftChunks));
+        key.merge(order, buffer, from, mid, to);
+      }
+    }
+  }
+
+  /**
+   * The values of a single key column, and the order in which they sort.
+   */
+  private abstract static class SortKey {
+
+    /**
+     * Compares the keys of rows {@code i} and {@code j}, taking into account the direction of
+     * the sort and the position of {@code NA}s.
+     */
+    public abstract int compare(int i, int j);
+
+    /**
+     * Stably sorts the rows in {@code order[from, to)} by this key.
+     */
+    public void sort(int[] order, int from, int to) {
+      mergeSort(order, new int[to], from, to);
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+      if(to - from <= INSERTION_SORT_THRESHOLD) {
+        insertionSort(order, from, to);
+      } else {
+        int mid = (from + to) >>> 1;
+        mergeSort(order, buffer, from, mid);
+        mergeSort(order, buffer, mid, to);
+        merge(order, buffer, from, mid, to);
+      }
+    }
+
+    private void insertionSort(int[] order, int from, int to) {
+      for (int i = from + 1; i < to; i++) {
+        int row = order[i];
+        int j = i - 1;
+        while(j >= from && compare(order[j], row) > 0) {
+          order[j + 1] = order[j];
+          j--;
+        }
+        order[j + 1] = row;
+      }
+    }
+
+    /**
+     * Merges the sorted ranges {@code order[from, mid)} and {@code order[mid, to)}, using
+     * {@code buffer[from, mid)} as scratch space. Rows from the first range come first when keys are equal.
+     */
+    public void merge(int[] order, int[] buffer, int from, int mid, int to) {
+      if(from == mid || mid == to || compare(order[mid - 1], order[mid]) <= 0) {
+        return;
+      }
+      System.arraycopy(order, from, buffer, from, mid - from);
+      int i = from;
+      int j = mid;
+      int k = from;
+      while(i < mid && j < to) {
+        if(compare(order[j], buffer[i]) < 0) {
+          order[k++] = order[j++];
+        } else {
+          order[k++] = buffer[i++];
+        }
+      }
+      while(i < mid) {
+        order[k++] = buffer[i++];
+      }
+    }
+  }
+
+  /**
+   * Integer, logical and factor keys, encoded as {@code int}s whose natural order is the sort order.
+   */
+  private static class IntKey extends SortKey {
+    private final int[] keys;
+
+    private IntKey(AtomicVector column, boolean naLast, boolean decreasing) {
+      keys = new int[column.length()];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = encode(column.getElementAsInt(i), naLast, decreasing);
+      }
+    }
+
+    /**
+     * Non-NA values lie in [MIN_VALUE + 1, MAX_VALUE], so after negating or shifting them by one,
+     * either MIN_VALUE or MAX_VALUE remains free for NA.
+     */
+    private static int encode(int value, boolean naLast, boolean decreasing) {
+      if(value == IntVector.NA) {
+        return naLast ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+      }
+      int key = decreasing ? -value : value;
+      return naLast ? key - 1 : key;
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      int x = keys[i];
+      int y = keys[j];
+      return x < y ? -1 : (x == y ? 0 : 1);
+    }
+
+    @Override
+    public void sort(int[] order, int from, int to) {
+      int n = to - from;
+      if(n < RADIX_SORT_THRESHOLD) {
+        super.sort(order, from, to);
+        return;
+      }
+
+      int[] digits = new int[n];
+      int[] rows = new int[n];
+      int[] sortedDigits = new int[n];
+      int[] sortedRows = new int[n];
+      int[][] counts = new int[4][256];
+
+      for (int i = 0; i < n; i++) {
+        int row = order[from + i];
+        int key = keys[row] ^ Integer.MIN_VALUE;
+        rows[i] = row;
+        digits[i] = key;
+        counts[0][key & 0xFF]++;
+        counts[1][(key >>> 8) & 0xFF]++;
+        counts[2][(key >>> 16) & 0xFF]++;
+        counts[3][key >>> 24]++;
+      }
+
+      for (int pass = 0; pass < 4; pass++) {
+        int shift = pass * 8;
+        int[] count = counts[pass];
+        if(count[(digits[0] >>> shift) & 0xFF] == n) {
+          continue;
+        }
+        toOffsets(count);
+        for (int i = 0; i < n; i++) {
+          int pos = count[(digits[i] >>> shift) & 0xFF]++;
+          sortedDigits[pos] = digits[i];
+          sortedRows[pos] = rows[i];
+        }
+        int[] tmp = digits; digits = sortedDigits; sortedDigits = tmp;
+        tmp = rows; rows = sortedRows; sortedRows = tmp;
+      }
+
+      System.arraycopy(rows, 0, order, from, n);
+    }
+  }
+
+  /**
+   * Double keys, encoded as {@code long}s whose natural order is the sort order. {@code NaN}s are
+   * sorted together with {@code NA}s, and negative zero is equal to zero.
+   */
+  private static class DoubleKey extends SortKey {
+    private final long[] keys;
+
+    private DoubleKey(AtomicVector column, boolean naLast, boolean decreasing) {
+      keys = new long[column.length()];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = encode(column.getElementAsDouble(i), naLast, decreasing);
+      }
+    }
+
+    /**
+     * Flipping all but the sign bit of negative doubles makes their bits sort as signed longs.
+     * Since NaN bit patterns are excluded, neither MIN_VALUE nor MAX_VALUE is used by other values.
+     */
+    private static long encode(double value, boolean naLast, boolean decreasing) {
+      if(Double.isNaN(value)) {
+        return naLast ? Long.MAX_VALUE : Long.MIN_VALUE;
+      }
+      if(value == 0) {
+        value = 0d;
+      }
+      long bits = Double.doubleToRawLongBits(value);
+      long key = bits >= 0 ? bits : bits ^ Long.MAX_VALUE;
+      return decreasing ? -key : key;
+    }
+
+    @Override
+    public int compare(int i, int j) {
+      long x = keys[i];
+      long y = keys[j];
+      return x < y ? -1 : (x == y ? 0 : 1);
+    }
+
+    @Override
+    public void sort(int[] order, int from, int to) {
+      int n = to - from;
+      if(n < RADIX_SORT_THRESHOLD) {
+        super.sort(order, from, to);
+        return;
+      }
+
+      long[] digits = new long[n];
+      int[] rows = new int[n];
+      long[] sortedDigits = new long[n];
+      int[] sortedRows = new int[n];
+      int[][] counts = new int[8][256];
+
+      for (int i = 0; i < n; i++) {
+        int row = order[from + i];
+        long key = keys[row] ^ Long.MIN_VALUE;
+        rows[i] = row;
+        digits[i] = key;
+        for (int pass = 0; pass < 8; pass++) {
+          counts[pass][(int)(key >>> (pass * 8)) & 0xFF]++;
+        }
+      }
+
+      for (int pass = 0; pass < 8; pass++) {
+        int shift = pass * 8;
+        int[] count = counts[pass];
+        if(count[(int)(digits[0] >>> shift) & 0xFF] == n) {
+          continue;
+        }
+        toOffsets(count);
+        for (int i = 0; i < n; i++) {
+          int pos = count[(int)(digits[i] >>> shift) & 0xFF]++;
+          sortedDigits[pos] = digits[i];
+          sortedRows[pos] = rows[i];
+        }
+        long[] tmpDigits = digits; digits = sortedDigits; sortedDigits = tmpDigits;
+        int[] tmpRows = rows; rows = sortedRows; sortedRows = tmpRows;
+      }
+
+      System.arraycopy(rows, 0, order, from, n);
+    }
+  }
+
+  /**
+   * Converts the counts of each digit into the position of the first row with that digit.
+   */
+  private static void toOffsets(int[] count) {
+    int offset = 0;
+    for (int digit = 0; digit < count.length; digit++) {
+      int c = count[digit];
+      count[digit] = offset;
+      offset += c;
+    }
+  }
+
+  /**
+   * Compares {@code NA}s according to {@code naLast}, and all other values with {@link #compareValues(int, int)}
+   */
+  private abstract static class ComparisonKey extends SortKey {
+    private final boolean naLast;
+    private final boolean decreasing;
+
+    protected ComparisonKey(boolean naLast, boolean decreasing) {
+      this.naLast = naLast;
+      this.decreasing = decreasing;
+    }
+
+    protected abstract boolean isNA(int i);
+
+    protected abstract int compareValues(int i, int j);
+
+    @Override
+    public final int compare(int i, int j) {
+      boolean na1 = isNA(i);
+      boolean na2 = isNA(j);
+      if(na1 && na2) {
+        return 0;
+      } else if(na1) {
+        return naLast ? +1 : -1;
+      } else if(na2) {
+        return naLast ? -1 : +1;
+      } else {
+        return decreasing ? -compareValues(i, j) : compareValues(i, j);
+      }
+    }
+  }
+
+  /**
+   * String keys, compared in the same order as {@code sort()}
+   */
+  private static class StringKey extends ComparisonKey {
+    private final String[] values;
+
+    private StringKey(StringVector column, boolean naLast, boolean decreasing) {
+      super(naLast, decreasing);
+      this.values = column.toArray();
+    }
+
+    @Override
+    protected boolean isNA(int i) {
+      return values[i] == null;
+    }
+
+    @Override
+    protected int compareValues(int i, int j) {
+      return values[i].compareTo(values[j]);
+    }
+  }
+
+  /**
+   * Keys of other types, such as complex and raw vectors, which are compared through the vector itself
+   */
+  private static class GenericKey extends ComparisonKey {
+    private final AtomicVector column;
+
+    private GenericKey(AtomicVector column, boolean naLast, boolean decreasing) {
+      super(naLast, decreasing);
+      this.column = column;
+    }
+
+    @Override
+    protected boolean isNA(int i) {
+      return column.isElementNA(i);
+    }
+
+    @Override
+    protected int compareValues(int i, int j) {
+      return column.compare(i, j);
+    }
+  }
+}
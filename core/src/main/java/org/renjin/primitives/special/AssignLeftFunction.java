@@ -20,6 +20,7 @@ package org.renjin.primitives.special;
 
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
+import org.renjin.primitives.subset.InPlaceReplacement;
 import org.renjin.sexp.*;
 
 
@@ -55,6 +56,14 @@ public class AssignLeftFunction extends SpecialFunction {
     // class(x$a[3]) <- "foo"
 
     SEXP evaluatedValue = context.evaluate( value, rho);
+
+    // x[i] <- value can often update x in place
+    if(lhs instanceof FunctionCall && isLocalAssignment() &&
+        InPlaceReplacement.tryAssign(context, rho, (FunctionCall) lhs, evaluatedValue)) {
+      context.setInvisibleFlag();
+      return evaluatedValue;
+    }
+
     SEXP rhs = new Promise(value, evaluatedValue);
 
     while(lhs instanceof FunctionCall) {
@@ -113,6 +122,13 @@ public class AssignLeftFunction extends SpecialFunction {
     throw new EvalException("invalid function in complex assignment");
   }
 
+  /**
+   * @return true if the result is assigned in the environment in which the assignment is evaluated.
+   */
+  protected boolean isLocalAssignment() {
+    return true;
+  }
+
   protected void assignResult(Context context, Environment rho, Symbol target, SEXP rhs) {
     if(target.isReservedWord() && rhs instanceof Function) {
       context.warn("Renjin does not honor redefinition of '" + target.getPrintName() + "' function");
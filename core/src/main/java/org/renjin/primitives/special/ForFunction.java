@@ -18,22 +18,10 @@
  */
 package org.renjin.primitives.special;
 
-import org.renjin.compiler.CompiledLoopBody;
-import org.renjin.compiler.NotCompilableException;
-import org.renjin.compiler.TypeSolver;
-import org.renjin.compiler.cfg.ControlFlowGraph;
-import org.renjin.compiler.cfg.DominanceTree;
-import org.renjin.compiler.cfg.UseDefMap;
-import org.renjin.compiler.codegen.ByteCodeEmitter;
-import org.renjin.compiler.ir.exception.InvalidSyntaxException;
-import org.renjin.compiler.ir.ssa.SsaTransformer;
-import org.renjin.compiler.ir.tac.IRBody;
-import org.renjin.compiler.ir.tac.IRBodyBuilder;
-import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.compiler.LoopCompiler;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.eval.Profiler;
-import org.renjin.primitives.Deparse;
 import org.renjin.sexp.*;
 
 
@@ -77,7 +65,7 @@ public class ForFunction extends SpecialFunction {
           if (COMPILE_LOOPS && i >= WARMUP_ITERATIONS && elements.length() > COMPILE_THRESHOLD &&
               !compilationFailed) {
 
-            if (tryCompileAndRun(context, rho, call, elements, i)) {
+            if (LoopCompiler.tryCompileAndRun(context, rho, call, elements, i)) {
               break;
             } else {
               compilationFailed = true;
@@ -101,64 +89,4 @@ public class ForFunction extends SpecialFunction {
     context.setInvisibleFlag();
     return Null.INSTANCE;
   }
-
-  private boolean tryCompileAndRun(Context context, Environment rho, FunctionCall call, Vector elements, int i) {
-
-    CompiledLoopBody compiledBody = null;
-
-    try {
-
-      RuntimeState runtimeState = new RuntimeState(context, rho);
-      IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
-      IRBody body = builder.buildLoopBody(call, elements);
-
-      ControlFlowGraph cfg = new ControlFlowGraph(body);
-
-      DominanceTree dTree = new DominanceTree(cfg);
-      SsaTransformer ssaTransformer = new SsaTransformer(cfg, dTree);
-      ssaTransformer.transform();
-
-      UseDefMap useDefMap = new UseDefMap(cfg);
-      TypeSolver types = new TypeSolver(cfg, useDefMap);
-      types.execute();
-      
-      types.verifyFunctionAssumptions(runtimeState);
-
-      ssaTransformer.removePhiFunctions(types);
-      
-      ByteCodeEmitter emitter = new ByteCodeEmitter(cfg, types);
-      compiledBody = emitter.compileLoopBody().newInstance();
-
-    } catch (NotCompilableException e) {
-      context.warn("Could not compile loop with %d iterations because: " + format(context, e));
-      return false;
-
-    } catch (InvalidSyntaxException e) {
-      throw new EvalException(e.getMessage());
-      
-    } catch (Exception e) {
-      throw new EvalException("Exception compiling loop: " + e.getMessage(), e);
-    }
-
-    compiledBody.run(context, rho, elements, i);
-
-    return true;
-  }
-
-  private String format(Context context, NotCompilableException e) {
-    StringBuilder s = new StringBuilder();
-    while(e != null) {
-      if(s.length() > 0) {
-        s.append(" > ");
-      }
-      if(e.getSexp() != null) {
-        s.append(Deparse.deparseExp(context, e.getSexp()));
-      }
-      if(e.getMessage() != null) {
-        s.append(": ").append(e.getMessage());
-      }
-      e = e.getCause();
-    }
-    return s.toString();
-  }
 }
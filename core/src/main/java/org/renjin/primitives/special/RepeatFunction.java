@@ -18,11 +18,14 @@
  */
 package org.renjin.primitives.special;
 
+import org.renjin.compiler.LoopCompiler;
 import org.renjin.eval.Context;
 import org.renjin.sexp.*;
 
 public class RepeatFunction extends SpecialFunction {
 
+  private static final int WARMUP_ITERATIONS = 5;
+
   public RepeatFunction() {
     super("repeat");
   }
@@ -31,6 +34,8 @@ public class RepeatFunction extends SpecialFunction {
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList args) {
     SEXP statement = args.getElementAsSEXP(0);
 
+    int iteration = 0;
+
     while(true) {
       try {
         context.evaluate( statement, rho);
@@ -39,6 +44,14 @@ public class RepeatFunction extends SpecialFunction {
       } catch(NextException e) {
         // next loop iteration
       }
+
+      // Once the loop has warmed up, compile the loop and let the compiled
+      // code take over, starting with the next iteration
+      if(ForFunction.COMPILE_LOOPS && ++iteration == WARMUP_ITERATIONS) {
+        if(LoopCompiler.tryCompileAndRun(context, rho, call)) {
+          break;
+        }
+      }
     }
     context.setInvisibleFlag();
     return Null.INSTANCE;
@@ -18,11 +18,14 @@
  */
 package org.renjin.primitives.special;
 
+import org.renjin.compiler.LoopCompiler;
 import org.renjin.eval.Context;
 import org.renjin.sexp.*;
 
 public class WhileFunction extends SpecialFunction {
 
+  private static final int WARMUP_ITERATIONS = 5;
+
   public WhileFunction() {
     super("while");
   }
@@ -32,6 +35,8 @@ public class WhileFunction extends SpecialFunction {
     SEXP condition = args.getElementAsSEXP(0);
     SEXP statement = args.getElementAsSEXP(1);
 
+    int iteration = 0;
+
     while(asLogicalNoNA(context, call, context.evaluate( condition, rho))) {
 
       try {
@@ -43,6 +48,14 @@ public class WhileFunction extends SpecialFunction {
       } catch(NextException e) {
         // next loop iteration
       }
+
+      // Once the loop has warmed up, compile the loop and let the compiled
+      // code take over, starting with the next check of the condition
+      if(ForFunction.COMPILE_LOOPS && ++iteration == WARMUP_ITERATIONS) {
+        if(LoopCompiler.tryCompileAndRun(context, rho, call)) {
+          break;
+        }
+      }
     }
     context.setInvisibleFlag();
     return Null.INSTANCE;
@@ -0,0 +1,302 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.subset;
+
+import org.renjin.eval.Context;
+import org.renjin.primitives.Primitives;
+import org.renjin.sexp.*;
+
+/**
+ * Fast path for the replacement of a single element, as in {@code x[i] <- value}, {@code x[[i]] <- value}
+ * or {@code x$name <- value}.
+ *
+ * <p>The replacement functions must normally return a modified copy of their argument, which makes a loop
+ * such as {@code for(i in 1:n) x[i] <- i} quadratic in {@code n}. If the target variable is bound to a vector
+ * that no one else can see, we can instead update the vector's backing array in place. The first replacement
+ * still copies the vector, but the copy is bound as an <i>unshared</i> value, and subsequent replacements
+ * update it in place until the variable is next read. See {@link Environment#setUnsharedVariable(Symbol, SEXP)}.</p>
+ *
+ * <p>Only the simplest cases are handled here: the arguments must be symbols or constants that can be
+ * resolved without evaluating anything, the vector must not have a class attribute, the index must be
+ * in range and the value must not change the type of the vector. Everything else falls through to the
+ * replacement functions in {@link Subsetting}.</p>
+ */
+public class InPlaceReplacement {
+
+  private static final Symbol SUBSET = Symbol.get("[");
+  private static final Symbol SUBSET2 = Symbol.get("[[");
+  private static final Symbol DOLLAR = Symbol.get("$");
+
+  private InPlaceReplacement() { }
+
+  /**
+   * Attempts to assign {@code value} to the element selected by {@code lhs} in place.
+   *
+   * @param rho the environment in which the assignment is evaluated, and in which the result must be bound.
+   * @param lhs the left hand side of the assignment, for example, {@code x[i]}
+   * @param value the evaluated right hand side of the assignment
+   * @return true if the assignment was made, or false if it must be made by the replacement function.
+   */
+  public static boolean tryAssign(Context context, Environment rho, FunctionCall lhs, SEXP value) {
+    SEXP getter = lhs.getFunction();
+    if(getter != SUBSET && getter != SUBSET2 && getter != DOLLAR) {
+      return false;
+    }
+
+    PairList arguments = lhs.getArguments();
+    int argumentCount = arguments.length();
+    if(argumentCount < 2 || argumentCount > 3 || hasTags(arguments)) {
+      return false;
+    }
+    SEXP targetArgument = arguments.getElementAsSEXP(0);
+    if(!(targetArgument instanceof Symbol) || targetArgument == Symbol.MISSING_ARG) {
+      return false;
+    }
+    Symbol target = (Symbol) targetArgument;
+
+    // The replacement function could be redefined or masked
+    Symbol setter = Symbol.get(((Symbol) getter).getPrintName() + "<-");
+    if(rho.findFunction(context, lhs, setter) != Primitives.getBuiltin(setter)) {
+      return false;
+    }
+
+    boolean unshared = true;
+    SEXP source = rho.getUnsharedVariable(target);
+    if(source == null) {
+      unshared = false;
+      source = valueOf(rho.findVariable(target));
+    }
+    if(!(source instanceof Vector) || source.isObject()) {
+      return false;
+    }
+    Vector vector = (Vector) source;
+
+    int index;
+    if(getter == DOLLAR) {
+      if(argumentCount != 2) {
+        return false;
+      }
+      index = nameIndex(vector, arguments.getElementAsSEXP(1));
+    } else {
+      index = elementIndex(rho, vector, arguments);
+    }
+    if(index < 0) {
+      return false;
+    }
+
+    if(vector instanceof ListVector) {
+      return assignListElement(rho, target, (ListVector) vector, unshared, index, getter == SUBSET, value);
+    } else if(getter != DOLLAR) {
+      return assignAtomicElement(rho, target, vector, unshared, index, value);
+    } else {
+      return false;
+    }
+  }
+
+  private static boolean assignListElement(Environment rho, Symbol target, ListVector source, boolean unshared,
+                                           int index, boolean subset, SEXP value) {
+
+    if(source.getClass() != ListVector.class || value == Null.INSTANCE) {
+      return false;
+    }
+
+    SEXP element;
+    if(!subset) {
+      element = value;
+    } else if(value instanceof ListVector && value.length() == 1) {
+      element = ((ListVector) value).getElementAsSEXP(0);
+    } else if(value instanceof AtomicVector && value.length() == 1 && value.getAttributes() == AttributeMap.EMPTY) {
+      element = value;
+    } else {
+      return false;
+    }
+
+    if(unshared) {
+      source.toArrayUnsafe()[index] = element;
+    } else {
+      SEXP[] elements = source.toArrayUnsafe().clone();
+      elements[index] = element;
+      rho.setUnsharedVariable(target, new ListVector(elements, source.getAttributes()));
+    }
+    return true;
+  }
+
+  private static boolean assignAtomicElement(Environment rho, Symbol target, Vector source, boolean unshared,
+                                             int index, SEXP value) {
+
+    if(!(value instanceof AtomicVector) || value.length() != 1 || value.getAttributes() != AttributeMap.EMPTY) {
+      return false;
+    }
+    AtomicVector element = (AtomicVector) value;
+
+    if(source instanceof DoubleVector) {
+      if(!(element instanceof DoubleVector || element instanceof IntVector || element instanceof LogicalVector)) {
+        return false;
+      }
+      if(unshared && source instanceof DoubleArrayVector) {
+        ((DoubleArrayVector) source).toDoubleArrayUnsafe()[index] = element.getElementAsDouble(0);
+      } else {
+        double[] array = ((DoubleVector) source).toDoubleArray();
+        array[index] = element.getElementAsDouble(0);
+        rho.setUnsharedVariable(target, DoubleArrayVector.unsafe(array, source.getAttributes()));
+      }
+      return true;
+
+    } else if(source instanceof IntVector) {
+      if(!(element instanceof IntVector || element instanceof LogicalVector)) {
+        return false;
+      }
+      if(unshared && source instanceof IntArrayVector) {
+        ((IntArrayVector) source).toIntArrayUnsafe()[index] = element.getElementAsInt(0);
+      } else {
+        int[] array = ((IntVector) source).toIntArray();
+        array[index] = element.getElementAsInt(0);
+        rho.setUnsharedVariable(target, IntArrayVector.unsafe(array, source.getAttributes()));
+      }
+      return true;
+
+    } else if(source instanceof LogicalVector) {
+      if(!(element instanceof LogicalVector)) {
+        return false;
+      }
+      if(unshared && source instanceof LogicalArrayVector) {
+        ((LogicalArrayVector) source).toIntArrayUnsafe()[index] = element.getElementAsRawLogical(0);
+      } else {
+        int[] array = new int[source.length()];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = source.getElementAsRawLogical(i);
+        }
+        array[index] = element.getElementAsRawLogical(0);
+        rho.setUnsharedVariable(target, new LogicalArrayVector(array, source.getAttributes()));
+      }
+      return true;
+
+    } else if(source instanceof StringVector) {
+      if(!(element instanceof StringVector)) {
+        return false;
+      }
+      if(unshared && source instanceof StringArrayVector) {
+        ((StringArrayVector) source).toArrayUnsafe()[index] = element.getElementAsString(0);
+      } else {
+        String[] array = ((StringVector) source).toArray();
+        array[index] = element.getElementAsString(0);
+        rho.setUnsharedVariable(target, new StringArrayVector(array, source.getAttributes()));
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return the zero-based index of the single element selected by the subscripts of {@code x[i]},
+   * {@code x[[i]]}, {@code x[i, j]} or {@code x[[i, j]]}, or -1 if the subscripts cannot be resolved
+   * without evaluation, or do not select exactly one existing element.
+   */
+  private static int elementIndex(Environment rho, Vector source, PairList arguments) {
+    if(arguments.length() == 2) {
+      int i = subscript(rho, arguments.getElementAsSEXP(1), source.length());
+      return i < 0 ? -1 : i;
+    }
+
+    SEXP dim = source.getAttributes().getDim();
+    if(dim.length() != 2) {
+      return -1;
+    }
+    int nrows = ((Vector) dim).getElementAsInt(0);
+    int ncols = ((Vector) dim).getElementAsInt(1);
+    int row = subscript(rho, arguments.getElementAsSEXP(1), nrows);
+    int col = subscript(rho, arguments.getElementAsSEXP(2), ncols);
+    if(row < 0 || col < 0) {
+      return -1;
+    }
+    return row + col * nrows;
+  }
+
+  /**
+   * @return the zero-based index selected by {@code subscript}, or -1 if it is not a single
+   * positive number no greater than {@code length}.
+   */
+  private static int subscript(Environment rho, SEXP subscript, int length) {
+    if(subscript instanceof Symbol) {
+      if(subscript == Symbol.MISSING_ARG) {
+        return -1;
+      }
+      subscript = valueOf(rho.findVariable((Symbol) subscript));
+    }
+    if(!(subscript instanceof DoubleVector || subscript instanceof IntVector) ||
+        subscript.length() != 1 || subscript.isObject()) {
+      return -1;
+    }
+    Vector vector = (Vector) subscript;
+    if(vector.isElementNA(0)) {
+      return -1;
+    }
+    double index = vector.getElementAsDouble(0);
+    if(index < 1 || index >= length + 1) {
+      return -1;
+    }
+    return ((int) index) - 1;
+  }
+
+  /**
+   * @return the index of the element of the list {@code source} named by {@code x$name}, or -1
+   * if there is no such element.
+   */
+  private static int nameIndex(Vector source, SEXP name) {
+    String nameString;
+    if(name instanceof Symbol && name != Symbol.MISSING_ARG) {
+      nameString = ((Symbol) name).getPrintName();
+    } else if(name instanceof StringVector && name.length() == 1) {
+      nameString = ((StringVector) name).getElementAsString(0);
+    } else {
+      return -1;
+    }
+    if(nameString == null) {
+      return -1;
+    }
+    AtomicVector names = source.getAttributes().getNamesOrNull();
+    if(names == null) {
+      return -1;
+    }
+    return names.indexOf(StringVector.valueOf(nameString), 0, 0);
+  }
+
+  private static boolean hasTags(PairList arguments) {
+    for (PairList.Node node : arguments.nodes()) {
+      if(node.hasTag()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the value of a binding, if it can be read without evaluating anything, or {@code null}
+   */
+  private static SEXP valueOf(SEXP binding) {
+    if(binding instanceof Promise) {
+      Promise promise = (Promise) binding;
+      return promise.isEvaluated() ? promise.getValue() : null;
+    }
+    if(binding == Symbol.UNBOUND_VALUE) {
+      return null;
+    }
+    return binding;
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.compiler.pipeline.IntSumJitter;
+import org.renjin.primitives.vector.WarningComputation;
+import org.renjin.sexp.*;
+
+/**
+ * The sum of an integer or logical vector, which is itself an integer.
+ *
+ * <p>As with the eager implementation, the sum is {@code NA} if any element is {@code NA}
+ * or if the sum overflows the range of an integer. Since the sum may be computed long after the
+ * call to {@code sum()}, an overflow is held as a warning which is signaled when the sum is
+ * materialized.</p>
+ */
+public class DeferredIntSum extends IntVector implements WarningComputation {
+
+  private static final String OVERFLOW_WARNING = "Integer overflow - use sum(as.numeric(.))";
+
+  private final Vector vector;
+  private int result;
+  private boolean calculated = false;
+  private volatile boolean overflowed = false;
+
+  public DeferredIntSum(Vector vector, AttributeMap attributes) {
+    super(attributes);
+    this.vector = vector;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { vector };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "sum";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredIntSum(vector, attributes);
+  }
+
+  @Override
+  public int getElementAsInt(int index) {
+    if(index != 0) {
+      throw new IllegalArgumentException("index: " + index);
+    }
+    if(!calculated) {
+      result = calculate();
+      calculated = true;
+    }
+    return result;
+  }
+
+  private int calculate() {
+    long sum = 0;
+    for (int i = 0; i != vector.length(); ++i) {
+      int value = vector.getElementAsInt(i);
+      if(value == IntVector.NA) {
+        return IntVector.NA;
+      }
+      sum += value;
+    }
+    if(sum < Integer.MIN_VALUE || sum > Integer.MAX_VALUE) {
+      overflowed = true;
+      return IntVector.NA;
+    }
+    return (int) sum;
+  }
+
+  @Override
+  public String takeWarning() {
+    if(overflowed) {
+      overflowed = false;
+      return OVERFLOW_WARNING;
+    }
+    return null;
+  }
+
+  @Override
+  public int length() {
+    return 1;
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return false;
+  }
+
+  @Override
+  public boolean isCalculated() {
+    return calculated;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return !isCalculated();
+  }
+
+  @Override
+  public Vector forceResult() {
+    return new IntArrayVector(getElementAsInt(0));
+  }
+
+  /**
+   * Sets the result computed by the {@link IntSumJitter}, which is followed by its flags.
+   */
+  @Override
+  public void setResult(Vector result) {
+    this.result = result.getElementAsInt(0);
+    if(result.length() > IntSumJitter.FLAGS &&
+        (result.getElementAsInt(IntSumJitter.FLAGS) & IntSumJitter.OVERFLOW) != 0) {
+      this.overflowed = true;
+    }
+    this.calculated = true;
+  }
+
+  @Override
+  public String toString() {
+    if(calculated) {
+      return Integer.toString(result);
+    } else {
+      return "<deferred sum>";
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+public class DeferredMax extends DeferredSummary {
+
+  public DeferredMax(Vector vector, AttributeMap attributes) {
+    super(vector, attributes);
+  }
+
+  @Override
+  protected double calculate() {
+    double max = Double.NEGATIVE_INFINITY;
+    for(int i=0;i!=vector.length();++i) {
+      max = max(max, vector.getElementAsDouble(i));
+    }
+    return max;
+  }
+
+  /**
+   * @return the larger of {@code x} and {@code y}, or NA if either is NA, or NaN if either is NaN.
+   */
+  public static double max(double x, double y) {
+    if(Double.isNaN(x) || Double.isNaN(y)) {
+      return missing(x, y);
+    }
+    return y > x ? y : x;
+  }
+
+  @Override
+  public String getComputationName() {
+    return "max";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredMax(vector, attributes);
+  }
+}
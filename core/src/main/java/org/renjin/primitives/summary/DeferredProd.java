@@ -16,32 +16,34 @@
  * along with this program; if not, a copy is available at
  * https://www.gnu.org/licenses/gpl-2.0.txt
  */
-package org.renjin.primitives.match;
+package org.renjin.primitives.summary;
 
-import org.renjin.repackaged.guava.collect.UnmodifiableIterator;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.SEXP;
 import org.renjin.sexp.Vector;
 
-/**
- * Iterates over the indexes of a vector, from the beginning of the 
- * vector (0) to the last element (length()-1)
- */
-class ForwardIndexIterator extends UnmodifiableIterator<Integer> {
-  private int index;
-  private int size;
-  
-  public ForwardIndexIterator(Vector vector) {
-    super();
-    this.index = 0;
-    this.size = vector.length();
+public class DeferredProd extends DeferredSummary {
+
+  public DeferredProd(Vector vector, AttributeMap attributes) {
+    super(vector, attributes);
+  }
+
+  @Override
+  protected double calculate() {
+    double product = 1;
+    for(int i=0;i!=vector.length();++i) {
+      product *= vector.getElementAsDouble(i);
+    }
+    return product;
   }
 
   @Override
-  public boolean hasNext() {
-    return index < size;
+  public String getComputationName() {
+    return "prod";
   }
 
   @Override
-  public Integer next() {
-    return index++;
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredProd(vector, attributes);
   }
-}
\ No newline at end of file
+}
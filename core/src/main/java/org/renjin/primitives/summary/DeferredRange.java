@@ -0,0 +1,101 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.primitives.vector.AttributeDecoratingVector;
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.*;
+
+/**
+ * The minimum and maximum of a vector.
+ */
+public class DeferredRange extends DoubleVector implements MemoizedComputation {
+
+  private final Vector vector;
+  private double[] range;
+
+  public DeferredRange(Vector vector, AttributeMap attributes) {
+    super(attributes);
+    this.vector = vector;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { vector };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "range";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new AttributeDecoratingVector(this, attributes);
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    return forceRange()[index];
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return false;
+  }
+
+  @Override
+  public int length() {
+    return 2;
+  }
+
+  private double[] forceRange() {
+    if(range == null) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i != vector.length(); ++i) {
+        double value = vector.getElementAsDouble(i);
+        min = DeferredMin.min(min, value);
+        max = DeferredMax.max(max, value);
+      }
+      range = new double[] { min, max };
+    }
+    return range;
+  }
+
+  @Override
+  public boolean isCalculated() {
+    return range != null;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return !isCalculated();
+  }
+
+  @Override
+  public Vector forceResult() {
+    return DoubleArrayVector.unsafe(forceRange());
+  }
+
+  @Override
+  public void setResult(Vector result) {
+    this.range = ((DoubleArrayVector) result).toDoubleArrayUnsafe();
+  }
+}
@@ -54,6 +54,22 @@ public abstract class DeferredSummary extends DoubleVector implements MemoizedCo
 
   protected abstract double calculate();
 
+  /**
+   * @return the missing value that results from combining {@code x} and {@code y}, at least one of
+   * which is NA or NaN. NA takes precedence over NaN.
+   */
+  static double missing(double x, double y) {
+    if(DoubleVector.isNA(x)) {
+      return x;
+    } else if(DoubleVector.isNA(y)) {
+      return y;
+    } else if(Double.isNaN(x)) {
+      return x;
+    } else {
+      return y;
+    }
+  }
+
   @Override
   public final int length() {
     return 1;
@@ -0,0 +1,84 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+/**
+ * The sample variance of a vector, with NA and NaN values propagated as NA.
+ */
+public class DeferredVar extends DeferredSummary {
+
+  public DeferredVar(Vector vector, AttributeMap attributes) {
+    super(vector, attributes);
+  }
+
+  @Override
+  protected double calculate() {
+    return variance(vector);
+  }
+
+  /**
+   * Computes the sample variance of {@code x} in two passes, in the same way as
+   * the {@code cov} function of the stats package.
+   */
+  public static double variance(Vector x) {
+    int n = x.length();
+    if(n < 2) {
+      return DoubleVector.NA;
+    }
+
+    double sum = 0;
+    for (int i = 0; i < n; i++) {
+      double value = x.getElementAsDouble(i);
+      if(Double.isNaN(value)) {
+        return DoubleVector.NA;
+      }
+      sum += value;
+    }
+    double mean = sum / n;
+    if(!Double.isInfinite(mean)) {
+      sum = 0;
+      for (int i = 0; i < n; i++) {
+        sum += (x.getElementAsDouble(i) - mean);
+      }
+      mean = mean + sum / n;
+    }
+
+    sum = 0;
+    for (int i = 0; i < n; i++) {
+      double deviation = x.getElementAsDouble(i) - mean;
+      sum += deviation * deviation;
+    }
+    return sum / (n - 1);
+  }
+
+  @Override
+  public String getComputationName() {
+    return "var";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredVar(vector, attributes);
+  }
+}
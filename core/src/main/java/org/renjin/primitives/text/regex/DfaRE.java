@@ -0,0 +1,140 @@
+/*
+ * R : A Computer Language for Statistical Data Analysis
+ * Copyright (C) 1995, 1996  Robert Gentleman and Ross Ihaka
+ * Copyright (C) 1997--2008  The R Development Core Team
+ * Copyright (C) 2003, 2004  The R Foundation
+ * Copyright (C) 2010 bedatadriven
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.renjin.primitives.text.regex;
+
+/**
+ * Extended regular expression which decides whether a string matches with a lazily-built
+ * deterministic automaton, so that functions like {@code grepl} take time linear in the
+ * length of their input, whatever the pattern.
+ *
+ * <p>The automaton can only say whether, not where, the pattern matches, so the positions of
+ * groups, substitution and splitting are left to a backtracking {@link ExtendedRE} running the
+ * same program. The automaton is only used for boolean matches, as in {@code grepl}: once group
+ * positions have been asked for, as {@code regexpr} does after each match, later strings are matched
+ * by the backtracker alone, rather than by the automaton and then again by the backtracker.
+ * Patterns which cannot be translated to an automaton are always matched by the backtracker.</p>
+ */
+public class DfaRE implements RE {
+
+  private final REProgram program;
+  private final boolean caseIndependent;
+  private final ExtendedRE backtracker;
+
+  private LazyDfa dfa;
+  private boolean translated;
+
+  /**
+   * The string most recently matched by the automaton, which has not yet been matched by
+   * the backtracker, or {@code null}.
+   */
+  private String pendingSearch;
+
+  private boolean matched;
+
+  /**
+   * True once the caller has asked for group positions, and so will probably ask for them
+   * after every match.
+   */
+  private boolean positionsRequested;
+
+  public DfaRE(REProgram program, boolean caseIndependent) {
+    this.program = program;
+    this.caseIndependent = caseIndependent;
+    this.backtracker = new ExtendedRE(program,
+        caseIndependent ? ExtendedRE.MATCH_CASEINDEPENDENT : ExtendedRE.MATCH_NORMAL);
+  }
+
+  /**
+   * @return true if the program can be matched by an automaton, or false if all matching is
+   * done by the backtracker.
+   */
+  public boolean isDeterministic() {
+    return automaton() != null;
+  }
+
+  private LazyDfa automaton() {
+    // Translate on first use, as functions like sub() only need the backtracker
+    if (!translated) {
+      dfa = LazyDfa.tryBuild(program, caseIndependent);
+      translated = true;
+    }
+    return dfa;
+  }
+
+  @Override
+  public boolean match(String search) {
+    LazyDfa automaton = positionsRequested ? null : automaton();
+    if (automaton == null) {
+      pendingSearch = null;
+      matched = backtracker.match(search);
+    } else {
+      matched = automaton.matches(search);
+      pendingSearch = matched ? search : null;
+    }
+    return matched;
+  }
+
+  @Override
+  public int getGroupStart(int groupIndex) {
+    if (!matched) {
+      return -1;
+    }
+    runBacktracker();
+    return backtracker.getGroupStart(groupIndex);
+  }
+
+  @Override
+  public int getGroupEnd(int groupIndex) {
+    if (!matched) {
+      return -1;
+    }
+    runBacktracker();
+    return backtracker.getGroupEnd(groupIndex);
+  }
+
+  private void runBacktracker() {
+    positionsRequested = true;
+    if (pendingSearch != null) {
+      backtracker.match(pendingSearch);
+      pendingSearch = null;
+    }
+  }
+
+  @Override
+  public String subst(String substituteIn, String substitution) {
+    return subst(substituteIn, substitution, REPLACE_ALL);
+  }
+
+  @Override
+  public String subst(String substituteIn, String substitution, int flags) {
+    pendingSearch = null;
+    matched = true;
+    return backtracker.subst(substituteIn, substitution, flags);
+  }
+
+  @Override
+  public String[] split(String s) {
+    pendingSearch = null;
+    matched = true;
+    return backtracker.split(s);
+  }
+}
@@ -1054,34 +1054,9 @@ public class ExtendedRE implements Serializable, RE {
                                 return -1;
                             }
 
-                            char c = search.charAt(idx);
-
-                            // Switch on escape
-                            switch (opdata)
+                            if (!isEscapeClassMember((char) opdata, search.charAt(idx)))
                             {
-                                case E_ALNUM:
-                                case E_NALNUM:
-                                    if (!((Character.isLetterOrDigit(c) || c == '_') == (opdata == E_ALNUM)))
-                                    {
-                                        return -1;
-                                    }
-                                    break;
-
-                                case E_DIGIT:
-                                case E_NDIGIT:
-                                    if (!(Character.isDigit(c) == (opdata == E_DIGIT)))
-                                    {
-                                        return -1;
-                                    }
-                                    break;
-
-                                case E_SPACE:
-                                case E_NSPACE:
-                                    if (!(Character.isWhitespace(c) == (opdata == E_SPACE)))
-                                    {
-                                        return -1;
-                                    }
-                                    break;
+                                return -1;
                             }
                             idx++;
                             break;
@@ -1151,132 +1126,9 @@ public class ExtendedRE implements Serializable, RE {
                             return -1;
                         }
 
-                        switch (opdata)
+                        if (!isPosixClassMember((char) opdata, search.charAt(idx)))
                         {
-                            case POSIX_CLASS_ALNUM:
-                                if (!Character.isLetterOrDigit(search.charAt(idx)))
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_ALPHA:
-                                if (!Character.isLetter(search.charAt(idx)))
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_DIGIT:
-                                if (!Character.isDigit(search.charAt(idx)))
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_BLANK: // JWL - bugbug: is this right??
-                                if (!Character.isSpaceChar(search.charAt(idx)))
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_SPACE:
-                                if (!Character.isWhitespace(search.charAt(idx)))
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_CNTRL:
-                                if (Character.getType(search.charAt(idx)) != Character.CONTROL)
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_GRAPH: // JWL - bugbug???
-                                switch (Character.getType(search.charAt(idx)))
-                                {
-                                    case Character.MATH_SYMBOL:
-                                    case Character.CURRENCY_SYMBOL:
-                                    case Character.MODIFIER_SYMBOL:
-                                    case Character.OTHER_SYMBOL:
-                                        break;
-
-                                    default:
-                                        return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_LOWER:
-                                if (Character.getType(search.charAt(idx)) != Character.LOWERCASE_LETTER)
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_UPPER:
-                                if (Character.getType(search.charAt(idx)) != Character.UPPERCASE_LETTER)
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_PRINT:
-                                if (Character.getType(search.charAt(idx)) == Character.CONTROL)
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_PUNCT:
-                            {
-                                int type = Character.getType(search.charAt(idx));
-                                switch(type)
-                                {
-                                    case Character.DASH_PUNCTUATION:
-                                    case Character.START_PUNCTUATION:
-                                    case Character.END_PUNCTUATION:
-                                    case Character.CONNECTOR_PUNCTUATION:
-                                    case Character.OTHER_PUNCTUATION:
-                                        break;
-
-                                    default:
-                                        return -1;
-                                }
-                            }
-                            break;
-
-                            case POSIX_CLASS_XDIGIT: // JWL - bugbug??
-                            {
-                                boolean isXDigit = ((search.charAt(idx) >= '0' && search.charAt(idx) <= '9') ||
-                                                    (search.charAt(idx) >= 'a' && search.charAt(idx) <= 'f') ||
-                                                    (search.charAt(idx) >= 'A' && search.charAt(idx) <= 'F'));
-                                if (!isXDigit)
-                                {
-                                    return -1;
-                                }
-                            }
-                            break;
-
-                            case POSIX_CLASS_JSTART:
-                                if (!Character.isJavaIdentifierStart(search.charAt(idx)))
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            case POSIX_CLASS_JPART:
-                                if (!Character.isJavaIdentifierPart(search.charAt(idx)))
-                                {
-                                    return -1;
-                                }
-                                break;
-
-                            default:
-                                internalError("Bad posix class");
-                                break;
+                            return -1;
                         }
 
                         // Matched.
@@ -1386,6 +1238,117 @@ public class ExtendedRE implements Serializable, RE {
         return -1;
     }
 
+    /**
+     * Tests whether a character belongs to the character class of an
+     * {@code OP_ESCAPE} node, such as {@code \\w} or {@code \\S}.
+     *
+     * @param escape The escape code (one of E_ALNUM, E_NALNUM, E_DIGIT, E_NDIGIT, E_SPACE or E_NSPACE)
+     * @param c The character to test
+     * @return True if the character belongs to the class
+     */
+    static boolean isEscapeClassMember(char escape, char c)
+    {
+        switch (escape)
+        {
+            case E_ALNUM:
+            case E_NALNUM:
+                return (Character.isLetterOrDigit(c) || c == '_') == (escape == E_ALNUM);
+
+            case E_DIGIT:
+            case E_NDIGIT:
+                return Character.isDigit(c) == (escape == E_DIGIT);
+
+            case E_SPACE:
+            case E_NSPACE:
+                return Character.isWhitespace(c) == (escape == E_SPACE);
+
+            default:
+                throw new Error("RE internal error: Unrecognized escape '" + escape + "'");
+        }
+    }
+
+    /**
+     * Tests whether a character belongs to the character class of an
+     * {@code OP_POSIXCLASS} node, such as {@code [:alpha:]}.
+     *
+     * @param classId The class id (one of the POSIX_CLASS_* constants)
+     * @param c The character to test
+     * @return True if the character belongs to the class
+     */
+    static boolean isPosixClassMember(char classId, char c)
+    {
+        switch (classId)
+        {
+            case POSIX_CLASS_ALNUM:
+                return Character.isLetterOrDigit(c);
+
+            case POSIX_CLASS_ALPHA:
+                return Character.isLetter(c);
+
+            case POSIX_CLASS_DIGIT:
+                return Character.isDigit(c);
+
+            case POSIX_CLASS_BLANK: // JWL - bugbug: is this right??
+                return Character.isSpaceChar(c);
+
+            case POSIX_CLASS_SPACE:
+                return Character.isWhitespace(c);
+
+            case POSIX_CLASS_CNTRL:
+                return Character.getType(c) == Character.CONTROL;
+
+            case POSIX_CLASS_GRAPH: // JWL - bugbug???
+                switch (Character.getType(c))
+                {
+                    case Character.MATH_SYMBOL:
+                    case Character.CURRENCY_SYMBOL:
+                    case Character.MODIFIER_SYMBOL:
+                    case Character.OTHER_SYMBOL:
+                        return true;
+
+                    default:
+                        return false;
+                }
+
+            case POSIX_CLASS_LOWER:
+                return Character.getType(c) == Character.LOWERCASE_LETTER;
+
+            case POSIX_CLASS_UPPER:
+                return Character.getType(c) == Character.UPPERCASE_LETTER;
+
+            case POSIX_CLASS_PRINT:
+                return Character.getType(c) != Character.CONTROL;
+
+            case POSIX_CLASS_PUNCT:
+                switch (Character.getType(c))
+                {
+                    case Character.DASH_PUNCTUATION:
+                    case Character.START_PUNCTUATION:
+                    case Character.END_PUNCTUATION:
+                    case Character.CONNECTOR_PUNCTUATION:
+                    case Character.OTHER_PUNCTUATION:
+                        return true;
+
+                    default:
+                        return false;
+                }
+
+            case POSIX_CLASS_XDIGIT: // JWL - bugbug??
+                return (c >= '0' && c <= '9') ||
+                       (c >= 'a' && c <= 'f') ||
+                       (c >= 'A' && c <= 'F');
+
+            case POSIX_CLASS_JSTART:
+                return Character.isJavaIdentifierStart(c);
+
+            case POSIX_CLASS_JPART:
+                return Character.isJavaIdentifierPart(c);
+
+            default:
+                throw new Error("RE internal error: Bad posix class");
+        }
+    }
+
     /**
      * Match the current regular expression program against the current
      * input string, starting at index i of the input string.  This method
@@ -1740,10 +1703,16 @@ public class ExtendedRE implements Serializable, RE {
      */
     private boolean isNewline(int i)
     {
-        char nextChar = search.charAt(i);
+        return isNewline(search.charAt(i));
+    }
 
-        return nextChar == '\n' || nextChar == '\r' || nextChar == '\u0085' ||
-               nextChar == '\u2028' || nextChar == '\u2029';
+    /**
+     * @return True if the character is a line terminator
+     */
+    static boolean isNewline(char c)
+    {
+        return c == '\n' || c == '\r' || c == '\u0085' ||
+               c == '\u2028' || c == '\u2029';
     }
 
     /**
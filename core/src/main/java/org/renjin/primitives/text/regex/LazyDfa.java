@@ -0,0 +1,573 @@
+/*
+ * R : A Computer Language for Statistical Data Analysis
+ * Copyright (C) 1995, 1996  Robert Gentleman and Ross Ihaka
+ * Copyright (C) 1997--2008  The R Development Core Team
+ * Copyright (C) 2003, 2004  The R Foundation
+ * Copyright (C) 2010 bedatadriven
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.renjin.primitives.text.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers whether a compiled {@link REProgram} matches anywhere in a string, in time linear in the
+ * length of the string.
+ *
+ * <p>The program's node graph is read as a non-deterministic automaton, whose states are the
+ * nodes (and the individual characters of atoms) that consume input, assert a position, or end the
+ * program. Sets of these states become the states of a deterministic automaton, which are only
+ * constructed as the input requires them and then cached, so each input character costs a table
+ * lookup once the automaton has warmed up. The state of an unanchored search is folded into every
+ * deterministic state, so the input is scanned exactly once instead of once from each starting position.</p>
+ *
+ * <p>Only programs that describe regular languages can be translated: backreferences, word
+ * boundaries and reluctant closures are left to the backtracking {@link ExtendedRE}.</p>
+ */
+final class LazyDfa {
+
+  /**
+   * The maximum number of deterministic states to cache before the cache is flushed, bounding the
+   * memory used by patterns whose automata blow up exponentially.
+   */
+  static final int MAX_STATES = 2000;
+
+  private static final byte UNREACHABLE = 0;
+  private static final byte EPSILON = 1;
+  private static final byte CONSUME = 2;
+  private static final byte BOL = 3;
+  private static final byte EOL = 4;
+  private static final byte MATCH = 5;
+
+  private static final int ASCII = 128;
+
+  /**
+   * The type of each automaton state, indexed by position in the program's instruction array.
+   */
+  private final byte[] types;
+
+  /**
+   * The states that follow each state: all alternatives for {@code EPSILON} states, or the
+   * single successor of the others.
+   */
+  private final int[][] targets;
+
+  /**
+   * The characters accepted by each {@code CONSUME} state.
+   */
+  private final CharClass[] classes;
+
+  private int[] visited;
+  private int visitMark = 0;
+  private int[] stack = new int[16];
+  private int[] members = new int[16];
+  private int memberCount;
+  private boolean memberMatches;
+
+  private final Map<Key, State> cache = new HashMap<>();
+  private State initial;
+
+  private LazyDfa(byte[] types, int[][] targets, CharClass[] classes) {
+    this.types = types;
+    this.targets = targets;
+    this.classes = classes;
+    this.visited = new int[types.length];
+  }
+
+  /**
+   * Translates a compiled program into an automaton.
+   *
+   * @return the automaton, or {@code null} if the program uses features that cannot be matched
+   * by a finite automaton.
+   */
+  static LazyDfa tryBuild(REProgram program, boolean caseIndependent) {
+    char[] instruction = program.instruction;
+    int length = program.lenInstruction;
+
+    byte[] types = new byte[length];
+    int[][] targets = new int[length][];
+    CharClass[] classes = new CharClass[length];
+
+    int[] worklist = new int[16];
+    int worklistSize = 0;
+    worklist[worklistSize++] = 0;
+
+    while (worklistSize > 0) {
+      int node = worklist[--worklistSize];
+      if (node < 0 || node + ExtendedRE.nodeSize > length) {
+        return null;
+      }
+      if (types[node] != UNREACHABLE) {
+        continue;
+      }
+      char opcode = instruction[node];
+      char opdata = instruction[node + ExtendedRE.offsetOpdata];
+      int next = node + (short) instruction[node + ExtendedRE.offsetNext];
+
+      switch (opcode) {
+        case ExtendedRE.OP_STAR:
+        case ExtendedRE.OP_MAYBE:
+          types[node] = EPSILON;
+          targets[node] = new int[] { node + ExtendedRE.nodeSize, next };
+          break;
+
+        case ExtendedRE.OP_PLUS:
+          // The subexpression follows the OP_CONTINUE node that we point back to,
+          // and the rest of the expression follows at that node's next pointer
+          if (next < 0 || next + ExtendedRE.nodeSize > length) {
+            return null;
+          }
+          types[node] = EPSILON;
+          targets[node] = new int[] { next, next + (short) instruction[next + ExtendedRE.offsetNext] };
+          break;
+
+        case ExtendedRE.OP_CONTINUE:
+          types[node] = EPSILON;
+          targets[node] = new int[] { node + ExtendedRE.nodeSize };
+          break;
+
+        case ExtendedRE.OP_OPEN:
+        case ExtendedRE.OP_CLOSE:
+        case ExtendedRE.OP_OPEN_CLUSTER:
+        case ExtendedRE.OP_CLOSE_CLUSTER:
+        case ExtendedRE.OP_NOTHING:
+        case ExtendedRE.OP_GOTO:
+          types[node] = EPSILON;
+          targets[node] = new int[] { next };
+          break;
+
+        case ExtendedRE.OP_BRANCH:
+          types[node] = EPSILON;
+          targets[node] = branchTargets(instruction, length, node, next);
+          if (targets[node] == null) {
+            return null;
+          }
+          break;
+
+        case ExtendedRE.OP_BOL:
+          types[node] = BOL;
+          targets[node] = new int[] { next };
+          break;
+
+        case ExtendedRE.OP_EOL:
+          types[node] = EOL;
+          targets[node] = new int[] { next };
+          break;
+
+        case ExtendedRE.OP_END:
+          types[node] = MATCH;
+          targets[node] = new int[0];
+          break;
+
+        case ExtendedRE.OP_ANY:
+          types[node] = CONSUME;
+          classes[node] = new AnyButNewline();
+          targets[node] = new int[] { next };
+          break;
+
+        case ExtendedRE.OP_ANYOF:
+          if (node + ExtendedRE.nodeSize + opdata * 2 > length) {
+            return null;
+          }
+          types[node] = CONSUME;
+          classes[node] = new Ranges(instruction, node + ExtendedRE.nodeSize, opdata, caseIndependent);
+          targets[node] = new int[] { next };
+          break;
+
+        case ExtendedRE.OP_POSIXCLASS:
+          types[node] = CONSUME;
+          classes[node] = new PosixClass(opdata);
+          targets[node] = new int[] { next };
+          break;
+
+        case ExtendedRE.OP_ESCAPE:
+          switch (opdata) {
+            case ExtendedRE.E_ALNUM:
+            case ExtendedRE.E_NALNUM:
+            case ExtendedRE.E_DIGIT:
+            case ExtendedRE.E_NDIGIT:
+            case ExtendedRE.E_SPACE:
+            case ExtendedRE.E_NSPACE:
+              types[node] = CONSUME;
+              classes[node] = new EscapeClass(opdata);
+              targets[node] = new int[] { next };
+              break;
+
+            default:
+              // Word boundaries depend on the previous character
+              return null;
+          }
+          break;
+
+        case ExtendedRE.OP_ATOM:
+          {
+            // Each character of the atom becomes a state of its own, identified
+            // by the position of the character in the instruction array
+            int startAtom = node + ExtendedRE.nodeSize;
+            if (startAtom + opdata > length) {
+              return null;
+            }
+            types[node] = EPSILON;
+            targets[node] = new int[] { opdata == 0 ? next : startAtom };
+            for (int i = 0; i < opdata; i++) {
+              types[startAtom + i] = CONSUME;
+              classes[startAtom + i] = new Literal(instruction[startAtom + i], caseIndependent);
+              targets[startAtom + i] = new int[] { (i + 1 < opdata) ? startAtom + i + 1 : next };
+            }
+            worklist = push(worklist, worklistSize++, next);
+          }
+          continue;
+
+        default:
+          // Backreferences and reluctant closures
+          return null;
+      }
+
+      for (int target : targets[node]) {
+        worklist = push(worklist, worklistSize++, target);
+      }
+    }
+
+    return new LazyDfa(types, targets, classes);
+  }
+
+  private static int[] branchTargets(char[] instruction, int length, int node, int next) {
+    if (next < 0 || next >= length || instruction[next] != ExtendedRE.OP_BRANCH) {
+      return new int[] { node + ExtendedRE.nodeSize };
+    }
+    List<Integer> branches = new ArrayList<>();
+    int nextBranch;
+    do {
+      branches.add(node + ExtendedRE.nodeSize);
+      nextBranch = (short) instruction[node + ExtendedRE.offsetNext];
+      node += nextBranch;
+      if (node < 0 || node >= length) {
+        return null;
+      }
+    } while (nextBranch != 0 && instruction[node] == ExtendedRE.OP_BRANCH);
+
+    int[] targets = new int[branches.size()];
+    for (int i = 0; i < targets.length; i++) {
+      targets[i] = branches.get(i);
+    }
+    return targets;
+  }
+
+  private static int[] push(int[] array, int index, int value) {
+    if (index == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+    }
+    array[index] = value;
+    return array;
+  }
+
+  /**
+   * @return true if the program matches the string at any position.
+   */
+  boolean matches(String search) {
+    if (initial == null) {
+      initial = startState();
+    }
+    int length = search.length();
+    if (length == 0) {
+      return initial.accepting || acceptsAtEnd(initial.members, true);
+    }
+    State state = initial;
+    for (int i = 0; i < length; i++) {
+      if (state.accepting) {
+        return true;
+      }
+      if (state.members.length == 0) {
+        // Only possible if the program is anchored at the beginning of the string
+        return false;
+      }
+      char c = search.charAt(i);
+      State next = state.transition(c);
+      if (next == null) {
+        next = computeTransition(state, c);
+      }
+      state = next;
+    }
+    if (state.accepting) {
+      return true;
+    }
+    if (state.acceptsAtEnd == 0) {
+      state.acceptsAtEnd = acceptsAtEnd(state.members, false) ? (byte) 1 : (byte) -1;
+    }
+    return state.acceptsAtEnd == 1;
+  }
+
+  /**
+   * @return the number of deterministic states constructed so far.
+   */
+  int getStateCount() {
+    return cache.size();
+  }
+
+  private State startState() {
+    beginClosure();
+    addClosure(0, true, false);
+    return intern();
+  }
+
+  private State computeTransition(State from, char c) {
+    if (cache.size() >= MAX_STATES) {
+      cache.clear();
+      initial = startState();
+    }
+    beginClosure();
+    for (int member : from.members) {
+      if (types[member] == CONSUME && classes[member].matches(c)) {
+        addClosure(targets[member][0], false, false);
+      }
+    }
+    // Start a new attempt at the following position
+    addClosure(0, false, false);
+
+    State to = intern();
+    from.setTransition(c, to);
+    return to;
+  }
+
+  /**
+   * @return true if the end of the input can be matched by following an end-of-line assertion
+   * from one of the given states.
+   */
+  private boolean acceptsAtEnd(int[] states, boolean atStart) {
+    beginClosure();
+    for (int member : states) {
+      if (types[member] == EOL) {
+        addClosure(targets[member][0], atStart, true);
+      }
+    }
+    return memberMatches;
+  }
+
+  private void beginClosure() {
+    memberCount = 0;
+    memberMatches = false;
+    visitMark++;
+    if (visitMark == Integer.MAX_VALUE) {
+      Arrays.fill(visited, 0);
+      visitMark = 1;
+    }
+  }
+
+  /**
+   * Adds all the states that can be reached from {@code start} without consuming input
+   * to the current set of members.
+   */
+  private void addClosure(int start, boolean atStart, boolean atEnd) {
+    int top = 0;
+    stack[top++] = start;
+    while (top > 0) {
+      int state = stack[--top];
+      if (visited[state] == visitMark) {
+        continue;
+      }
+      visited[state] = visitMark;
+
+      switch (types[state]) {
+        case EPSILON:
+          for (int target : targets[state]) {
+            stack = push(stack, top++, target);
+          }
+          break;
+
+        case BOL:
+          if (atStart) {
+            stack = push(stack, top++, targets[state][0]);
+          }
+          break;
+
+        case EOL:
+          if (atEnd) {
+            stack = push(stack, top++, targets[state][0]);
+          } else {
+            addMember(state);
+          }
+          break;
+
+        case MATCH:
+          memberMatches = true;
+          addMember(state);
+          break;
+
+        default:
+          addMember(state);
+          break;
+      }
+    }
+  }
+
+  private void addMember(int state) {
+    members = push(members, memberCount++, state);
+  }
+
+  private State intern() {
+    int[] sorted = Arrays.copyOf(members, memberCount);
+    Arrays.sort(sorted);
+    Key key = new Key(sorted);
+    State state = cache.get(key);
+    if (state == null) {
+      state = new State(sorted, memberMatches);
+      cache.put(key, state);
+    }
+    return state;
+  }
+
+  private static final class Key {
+    private final int[] members;
+    private final int hashCode;
+
+    private Key(int[] members) {
+      this.members = members;
+      this.hashCode = Arrays.hashCode(members);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.equals(members, ((Key) obj).members);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static final class State {
+    private final int[] members;
+    private final boolean accepting;
+    private final State[] asciiTransitions = new State[ASCII];
+    private Map<Character, State> otherTransitions;
+
+    /**
+     * Whether the end of input is accepted in this state: 0 if not yet known, 1 if true, -1 if false.
+     */
+    private byte acceptsAtEnd;
+
+    private State(int[] members, boolean accepting) {
+      this.members = members;
+      this.accepting = accepting;
+    }
+
+    private State transition(char c) {
+      if (c < ASCII) {
+        return asciiTransitions[c];
+      }
+      if (otherTransitions == null) {
+        return null;
+      }
+      return otherTransitions.get(c);
+    }
+
+    private void setTransition(char c, State to) {
+      if (c < ASCII) {
+        asciiTransitions[c] = to;
+      } else {
+        if (otherTransitions == null) {
+          otherTransitions = new HashMap<>();
+        }
+        otherTransitions.put(c, to);
+      }
+    }
+  }
+
+  private abstract static class CharClass {
+    abstract boolean matches(char c);
+  }
+
+  private static final class Literal extends CharClass {
+    private final char c;
+    private final boolean caseIndependent;
+
+    private Literal(char c, boolean caseIndependent) {
+      this.caseIndependent = caseIndependent;
+      this.c = caseIndependent ? Character.toLowerCase(c) : c;
+    }
+
+    @Override
+    boolean matches(char c) {
+      return (caseIndependent ? Character.toLowerCase(c) : c) == this.c;
+    }
+  }
+
+  private static final class AnyButNewline extends CharClass {
+    @Override
+    boolean matches(char c) {
+      return !ExtendedRE.isNewline(c);
+    }
+  }
+
+  private static final class Ranges extends CharClass {
+    private final char[] ranges;
+    private final boolean caseIndependent;
+
+    private Ranges(char[] instruction, int start, int count, boolean caseIndependent) {
+      this.ranges = Arrays.copyOfRange(instruction, start, start + count * 2);
+      this.caseIndependent = caseIndependent;
+      if (caseIndependent) {
+        for (int i = 0; i < ranges.length; i++) {
+          ranges[i] = Character.toLowerCase(ranges[i]);
+        }
+      }
+    }
+
+    @Override
+    boolean matches(char c) {
+      if (caseIndependent) {
+        c = Character.toLowerCase(c);
+      }
+      for (int i = 0; i < ranges.length; i += 2) {
+        if (c >= ranges[i] && c <= ranges[i + 1]) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class EscapeClass extends CharClass {
+    private final char escape;
+
+    private EscapeClass(char escape) {
+      this.escape = escape;
+    }
+
+    @Override
+    boolean matches(char c) {
+      return ExtendedRE.isEscapeClassMember(escape, c);
+    }
+  }
+
+  private static final class PosixClass extends CharClass {
+    private final char classId;
+
+    private PosixClass(char classId) {
+      this.classId = classId;
+    }
+
+    @Override
+    boolean matches(char c) {
+      return ExtendedRE.isPosixClassMember(classId, c);
+    }
+  }
+}
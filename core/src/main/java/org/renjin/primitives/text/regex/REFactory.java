@@ -23,12 +23,32 @@ package org.renjin.primitives.text.regex;
 
 import org.renjin.eval.EvalException;
 import org.renjin.repackaged.guava.base.Predicate;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.repackaged.guava.cache.CacheStats;
 
 /**
  * Compiles a regular expression based on the supplied options.
+ *
+ * <p>Vectorized primitives like {@code gsub} compile their pattern once for each element,
+ * so compiled programs are kept in a cache, keyed by the pattern. The matchers themselves hold
+ * the state of the last match, so a new matcher is created for each call, sharing the compiled program.</p>
+ *
+ * <p>Extended regular expressions are matched by a {@link DfaRE}, which falls back to the backtracking
+ * {@link ExtendedRE} for group positions and for patterns that are not regular. The automaton can be
+ * disabled with the JVM flag -Drenjin.regex.dfa=false</p>
  */
 public class REFactory {
 
+  private static final int CACHE_SIZE = 500;
+
+  private static final boolean USE_DFA = !"false".equals(System.getProperty("renjin.regex.dfa"));
+
+  private static final Cache<String, REProgram> PROGRAM_CACHE = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .recordStats()
+      .build();
+
   /**
    * Compiles the pattern based on the supplied arguments.
    *
@@ -57,7 +77,12 @@ public class REFactory {
           return new EmptyFixedRE();
         }
 
-        return new ExtendedRE(pattern, ignoreCase);
+        REProgram program = compileProgram(pattern);
+        if(USE_DFA) {
+          return new DfaRE(program, ignoreCase);
+        }
+        return new ExtendedRE(program,
+            ignoreCase ? ExtendedRE.MATCH_CASEINDEPENDENT : ExtendedRE.MATCH_NORMAL);
       }
     } catch (RESyntaxException e) {
       throw new EvalException("Invalid pattern '%s': %s (perl=%s, fixed=%s)",
@@ -68,6 +93,28 @@ public class REFactory {
     }
   }
   
+  /**
+   * Compiles an extended regular expression, or finds the program compiled for a previous
+   * call with the same pattern. The program does not depend on the other options,
+   * which only affect how it is matched.
+   */
+  private static REProgram compileProgram(String pattern) throws RESyntaxException {
+    REProgram program = PROGRAM_CACHE.getIfPresent(pattern);
+    if(program == null) {
+      program = new RECompiler().compile(pattern);
+      PROGRAM_CACHE.put(pattern, program);
+    }
+    return program;
+  }
+
+  /**
+   * @return the number of patterns which were found in, or had to be added to,
+   * the cache of compiled programs.
+   */
+  public static CacheStats getCacheStats() {
+    return PROGRAM_CACHE.stats();
+  }
+
   public static Predicate<String> asPredicate(final RE re) {
     return new Predicate<String>() {
       @Override
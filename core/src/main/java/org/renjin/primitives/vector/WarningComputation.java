@@ -0,0 +1,36 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.vector;
+
+/**
+ * A {@link MemoizedComputation} whose calculation may give rise to a warning, such as
+ * an integer overflow.
+ *
+ * <p>The result may be calculated long after the call which created the computation, and on another
+ * thread, so the warning is held with the result until the vector is materialized by R code,
+ * which then signals it in its own context.</p>
+ */
+public interface WarningComputation extends MemoizedComputation {
+
+  /**
+   * @return the message of the warning raised by the calculation, or {@code null} if there was
+   * none, or it has already been taken.
+   */
+  String takeWarning();
+}
@@ -40,6 +40,18 @@ public class Closure extends AbstractSEXP implements Function {
   private SEXP body;
   private PairList formals;
 
+  /**
+   * The number of times this closure has been applied, used to decide
+   * when its body should be compiled.
+   */
+  private int invocationCount = 0;
+
+  /**
+   * True if this closure's body could not be compiled, or was compiled for too many distinct types,
+   * and should only be interpreted from now on.
+   */
+  private boolean compilationDisabled = false;
+
   public Closure(Environment enclosingEnvironment, PairList formals, SEXP body, AttributeMap attributes) {
     super(attributes);
     assert !(formals instanceof FunctionCall);
@@ -83,6 +95,24 @@ public class Closure extends AbstractSEXP implements Function {
   public SEXP doApply(Context functionContext) {
     return functionContext.evaluate(body);
   }
+
+  /**
+   * Increments and returns the number of times this closure has been applied.
+   */
+  public int incrementInvocationCount() {
+    return ++invocationCount;
+  }
+
+  public boolean isCompilationDisabled() {
+    return compilationDisabled;
+  }
+
+  /**
+   * Marks this closure to be interpreted on all future calls.
+   */
+  public void disableCompilation() {
+    compilationDisabled = true;
+  }
    
 
   /**
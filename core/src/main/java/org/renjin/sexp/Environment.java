@@ -25,7 +25,9 @@ import org.renjin.repackaged.guava.base.Predicate;
 import org.renjin.repackaged.guava.collect.Sets;
 import org.renjin.repackaged.guava.collect.UnmodifiableIterator;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The Environment data type.
@@ -68,6 +70,20 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
    * environment.
    */
   private transient int modCount = 0;
+
+  /**
+   * Incremented whenever a binding that could hold a function changes in this environment, if it
+   * has been searched by a cached function lookup, invalidating all lookups cached against the same
+   * version. Child environments share the version of their parent, so each session's environments
+   * share a version of their own.
+   */
+  private FunctionBindingsVersion functionBindingsVersion;
+
+  /**
+   * True if a call site has cached the result of a function lookup that searched this
+   * environment's frame.
+   */
+  private transient boolean searchedByCachedLookup;
   
   /**
    * The root of the environment hierarchy.
@@ -90,7 +106,7 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
    * @return the Global environment
    */
   public static Environment createGlobalEnvironment(Environment baseEnvironment) {
-    Environment global = new Environment();
+    Environment global = new Environment(baseEnvironment.functionBindingsVersion);
     global.name = GLOBAL_ENVIRONMENT_NAME;
     global.parent = baseEnvironment;
     global.frame = new HashFrame();
@@ -129,15 +145,33 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
   }
 
   public static Environment createChildEnvironment(Environment parent, Frame frame) {
-    Environment child = new Environment();
+    Environment child = new Environment(parent.functionBindingsVersion);
     child.parent = parent;
     child.frame = frame;
     return child;
   }
   
-  public Environment() {}
+  /**
+   * Creates a new, empty environment with the same name as this one, for {@link SexpGraphCopier}.
+   */
+  Environment newEmptyCopy(Environment parent) {
+    Environment copy = createChildEnvironment(parent);
+    copy.name = name;
+    return copy;
+  }
+
+  public Environment() {
+    this.functionBindingsVersion = new FunctionBindingsVersion();
+  }
+
+  public Environment(AttributeMap attributes) {
+    super(attributes);
+    this.functionBindingsVersion = new FunctionBindingsVersion();
+  }
 
-  public Environment(AttributeMap attributes) { super(attributes); }
+  private Environment(FunctionBindingsVersion functionBindingsVersion) {
+    this.functionBindingsVersion = functionBindingsVersion;
+  }
 
   public void setVariables(PairList pairList) {
     for(PairList.Node node : pairList.nodes()) {
@@ -153,10 +187,14 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
     if(locked) {
       throw new EvalException("cannot remove bindings from a locked environment");
     }
+    if(searchedByCachedLookup || !(frame instanceof HashFrame)) {
+      functionBindingsVersion.increment();
+    }
     frame.remove(symbol);
   }
 
   public void clear() {
+    functionBindingsVersion.increment();
     frame.clear();
   }
 
@@ -179,6 +217,8 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
   public void setParent(Environment parent) {
     this.parent = parent;
     modCount ++;
+    functionBindingsVersion.increment();
+    functionBindingsVersion = parent.functionBindingsVersion;
   }
 
   @Override
@@ -235,10 +275,54 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
     } else if(locked && frame.getVariable(symbol) == Symbol.UNBOUND_VALUE) {
       throw new EvalException("cannot add bindings to a locked environment");
     }
+    // The base frame is shared with the base namespace, so we can't know whether it has been searched
+    if(searchedByCachedLookup || !(frame instanceof HashFrame)) {
+      if(mayBeFunction(value) || mayBeFunction(frame.getVariable(symbol))) {
+        functionBindingsVersion.increment();
+      }
+    }
     frame.setVariable(symbol, value);
     modCount++;
   }
 
+  /**
+   * @return the value bound to {@code symbol} in this environment's own frame, if it is not referenced
+   * anywhere else and may be updated in place, or {@code null} otherwise.
+   * @see HashFrame#getUnsharedVariable(Symbol)
+   */
+  public SEXP getUnsharedVariable(Symbol symbol) {
+    if(frame instanceof HashFrame && !bindingIsLocked(symbol)) {
+      return ((HashFrame) frame).getUnsharedVariable(symbol);
+    }
+    return null;
+  }
+
+  /**
+   * Binds {@code value} to {@code symbol} while populating a newly created environment, such as one
+   * copied into a forked session. Unless this environment has already been searched by a cached function
+   * lookup, the binding does not change the {@link #getFunctionBindingsVersion() version} of function
+   * bindings, so cached lookups in other sessions remain valid.
+   */
+  void initializeVariable(Symbol symbol, SEXP value) {
+    if(searchedByCachedLookup) {
+      setVariable(symbol, value);
+    } else {
+      frame.setVariable(symbol, value);
+      modCount++;
+    }
+  }
+
+  /**
+   * Binds {@code value}, which must not be referenced anywhere else, to {@code symbol}, so that it can be
+   * updated in place until it is next read.
+   */
+  public void setUnsharedVariable(Symbol symbol, SEXP value) {
+    setVariable(symbol, value);
+    if(frame instanceof HashFrame) {
+      ((HashFrame) frame).setUnsharedVariable(symbol, value);
+    }
+  }
+
   /**
    * Searches the environment for a value that matches the given predicate.
    *
@@ -319,6 +403,102 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
     return parent.findFunction(context, symbol);
   }
   
+  /**
+   * Finds the function called by {@code call}, whose function is {@code symbol}.
+   *
+   * <p>This environment's own frame is always searched, as it is usually a new function environment
+   * on each evaluation of {@code call}. The function found in the enclosing environments is cached
+   * in the call, and reused for as long as the call is evaluated in an environment with the same parent,
+   * and no function bindings have changed in any environment searched. Only lookups through environments
+   * which all share the same {@link FunctionBindingsVersion} are cached.</p>
+   */
+  public Function findFunction(Context context, FunctionCall call, Symbol symbol) {
+    if(frame.isMissingArgument(symbol)) {
+      throw new EvalException("argument '%s' is missing, with no default", symbol.toString());
+    }
+    Function value = frame.getFunction(context, symbol);
+    if(value != null) {
+      return value;
+    }
+
+    FunctionBindingsVersion bindingsVersion = parent.functionBindingsVersion;
+    int version = bindingsVersion.get();
+    FunctionLookup lookup = call.functionLookup;
+    if(lookup != null && lookup.symbol == symbol && lookup.version == version &&
+        lookup.bindingsVersion == bindingsVersion && lookup.get() == parent) {
+      Function function = lookup.function.get();
+      if(function != null) {
+        return function;
+      }
+    }
+
+    value = parent.findFunctionForCache(context, symbol);
+    if(value != null && parent.sharesFunctionBindingsVersionWithParents()) {
+      call.functionLookup = new FunctionLookup(parent, symbol, value, bindingsVersion, version);
+    }
+    return value;
+  }
+
+  /**
+   * Finds a function in this environment or its parents, like {@link #findFunction(Context, Symbol)},
+   * but marks each environment searched, so that the result can be cached until the
+   * {@link #getFunctionBindingsVersion() version} of function bindings changes. The result can only
+   * be cached if this environment {@link #sharesFunctionBindingsVersionWithParents() shares its version}
+   * with all of its parents.
+   */
+  public Function findFunctionForCache(Context context, Symbol symbol) {
+    Environment environment = this;
+    while(environment != EMPTY) {
+      environment.searchedByCachedLookup = true;
+      if(environment.frame.isMissingArgument(symbol)) {
+        throw new EvalException("argument '%s' is missing, with no default", symbol.toString());
+      }
+      Function value = environment.frame.getFunction(context, symbol);
+      if(value != null) {
+        return value;
+      }
+      environment = environment.parent;
+    }
+    return null;
+  }
+
+  /**
+   * Marks this environment as searched by a cached lookup, so that changes to
+   * its function bindings will change the {@link #getFunctionBindingsVersion() version}.
+   */
+  public void markSearchedByCachedLookup() {
+    searchedByCachedLookup = true;
+  }
+
+  /**
+   * @return the version of function bindings shared by this environment and the other environments
+   * created from it, which changes whenever a function binding changes in one of them that has been
+   * searched by a cached lookup.
+   */
+  public FunctionBindingsVersion getFunctionBindingsVersion() {
+    return functionBindingsVersion;
+  }
+
+  /**
+   * @return true if this environment and all of its parents share the same
+   * {@link #getFunctionBindingsVersion() version}, so that a lookup through them can be
+   * cached against it.
+   */
+  public boolean sharesFunctionBindingsVersionWithParents() {
+    Environment environment = parent;
+    while(environment != EMPTY) {
+      if(environment.functionBindingsVersion != functionBindingsVersion) {
+        return false;
+      }
+      environment = environment.parent;
+    }
+    return true;
+  }
+
+  private static boolean mayBeFunction(SEXP value) {
+    return value instanceof Function || value instanceof Promise || value == Symbol.MISSING_ARG;
+  }
+
   public Function findFunctionOrThrow(Context context, Symbol symbol) {
     Function function = findFunction(context, symbol);
     if(function == null) {
@@ -500,6 +680,11 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
       return null;
     }
 
+    @Override
+    public Function findFunction(Context context, FunctionCall call, Symbol symbol) {
+      return null;
+    }
+
     @Override
     public Environment getParent() {
       throw new UnsupportedOperationException("The empty environment does not have a parent.");
@@ -511,6 +696,48 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
     }
   }
 
+  /**
+   * The result of a function lookup, cached in a {@link FunctionCall}.
+   *
+   * <p>Function bodies can be shared between sessions, for example through namespace images, so
+   * the enclosing environment and the function are only weakly referenced: a call site must
+   * not keep the session that last evaluated it alive. As long as the enclosure is reachable and the
+   * version is unchanged, the function remains bound in one of the enclosure's environments, and
+   * is reachable as well.</p>
+   */
+  static final class FunctionLookup extends WeakReference<Environment> {
+    private final Symbol symbol;
+    private final WeakReference<Function> function;
+    private final FunctionBindingsVersion bindingsVersion;
+    private final int version;
+
+    private FunctionLookup(Environment enclosure, Symbol symbol, Function function,
+                           FunctionBindingsVersion bindingsVersion, int version) {
+      super(enclosure);
+      this.symbol = symbol;
+      this.function = new WeakReference<>(function);
+      this.bindingsVersion = bindingsVersion;
+      this.version = version;
+    }
+  }
+
+  /**
+   * Counts the changes to function bindings in a group of environments, such as those of a session,
+   * that have been searched by cached function lookups. Each group has its own version, so that
+   * changes in one session do not invalidate the lookups cached by another.
+   */
+  public static final class FunctionBindingsVersion {
+    private final AtomicInteger version = new AtomicInteger();
+
+    public int get() {
+      return version.get();
+    }
+
+    private void increment() {
+      version.incrementAndGet();
+    }
+  }
+
   @Override
   public Iterable<NamedValue> namedValues() {
     return new NamedValues();
@@ -18,6 +18,9 @@
  */
 package org.renjin.sexp;
 
+import org.renjin.eval.ArgumentMatchPlan;
+import org.renjin.invoke.reflection.FunctionBinding;
+
 /**
  * Expression representing a call to an R function, consisting of
  * a function reference and a list of arguments.
@@ -29,6 +32,24 @@ public class FunctionCall extends PairList.Node {
   public static final String TYPE_NAME = "language";
   public static final String IMPLICIT_CLASS = "call";
 
+  /**
+   * The function found the last time this call was evaluated, see
+   * {@link Environment#findFunction(org.renjin.eval.Context, FunctionCall, Symbol)}
+   */
+  transient Environment.FunctionLookup functionLookup;
+
+  /**
+   * The plans used to match the arguments of this call to the formals of the closures it
+   * has called, see {@link ArgumentMatchPlan#forCall(FunctionCall, PairList, PairList)}
+   */
+  private transient ArgumentMatchPlan argumentMatchPlan;
+
+  /**
+   * The JVM method overload selected the last time this call invoked a JVM method, see
+   * {@link FunctionBinding#evaluateArgsAndInvoke(Object, org.renjin.eval.Context, Environment, FunctionCall, PairList)}
+   */
+  private transient FunctionBinding.CallSite jvmCallSite;
+
   public FunctionCall(SEXP function, PairList arguments) {
     super(function, arguments);
   }
@@ -45,6 +66,22 @@ public class FunctionCall extends PairList.Node {
     return new FunctionCall(listExp.value, listExp.nextNode);
   }
 
+  public ArgumentMatchPlan getArgumentMatchPlan() {
+    return argumentMatchPlan;
+  }
+
+  public void setArgumentMatchPlan(ArgumentMatchPlan plan) {
+    this.argumentMatchPlan = plan;
+  }
+
+  public FunctionBinding.CallSite getJvmCallSite() {
+    return jvmCallSite;
+  }
+
+  public void setJvmCallSite(FunctionBinding.CallSite site) {
+    this.jvmCallSite = site;
+  }
+
   public SEXP getFunction() {
     return value;
   }
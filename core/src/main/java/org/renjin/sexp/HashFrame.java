@@ -22,13 +22,16 @@ import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 
 import java.util.IdentityHashMap;
-import java.util.Map.Entry;
 import java.util.Set;
 
 
 public class HashFrame implements Frame{
 
-  private IdentityHashMap<Symbol, SEXP> values = new IdentityHashMap<Symbol, SEXP>();
+  /**
+   * Maps symbols to their values, which are either {@code SEXP}s or, for values which can be
+   * updated in place, {@link Unshared} wrappers.
+   */
+  private IdentityHashMap<Symbol, Object> values = new IdentityHashMap<Symbol, Object>();
   
   /**
    * Bloom-esque filter keeping track of which functions have 
@@ -43,16 +46,47 @@ public class HashFrame implements Frame{
 
   @Override
   public SEXP getVariable(Symbol name) {
-    SEXP value = values.get(name);
-    return value == null ? Symbol.UNBOUND_VALUE : value;
+    Object value = values.get(name);
+    if(value == null) {
+      return Symbol.UNBOUND_VALUE;
+    }
+    if(value instanceof Unshared) {
+      // The caller may now hold on to the value, so it can
+      // no longer be updated in place.
+      SEXP sexp = ((Unshared) value).value;
+      values.put(name, sexp);
+      return sexp;
+    }
+    return (SEXP) value;
+  }
+
+  /**
+   * @return the value bound to {@code name} if it is referenced only by this frame, and has not been read since it was
+   * bound with {@link #setUnsharedVariable(Symbol, SEXP)}, or {@code null} otherwise.
+   */
+  public SEXP getUnsharedVariable(Symbol name) {
+    Object value = values.get(name);
+    if(value instanceof Unshared) {
+      return ((Unshared) value).value;
+    }
+    return null;
+  }
+
+  /**
+   * Binds a value that is not referenced anywhere else, so that it can be updated in place until
+   * it is next read with {@link #getVariable(Symbol)}.
+   */
+  public void setUnsharedVariable(Symbol name, SEXP value) {
+    setVariable(name, value);
+    values.put(name, new Unshared(value));
   }
 
   @Override
   public Function getFunction(Context context, Symbol name) {
     if(functionFilter != 0 && (functionFilter & name.hashBit()) != 0) {
-      SEXP value = values.get(name);
-      if(value != null) {
-        value = value.force(context);
+      Object binding = values.get(name);
+      if(binding instanceof SEXP) {
+        SEXP value = ((SEXP) binding).force(context);
         if(value == Symbol.MISSING_ARG) {
           throw new EvalException("argument '%s' is missing with no default", name.toString());
         }
@@ -97,10 +131,18 @@ public class HashFrame implements Frame{
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    for(Entry<Symbol,SEXP> entry : values.entrySet()) {
-      sb.append(entry.getKey()).append(" = ").append(entry.getValue()).append("\n");
+    for(Symbol name : values.keySet()) {
+      sb.append(name).append(" = ").append(getVariable(name)).append("\n");
     }
     return sb.toString();
   }
 
+  private static final class Unshared {
+    private final SEXP value;
+
+    private Unshared(SEXP value) {
+      this.value = value;
+    }
+  }
+
 }
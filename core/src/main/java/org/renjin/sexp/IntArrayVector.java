@@ -81,6 +81,11 @@ public class IntArrayVector extends IntVector {
     return values;
   }
 
+  @Override
+  public int[] toIntArray() {
+    return Arrays.copyOf(values, values.length);
+  }
+
   /**
    * Creates a new IntArrayVector from the given array, without copying.
    * {@code array} MUST NOT be subsequently modified.
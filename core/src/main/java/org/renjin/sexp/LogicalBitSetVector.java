@@ -24,21 +24,31 @@ import java.util.BitSet;
  * Implementation of the LogicalVector that uses
  * a BitSet as a backing storage. 
  *
+ * <p>Missing values are stored in a second, optional, BitSet.</p>
  */
 public class LogicalBitSetVector extends LogicalVector {
 
   private final BitSet bitSet;
+  private final BitSet naSet;
   private final int length;
   
   public LogicalBitSetVector(BitSet bitSet, int length, AttributeMap attributes) {
-    super(attributes);
-    this.length = length;
-    this.bitSet = (BitSet) bitSet.clone();
+    this(bitSet, null, length, attributes);
   }
 
   public LogicalBitSetVector(BitSet bitSet, int length) {
-    this.bitSet = (BitSet) bitSet.clone();
+    this(bitSet, null, length, AttributeMap.EMPTY);
+  }
+
+  /**
+   * @param bitSet the elements which are {@code TRUE}
+   * @param naSet the elements which are {@code NA}, or {@code null} if there are none
+   */
+  public LogicalBitSetVector(BitSet bitSet, BitSet naSet, int length, AttributeMap attributes) {
+    super(attributes);
     this.length = length;
+    this.bitSet = (BitSet) bitSet.clone();
+    this.naSet = (naSet == null || naSet.isEmpty()) ? null : (BitSet) naSet.clone();
   }
 
   @Override
@@ -48,6 +58,9 @@ public class LogicalBitSetVector extends LogicalVector {
 
   @Override
   public int getElementAsRawLogical(int index) {
+    if(naSet != null && naSet.get(index)) {
+      return IntVector.NA;
+    }
     return bitSet.get(index) ? 1 : 0;
   }
   
@@ -58,12 +71,15 @@ public class LogicalBitSetVector extends LogicalVector {
 
   @Override
   public Logical getElementAsLogical(int index) {
+    if(naSet != null && naSet.get(index)) {
+      return Logical.NA;
+    }
     return bitSet.get(index) ? Logical.TRUE : Logical.FALSE;
   }
 
   @Override
   protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
-    return new LogicalBitSetVector(this.bitSet, length, attributes);
+    return new LogicalBitSetVector(this.bitSet, naSet, length, attributes);
   }
   
 }
@@ -89,6 +89,17 @@ public class Promise extends AbstractSEXP implements Recursive {
   }
   
   
+  /**
+   * Creates a new, unevaluated promise to evaluate {@code expression} in {@code environment}, in
+   * place of this one. Subclasses which compute their value by other means should override this method
+   * to return a new, unevaluated instance of themselves.
+   */
+  public Promise copyUnevaluated(Environment environment, SEXP expression) {
+    Promise copy = new Promise(environment, expression);
+    copy.missingArgument = missingArgument;
+    return copy;
+  }
+
   public void setResult(SEXP exp) {
     this.result = exp;
   }
@@ -0,0 +1,274 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import org.renjin.repackaged.guava.collect.Lists;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies a graph of {@code SEXP}s so that the copy can be used independently of the original,
+ * for example by another {@code Session}.
+ *
+ * <p>Vectors, symbols, builtins and function bodies are immutable, and are shared between the original
+ * and the copy. Only environments, closures and promises, and the nodes which refer to them, are copied.
+ * Each environment is first passed to an {@link EnvironmentResolver}, which can map it to an existing
+ * environment, such as the target session's global or base environment.</p>
+ *
+ * <p>Without a template, the copier visits every node of the graph, and records the nodes that it had to
+ * copy in {@link #getCopies()}. Given such a set as a template, the copier copies only the members of the
+ * template, and shares all other nodes without visiting them, which makes repeated copies of the same
+ * graph much cheaper.</p>
+ */
+public class SexpGraphCopier {
+
+  /**
+   * Maps environments in the original graph to existing environments in the target.
+   */
+  public interface EnvironmentResolver {
+
+    /**
+     * @return the environment to use in place of {@code environment}, or {@code null} if
+     * {@code environment} should be copied.
+     */
+    Environment resolve(Environment environment);
+  }
+
+  private final EnvironmentResolver resolver;
+  private final Set<SEXP> template;
+  private final Map<SEXP, SEXP> copies = new IdentityHashMap<>();
+  private final Set<SEXP> created = Collections.newSetFromMap(new IdentityHashMap<SEXP, Boolean>());
+
+  public SexpGraphCopier(EnvironmentResolver resolver) {
+    this.resolver = resolver;
+    this.template = null;
+  }
+
+  public SexpGraphCopier(EnvironmentResolver resolver, Set<SEXP> template) {
+    this.resolver = resolver;
+    this.template = template;
+  }
+
+  /**
+   * @return the set of nodes that have been created by this copier so far, which can be used as
+   * the template to copy the copy.
+   */
+  public Set<SEXP> getCopies() {
+    return Collections.unmodifiableSet(created);
+  }
+
+  public SEXP copy(SEXP sexp) {
+    if(sexp instanceof Environment) {
+      return copyEnvironment((Environment) sexp);
+    }
+    if(template != null && !template.contains(sexp)) {
+      return sexp;
+    }
+    SEXP copy = copies.get(sexp);
+    if(copy != null) {
+      return copy;
+    }
+    copy = copyNode(sexp);
+
+    // Copying the children may already have led back to this node,
+    // for example from a closure to its own binding in its enclosing environment.
+    SEXP existing = copies.get(sexp);
+    if(existing != null) {
+      return existing;
+    }
+    copies.put(sexp, copy);
+    if(copy != sexp) {
+      created.add(copy);
+    }
+    return copy;
+  }
+
+  public Environment copyEnvironment(Environment env) {
+    if(env == Environment.EMPTY) {
+      return env;
+    }
+    Environment copy = (Environment) copies.get(env);
+    if(copy != null) {
+      return copy;
+    }
+    copy = resolver.resolve(env);
+    if(copy != null) {
+      copies.put(env, copy);
+      return copy;
+    }
+    Environment parent = copyEnvironment(env.getParent());
+
+    // The parent's bindings may already have led back to this environment
+    copy = (Environment) copies.get(env);
+    if(copy != null) {
+      return copy;
+    }
+    if(!(env.getFrame() instanceof HashFrame)) {
+      throw new IllegalStateException("Cannot copy " + env + " backed by " + env.getFrame().getClass().getName());
+    }
+    copy = env.newEmptyCopy(parent);
+    copies.put(env, copy);
+    created.add(copy);
+
+    copyBindings(env, copy);
+
+    return copy;
+  }
+
+  /**
+   * Copies the bindings, attributes and locks of {@code source} to the existing environment {@code target},
+   * which must be newly created, and not yet in use.
+   */
+  public void copyBindings(Environment source, Environment target) {
+    Frame frame = source.getFrame();
+    for (Symbol symbol : frame.getSymbols()) {
+      SEXP value = copy(frame.getVariable(symbol));
+      if(target.getFrame().getVariable(symbol) != value) {
+        target.initializeVariable(symbol, value);
+      }
+    }
+    target.setAttributes(copyAttributes(source.getAttributes()));
+
+    if(source.isLocked()) {
+      target.lock(false);
+    }
+    for (Symbol symbol : frame.getSymbols()) {
+      if(source.bindingIsLocked(symbol)) {
+        target.lockBinding(symbol);
+      }
+    }
+  }
+
+  private SEXP copyNode(SEXP sexp) {
+
+    // Nodes in the template are always copied; otherwise we only copy
+    // nodes which refer to something that has been copied.
+    boolean force = template != null;
+
+    AttributeMap attributes = copyAttributes(sexp.getAttributes());
+    boolean changed = force || attributes != sexp.getAttributes();
+
+    if(sexp instanceof Closure) {
+      Closure closure = (Closure) sexp;
+      return new Closure(
+          copyEnvironment(closure.getEnclosingEnvironment()),
+          (PairList) copy(closure.getFormals()),
+          copy(closure.getBody()),
+          attributes);
+
+    } else if(sexp instanceof Promise) {
+      Promise promise = (Promise) sexp;
+      if(promise.isEvaluated()) {
+        return new Promise(copy(promise.getExpression()), copy(promise.getValue()));
+      } else {
+        return promise.copyUnevaluated(copyEnvironment(promise.getEnvironment()), copy(promise.getExpression()));
+      }
+
+    } else if(sexp instanceof FunctionCall) {
+      FunctionCall call = (FunctionCall) sexp;
+      SEXP function = copy(call.getFunction());
+      PairList arguments = (PairList) copy(call.getArguments());
+      if(changed || function != call.getFunction() || arguments != call.getArguments()) {
+        return new FunctionCall(function, arguments, attributes);
+      }
+
+    } else if(sexp instanceof PairList.Node) {
+      return copyPairList((PairList.Node) sexp, force);
+
+    } else if(sexp instanceof ListVector) {
+      ListVector list = (ListVector) sexp;
+      SEXP[] elements = new SEXP[list.length()];
+      for (int i = 0; i != elements.length; ++i) {
+        SEXP element = list.getElementAsSEXP(i);
+        elements[i] = copy(element);
+        changed |= elements[i] != element;
+      }
+      if(changed) {
+        if(sexp instanceof ExpressionVector) {
+          return new ExpressionVector(elements, attributes);
+        } else {
+          return new ListVector(elements, attributes);
+        }
+      }
+
+    } else if(sexp instanceof S4Object) {
+      if(changed) {
+        return new S4Object(attributes);
+      }
+
+    } else if(sexp instanceof ExternalPtr) {
+      ExternalPtr<?> ptr = (ExternalPtr<?>) sexp;
+      SEXP tag = ptr.getTag() == null ? null : copy(ptr.getTag());
+      SEXP prot = ptr.getProtected() == null ? null : copy(ptr.getProtected());
+      if(changed || tag != ptr.getTag() || prot != ptr.getProtected()) {
+        ExternalPtr<Object> copy = new ExternalPtr<Object>(ptr.getInstance(), attributes);
+        copy.unsafeSetTag(tag);
+        copy.unsafeSetProtected(prot);
+        return copy;
+      }
+
+    } else if(attributes != sexp.getAttributes()) {
+      return sexp.setAttributes(attributes);
+    }
+    return sexp;
+  }
+
+  private SEXP copyPairList(PairList.Node list, boolean force) {
+    List<PairList.Node> nodes = Lists.newArrayList(list.nodes());
+    SEXP[] tags = new SEXP[nodes.size()];
+    SEXP[] values = new SEXP[nodes.size()];
+    AttributeMap[] attributes = new AttributeMap[nodes.size()];
+    boolean changed = force;
+    for (int i = 0; i != nodes.size(); ++i) {
+      PairList.Node node = nodes.get(i);
+      tags[i] = copy(node.getRawTag());
+      values[i] = copy(node.getValue());
+      attributes[i] = copyAttributes(node.getAttributes());
+      changed |= tags[i] != node.getRawTag() || values[i] != node.getValue() ||
+          attributes[i] != node.getAttributes();
+    }
+    if(!changed) {
+      return list;
+    }
+    PairList next = Null.INSTANCE;
+    for (int i = nodes.size() - 1; i >= 0; --i) {
+      next = new PairList.Node(tags[i], values[i], attributes[i], next);
+    }
+    return next;
+  }
+
+  private AttributeMap copyAttributes(AttributeMap attributes) {
+    AttributeMap.Builder builder = null;
+    for (PairList.Node node : attributes.nodes()) {
+      SEXP value = node.getValue();
+      SEXP copy = copy(value);
+      if(copy != value) {
+        if(builder == null) {
+          builder = attributes.copy();
+        }
+        builder.set(node.getTag(), copy);
+      }
+    }
+    return builder == null ? attributes : builder.build();
+  }
+}
@@ -111,6 +111,16 @@ public class StringArrayVector extends StringVector implements Iterable<String>
     return values.clone();
   }
 
+  /**
+   * Returns a reference to the array backing this {@code StringVector}.
+   *
+   * <p>This array <strong>must not</strong> be modified if there is any chance that
+   * a reference to this Vector is held elsewhere.</p>
+   */
+  public String[] toArrayUnsafe() {
+    return values;
+  }
+
   public static StringArrayVector coerceFrom(SEXP exp) {
 
     if(exp instanceof Vector) {
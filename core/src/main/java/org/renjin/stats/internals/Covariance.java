@@ -21,7 +21,9 @@ package org.renjin.stats.internals;
 
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.Internal;
+import org.renjin.primitives.summary.DeferredVar;
 import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.AttributeMap;
 import org.renjin.sexp.DoubleVector;
 import org.renjin.sexp.Vector;
 
@@ -40,6 +42,19 @@ public class Covariance {
   }
 
 
+  /**
+   * Computes the sample variance of a double vector, as {@code var(x)} with the default arguments.
+   * If {@code x} is deferred, the variance is computed together with {@code x} in a single pass
+   * when the result is needed.
+   */
+  @Internal
+  public static DoubleVector var(DoubleVector x) {
+    if(x.isDeferred()) {
+      return new DeferredVar(x, AttributeMap.EMPTY);
+    }
+    return DoubleVector.valueOf(DeferredVar.variance(x));
+  }
+
   @Internal
   public static Vector cov(AtomicVector x, AtomicVector y, int naMethod, boolean kendall) {
     if(kendall) {
@@ -65,6 +65,16 @@ public class MersenneTwister {
         setSeed(seed);
     }
 
+    /**
+     * Constructs a new MersenneTwister in the same state as {@code other}
+     *
+     * @param other The generator to copy
+     */
+    public MersenneTwister(MersenneTwister other) {
+        this.stateVector = other.stateVector.clone();
+        this.stateVectorIndex = other.stateVectorIndex;
+    }
+
     /**
      * Sets the PRNG seed
      * @param seed The seed
@@ -45,6 +45,18 @@ public class RNG {
     this.methodHandle = createMethodHandle(this);
   }
 
+  /**
+   * Copies the kind, seed and state of {@code other}, from another session, to this generator.
+   */
+  public void copyFrom(RNG other) {
+    this.RNG_kind = other.RNG_kind;
+    this.N01_kind = other.N01_kind;
+    this.randomseed = other.randomseed;
+    if(other.mersenneTwisterAlg != null) {
+      this.mersenneTwisterAlg = new MersenneTwister(other.mersenneTwisterAlg);
+    }
+  }
+
   @Internal
   public static IntVector RNGkind(@Current Context context, SEXP kindExp, SEXP normalkindExp) {
     RNG rng = context.getSession().rng;  
@@ -132,4 +132,49 @@ public class S3DispatchTest extends EvalTestCase {
 
   }
 
+  @Test
+  public void cachedDispatchSeesNewMethods() {
+    eval("describe <- function(x) UseMethod('describe')");
+    eval("describe.default <- function(x) 'default'");
+    eval("x <- structure(1, class = c('child', 'parent'))");
+    eval("f <- function(x) describe(x)");
+
+    assertThat(eval("f(x)"), equalTo(c("default")));
+
+    eval("describe.parent <- function(x) 'parent'");
+    assertThat(eval("f(x)"), equalTo(c("parent")));
+
+    eval("describe.child <- function(x) 'child'");
+    assertThat(eval("f(x)"), equalTo(c("child")));
+
+    eval("rm(describe.child)");
+    assertThat(eval("f(x)"), equalTo(c("parent")));
+  }
+
+  @Test
+  public void cachedDispatchSeesRegisteredMethods() {
+    eval("ns <- new.env()");
+    eval("assign('.__S3MethodsTable__.', new.env(), envir = ns)");
+    eval("evalq(describe <- function(x) UseMethod('describe'), ns)");
+    eval("evalq(describe.default <- function(x) 'default', ns)");
+    eval("x <- structure(1, class = 'counted')");
+    assertThat(eval("ns$describe(x)"), equalTo(c("default")));
+
+    eval("assign('describe.counted', function(x) 'registered', envir = ns$.__S3MethodsTable__.)");
+    assertThat(eval("ns$describe(x)"), equalTo(c("registered")));
+
+    eval("rm('describe.counted', envir = ns$.__S3MethodsTable__.)");
+    assertThat(eval("ns$describe(x)"), equalTo(c("default")));
+  }
+
+  @Test
+  public void cachedDispatchFromPrimitiveSeesLocalMethods() {
+    eval("x <- structure(1:3, class = 'counted')");
+    eval("f <- function(x) length(x)");
+    assertThat(eval("f(x)"), equalTo(c_i(3)));
+
+    assertThat(eval("local({ length.counted <- function(x) 7L; length(x) })"), equalTo(c_i(7)));
+    assertThat(eval("f(x)"), equalTo(c_i(3)));
+  }
+
 }
@@ -0,0 +1,186 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.eval.Profiler;
+import org.renjin.sexp.Closure;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ClosureCompilerTest extends EvalTestCase {
+
+  @Before
+  public void enableClosureCompiler() {
+    ClosureCompiler.COMPILE_CLOSURES = true;
+  }
+
+  @After
+  public void disableClosureCompiler() {
+    ClosureCompiler.COMPILE_CLOSURES = false;
+  }
+
+  @Test
+  public void hotFunction() {
+    Profiler.ENABLED = true;
+    try {
+      long compiled = Profiler.getClosuresCompiled();
+      long hits = Profiler.getCompileCacheHits();
+
+      eval("f <- function(x, y) x * y + sqrt(x)");
+      eval("s <- 0");
+      eval("for(i in 1:500) s <- s + f(i, 2)");
+
+      assertThat(eval("s"), closeTo(c(257964.53), 0.01));
+
+      // Compiled once, on the first call after the threshold, and reused thereafter
+      assertThat(Profiler.getClosuresCompiled(), equalTo(compiled + 1));
+      assertThat(Profiler.getCompileCacheHits(), equalTo(hits + 500 - ClosureCompiler.COMPILE_THRESHOLD - 1));
+    } finally {
+      Profiler.ENABLED = false;
+    }
+  }
+
+  @Test
+  public void argumentWithUnexpectedTypeIsDeoptimized() {
+    Profiler.ENABLED = true;
+    try {
+      eval("f <- function(x) x * 2");
+      eval("for(i in 1:200) f(i)");
+
+      long deoptimizations = Profiler.getClosureDeoptimizations();
+      long hits = Profiler.getCompileCacheHits();
+
+      // The type of g()'s result cannot be known without calling it, so the compiled
+      // code is used, and falls back to the interpreter once it finds a double
+      eval("calls <- 0");
+      eval("g <- function() { calls <<- calls + 1; 3.5 }");
+
+      assertThat(eval("f(g())"), equalTo(c(7)));
+      assertThat(eval("calls"), equalTo(c(1)));
+      assertThat(Profiler.getCompileCacheHits(), equalTo(hits + 1));
+      assertThat(Profiler.getClosureDeoptimizations(), equalTo(deoptimizations + 1));
+
+      assertThat(eval("f(4L)"), equalTo(c(8)));
+    } finally {
+      Profiler.ENABLED = false;
+    }
+  }
+
+  @Test
+  public void argumentTypesChange() {
+    eval("f <- function(x) x + 1");
+    eval("for(i in 1:200) f(i)");
+
+    assertThat(eval("f(41L)"), equalTo(c(42)));
+    assertThat(eval("f(41.5)"), equalTo(c(42.5)));
+    assertThat(eval("f(c(1, 2))"), equalTo(c(2, 3)));
+  }
+
+  @Test
+  public void lazyArguments() {
+    eval("f <- function(x) x * 2");
+    eval("calls <- 0");
+    eval("g <- function() { calls <<- calls + 1; 3 }");
+    eval("for(i in 1:200) f(g())");
+
+    assertThat(eval("calls"), equalTo(c(200)));
+    assertThat(eval("f(g())"), equalTo(c(6)));
+  }
+
+  @Test
+  public void argumentsAreNotForcedEarly() {
+    eval("g <- function(a) { x <<- 2; a }");
+    eval("for(i in 1:200) { x <- 1; r <- g(x) }");
+
+    assertThat(eval("r"), equalTo(c(2)));
+    eval("x <- 1");
+    assertThat(eval("g(x)"), equalTo(c(2)));
+  }
+
+  @Test
+  public void earlyReturn() {
+    eval("f <- function(x) { y <- x * 2; if(y > 10) return(y); -y }");
+    eval("for(i in 1:200) f(i)");
+
+    assertThat(eval("f(3)"), equalTo(c(-6)));
+    assertThat(eval("f(8)"), equalTo(c(16)));
+  }
+
+  @Test
+  public void recursiveFunction() {
+    eval("fib <- function(n) if(n < 2) n else fib(n - 1) + fib(n - 2)");
+
+    assertThat(eval("fib(15)"), equalTo(c(610)));
+  }
+
+  @Test
+  public void redefinedFunction() {
+    eval("h <- function(x) x * 2");
+    eval("f <- function(x) h(x) + 1");
+    eval("for(i in 1:200) f(i)");
+    eval("h <- function(x) x * 3");
+
+    assertThat(eval("f(2)"), equalTo(c(7)));
+  }
+
+  @Test
+  public void missingArgumentPassedThrough() {
+    eval("g <- function(x) if(missing(x)) 0 else x");
+    eval("f <- function(a) g(a)");
+    eval("for(i in 1:200) f()");
+
+    assertThat(eval("f()"), equalTo(c(0)));
+    assertThat(eval("f(3)"), equalTo(c(3)));
+  }
+
+  @Test
+  public void megamorphicClosureIsAbandoned() {
+    eval("f <- function(x) x[1]");
+    eval("values <- list(1L, 1, TRUE, 1:2, c(1, 2), c(TRUE, FALSE), 1:3, c(1, 2, 3), " +
+        "c(TRUE, FALSE, NA), 1:4, c(1, 2, 3, 4))");
+    eval("for(v in values) for(i in 1:150) f(v)");
+
+    Closure f = (Closure) global.getVariable("f");
+    assertThat(f.isCompilationDisabled(), equalTo(true));
+    assertThat(eval("f(c(5, 6))"), equalTo(c(5)));
+  }
+
+  @Test
+  public void uncompilableClosureIsAbandoned() {
+    eval("f <- function(x) { y <- x; g <- function() y; g() }");
+    eval("for(i in 1:200) f(i)");
+
+    Closure f = (Closure) global.getVariable("f");
+    assertThat(f.isCompilationDisabled(), equalTo(true));
+    assertThat(eval("f(3)"), equalTo(c(3)));
+  }
+
+  @Test
+  public void invisibleResult() {
+    eval("f <- function(x) y <- x * 2");
+    eval("for(i in 1:200) f(i)");
+
+    assertThat(eval("withVisible(f(2))$visible"), equalTo(c(false)));
+  }
+}
@@ -24,13 +24,16 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.eval.Profiler;
 import org.renjin.eval.Session;
 import org.renjin.eval.SessionBuilder;
+import org.renjin.eval.SessionSnapshot;
 import org.renjin.parser.RParser;
 import org.renjin.primitives.special.ForFunction;
 import org.renjin.repackaged.guava.base.Charsets;
 import org.renjin.repackaged.guava.io.Resources;
 import org.renjin.sexp.ExpressionVector;
+import org.renjin.sexp.SEXP;
 
 import java.io.IOException;
 
@@ -112,6 +115,79 @@ public class ForLoopCompilerTest extends EvalTestCase {
     eval("x <- numeric(10000); for(i in seq_along(x)) { y <- x; x[i] <- sqrt(i) }"); 
   }
 
+  @Test
+  public void compiledBodyIsReusedAcrossCalls() {
+    eval(" f <- function(n) { s <- 0; for(i in 1:n) s <- s + sqrt(i); s } ");
+
+    Profiler.ENABLED = true;
+    try {
+      assertThat(eval("f(500)"), closeTo(c(7464.534), 0.01));
+      long hits = Profiler.getCompileCacheHits();
+      long misses = Profiler.getCompileCacheMisses();
+
+      assertThat(eval("f(500)"), closeTo(c(7464.534), 0.01));
+      assertThat(Profiler.getCompileCacheHits(), equalTo(hits + 1));
+      assertThat(Profiler.getCompileCacheMisses(), equalTo(misses));
+
+      assertThat(eval("f(1000)"), closeTo(c(21097.456), 0.01));
+    } finally {
+      Profiler.ENABLED = false;
+    }
+  }
+
+  @Test
+  public void cachedBodyRespectsChangedTypes() {
+    eval(" f <- function(s) { for(i in 1:500) s <- s + sqrt(i); s } ");
+
+    Profiler.ENABLED = true;
+    try {
+      assertThat(eval("f(0)"), closeTo(c(7464.534), 0.01));
+      long misses = Profiler.getCompileCacheMisses();
+
+      assertThat(eval("f(structure(1, foo='bar'))"), closeTo(c(7465.534), 0.01));
+      assertThat(Profiler.getCompileCacheMisses(), equalTo(misses + 1));
+    } finally {
+      Profiler.ENABLED = false;
+    }
+    assertThat(eval("attr(f(structure(1, foo='bar')), 'foo')"), equalTo(c("bar")));
+  }
+
+  @Test
+  public void cachedBodyRespectsRedefinedFunctions() {
+    eval(" f <- function() { s <- 0; for(i in 1:500) s <- s + sqrt(i); s } ");
+
+    assertThat(eval("f()"), closeTo(c(7464.534), 0.01));
+    eval(" sqrt <- function(x) x ");
+    assertThat(eval("f()"), closeTo(c(125250), 0.01));
+  }
+
+  @Test
+  public void compiledBodyIsReusedByForkedSessions() {
+    Session source = new SessionBuilder().build();
+    evaluate(source, "add <- function(x, y) x + y");
+    evaluate(source, "f <- function(n) { s <- 0; for(i in 1:n) s <- add(s, sqrt(i)); s }");
+
+    Profiler.ENABLED = true;
+    try {
+      assertThat(evaluate(source, "f(500)"), closeTo(c(7464.534), 0.01));
+      SessionSnapshot snapshot = source.snapshot();
+
+      // Each fork has its own copy of `add`, but shares its definition, so the loop
+      // must remain compiled well beyond the number of compilations allowed per loop
+      for (int i = 0; i < 2 * CompiledCodeCache.MAX_COMPILATIONS; i++) {
+        Session fork = snapshot.fork();
+        long hits = Profiler.getCompileCacheHits();
+        long misses = Profiler.getCompileCacheMisses();
+
+        assertThat(evaluate(fork, "f(500)"), closeTo(c(7464.534), 0.01));
+        assertThat(Profiler.getCompileCacheHits(), equalTo(hits + 1));
+        assertThat(Profiler.getCompileCacheMisses(), equalTo(misses));
+      }
+    } finally {
+      Profiler.ENABLED = false;
+    }
+  }
+
   @Test
   public void verifyFunctionRedefinitionIsRespected() throws IOException {
     assertThat(eval("{ s <- 0; for(i in 1:10000) { if(i>100) { sqrt <- sin; }; s <- s + sqrt(i) }; s }"), 
@@ -119,4 +195,7 @@ public class ForLoopCompilerTest extends EvalTestCase {
 
   }
 
+  private static SEXP evaluate(Session session, String source) {
+    return session.getTopLevelContext().evaluate(RParser.parseSource(source + "\n"));
+  }
 }
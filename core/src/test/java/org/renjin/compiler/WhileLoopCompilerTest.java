@@ -0,0 +1,94 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.primitives.special.ForFunction;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class WhileLoopCompilerTest extends EvalTestCase {
+
+  @Before
+  public void enableLoopCompiler() {
+    ForFunction.COMPILE_LOOPS = true;
+  }
+
+  @After
+  public void disableLoopCompiler() {
+    ForFunction.COMPILE_LOOPS = false;
+  }
+
+  @Test
+  public void simpleWhile() {
+    eval("i <- 0");
+    eval("s <- 0");
+    eval("while(i < 1000) { i <- i + 1; s <- s + i }");
+
+    assertThat(eval("i"), equalTo(c(1000)));
+    assertThat(eval("s"), equalTo(c(500500)));
+  }
+
+  @Test
+  public void whileNotConverged() {
+    eval("converged <- FALSE");
+    eval("x <- 1");
+    eval("i <- 0");
+    eval("while(!converged) { i <- i + 1; x <- x / 2; converged <- (x < 1e-10) }");
+
+    assertThat(eval("i"), equalTo(c(34)));
+  }
+
+  @Test
+  public void whileWithNext() {
+    eval("i <- 0");
+    eval("s <- 0");
+    eval("while(i < 100) { i <- i + 1; if(i > 10) next; s <- s + i }");
+
+    assertThat(eval("s"), equalTo(c(55)));
+  }
+
+  @Test
+  public void repeatWithBreak() {
+    eval("i <- 0");
+    eval("repeat { i <- i + 1; if(i >= 500) break }");
+
+    assertThat(eval("i"), equalTo(c(500)));
+  }
+
+  @Test
+  public void returnFromWhile() {
+    eval("f <- function() { i <- 0; while(TRUE) { i <- i + 1; if(i > 100) return(i) }; -1 }");
+
+    assertThat(eval("f()"), equalTo(c(101)));
+  }
+
+  @Test
+  public void compiledLoopIsReused() {
+    eval("f <- function(n) { i <- 0; while(i < n) i <- i + 1; i }");
+
+    assertThat(eval("f(100)"), equalTo(c(100)));
+    assertThat(eval("f(200)"), equalTo(c(200)));
+    assertThat(eval("f(300L)"), equalTo(c(300)));
+  }
+}
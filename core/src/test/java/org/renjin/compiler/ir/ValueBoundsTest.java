@@ -20,9 +20,15 @@ package org.renjin.compiler.ir;
 
 import org.junit.Test;
 import org.renjin.repackaged.asm.Type;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.StringArrayVector;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class ValueBoundsTest {
 
@@ -33,6 +39,27 @@ public class ValueBoundsTest {
     
     
   }
+
+  @Test
+  public void typeOf() {
+    ValueBounds bounds = ValueBounds.typeOf(new DoubleArrayVector(1, 2, 3));
+
+    assertFalse(bounds.isConstant());
+    assertFalse(bounds.isLengthConstant());
+    assertTrue(bounds.test(new DoubleArrayVector(4, 5, 6, 7)));
+    assertFalse(bounds.test(new IntArrayVector(4, 5, 6, 7)));
+    assertFalse(bounds.test(new DoubleArrayVector(new double[] { 1, 2 },
+        AttributeMap.builder().setNames(new StringArrayVector("a", "b")).build())));
+  }
+
+  @Test
+  public void typeOfScalar() {
+    ValueBounds bounds = ValueBounds.typeOf(new DoubleArrayVector(1));
+
+    assertThat(bounds.getLength(), equalTo(1));
+    assertTrue(bounds.test(new DoubleArrayVector(42)));
+    assertFalse(bounds.test(new DoubleArrayVector(1, 2)));
+  }
   
   
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.junit.Test;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.parser.RParser;
+import org.renjin.primitives.summary.DeferredMean;
+import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveVectorPipelinerTest {
+
+  @Test
+  public void costIsElementsComputed() {
+    Vector x = new DoubleArrayVector(new double[1000]);
+    DeferredGraph graph = new DeferredGraph(new DeferredSum(x, AttributeMap.EMPTY));
+
+    assertThat(AdaptiveVectorPipeliner.estimateCost(graph), equalTo(1000L));
+  }
+
+  @Test
+  public void sessionOption() {
+    Session session = new SessionBuilder()
+        .withoutBasePackage()
+        .setVectorThreads(2)
+        .build();
+
+    assertThat(session.getVectorEngine(), instanceOf(AdaptiveVectorPipeliner.class));
+  }
+
+  @Test
+  public void serialByDefault() {
+    Session session = new SessionBuilder()
+        .withoutBasePackage()
+        .build();
+
+    assertThat(session.getVectorEngine(), instanceOf(SimpleVectorPipeliner.class));
+  }
+
+  @Test
+  public void smallAndLargeGraphs() {
+    AdaptiveVectorPipeliner pipeliner = new AdaptiveVectorPipeliner(4, 500);
+    double[] values = new double[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i;
+    }
+    Vector small = new DoubleArrayVector(values, 100, AttributeMap.EMPTY);
+    Vector large = new DoubleArrayVector(values);
+
+    assertEquals(4950, pipeliner.materialize(new DeferredSum(small, AttributeMap.EMPTY)).getElementAsDouble(0), 0);
+    assertEquals(499.5, pipeliner.materialize(new DeferredMean(large, AttributeMap.EMPTY)).getElementAsDouble(0), 1e-9);
+  }
+
+  @Test
+  public void independentSummaries() {
+    Session session = new SessionBuilder()
+        .setVectorThreads(4)
+        .setParallelThreshold(1000)
+        .build();
+
+    SEXP result = session.getTopLevelContext().materialize(session.getTopLevelContext().evaluate(
+        RParser.parseSource("x <- seq(0, 1, length.out = 100000)\nmean(sqrt(x)) + mean(x * 2)\n")));
+
+    assertEquals(2d / 3d + 1d, ((Vector) result).getElementAsDouble(0), 1e-4);
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.renjin.primitives.combine.view.CombinedDoubleVector;
+import org.renjin.primitives.vector.ConvertingDoubleVector;
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.Vector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of building and optimizing a {@link DeferredGraph} as
+ * the number of nodes grows. Construction time should grow linearly with {@code size}.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.renjin.compiler.pipeline.DeferredGraphBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xss16m")
+public class DeferredGraphBenchmark {
+
+  @Param({"100", "1000", "4000"})
+  public int size;
+
+  /**
+   * A long chain of computations, each combining the previous result with a small constant
+   */
+  private DeferredComputation deep;
+
+  /**
+   * A single computation with many structurally equivalent, but distinct, operands
+   */
+  private DeferredComputation wide;
+
+  @Setup
+  public void setup() {
+    Vector x = new DoubleArrayVector(new double[1000]);
+
+    Vector vector = x;
+    for (int i = 0; i < size; i++) {
+      vector = combine(new ConvertingDoubleVector(vector), new DoubleArrayVector(i % 10));
+    }
+    deep = (DeferredComputation) vector;
+
+    Vector[] operands = new Vector[size];
+    for (int i = 0; i < size; i++) {
+      operands[i] = new ConvertingDoubleVector(new ConvertingDoubleVector(x));
+    }
+    wide = combine(operands);
+  }
+
+  @Benchmark
+  public DeferredGraph deepGraph() {
+    return new DeferredGraph(deep);
+  }
+
+  @Benchmark
+  public DeferredGraph wideGraph() {
+    return new DeferredGraph(wide);
+  }
+
+  private static DeferredComputation combine(Vector... vectors) {
+    return (DeferredComputation) CombinedDoubleVector.combine(vectors, AttributeMap.EMPTY);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(DeferredGraphBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.junit.Test;
+import org.renjin.primitives.combine.view.CombinedDoubleVector;
+import org.renjin.primitives.vector.ConvertingDoubleVector;
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.Vector;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class DeferredGraphTest {
+
+  private final Vector x = new DoubleArrayVector(new double[100]);
+
+  @Test
+  public void equivalentComputationsAreMerged() {
+    DeferredComputation root = combine(new ConvertingDoubleVector(x), new ConvertingDoubleVector(x));
+
+    DeferredGraph graph = new DeferredGraph(root);
+
+    assertThat(graph.getNodes().size(), equalTo(3));
+    assertThat(graph.getRoot().getOperand(0), sameInstance(graph.getRoot().getOperand(1)));
+  }
+
+  @Test
+  public void equalScalarsAreMerged() {
+    DeferredComputation root = combine(
+        new DoubleArrayVector(1), new DoubleArrayVector(1), new DoubleArrayVector(2), new DoubleArrayVector(Double.NaN),
+        new DoubleArrayVector(Double.NaN));
+
+    DeferredGraph graph = new DeferredGraph(root);
+
+    assertThat(graph.getNodes().size(), equalTo(4));
+  }
+
+  @Test
+  public void largeVectorsAreNotMerged() {
+    DeferredComputation root = combine(
+        new DoubleArrayVector(new double[100]),
+        new DoubleArrayVector(new double[100]));
+
+    DeferredGraph graph = new DeferredGraph(root);
+
+    assertThat(graph.getNodes().size(), equalTo(3));
+  }
+
+  @Test
+  public void deepGraph() {
+    Vector vector = x;
+    for (int i = 0; i < 1000; i++) {
+      vector = combine(new ConvertingDoubleVector(vector), new DoubleArrayVector(i % 10));
+    }
+
+    DeferredGraph graph = new DeferredGraph((DeferredComputation) vector);
+
+    // 1000 levels of combine + convert, the 10 distinct scalars, and x
+    assertThat(graph.getNodes().size(), equalTo(2000 + 10 + 1));
+  }
+
+  private static DeferredComputation combine(Vector... vectors) {
+    return (DeferredComputation) CombinedDoubleVector.combine(vectors, AttributeMap.EMPTY);
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.renjin.primitives.summary.DeferredMean;
+import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.repackaged.guava.io.Files;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.Vector;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DeferredJitCacheTest {
+
+  private File directory;
+
+  @Before
+  public void setUp() {
+    directory = Files.createTempDir();
+  }
+
+  @Test
+  public void classesAreReusedAcrossCaches() {
+    DeferredNode node = sumNode(new DoubleArrayVector(1, 2, 3));
+
+    new DeferredJitCache(directory).compile(node);
+
+    File[] files = directory.listFiles();
+    assertThat(files.length, equalTo(1));
+    long lastModified = files[0].lastModified();
+
+    // A new cache, as in a new JVM, should load the stored class
+    JittedComputation computation = new DeferredJitCache(directory).compile(node);
+
+    assertThat(((double[]) computation.compute(node.flattenVectors()))[0], equalTo(6d));
+    assertThat(directory.listFiles().length, equalTo(1));
+    assertThat(directory.listFiles()[0].lastModified(), equalTo(lastModified));
+  }
+
+  @Test
+  public void classNamesAreDistinctPerKey() {
+    PersistentJitCache cache = new PersistentJitCache(directory);
+
+    String doubleSum = cache.className(sumNode(new DoubleArrayVector(1, 2)).jitKey());
+    String intSum = cache.className(sumNode(new IntArrayVector(1, 2)).jitKey());
+    String doubleMean = cache.className(new DeferredGraph(
+        new DeferredMean(new DoubleArrayVector(1, 2), AttributeMap.EMPTY)).getRoot().jitKey());
+
+    assertThat(doubleSum, equalTo(cache.className(sumNode(new DoubleArrayVector(4, 5, 6)).jitKey())));
+    assertThat(doubleSum, not(equalTo(intSum)));
+    assertThat(doubleSum, not(equalTo(doubleMean)));
+  }
+
+  @Test
+  public void invalidEntriesAreReplaced() throws IOException {
+    DeferredNode node = sumNode(new DoubleArrayVector(1, 2, 3));
+
+    PersistentJitCache persistentCache = new PersistentJitCache(directory);
+    String className = persistentCache.className(node.jitKey());
+    persistentCache.write(className, new byte[] { 1, 2, 3 });
+
+    JittedComputation computation = new DeferredJitCache(directory).compile(node);
+
+    assertThat(((double[]) computation.compute(node.flattenVectors()))[0], equalTo(6d));
+    assertTrue(persistentCache.read(className).length > 3);
+  }
+
+  @Test
+  public void fingerprintChangesWithJitterBytecode() throws IOException {
+    File packageDir = new File(directory, "org/renjin/compiler/pipeline/accessor");
+    assertTrue(packageDir.mkdirs());
+    Files.write(new byte[] { 1, 2, 3 }, new File(directory, "org/renjin/compiler/pipeline/SumJitter.class"));
+    File accessor = new File(packageDir, "Accessor.class");
+    Files.write(new byte[] { 4, 5, 6 }, accessor);
+
+    String before = PersistentJitCache.hashJitterClasses(directory);
+    assertThat(PersistentJitCache.hashJitterClasses(directory), equalTo(before));
+
+    Files.write(new byte[] { 4, 5, 7 }, accessor);
+    assertThat(PersistentJitCache.hashJitterClasses(directory), not(equalTo(before)));
+  }
+
+  private static DeferredNode sumNode(Vector x) {
+    return new DeferredGraph(new DeferredSum(x, AttributeMap.EMPTY)).getRoot();
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.junit.Test;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.parser.RParser;
+import org.renjin.primitives.matrix.DeferredRowMeans;
+import org.renjin.primitives.summary.DeferredMean;
+import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class ForkJoinVectorPipelinerTest {
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  private final ForkJoinVectorPipeliner pipeliner = new ForkJoinVectorPipeliner(pool, 16);
+
+  private final DoubleArrayVector x = randomVector(7 * 143);
+
+  @Test
+  public void sum() {
+    Vector expected = new SimpleVectorPipeliner().materialize(new DeferredSum(x, AttributeMap.EMPTY));
+    Vector actual = pipeliner.materialize(new DeferredSum(x, AttributeMap.EMPTY));
+
+    assertEquals(expected.getElementAsDouble(0), actual.getElementAsDouble(0), 1e-9);
+  }
+
+  @Test
+  public void mean() {
+    Vector expected = new SimpleVectorPipeliner().materialize(new DeferredMean(x, AttributeMap.EMPTY));
+    Vector actual = pipeliner.materialize(new DeferredMean(x, AttributeMap.EMPTY));
+
+    assertEquals(expected.getElementAsDouble(0), actual.getElementAsDouble(0), 1e-12);
+  }
+
+  @Test
+  public void rowMeans() {
+    Vector expected = new SimpleVectorPipeliner().materialize(new DeferredRowMeans(x, 7, AttributeMap.EMPTY));
+    Vector actual = pipeliner.materialize(new DeferredRowMeans(x, 7, AttributeMap.EMPTY));
+
+    assertThat(actual.length(), equalTo(7));
+    for (int i = 0; i < 7; i++) {
+      assertEquals(expected.getElementAsDouble(i), actual.getElementAsDouble(i), 1e-12);
+    }
+  }
+
+  @Test
+  public void smallInputsAreComputedSequentially() {
+    DoubleArrayVector small = randomVector(20);
+    Vector expected = new SimpleVectorPipeliner().materialize(new DeferredSum(small, AttributeMap.EMPTY));
+    Vector actual = pipeliner.materialize(new DeferredSum(small, AttributeMap.EMPTY));
+
+    assertThat(actual.getElementAsDouble(0), equalTo(expected.getElementAsDouble(0)));
+  }
+
+  @Test
+  public void fromSession() {
+    Session session = new SessionBuilder()
+        .setVectorPipeliner(pipeliner)
+        .build();
+
+    SEXP result = session.getTopLevelContext().materialize(session.getTopLevelContext().evaluate(
+        RParser.parseSource("x <- seq(0, 1, length.out = 100000)\nmean(sqrt(x) * 2)\n")));
+
+    assertEquals(4d / 3d, ((Vector) result).getElementAsDouble(0), 1e-4);
+  }
+
+  private static DoubleArrayVector randomVector(int length) {
+    Random random = new Random(42);
+    double[] values = new double[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = random.nextDouble();
+    }
+    return new DoubleArrayVector(values);
+  }
+}
@@ -0,0 +1,199 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler.pipeline;
+
+import org.junit.Test;
+import org.renjin.primitives.matrix.DeferredColMeans;
+import org.renjin.primitives.matrix.DeferredColSums;
+import org.renjin.primitives.matrix.DeferredRowSums;
+import org.renjin.primitives.summary.*;
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.LogicalArrayVector;
+import org.renjin.sexp.Vector;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the jitted summaries, computed both serially and in parallel chunks, agree
+ * with the interpreted implementations.
+ */
+public class ReductionJitterTest {
+
+  private final ForkJoinVectorPipeliner parallel = new ForkJoinVectorPipeliner(new ForkJoinPool(4), 16);
+
+  private final DoubleArrayVector x = randomVector(7 * 143);
+
+  @Test
+  public void prod() {
+    check(new DeferredProd(x, AttributeMap.EMPTY), new DeferredProd(x, AttributeMap.EMPTY),
+        new DeferredProd(x, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void min() {
+    check(new DeferredMin(x, AttributeMap.EMPTY), new DeferredMin(x, AttributeMap.EMPTY),
+        new DeferredMin(x, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void max() {
+    check(new DeferredMax(x, AttributeMap.EMPTY), new DeferredMax(x, AttributeMap.EMPTY),
+        new DeferredMax(x, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void range() {
+    check(new DeferredRange(x, AttributeMap.EMPTY), new DeferredRange(x, AttributeMap.EMPTY),
+        new DeferredRange(x, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void var() {
+    check(new DeferredVar(x, AttributeMap.EMPTY), new DeferredVar(x, AttributeMap.EMPTY),
+        new DeferredVar(x, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void rowSums() {
+    check(new DeferredRowSums(x, 7, AttributeMap.EMPTY), new DeferredRowSums(x, 7, AttributeMap.EMPTY),
+        new DeferredRowSums(x, 7, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void colSums() {
+    check(new DeferredColSums(x, 7, AttributeMap.EMPTY), new DeferredColSums(x, 7, AttributeMap.EMPTY),
+        new DeferredColSums(x, 7, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void colMeans() {
+    check(new DeferredColMeans(x, 7, AttributeMap.EMPTY), new DeferredColMeans(x, 7, AttributeMap.EMPTY),
+        new DeferredColMeans(x, 7, AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void integerSum() {
+    int[] values = new int[x.length()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (int) (x.getElementAsDouble(i) * 1000);
+    }
+    IntArrayVector y = new IntArrayVector(values);
+
+    check(new DeferredIntSum(y, AttributeMap.EMPTY), new DeferredIntSum(y, AttributeMap.EMPTY),
+        new DeferredIntSum(y, AttributeMap.EMPTY));
+
+    values[600] = IntVector.NA;
+    IntArrayVector z = new IntArrayVector(values);
+    assertTrue(IntVector.isNA(parallel.materialize(new DeferredIntSum(z, AttributeMap.EMPTY)).getElementAsInt(0)));
+  }
+
+  @Test
+  public void integerSumOverflow() {
+    int[] values = new int[x.length()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i <= values.length / 2 ? 200000000 : -200000000;
+    }
+    IntArrayVector y = new IntArrayVector(values);
+
+    // the partial sums overflow, but the total does not
+    check(new DeferredIntSum(y, AttributeMap.EMPTY), new DeferredIntSum(y, AttributeMap.EMPTY),
+        new DeferredIntSum(y, AttributeMap.EMPTY));
+
+    DeferredIntSum sum = new DeferredIntSum(y, AttributeMap.EMPTY);
+    parallel.materialize(sum);
+    assertThat(sum.takeWarning(), nullValue());
+
+    Arrays.fill(values, 200000000);
+    IntArrayVector z = new IntArrayVector(values);
+    DeferredIntSum overflowed = new DeferredIntSum(z, AttributeMap.EMPTY);
+
+    assertTrue(IntVector.isNA(parallel.materialize(overflowed).getElementAsInt(0)));
+    assertThat(overflowed.takeWarning(), equalTo("Integer overflow - use sum(as.numeric(.))"));
+    assertThat(overflowed.takeWarning(), nullValue());
+  }
+
+  @Test
+  public void logicalSum() {
+    int[] values = new int[x.length()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = x.getElementAsDouble(i) > 1 ? 1 : 0;
+    }
+    LogicalArrayVector y = new LogicalArrayVector(values);
+
+    Vector result = parallel.materialize(new DeferredIntSum(y, AttributeMap.EMPTY));
+
+    assertThat(result, instanceOf(IntVector.class));
+    assertThat(result.getElementAsInt(0), equalTo(new DeferredIntSum(y, AttributeMap.EMPTY).getElementAsInt(0)));
+  }
+
+  @Test
+  public void missingValues() {
+    double[] values = x.toDoubleArray();
+    values[500] = Double.NaN;
+    values[900] = DoubleVector.NA;
+    DoubleArrayVector y = new DoubleArrayVector(values);
+
+    assertTrue(DoubleVector.isNA(parallel.materialize(new DeferredMin(y, AttributeMap.EMPTY)).getElementAsDouble(0)));
+    assertTrue(DoubleVector.isNA(parallel.materialize(new DeferredMax(y, AttributeMap.EMPTY)).getElementAsDouble(0)));
+    assertTrue(DoubleVector.isNA(parallel.materialize(new DeferredVar(y, AttributeMap.EMPTY)).getElementAsDouble(0)));
+
+    Vector colSums = parallel.materialize(new DeferredColSums(y, 7, AttributeMap.EMPTY));
+    assertTrue(DoubleVector.isNA(colSums.getElementAsDouble(500 / 7)));
+    assertTrue(DoubleVector.isNA(colSums.getElementAsDouble(900 / 7)));
+    assertThat(DoubleVector.isNA(colSums.getElementAsDouble(0)), equalTo(false));
+  }
+
+  private void check(Vector interpreted, Vector serial, Vector parallel) {
+    Vector expected = ((MemoizedComputation) interpreted).forceResult();
+    Vector serialResult = new SimpleVectorPipeliner().materialize((MemoizedComputation) serial);
+    Vector parallelResult = this.parallel.materialize((MemoizedComputation) parallel);
+
+    assertThat(serialResult.length(), equalTo(expected.length()));
+    assertThat(parallelResult.length(), equalTo(expected.length()));
+
+    for (int i = 0; i < expected.length(); i++) {
+      double tolerance = Math.abs(expected.getElementAsDouble(i)) * 1e-12;
+      assertEquals(expected.getElementAsDouble(i), serialResult.getElementAsDouble(i), tolerance);
+      assertEquals(expected.getElementAsDouble(i), parallelResult.getElementAsDouble(i), tolerance);
+    }
+  }
+
+  private static DoubleArrayVector randomVector(int length) {
+    Random random = new Random(42);
+    double[] values = new double[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = 0.5 + random.nextDouble();
+    }
+    return new DoubleArrayVector(values);
+  }
+}
@@ -23,12 +23,18 @@ import org.junit.Test;
 import org.renjin.EvalTestCase;
 import org.renjin.primitives.matrix.TransposingMatrix;
 import org.renjin.primitives.sequence.DoubleSequence;
+import org.renjin.primitives.vector.DeferredComputation;
 import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.LogicalBitSetVector;
+import org.renjin.sexp.LogicalVector;
 import org.renjin.sexp.Symbols;
 import org.renjin.sexp.Vector;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class SimplifyTest extends EvalTestCase {
 
@@ -46,4 +52,23 @@ public class SimplifyTest extends EvalTestCase {
     assertThat(xts.getAttribute(Symbols.DIM), equalTo(c_i(40,200)));
   }
 
+  @Test
+  public void deferredLogicalIsPacked() {
+    eval(" x <- as.double(1:1e5) ");
+    eval(" x[10] <- NA ");
+    eval(" y <- x %% 7 ");
+
+    LogicalVector filter = (LogicalVector) eval("x > 500 & y < 3");
+    assertTrue(filter.isDeferred());
+
+    Vector packed = new SimpleVectorPipeliner().simplify((DeferredComputation) filter);
+
+    assertThat(packed, instanceOf(LogicalBitSetVector.class));
+    assertThat(packed.length(), equalTo(filter.length()));
+    for (int i = 0; i < filter.length(); i++) {
+      assertThat(((LogicalVector) packed).getElementAsRawLogical(i), equalTo(filter.getElementAsRawLogical(i)));
+    }
+    assertTrue(IntVector.isNA(((LogicalVector) packed).getElementAsRawLogical(9)));
+  }
+
 }
@@ -0,0 +1,137 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.junit.Test;
+import org.renjin.parser.RParser;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.LogicalVector;
+import org.renjin.sexp.SEXP;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SessionSnapshotTest {
+
+  @Test
+  public void forksAreIndependent() {
+    Session source = new SessionBuilder().build();
+    evaluate(source, "x <- 1:3");
+    evaluate(source, "f <- function() sum(x)");
+
+    SessionSnapshot snapshot = source.snapshot();
+    evaluate(source, "x <- 100");
+
+    Session first = snapshot.fork();
+    Session second = snapshot.fork();
+    evaluate(first, "x <- 42");
+
+    assertThat(evaluateDouble(first, "f()"), equalTo(42d));
+    assertThat(evaluateDouble(second, "f()"), equalTo(6d));
+    assertThat(evaluateDouble(source, "f()"), equalTo(100d));
+    assertTrue(isTrue(second, "identical(environment(f), globalenv())"));
+  }
+
+  @Test
+  public void baseFunctionsBelongToFork() {
+    Session source = new SessionBuilder().build();
+    Session fork = source.snapshot().fork();
+
+    evaluate(fork, "assign('paste', function(...) 'masked', envir = .BaseNamespaceEnv)");
+
+    assertTrue(isTrue(fork, "identical(environment(paste0), .BaseNamespaceEnv)"));
+    assertTrue(isTrue(fork, "paste('a', 'b') == 'masked'"));
+    assertTrue(isTrue(source, "paste('a', 'b') == 'a b'"));
+  }
+
+  @Test
+  public void forkDoesNotInvalidateCachedLookups() {
+    Session source = new SessionBuilder().build();
+    evaluate(source, "f <- function(x) paste(x, 'y')");
+    evaluate(source, "f('x')");
+    SessionSnapshot snapshot = source.snapshot();
+
+    Environment.FunctionBindingsVersion bindingsVersion = source.getGlobalEnvironment().getFunctionBindingsVersion();
+    int version = bindingsVersion.get();
+    Session fork = snapshot.fork();
+
+    assertThat(bindingsVersion.get(), equalTo(version));
+    assertTrue(isTrue(fork, "f('x') == 'x y'"));
+  }
+
+  @Test
+  public void functionBindingsVersionIsPerSession() {
+    Session source = new SessionBuilder().build();
+    evaluate(source, "f <- function(x) paste(x, 'y')");
+    evaluate(source, "f('x')");
+    Session fork = source.snapshot().fork();
+    evaluate(fork, "f('x')");
+
+    Environment.FunctionBindingsVersion bindingsVersion = source.getGlobalEnvironment().getFunctionBindingsVersion();
+    int version = bindingsVersion.get();
+    evaluate(fork, "paste <- function(...) 'masked'");
+
+    assertThat(bindingsVersion.get(), equalTo(version));
+    assertTrue(isTrue(fork, "f('x') == 'masked'"));
+    assertTrue(isTrue(source, "f('x') == 'x y'"));
+  }
+
+  @Test
+  public void optionsAreCopied() {
+    Session source = new SessionBuilder().build();
+    evaluate(source, "options(digits = 3, my.option = 'x')");
+
+    Session fork = source.snapshot().fork();
+
+    assertThat(evaluateDouble(fork, "getOption('digits')"), equalTo(3d));
+    assertTrue(isTrue(fork, "identical(getOption('my.option'), 'x')"));
+  }
+
+  @Test
+  public void randomNumberGeneratorStateIsCopied() {
+    Session source = new SessionBuilder().build();
+    evaluate(source, "set.seed(42); sample(1000, 5)");
+
+    SessionSnapshot snapshot = source.snapshot();
+    int[] expected = sample(source);
+
+    assertArrayEquals(expected, sample(snapshot.fork()));
+    assertArrayEquals(expected, sample(snapshot.fork()));
+  }
+
+  private static SEXP evaluate(Session session, String expression) {
+    return session.getTopLevelContext().evaluate(RParser.parseSource(expression + "\n"));
+  }
+
+  private static int[] sample(Session session) {
+    return ((IntVector) evaluate(session, "sample(1000, 3)")).toIntArray();
+  }
+
+  private static double evaluateDouble(Session session, String expression) {
+    return ((DoubleVector) evaluate(session, "as.double(" + expression + ")")).getElementAsDouble(0);
+  }
+
+  private static boolean isTrue(Session session, String expression) {
+    return ((LogicalVector) evaluate(session, expression)).isElementTrue(0);
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.invoke.reflection;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.sexp.SEXP;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+
+public class FunctionBindingTest extends EvalTestCase {
+
+  public static class Counter {
+    public int count;
+
+    public String add(int n) {
+      count += n;
+      return "added " + n;
+    }
+
+    public static double half(double x) {
+      return x / 2;
+    }
+
+    public void fail() {
+      throw new IllegalStateException("failed");
+    }
+  }
+
+  @Test
+  public void reflectiveInstanceMethod() throws NoSuchMethodException {
+    FunctionBinding.Overload add = new FunctionBinding.Overload(Counter.class.getMethod("add", int.class), true);
+
+    Counter counter = new Counter();
+    SEXP result = add.invoke(topLevelContext, counter, Collections.singletonList(c_i(3)));
+
+    assertThat(result, equalTo(c("added 3")));
+    assertThat(counter.count, equalTo(3));
+  }
+
+  @Test
+  public void reflectiveStaticMethod() throws NoSuchMethodException {
+    FunctionBinding.Overload half = new FunctionBinding.Overload(Counter.class.getMethod("half", double.class), true);
+
+    assertThat(half.invoke(topLevelContext, null, Arrays.asList(c(3))), equalTo(c(1.5)));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void reflectiveExceptionIsUnwrapped() throws NoSuchMethodException {
+    FunctionBinding.Overload fail = new FunctionBinding.Overload(Counter.class.getMethod("fail"), true);
+
+    fail.invoke(topLevelContext, new Counter(), Collections.<SEXP>emptyList());
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.packaging;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.parser.RParser;
+import org.renjin.sexp.Closure;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.LogicalVector;
+import org.renjin.sexp.SEXP;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class NamespaceImageTest {
+
+  @Before
+  public void enableImages() {
+    NamespaceImage.ENABLED = true;
+  }
+
+  @After
+  public void disableImages() {
+    NamespaceImage.ENABLED = false;
+  }
+
+  @Test
+  public void sessionsShareFunctionBodies() {
+    Session first = new SessionBuilder().build();
+    Session second = new SessionBuilder().build();
+
+    Closure firstPaste = (Closure) first.getBaseEnvironment().getVariable("paste");
+    Closure secondPaste = (Closure) second.getBaseEnvironment().getVariable("paste");
+
+    assertThat(firstPaste, not(sameInstance(secondPaste)));
+    assertThat(firstPaste.getBody(), sameInstance(secondPaste.getBody()));
+    assertThat(firstPaste.getEnclosingEnvironment(), sameInstance(first.getBaseNamespaceEnv()));
+    assertThat(secondPaste.getEnclosingEnvironment(), sameInstance(second.getBaseNamespaceEnv()));
+  }
+
+  @Test
+  public void environmentsAreCopiedForEachSession() {
+    Session first = new SessionBuilder().build();
+    Session second = new SessionBuilder().build();
+
+    // .GenericArgsEnv is only deserialized when it is first forced
+    Environment firstEnv = (Environment) evaluate(first, ".GenericArgsEnv");
+    Environment secondEnv = (Environment) evaluate(second, ".GenericArgsEnv");
+
+    assertThat(firstEnv, not(sameInstance(secondEnv)));
+    assertTrue(isTrue(first, "identical(.BaseNamespaceEnv, environment(paste))"));
+    assertTrue(isTrue(second, "identical(.BaseNamespaceEnv, environment(paste))"));
+  }
+
+  @Test
+  public void sessionsEvaluateIndependently() {
+    Session first = new SessionBuilder().build();
+    Session second = new SessionBuilder().build();
+
+    evaluate(first, "assign('paste', function(...) 'masked', envir = .BaseNamespaceEnv)");
+
+    assertTrue(isTrue(first, "paste('a', 'b') == 'masked'"));
+    assertTrue(isTrue(second, "paste('a', 'b') == 'a b'"));
+  }
+
+  private static SEXP evaluate(Session session, String expression) {
+    return session.getTopLevelContext().evaluate(RParser.parseSource(expression + "\n"));
+  }
+
+  private static boolean isTrue(Session session, String expression) {
+    return ((LogicalVector) evaluate(session, expression)).isElementTrue(0);
+  }
+}
@@ -20,6 +20,8 @@ package org.renjin.primitives;
 
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.eval.EvalException;
+import org.renjin.sexp.DoubleVector;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -37,4 +39,122 @@ public class AssignmentTest extends EvalTestCase {
     eval(" x <- 1");
     assertThat( eval("x"), equalTo( c(1) ));
   }
+
+  @Test
+  public void replaceElementsInLoop() throws Exception {
+    eval("x <- c(0, 0, 0, 0)");
+    eval("for(i in 1:4) x[i] <- i * 2");
+    assertThat( eval("x"), equalTo( c(2, 4, 6, 8) ));
+  }
+
+  @Test
+  public void replaceElementPreservesAlias() throws Exception {
+    eval("x <- c(1, 2, 3)");
+    eval("x[1] <- 10");
+    eval("y <- x");
+    eval("x[2] <- 20");
+    eval("x[[3]] <- 30");
+    assertThat( eval("x"), equalTo( c(10, 20, 30) ));
+    assertThat( eval("y"), equalTo( c(10, 2, 3) ));
+  }
+
+  @Test
+  public void replaceElementPreservesListElement() throws Exception {
+    eval("x <- c(1L, 2L)");
+    eval("x[1] <- 10L");
+    eval("l <- list(x)");
+    eval("x[2] <- 20L");
+    assertThat( eval("x"), equalTo( c_i(10, 20) ));
+    assertThat( eval("l[[1]]"), equalTo( c_i(10, 2) ));
+  }
+
+  @Test
+  public void replaceElementPreservesCallerArgument() throws Exception {
+    eval("f <- function(v) { for(i in seq_along(v)) v[i] <- 0; v }");
+    eval("x <- c(1, 2, 3)");
+    assertThat( eval("f(x)"), equalTo( c(0, 0, 0) ));
+    assertThat( eval("x"), equalTo( c(1, 2, 3) ));
+  }
+
+  @Test
+  public void replaceElementPreservesCapturedValue() throws Exception {
+    eval("f <- function() { x <- c(1, 2); x[1] <- 5; g <- function() x; x[2] <- 6; list(g, x) }");
+    eval("r <- f()");
+    assertThat( eval("r[[1]]()"), equalTo( c(5, 6) ));
+    assertThat( eval("r[[2]]"), equalTo( c(5, 6) ));
+  }
+
+  @Test
+  public void replaceElementAfterRead() throws Exception {
+    eval("x <- c(TRUE, TRUE)");
+    eval("x[1] <- FALSE");
+    eval("f <- function(a) function() a");
+    eval("g <- f(x)");
+    eval("g()");
+    eval("x[2] <- FALSE");
+    assertThat( eval("g()"), equalTo( c(false, true) ));
+    assertThat( eval("x"), equalTo( c(false, false) ));
+  }
+
+  @Test
+  public void replaceMatrixElement() throws Exception {
+    eval("m <- matrix(0, nrow = 2, ncol = 3)");
+    eval("for(i in 1:2) for(j in 1:3) m[i, j] <- i * 10 + j");
+    eval("m2 <- m");
+    eval("m[[2, 3]] <- 0");
+    assertThat( eval("as.vector(m)"), equalTo( c(11, 21, 12, 22, 13, 0) ));
+    assertThat( eval("m2[2, 3]"), equalTo( c(23) ));
+    assertThat( eval("dim(m)"), equalTo( c_i(2, 3) ));
+  }
+
+  @Test
+  public void replaceListElements() throws Exception {
+    eval("l <- list(a = 1, b = 'x')");
+    eval("l$a <- 2");
+    eval("l2 <- l");
+    eval("l$b <- c('y', 'z')");
+    eval("l[['a']] <- 3");
+    eval("l[1] <- list(NULL)");
+    assertThat( eval("l$b"), equalTo( c("y", "z") ));
+    assertThat( eval("is.null(l[[1]])"), equalTo( c(true) ));
+    assertThat( eval("l2"), equalTo( list(2d, "x") ));
+    assertThat( eval("names(l)"), equalTo( c("a", "b") ));
+  }
+
+  @Test
+  public void replaceElementWithCoercion() throws Exception {
+    eval("x <- c(1L, 2L, 3L)");
+    eval("x[1] <- 4L");
+    eval("x[2] <- 2.5");
+    eval("x[5] <- 1");
+    eval("s <- c('a', 'b')");
+    eval("s[1] <- 'c'");
+    eval("s[2] <- 1");
+    assertThat( eval("x"), equalTo( c(4, 2.5, 3, DoubleVector.NA, 1) ));
+    assertThat( eval("s"), equalTo( c("c", "1") ));
+  }
+
+  @Test
+  public void replaceElementOfObject() throws Exception {
+    eval("x <- structure(c(1, 2), class = 'foo')");
+    eval("`[<-.foo` <- function(x, i, value) { x <- unclass(x); x[i] <- value * 100; x }");
+    eval("x[1] <- 2");
+    assertThat( eval("x"), equalTo( c(200, 2) ));
+  }
+
+  @Test
+  public void superAssignmentReplacesElementInParent() throws Exception {
+    eval("x <- c(1, 2)");
+    eval("f <- function() { x <- c(0, 0); g <- function() x[1] <<- 9; g(); x }");
+    assertThat( eval("f()"), equalTo( c(9, 0) ));
+    assertThat( eval("x"), equalTo( c(1, 2) ));
+  }
+
+  @Test(expected = EvalException.class)
+  public void replaceElementOfLockedBinding() throws Exception {
+    eval("x <- c(1, 2)");
+    eval("x[1] <- 3");
+    eval("lockBinding('x', environment())");
+    eval("x[2] <- 4");
+  }
 }
@@ -927,5 +927,76 @@ public class EvaluationTest extends EvalTestCase {
     eval("f <- function(x = NULL) g(y = x)");
     assertThat(eval("f()"), equalTo(c(false)));
   }
-}
 
+  @Test
+  public void cachedFunctionLookupIsInvalidatedByShadowing() {
+    eval("f <- function(x) length(x)");
+    assertThat(eval("f(1:3)"), equalTo(c_i(3)));
+
+    eval("length <- function(x) 42L");
+    assertThat(eval("f(1:3)"), equalTo(c_i(42)));
+
+    eval("rm(length)");
+    assertThat(eval("f(1:3)"), equalTo(c_i(3)));
+
+    eval("length <- 99");
+    assertThat(eval("f(1:3)"), equalTo(c_i(3)));
+  }
+
+  @Test
+  public void cachedFunctionLookupDependsOnEnclosure() {
+    eval("make <- function(g) function(x) g(x)");
+    eval("calls <- lapply(1:3, function(i) make(function(x) x + i))");
+    assertThat(eval("sapply(calls, function(call) call(10))"), equalTo(c(11, 12, 13)));
+
+    eval("add <- function(x) x + 1");
+    eval("k <- function(x) add(x)");
+    assertThat(eval("k(1)"), equalTo(c(2)));
+    eval("environment(k) <- list2env(list(add = function(x) x - 1))");
+    assertThat(eval("k(1)"), equalTo(c(0)));
+  }
+
+  @Test
+  public void lapplyClosureSeesUnevaluatedCall() {
+    eval("f <- function(x, ...) list(substitute(x), sys.call(), x + sum(...))");
+    eval("r <- lapply(c(a = 1, b = 2), f, 10, 20)");
+    assertThat(eval("names(r)"), equalTo(c("a", "b")));
+    assertThat(eval("r$b[[3]]"), equalTo(c(32)));
+    assertThat(eval("r$b[[1]][[3]]"), equalTo(c_i(2)));
+    assertThat(eval("identical(r$a[[2]][[3]], quote(...))"), equalTo(c(true)));
+  }
+
+  @Test
+  public void lapplyOverClassedList() {
+    eval("`[[.wrapped` <- function(x, i) unclass(x)[[i]] * 100");
+    eval("x <- structure(list(1, 2), class = 'wrapped')");
+    eval("g <- function(X, FUN, ...) .Internal(lapply(X, FUN))");
+    assertThat(eval("g(x, function(e) e + 1)"), equalTo(list(101d, 201d)));
+  }
+
+  @Test
+  public void lapplyWithChangingArgumentNames() {
+    eval("f <- function(x, y = 0, ...) x + y");
+    eval("g <- function(...) .Internal(lapply(1:2, f))");
+    assertThat(eval("g()"), equalTo(list(1d, 2d)));
+    assertThat(eval("g(y = 10)"), equalTo(list(11d, 12d)));
+    assertThat(eval("g(100)"), equalTo(list(101d, 102d)));
+  }
+
+  @Test
+  public void mapplyClosure() {
+    eval("f <- function(a, b, scale = 1) list(substitute(a), (a + b) * scale)");
+    eval("r <- mapply(f, 1:3, b = c(10, 20), MoreArgs = list(scale = 2), SIMPLIFY = FALSE)");
+    assertThat(eval("r[[3]][[2]]"), equalTo(c(26)));
+    assertThat(eval("r[[2]][[1]][[3]]"), equalTo(c_i(2)));
+    assertThat(eval("r[[1]][[2]]"), equalTo(c(22)));
+  }
+
+  @Test
+  public void mapplyEvaluatesLanguageMoreArgsOnEachCall() {
+    eval("n <- 0");
+    eval("counter <- function() { n <<- n + 1; n }");
+    eval("r <- mapply(function(a, b) a + b, 1:3, MoreArgs = list(b = quote(counter())))");
+    assertThat(eval("r"), equalTo(c(2, 4, 6)));
+  }
+}
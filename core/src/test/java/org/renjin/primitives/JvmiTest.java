@@ -21,6 +21,7 @@ package org.renjin.primitives;
 import org.junit.Test;
 import org.renjin.EvalTestCase;
 import org.renjin.sexp.ExternalPtr;
+import org.renjin.sexp.FunctionCall;
 import org.renjin.util.DataFrameBuilder;
 
 import java.io.IOException;
@@ -98,6 +99,60 @@ public class JvmiTest extends EvalTestCase {
     assertThat(eval("x$intVarArg('hello')"), equalTo(c_i(0)));
   }
   
+  @Test
+  public void primitiveArrays() {
+    eval("import(org.renjin.primitives.MyBean)");
+    eval("x <- c(1L, 2L, 3L)");
+    eval("y <- c(0.5, 1.5)");
+
+    assertThat(eval("MyBean$incrementInts(x)"), equalTo(c_i(2, 3, 4)));
+    assertThat(eval("MyBean$incrementDoubles(y)"), equalTo(c(1.5, 2.5)));
+    assertThat(eval("MyBean$incrementDoubles(x)"), equalTo(c(2, 3, 4)));
+    assertThat(eval("length(MyBean$incrementDoubles(double(0)))"), equalTo(c_i(0)));
+
+    assertThat(eval("x"), equalTo(c_i(1, 2, 3)));
+    assertThat(eval("y"), equalTo(c(0.5, 1.5)));
+  }
+
+  @Test
+  public void arrayBackedVectorsAreNotCopied() {
+    eval("import(org.renjin.primitives.MyBean)");
+    eval("x <- c(1L, 2L, 3L)");
+    eval("y <- c(0.5, 1.5)");
+
+    assertThat(eval("MyBean$sameInts(x, x)"), equalTo(c(true)));
+    assertThat(eval("MyBean$sameDoubles(y, y)"), equalTo(c(true)));
+
+    // integers passed as double[] must still be converted
+    assertThat(eval("MyBean$sameDoubles(x, x)"), equalTo(c(false)));
+  }
+
+  @Test
+  public void overloadIsCachedOnTheCall() {
+    eval("import(org.renjin.primitives.MyBean)");
+    eval("x <- MyBean$new()");
+    eval("f <- function(a) x$sayHello(a)");
+
+    assertThat(eval("f(3L)"), equalTo(c("HelloHelloHello")));
+    FunctionCall call = (FunctionCall) eval("body(f)");
+    assertThat(call.getJvmCallSite().getOverload().getMethod().getParameterTypes()[0], equalTo((Object) int.class));
+
+    // arguments of another class must select another overload
+    assertThat(eval("f('fred')"), equalTo(c("Hello fred")));
+    assertThat(call.getJvmCallSite().getOverload().getMethod().getParameterTypes()[0], equalTo((Object) String.class));
+    assertThat(eval("f(2L)"), equalTo(c("HelloHello")));
+  }
+
+  @Test
+  public void repeatedStaticCalls() {
+    eval("import(org.renjin.primitives.MyBean)");
+    eval("s <- 0");
+    eval("for(i in 1:100) s <- s + MyBean$sum(i, 1)");
+    eval("for(i in 1:10) MyBean$useLongValue(MyBean$calculateLong())");
+
+    assertThat(eval("s"), equalTo(c(5150)));
+  }
+
   @Test
   public void newInstanceWithPropertyInit() {
     eval("import(org.renjin.primitives.MyBean)");
@@ -149,6 +149,30 @@ public class MyBean {
     return sum;
   }
 
+  public static int[] incrementInts(int[] values) {
+    int[] result = new int[values.length];
+    for(int i=0;i!=values.length;++i) {
+      result[i] = values[i] + 1;
+    }
+    return result;
+  }
+
+  public static double[] incrementDoubles(double[] values) {
+    double[] result = new double[values.length];
+    for(int i=0;i!=values.length;++i) {
+      result[i] = values[i] + 1;
+    }
+    return result;
+  }
+
+  public static boolean sameInts(int[] x, int[] y) {
+    return x == y;
+  }
+
+  public static boolean sameDoubles(double[] x, double[] y) {
+    return x == y;
+  }
+
   public static long calculateLong() {
     return LONG_VALUE;
   }
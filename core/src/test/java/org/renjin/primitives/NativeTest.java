@@ -0,0 +1,99 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.gcc.runtime.BooleanPtr;
+import org.renjin.gcc.runtime.DoublePtr;
+import org.renjin.gcc.runtime.IntPtr;
+import org.renjin.sexp.ExternalPtr;
+import org.renjin.sexp.ListVector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+
+public class NativeTest extends EvalTestCase {
+
+  public static void scale_(DoublePtr x, IntPtr n, DoublePtr factor) {
+    for (int i = 0; i < n.get(); i++) {
+      x.set(i, x.get(i) * factor.get());
+    }
+  }
+
+  public static void count_(BooleanPtr flags, IntPtr n, IntPtr count) {
+    int sum = 0;
+    for (int i = 0; i < n.get(); i++) {
+      if(flags.array[i]) {
+        sum++;
+      }
+    }
+    count.set(sum);
+  }
+
+  @Test
+  public void fortranByName() {
+    eval("scale <- function(x, f) .Fortran('SCALE', x = as.double(x), length(x), as.double(f), " +
+        "CLASS = 'org.renjin.primitives.NativeTest')$x");
+
+    assertThat(eval("scale(1:3, 2)"), equalTo(c(2, 4, 6)));
+    assertThat(eval("scale(c(a=1, b=2), 10)"), equalTo(eval("c(a=10, b=20)")));
+  }
+
+  @Test
+  public void fortranLogicalArguments() {
+    assertThat(eval(".Fortran('count', c(TRUE, FALSE, TRUE), 3L, n = 0L, " +
+        "CLASS = 'org.renjin.primitives.NativeTest')$n"), equalTo(c_i(2)));
+  }
+
+  @Test
+  public void routinesAreResolvedOnce() throws IllegalAccessException {
+    NativeRoutine routine = NativeRoutine.lookup(NativeTest.class, "scale_");
+
+    assertThat(NativeRoutine.lookup(NativeTest.class, "scale_"), sameInstance(routine));
+    assertThat(routine.getParameterCount(), equalTo(3));
+    assertThat(routine.getParameterType(0), equalTo(NativeRoutine.ParameterType.DOUBLE));
+    assertThat(routine.getParameterType(1), equalTo(NativeRoutine.ParameterType.INT));
+    assertThat(NativeRoutine.lookup(NativeTest.class, "missing_"), nullValue());
+  }
+
+  @Test
+  public void registeredRoutinesAreAdaptedOnce() throws Exception {
+    MethodHandle handle = MethodHandles.publicLookup().findStatic(NativeTest.class, "scale_",
+        MethodType.methodType(void.class, DoublePtr.class, IntPtr.class, DoublePtr.class));
+    ExternalPtr<MethodHandle> address = new ExternalPtr<>(handle);
+
+    NativeRoutine routine = NativeRoutine.forAddress(address, "scale");
+    assertThat(NativeRoutine.forAddress(address, "scale"), sameInstance(routine));
+    assertThat(routine.getName(), equalTo("scale"));
+
+    global.setVariable("C_scale", new ListVector.NamedBuilder()
+        .add("name", "scale")
+        .add("address", address)
+        .build());
+
+    assertThat(eval(".Fortran(C_scale, x = c(1, 2), 2L, 3)$x"), equalTo(c(3, 6)));
+    assertThat(eval(".Fortran(C_scale, x = c(4, 5), 2L, 2)$x"), equalTo(c(8, 10)));
+  }
+}
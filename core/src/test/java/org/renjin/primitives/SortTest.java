@@ -99,6 +99,25 @@ public class SortTest extends EvalTestCase {
     assertThat( eval(".Internal(order(TRUE,TRUE,c(1,1,1), c(1,2,1), c(3,9,1)))"), equalTo(c_i(2,1,3)));
   }
 
+  @Test
+  public void orderWithMissingValues() {
+    assertThat( eval(".Internal(order(TRUE, FALSE, c(3, NaN, 1, NA, -0, 0)))"), equalTo(c_i(5, 6, 3, 1, 2, 4)));
+    assertThat( eval(".Internal(order(FALSE, TRUE, c(3, NaN, 1, NA, -0, 0)))"), equalTo(c_i(2, 4, 1, 3, 5, 6)));
+    assertThat( eval(".Internal(order(TRUE, TRUE, c(2L, NA, 2L, 5L)))"), equalTo(c_i(4, 1, 3, 2)));
+    assertThat( eval(".Internal(order(FALSE, FALSE, c('b', NA, 'a', 'b')))"), equalTo(c_i(2, 3, 1, 4)));
+  }
+
+  @Test
+  public void rankFirst() {
+    assertThat(eval(".Internal(rank(c(2, 3, 1, 1, 2, 2, 2), \"first\"))"), equalTo(c_i(3, 7, 1, 2, 4, 5, 6)));
+  }
+
+  @Test
+  public void radixSort() {
+    assertThat( eval(".Internal(radixsort(c(3L, NA, 1L, 3L), TRUE, FALSE))"), equalTo(c_i(3, 1, 4, 2)));
+    assertThat( eval(".Internal(radixsort(c(3L, NA, 1L, 3L), FALSE, TRUE))"), equalTo(c_i(2, 1, 4, 3)));
+  }
+
   @Test
   public void qsort() {
     assertThat( eval(".Internal(qsort(c(3,1,5,0), FALSE))"), equalTo(c(0, 1, 3, 5)));
@@ -54,4 +54,15 @@ public class VApplyTest extends EvalTestCase {
   public void vapplyTypeProblem() {
     eval("vapply(c(4,16,64), sqrt, TRUE)");
   }
+
+  @Test
+  public void vapplyClosureWithExtraArgs() {
+    eval("f <- function(x, base, offset = 0) sys.call()[[2]][[3]] * base + offset");
+    assertThat(eval("vapply(c(x=5, y=6), f, 1, 10, offset = 1)"), equalTo(c(11, 21)));
+  }
+
+  @Test
+  public void vapplyClosureOverList() {
+    assertThat(eval("vapply(list(1:3, 4:6), function(v) sum(v), 1L, USE.NAMES = FALSE)"), equalTo(c_i(6, 15)));
+  }
 }
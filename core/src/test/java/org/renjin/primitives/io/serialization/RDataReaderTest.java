@@ -25,8 +25,13 @@ import org.renjin.eval.Context;
 import org.renjin.repackaged.guava.io.ByteSource;
 import org.renjin.sexp.*;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -226,6 +231,95 @@ public class RDataReaderTest extends EvalTestCase {
     assertTrue(env.bindingIsLocked(Symbol.get("a")));
   }
 
+  @Test
+  public void readMappedFile() throws IOException {
+    double[] values = new double[10000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i * 0.5;
+    }
+    values[42] = DoubleVector.NA;
+
+    ListVector.NamedBuilder list = new ListVector.NamedBuilder();
+    list.add("big", new DoubleArrayVector(values));
+    list.add("small", c(1, 2, 3));
+    list.add("flags", new LogicalArrayVector(Logical.TRUE, Logical.NA, Logical.FALSE));
+    list.add("ints", c_i(4, 5, 6));
+    SEXP expected = list.build();
+
+    File file = File.createTempFile("mapped", ".rds");
+    file.deleteOnExit();
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      RDataWriter writer = new RDataWriter(topLevelContext, out);
+      writer.serialize(expected);
+    }
+
+    ListVector list2;
+    try (FileChannel channel = new FileInputStream(file).getChannel()) {
+      RDataReader reader = new RDataReader(topLevelContext, channel);
+      list2 = (ListVector) reader.readFile();
+
+      assertThat(list2, equalTo(expected));
+      assertThat(channel.position(), equalTo(file.length()));
+    }
+
+    // The values read must not change when the file is overwritten or truncated
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      RDataWriter writer = new RDataWriter(topLevelContext, out);
+      writer.serialize(c(99));
+    }
+    assertThat(list2, equalTo(expected));
+  }
+
+  @Test
+  public void readMappedBinaryFile() throws IOException {
+    File file = File.createTempFile("mapped", ".rds");
+    file.deleteOnExit();
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      RDataWriter writer = new RDataWriter(topLevelContext, out);
+      writer.serialize(c(1, 2, 3));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.write(SerializationFormat.BINARY_FORMAT);
+    }
+
+    try (FileChannel channel = new FileInputStream(file).getChannel()) {
+      RDataReader reader = new RDataReader(topLevelContext, channel);
+      assertThat(reader.readFile(), equalTo((SEXP) c(1, 2, 3)));
+      assertThat(channel.position(), equalTo(file.length()));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void readUnknownFormatFromChannel() throws IOException {
+    File file = File.createTempFile("unknown", ".rds");
+    file.deleteOnExit();
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write("Z\n0000000000000000".getBytes());
+    }
+
+    try (FileChannel channel = new FileInputStream(file).getChannel()) {
+      RDataReader reader = new RDataReader(topLevelContext, channel);
+      reader.readFile();
+    }
+  }
+
+  @Test
+  public void readMappedFileFromConnection() throws IOException {
+    File file = File.createTempFile("mapped", ".rds");
+    file.deleteOnExit();
+    String path = file.getAbsolutePath().replace('\\', '/');
+
+    eval("x <- seq(0, 1, length.out = 20000)");
+    eval("saveRDS(x, file = '" + path + "', compress = FALSE)");
+
+    eval("y <- readRDS('" + path + "')");
+    assertThat(eval("identical(x, y)"), equalTo(c(true)));
+
+    eval("saveRDS(y * 2, file = '" + path + "', compress = FALSE)");
+    assertThat(eval("identical(x, y)"), equalTo(c(true)));
+    assertThat(eval("identical(readRDS('" + path + "'), x * 2)"), equalTo(c(true)));
+  }
+
   protected Symbol symbol(String name){
     return Symbol.get(name);
   }
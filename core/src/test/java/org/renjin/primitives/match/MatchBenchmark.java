@@ -0,0 +1,119 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.match;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.renjin.sexp.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Match#match(Vector, Vector, int, AtomicVector)}, which looks up elements
+ * in a hash index of the table, with scanning the table for each element.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.renjin.primitives.match.MatchBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MatchBenchmark {
+
+  @Param({"100", "10000", "50000"})
+  public int size;
+
+  private IntVector intSearch;
+  private IntVector intTable;
+
+  private Vector doubleSearch;
+  private Vector doubleTable;
+
+  private Vector stringSearch;
+  private Vector stringTable;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    int[] table = new int[size];
+    int[] search = new int[size * 2];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = random.nextInt(size * 2);
+    }
+    for (int i = 0; i < search.length; i++) {
+      search[i] = random.nextInt(size * 2);
+    }
+    intTable = new IntArrayVector(table);
+    intSearch = new IntArrayVector(search);
+    doubleTable = new DoubleArrayVector(intTable.toDoubleArray());
+    doubleSearch = new DoubleArrayVector(intSearch.toDoubleArray());
+    stringTable = toStrings(table);
+    stringSearch = toStrings(search);
+  }
+
+  private static StringVector toStrings(int[] values) {
+    String[] strings = new String[values.length];
+    for (int i = 0; i < values.length; i++) {
+      strings[i] = "key" + values[i];
+    }
+    return new StringArrayVector(strings);
+  }
+
+  @Benchmark
+  public IntVector intHash() {
+    return Match.match(intSearch, intTable, IntVector.NA, Null.INSTANCE);
+  }
+
+  @Benchmark
+  public IntVector intScan() {
+    return Match.matchByScan(intSearch, intTable, IntVector.NA, Null.INSTANCE);
+  }
+
+  @Benchmark
+  public IntVector doubleHash() {
+    return Match.match(doubleSearch, doubleTable, IntVector.NA, Null.INSTANCE);
+  }
+
+  @Benchmark
+  public IntVector doubleScan() {
+    return Match.matchByScan(doubleSearch, doubleTable, IntVector.NA, Null.INSTANCE);
+  }
+
+  @Benchmark
+  public IntVector stringHash() {
+    return Match.match(stringSearch, stringTable, IntVector.NA, Null.INSTANCE);
+  }
+
+  @Benchmark
+  public IntVector stringScan() {
+    return Match.matchByScan(stringSearch, stringTable, IntVector.NA, Null.INSTANCE);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(MatchBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -21,8 +21,10 @@ package org.renjin.primitives.match;
 import org.junit.Test;
 import org.renjin.EvalTestCase;
 import org.renjin.sexp.IntVector;
+import org.renjin.sexp.Null;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.StringArrayVector;
+import org.renjin.sexp.Vector;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -70,6 +72,50 @@ public class MatchTest extends EvalTestCase {
     assertThat( eval(" match(c('3', '4', '99'), as.character(3:1000))"), equalTo(c_i(1, 2, 97)));
   }
   
+  @Test
+  public void matchDoublesUsingIndex() {
+    eval("table <- c(3, NaN, NA, -0, 1e300, 3, 1:100)");
+    eval("x <- c(NA, NaN, 0, 3, 42, 0.5, 1e300, -1)");
+
+    assertThat( eval(".Internal(match(x, table, NA_integer_, NULL))"),
+        equalTo( c_i(3, 2, 4, 1, 48, IntVector.NA, 5, IntVector.NA) ));
+    assertThat( eval(".Internal(match(x, table, 0L, c(NaN, 3)))"),
+        equalTo( c_i(3, 0, 4, 0, 48, 0, 5, 0) ));
+  }
+
+  @Test
+  public void matchIntegersUsingIndex() {
+    eval("table <- c(100:1, NA, 5L)");
+    assertThat( eval(".Internal(match(c(5L, NA, 0L, 100L, 1L), table, NA_integer_, NULL))"),
+        equalTo( c_i(96, 101, IntVector.NA, 1, 100) ));
+    assertThat( eval(".Internal(match(c(TRUE, NA, FALSE, TRUE), c(rep(TRUE, 100), NA), 0L, NULL))"),
+        equalTo( c_i(1, 101, 0, 1) ));
+  }
+
+  @Test
+  public void matchStringsUsingIndex() {
+    eval("table <- c(paste0('x', 1:200), NA, 'x1')");
+    assertThat( eval(".Internal(match(c('x200', NA, 'y', 'x1', 'x17'), table, NA_integer_, NULL))"),
+        equalTo( c_i(200, 201, IntVector.NA, 1, 17) ));
+    assertThat( eval(".Internal(match(c('x200', NA, 'y', 'x1', 'x17'), table, NA_integer_, c('x1', NA)))"),
+        equalTo( c_i(200, IntVector.NA, IntVector.NA, IntVector.NA, 17) ));
+  }
+
+  @Test
+  public void matchUsingIndexAgreesWithScan() {
+    eval("set.seed(1)");
+    eval("table <- sample(c(1:500, NA, NaN), 2000, replace = TRUE)");
+    eval("x <- sample(c(0:600, NA, NaN), 1000, replace = TRUE)");
+
+    Vector search = (Vector) eval("x");
+    Vector table = (Vector) eval("table");
+
+    assertThat( eval(".Internal(match(x, table, NA_integer_, NULL))"),
+        equalTo( (SEXP) Match.matchByScan(search, table, IntVector.NA, Null.INSTANCE) ));
+    assertThat( eval(".Internal(match(as.character(x), as.character(table), NA_integer_, NULL))"),
+        equalTo( (SEXP) Match.matchByScan(search, table, IntVector.NA, Null.INSTANCE) ));
+  }
+
   @Test
   public void pmatch() {
     eval(" pmatch <- function (x, table, nomatch = NA_integer_, duplicates.ok = FALSE) \n" +
@@ -125,4 +171,13 @@ public class MatchTest extends EvalTestCase {
     assertThat(eval("names(x)"), equalTo((SEXP)StringArrayVector.EMPTY));
   }
   
+  @Test
+  public void hashIndexCapacityDoesNotOverflow() {
+    assertThat(HashIndex.capacityFor(0), equalTo(16));
+    assertThat(HashIndex.capacityFor(100), equalTo(256));
+    assertThat(HashIndex.capacityFor((1 << 29) + 1), equalTo(HashIndex.MAX_CAPACITY));
+    assertThat(HashIndex.capacityFor(1 << 30), equalTo(HashIndex.MAX_CAPACITY));
+    assertThat(HashIndex.capacityFor(Integer.MAX_VALUE), equalTo(HashIndex.MAX_CAPACITY));
+  }
+
 }
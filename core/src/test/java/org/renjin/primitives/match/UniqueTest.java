@@ -21,6 +21,7 @@ package org.renjin.primitives.match;
 import org.hamcrest.CoreMatchers;
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.sexp.DoubleVector;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -59,4 +60,44 @@ public class UniqueTest extends EvalTestCase {
 
   }
 
+  @Test
+  public void missingValues() {
+    assertThat( eval(".Internal(unique(c(NA, NaN, 0, -0, NaN, NA, 1), FALSE, FALSE))"),
+        equalTo( c(DoubleVector.NA, Double.NaN, 0, 1)) );
+    assertThat( eval(".Internal(duplicated(c(NA, TRUE, NA, FALSE, TRUE), FALSE, FALSE))"),
+        equalTo( c(false, false, true, false, true)) );
+    assertThat( eval(".Internal(unique(c('a', NA, 'b', NA, 'a'), FALSE, FALSE))"),
+        equalTo( c("a", null, "b")) );
+  }
+
+  @Test
+  public void incomparables() {
+    assertThat( eval(".Internal(unique(c(1, 3, 1, 4, 4), 4, FALSE))"), equalTo( c(1, 3, 4, 4)) );
+    assertThat( eval(".Internal(duplicated(c(1L, 3L, 1L, 4L), 1, FALSE))"), equalTo( c(false, false, false, false)) );
+  }
+
+  @Test
+  public void manyIntegers() {
+    eval("x <- c(1:5000, 5000:1)");
+    assertThat( eval("identical(.Internal(unique(x, FALSE, FALSE)), 1:5000)"), equalTo(c(true)) );
+    assertThat( eval(".Internal(anyDuplicated(x, FALSE, FALSE))"), equalTo(c_i(5001)) );
+    assertThat( eval(".Internal(anyDuplicated(x, FALSE, TRUE))"), equalTo(c_i(5000)) );
+  }
+
+  @Test
+  public void dataFrameRows() {
+    eval("df <- data.frame(a = c(1, 2, 1, 1), b = c('x', 'y', 'x', 'z'))");
+    assertThat( eval("duplicated(df)"), equalTo( c(false, false, true, false)) );
+    assertThat( eval("anyDuplicated(df)"), equalTo( c_i(3)) );
+    assertThat( eval("nrow(unique(df))"), equalTo( c_i(3)) );
+  }
+
+  @Test
+  public void matrixRows() {
+    eval("m <- matrix(c(1, 2, 1, 3, 4, 3), nrow = 3)");
+    assertThat( eval("duplicated(m)"), equalTo( c(false, false, true)) );
+    assertThat( eval("duplicated(m, MARGIN = 2)"), equalTo( c(false, false)) );
+    assertThat( eval("anyDuplicated(m, fromLast = TRUE)"), equalTo( c_i(1)) );
+    assertThat( eval("dim(unique(m))"), equalTo( c_i(2, 2)) );
+  }
 }
@@ -0,0 +1,178 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.sort;
+
+import org.junit.Test;
+import org.renjin.sexp.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class IndexSorterTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void integers() {
+    int[] values = new int[5000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt(10) == 0 ? IntVector.NA : random.nextInt(2000) - 1000;
+    }
+    values[7] = Integer.MAX_VALUE;
+    values[8] = Integer.MIN_VALUE + 1;
+
+    checkAllDirections(new IntArrayVector(values));
+  }
+
+  @Test
+  public void doubles() {
+    double[] values = new double[5000];
+    for (int i = 0; i < values.length; i++) {
+      switch (random.nextInt(10)) {
+        case 0:
+          values[i] = DoubleVector.NA;
+          break;
+        case 1:
+          values[i] = Double.NaN;
+          break;
+        case 2:
+          values[i] = random.nextBoolean() ? 0d : -0d;
+          break;
+        default:
+          values[i] = random.nextInt(100) * (random.nextBoolean() ? 1e10 : 1e-3);
+          break;
+      }
+    }
+    values[3] = Double.POSITIVE_INFINITY;
+    values[4] = Double.NEGATIVE_INFINITY;
+
+    checkAllDirections(new DoubleArrayVector(values));
+  }
+
+  @Test
+  public void strings() {
+    String[] values = new String[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt(10) == 0 ? StringVector.NA : "s" + random.nextInt(300);
+    }
+    checkAllDirections(new StringArrayVector(values));
+  }
+
+  @Test
+  public void multipleKeys() {
+    int[] a = new int[3000];
+    double[] b = new double[3000];
+    for (int i = 0; i < a.length; i++) {
+      a[i] = random.nextInt(5);
+      b[i] = random.nextInt(20) == 0 ? DoubleVector.NA : random.nextInt(50);
+    }
+    List<AtomicVector> keys = Arrays.<AtomicVector>asList(new IntArrayVector(a), new DoubleArrayVector(b));
+
+    assertArrayEquals(expectedOrder(keys, true, false), new IndexSorter(keys, true, false).sort());
+    assertArrayEquals(expectedOrder(keys, false, true), new IndexSorter(keys, false, true).sort());
+  }
+
+  @Test
+  public void parallel() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      double[] values = new double[20000];
+      String[] strings = new String[values.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = random.nextInt(1000);
+        strings[i] = "s" + values[i];
+      }
+
+      IndexSorter sorter = new IndexSorter(new DoubleArrayVector(values), true, false);
+      assertArrayEquals(sorter.sort(), sorter.sort(pool));
+
+      IndexSorter stringSorter = new IndexSorter(new StringArrayVector(strings), true, false);
+      assertArrayEquals(stringSorter.sort(), stringSorter.sort(pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void checkAllDirections(AtomicVector vector) {
+    List<AtomicVector> keys = Collections.singletonList(vector);
+    for (boolean naLast : new boolean[] { true, false }) {
+      for (boolean decreasing : new boolean[] { true, false }) {
+        assertArrayEquals(expectedOrder(keys, naLast, decreasing),
+            new IndexSorter(vector, naLast, decreasing).sort());
+      }
+    }
+  }
+
+  /**
+   * Computes the expected ordering with a stable sort of boxed row indexes.
+   */
+  private static int[] expectedOrder(final List<AtomicVector> keys, final boolean naLast, final boolean decreasing) {
+    int length = keys.get(0).length();
+    List<Integer> rows = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      rows.add(i);
+    }
+    Collections.sort(rows, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer row1, Integer row2) {
+        for (AtomicVector key : keys) {
+          int rel = compare(key, row1, row2);
+          if(rel != 0) {
+            return rel;
+          }
+        }
+        return 0;
+      }
+
+      private int compare(AtomicVector key, int row1, int row2) {
+        boolean na1 = isNA(key, row1);
+        boolean na2 = isNA(key, row2);
+        if(na1 && na2) {
+          return 0;
+        } else if(na1) {
+          return naLast ? 1 : -1;
+        } else if(na2) {
+          return naLast ? -1 : 1;
+        } else if(key instanceof DoubleVector || key instanceof IntVector) {
+          double x = key.getElementAsDouble(row1);
+          double y = key.getElementAsDouble(row2);
+          int rel = x < y ? -1 : (x == y ? 0 : 1);
+          return decreasing ? -rel : rel;
+        } else {
+          return decreasing ? -key.compare(row1, row2) : key.compare(row1, row2);
+        }
+      }
+
+      private boolean isNA(AtomicVector key, int row) {
+        if(key instanceof DoubleVector) {
+          return Double.isNaN(key.getElementAsDouble(row));
+        }
+        return key.isElementNA(row);
+      }
+    });
+
+    int[] order = new int[length];
+    for (int i = 0; i < length; i++) {
+      order[i] = rows.get(i);
+    }
+    return order;
+  }
+}
@@ -20,8 +20,12 @@ package org.renjin.primitives.summary;
 
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.SEXP;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertThat;
 
 public class DeferredSummaryTest extends EvalTestCase {
@@ -49,4 +53,78 @@ public class DeferredSummaryTest extends EvalTestCase {
     eval("y[1,1] <- x");
     
   }
+
+  @Test
+  public void extremes() {
+    eval(" x <- sqrt(as.double(1:1e4)) ");
+
+    assertThat(eval("min(x)"), equalTo(c(1)));
+    assertThat(eval("max(x)"), equalTo(c(100)));
+    assertThat(eval("range(x)"), equalTo(c(1, 100)));
+    assertThat(eval("prod(x / x)"), equalTo(c(1)));
+  }
+
+  @Test
+  public void missingValues() {
+    eval(" x <- as.double(1:1e4) ");
+    eval(" x[500] <- NaN ");
+    eval(" y <- x * 2 ");
+
+    assertThat(eval("is.nan(min(y))"), equalTo(c(true)));
+    eval(" y[900] <- NA ");
+    assertThat(eval("is.na(max(y * 2)) && !is.nan(max(y * 2))"), equalTo(c(true)));
+  }
+
+  @Test
+  public void variance() {
+    eval(" x <- as.double(1:1e4) * 2 ");
+
+    assertThat(eval(".Internal(var(x))"), closeTo(c(33336666.67), 0.01));
+    assertThat(eval(".Internal(var(c(1, NA, 3)))"), equalTo(c(DoubleVector.NA)));
+  }
+
+  @Test
+  public void matrixSums() {
+    eval(" m <- matrix(as.double(1:12), 3) * 2 ");
+
+    assertThat(eval("rowSums(m)"), equalTo(c(44, 52, 60)));
+    assertThat(eval("colSums(m)"), equalTo(c(12, 30, 48, 66)));
+    assertThat(eval("colMeans(m)"), equalTo(c(4, 10, 16, 22)));
+  }
+
+  @Test
+  public void logicalFilters() {
+    eval(" x <- as.double(1:1e5) ");
+    eval(" y <- x %% 7 ");
+
+    assertThat(materialize("sum(x > 500 & y < 3)"), equalTo(c_i(42642)));
+
+    eval(" x[10] <- NA ");
+    assertThat(materialize("sum(x > 0)"), equalTo(c_i(IntVector.NA)));
+    assertThat(materialize("sum(x > 0 | TRUE)"), equalTo(c_i(100000)));
+  }
+
+  @Test
+  public void integerArithmetic() {
+    eval(" i <- 1:1e5 ");
+
+    assertThat(materialize("sum(i - 50000L)"), equalTo(c_i(50000)));
+    assertThat(materialize("sum(i * 100000L)"), equalTo(c_i(IntVector.NA)));
+  }
+
+  @Test
+  public void integerSumOverflowWarnsWhenMaterialized() {
+    eval(" i <- 1:1e5 ");
+    eval(" s <- sum(i + 100000L) ");
+
+    assertThat(eval("s"), instanceOf(DeferredIntSum.class));
+    assertThat(eval("tryCatch(print(s), warning = function(w) conditionMessage(w))"),
+        equalTo(c("Integer overflow - use sum(as.numeric(.))")));
+  }
+
+  private SEXP materialize(String expression) {
+    // force the computation through the vector pipeliner, rather than
+    // the summary's own implementation
+    return topLevelContext.materialize(eval(expression));
+  }
 }
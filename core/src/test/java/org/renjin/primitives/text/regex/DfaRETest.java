@@ -0,0 +1,91 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.text.regex;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DfaRETest {
+
+  private static final String[] PATTERNS = {
+      "abc", "^abc", "abc$", "^abc$", "^$", "^", "$", "a*", "a+b", "(a|b)*c", "x(ab|cd)+y",
+      "colou?r", "[a-c]+[0-9]{2,3}", "^[[:digit:]]+$", "[[:alpha:]]+[[:space:]]", "\\d+\\.\\d*",
+      "\\w+@\\w+", "[^a-z]", ".$", "a.c", "(foo|foobar)baz", "a{3}", "(a|)b", "(ab)?c", "[A-Z]+",
+      "((a|b)(c|d))+$", "^(\\s*)$", "a|b|c|d" };
+
+  private static final String[] SUBJECTS = {
+      "", "a", "abc", "xabcx", "ab\nc", "color", "colour", "abb12", "ac123", "12345", "12a45",
+      "foo bar", "me@example", "3.14", "foobarbaz", "foobaz", "aaa", "aa", "b", "abcd", "ABC",
+      "acbd", "acbdx", "   ", "été ", "xéy", "xababy", "xy", "c" };
+
+  @Test
+  public void agreesWithBacktracker() throws RESyntaxException {
+    for (String pattern : PATTERNS) {
+      for (boolean ignoreCase : new boolean[] { false, true }) {
+        REProgram program = new RECompiler().compile(pattern);
+        DfaRE dfa = new DfaRE(program, ignoreCase);
+        DfaRE positions = new DfaRE(program, ignoreCase);
+        ExtendedRE backtracker = new ExtendedRE(program,
+            ignoreCase ? ExtendedRE.MATCH_CASEINDEPENDENT : ExtendedRE.MATCH_NORMAL);
+
+        assertTrue(pattern, dfa.isDeterministic());
+
+        for (String subject : SUBJECTS) {
+          String message = "'" + pattern + "' ~ '" + subject + "' ignoreCase=" + ignoreCase;
+          boolean expected = backtracker.match(subject);
+          assertThat(message, dfa.match(subject), equalTo(expected));
+
+          // Asking for positions switches the matcher over to the backtracker, so
+          // the automaton's answers are checked separately above
+          assertThat(message, positions.match(subject), equalTo(expected));
+          if (expected) {
+            assertThat(message, positions.getGroupStart(0), equalTo(backtracker.getGroupStart(0)));
+            assertThat(message, positions.getGroupEnd(0), equalTo(backtracker.getGroupEnd(0)));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void backreferencesUseBacktracker() throws RESyntaxException {
+    DfaRE re = new DfaRE(new RECompiler().compile("(a+)b\\1"), false);
+
+    assertFalse(re.isDeterministic());
+    assertTrue(re.match("xaabaa"));
+    assertFalse(re.match("xaabx"));
+    assertThat(re.getGroupStart(0), equalTo(-1));
+  }
+
+  @Test
+  public void noCatastrophicBacktracking() throws RESyntaxException {
+    StringBuilder subject = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      subject.append('a');
+    }
+    DfaRE re = new DfaRE(new RECompiler().compile("(a|aa)*c"), false);
+
+    assertFalse(re.match(subject.toString()));
+    assertTrue(re.match(subject.append('c').toString()));
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.text.regex;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.repackaged.guava.cache.CacheStats;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class REFactoryTest extends EvalTestCase {
+
+  @Test
+  public void patternIsCompiledOnce() {
+    eval("x <- paste0('item', 1:1000, 'x')");
+
+    CacheStats before = REFactory.getCacheStats();
+    eval("y <- gsub('m([0-9]+)x$', 'm<\\\\1>', x)");
+    CacheStats stats = REFactory.getCacheStats().minus(before);
+
+    assertThat(stats.missCount(), equalTo(1L));
+    assertThat(stats.hitCount(), equalTo(999L));
+    assertThat(eval("y[c(1, 1000)]"), equalTo(c("item<1>", "item<1000>")));
+  }
+
+  @Test
+  public void matchersDoNotShareState() {
+    RE lowerCase = REFactory.compile("b+", false, false, false, false);
+    RE ignoreCase = REFactory.compile("b+", true, false, false, false);
+
+    assertThat(lowerCase.match("aBBbb"), equalTo(true));
+    assertThat(ignoreCase.match("aBBbb"), equalTo(true));
+
+    assertThat(lowerCase.getGroupStart(0), equalTo(3));
+    assertThat(ignoreCase.getGroupStart(0), equalTo(1));
+  }
+}
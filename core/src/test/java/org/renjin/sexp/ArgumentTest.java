@@ -192,4 +192,43 @@ public class ArgumentTest extends EvalTestCase {
 
     assertThat( eval( "f(1,2,3)"), equalTo( c(1,2,3 )));
   }
+
+  @Test
+  public void callSiteWithChangingArgumentNames() {
+    eval("g <- function(a, b = 10, ...) list(a, b, length(list(...)))");
+    eval("f <- function(...) g(...)");
+    assertThat( eval("f(1, 2)"), equalTo( list(1d, 2d, 0) ));
+    assertThat( eval("f(b = 1, 2)"), equalTo( list(2d, 1d, 0) ));
+    assertThat( eval("f(1, z = 3)"), equalTo( list(1d, 10d, 1) ));
+    assertThat( eval("f(1, 2, 3, 4)"), equalTo( list(1d, 2d, 2) ));
+    assertThat( eval("f(b = 1, 2)"), equalTo( list(2d, 1d, 0) ));
+    assertThat( eval("f(1, 2)"), equalTo( list(1d, 2d, 0) ));
+  }
+
+  @Test
+  public void callSiteWithChangingClosures() {
+    eval("f1 <- function(x, y) x - y");
+    eval("f2 <- function(y, x) x - y");
+    eval("apply2 <- function(f) f(y = 1, 10)");
+    assertThat( eval("apply2(f1)"), equalTo( c(9) ));
+    assertThat( eval("apply2(f2)"), equalTo( c(9) ));
+    assertThat( eval("apply2(f1)"), equalTo( c(9) ));
+  }
+
+  @Test
+  public void emptyArgumentTakesDefault() {
+    eval("f <- function(a = 1, b = 2) a * 10 + b");
+    eval("g <- function() f(, 5)");
+    assertThat( eval("g()"), equalTo( c(15) ));
+    assertThat( eval("g()"), equalTo( c(15) ));
+  }
+
+  @Test
+  public void matchingErrorIsRepeated() {
+    eval("f <- function(x) x");
+    eval("g <- function() f(1, 2)");
+    eval("r1 <- tryCatch(g(), error = function(e) 'error')");
+    eval("r2 <- tryCatch(g(), error = function(e) 'error')");
+    assertThat( eval("c(r1, r2)"), equalTo( c("error", "error") ));
+  }
 }
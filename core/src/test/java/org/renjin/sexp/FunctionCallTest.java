@@ -19,8 +19,18 @@
 package org.renjin.sexp;
 
 import org.junit.Test;
+import org.renjin.eval.Context;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.parser.RParser;
 
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 public class FunctionCallTest {
@@ -32,5 +42,28 @@ public class FunctionCallTest {
     assertThat( call, equalTo( call.clone() ) );
     
   }
-  
+
+  /**
+   * Function bodies are shared between sessions, so the lookup cached in a call must not
+   * keep the environments or functions of the session that last evaluated it reachable.
+   */
+  @Test
+  public void cachedLookupHoldsOnlyWeakReferences() {
+    Session session = new SessionBuilder().build();
+    Context context = session.getTopLevelContext();
+    context.evaluate(RParser.parseSource("f <- function(x) paste(x, 'y'); f('a')\n"));
+
+    FunctionCall call = (FunctionCall) ((Closure) session.getGlobalEnvironment().getVariable("f")).getBody();
+    assertThat(call.functionLookup, notNullValue());
+
+    for (Field field : Environment.FunctionLookup.class.getDeclaredFields()) {
+      if(!Modifier.isStatic(field.getModifiers())) {
+        assertThat(field.getName(), field.getType(), anyOf(
+            equalTo((Object) WeakReference.class),
+            equalTo((Object) Symbol.class),
+            equalTo((Object) Environment.FunctionBindingsVersion.class),
+            equalTo((Object) int.class)));
+      }
+    }
+  }
 }
@@ -0,0 +1,152 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.parallel;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.eval.Session;
+import org.renjin.primitives.packaging.FqPackageName;
+import org.renjin.primitives.packaging.Namespace;
+import org.renjin.primitives.packaging.NamespaceRegistry;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.SexpGraphCopier;
+
+/**
+ * Moves values between the sessions of a cluster, which each run on their own thread.
+ *
+ * <p>Vectors and other immutable values can be shared freely, but closures, promises and environments
+ * cannot: a closure from one session must see the global environment and namespaces of the session
+ * in which it is called, and must not touch the environments of a session running on another thread.
+ * Like the serialization used by snow, values are transferred by copying every environment they refer to,
+ * except for each session's global, base and namespace environments and the environments on its search
+ * path, which are replaced with their counterparts in the receiving session.</p>
+ *
+ * <p>A transfer is made in two steps: {@link #export(Session, SEXP)} is called on the sending session's
+ * thread, and replaces its well-known environments with placeholders; {@link #importInto(Context, SEXP)}
+ * is called on the receiving session's thread, and replaces the placeholders with its own environments,
+ * loading namespaces if necessary.</p>
+ */
+class SessionTransfer {
+
+  private SessionTransfer() { }
+
+  /**
+   * Copies {@code value} so that it no longer refers to any environment of {@code session}.
+   */
+  public static SEXP export(final Session session, SEXP value) {
+    final NamespaceRegistry registry = session.getNamespaceRegistry();
+    SexpGraphCopier copier = new SexpGraphCopier(new SexpGraphCopier.EnvironmentResolver() {
+      @Override
+      public Environment resolve(Environment environment) {
+        if(environment == session.getGlobalEnvironment()) {
+          return new Placeholder(Kind.GLOBAL_ENVIRONMENT, null, null);
+        }
+        if(environment == session.getBaseEnvironment()) {
+          return new Placeholder(Kind.BASE_ENVIRONMENT, null, null);
+        }
+        if(environment == session.getBaseNamespaceEnv()) {
+          return new Placeholder(Kind.BASE_NAMESPACE, null, null);
+        }
+        if(registry.isNamespaceEnv(environment)) {
+          Namespace namespace = registry.getNamespace(environment);
+          return new Placeholder(Kind.NAMESPACE, null, namespace.getFullyQualifiedName());
+        }
+        for (Environment searchEnv : session.getGlobalEnvironment().parents()) {
+          if(searchEnv == environment) {
+            return new Placeholder(Kind.SEARCH_PATH, environment.getName(), null);
+          }
+        }
+        return null;
+      }
+    });
+    return copy(copier, value);
+  }
+
+  /**
+   * Copies a value {@link #export(Session, SEXP) exported} from another session into the session of
+   * {@code context}.
+   */
+  public static SEXP importInto(final Context context, SEXP value) {
+    SexpGraphCopier copier = new SexpGraphCopier(new SexpGraphCopier.EnvironmentResolver() {
+      @Override
+      public Environment resolve(Environment environment) {
+        if(environment instanceof Placeholder) {
+          return ((Placeholder) environment).resolve(context);
+        }
+        return null;
+      }
+    });
+    return copy(copier, value);
+  }
+
+  private static SEXP copy(SexpGraphCopier copier, SEXP value) {
+    try {
+      return copier.copy(value);
+    } catch (IllegalStateException e) {
+      throw new EvalException("Cannot transfer value between cluster nodes: " + e.getMessage(), e);
+    }
+  }
+
+  private enum Kind {
+    GLOBAL_ENVIRONMENT,
+    BASE_ENVIRONMENT,
+    BASE_NAMESPACE,
+    NAMESPACE,
+    SEARCH_PATH
+  }
+
+  /**
+   * Stands in for one of the sending session's environments while a value is in transit.
+   */
+  private static class Placeholder extends Environment {
+    private final Kind kind;
+    private final String name;
+    private final FqPackageName namespace;
+
+    private Placeholder(Kind kind, String name, FqPackageName namespace) {
+      this.kind = kind;
+      this.name = name;
+      this.namespace = namespace;
+    }
+
+    private Environment resolve(Context context) {
+      Session session = context.getSession();
+      switch (kind) {
+        case GLOBAL_ENVIRONMENT:
+          return session.getGlobalEnvironment();
+        case BASE_ENVIRONMENT:
+          return session.getBaseEnvironment();
+        case BASE_NAMESPACE:
+          return session.getBaseNamespaceEnv();
+        case NAMESPACE:
+          return session.getNamespaceRegistry()
+              .getNamespace(context, namespace)
+              .getNamespaceEnvironment();
+        default:
+          for (Environment searchEnv : session.getGlobalEnvironment().parents()) {
+            if(name.equals(searchEnv.getName())) {
+              return searchEnv;
+            }
+          }
+          throw new EvalException("Environment '%s' is not attached on the cluster node", name);
+      }
+    }
+  }
+}
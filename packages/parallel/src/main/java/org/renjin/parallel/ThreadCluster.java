@@ -0,0 +1,275 @@
+/**
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2016 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.parallel;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionSnapshot;
+import org.renjin.invoke.annotations.Current;
+import org.renjin.sexp.*;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An in-process cluster, whose nodes are sessions forked from the session that created the cluster,
+ * each running on its own thread.
+ *
+ * <p>Forking a session is much cheaper than starting a new R process: the namespaces loaded in the
+ * parent session are copied, but their function bodies and other immutable values are shared. Values
+ * sent to and received from the nodes are copied as by {@link SessionTransfer}, which gives the same
+ * semantics as the serialization used by socket clusters.</p>
+ *
+ * <p>The R functions in clusterApply.R drive the nodes through {@link Worker#send(Context, SEXP, ListVector, SEXP)},
+ * {@link Worker#receive(Context)} and {@link #receiveAny(Context, ListVector)}.</p>
+ */
+public class ThreadCluster {
+
+  private ThreadCluster() { }
+
+  /**
+   * Starts {@code size} nodes, forked from the current state of the calling session.
+   */
+  public static ListVector start(@Current Context context, int size) {
+    if(size < 1) {
+      throw new EvalException("numeric 'names' must be >= 1");
+    }
+    SessionSnapshot snapshot = context.getSession().snapshot();
+    Random seeds = new Random();
+    Object lock = new Object();
+
+    ListVector.Builder workers = new ListVector.Builder();
+    for (int i = 0; i < size; i++) {
+      workers.add(new ExternalPtr<>(new Worker(snapshot.fork(), i + 1, seeds.nextInt(), lock)));
+    }
+    return workers.build();
+  }
+
+  /**
+   * Waits for the first result from any of the given {@code workers}.
+   *
+   * @return a list with the elements {@code value}, {@code node}, the index of the worker
+   * within {@code workers}, and {@code tag}, the tag of the job that produced the result.
+   */
+  public static ListVector receiveAny(@Current Context context, ListVector workers) throws InterruptedException {
+    Worker[] nodes = new Worker[workers.length()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = (Worker) ((ExternalPtr) workers.getElementAsSEXP(i)).getInstance();
+    }
+    if(nodes.length == 0) {
+      throw new EvalException("no cluster nodes");
+    }
+    Object lock = nodes[0].lock;
+    synchronized (lock) {
+      while(true) {
+        boolean pending = false;
+        for (int i = 0; i < nodes.length; i++) {
+          if(nodes[i].hasResult()) {
+            Job job = nodes[i].jobs.poll();
+            ListVector.NamedBuilder result = new ListVector.NamedBuilder();
+            result.add("value", SessionTransfer.importInto(context, job.result));
+            result.add("node", IntVector.valueOf(i + 1));
+            result.add("tag", job.tag);
+            return result.build();
+          }
+          pending |= !nodes[i].jobs.isEmpty();
+        }
+        if(!pending) {
+          throw new EvalException("no results are pending on the cluster nodes");
+        }
+        lock.wait();
+      }
+    }
+  }
+
+  /**
+   * A job sent to a worker, and its result once it has completed.
+   */
+  private static class Job implements Runnable {
+    private final Worker worker;
+    private final SEXP call;
+    private final SEXP tag;
+    private SEXP result;
+    private boolean done;
+
+    private Job(Worker worker, SEXP call, SEXP tag) {
+      this.worker = worker;
+      this.call = call;
+      this.tag = tag;
+    }
+
+    @Override
+    public void run() {
+      // The result must be set even if the job fails badly, or the session waiting for it would hang
+      SEXP value = null;
+      try {
+        value = worker.execute(call);
+      } catch (Error e) {
+        value = tryError(e);
+        throw e;
+      } finally {
+        synchronized (worker.lock) {
+          result = value;
+          done = true;
+          worker.lock.notifyAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * A node of the cluster: a session and the thread on which it is evaluated.
+   */
+  public static class Worker {
+
+    private final Session session;
+    private final int rank;
+    private final ExecutorService executor;
+
+    /**
+     * Guards {@link #jobs} and the results of jobs, and is shared by all the workers of a cluster,
+     * so that we can wait for a result from any of them.
+     */
+    private final Object lock;
+
+    /**
+     * The jobs sent to this worker whose results have not yet been received, in the order they were sent.
+     */
+    private final Queue<Job> jobs = new ArrayDeque<>();
+
+    private Worker(Session session, final int rank, final int seed, Object lock) {
+      this.session = session;
+      this.rank = rank;
+      this.lock = lock;
+      this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "renjin-cluster-node-" + rank);
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      // Each node needs its own stream of random numbers
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          Context context = Worker.this.session.getTopLevelContext();
+          context.evaluate(FunctionCall.newCall(Symbol.get("set.seed"), IntVector.valueOf(seed)),
+              Worker.this.session.getGlobalEnvironment());
+        }
+      });
+    }
+
+    public int getRank() {
+      return rank;
+    }
+
+    /**
+     * Sends a job to this worker, which will evaluate {@code do.call(fun, args, quote = TRUE)}
+     * in its global environment.
+     */
+    public void send(@Current Context context, SEXP fun, ListVector args, SEXP tag) {
+      SEXP call = SessionTransfer.export(context.getSession(), new ListVector(fun, args));
+      Job job = new Job(this, call, tag);
+      synchronized (lock) {
+        if(executor.isShutdown()) {
+          throw new EvalException("cluster node %d has been stopped", rank);
+        }
+        jobs.add(job);
+      }
+      executor.submit(job);
+    }
+
+    /**
+     * Waits for the result of the oldest job sent to this worker.
+     */
+    public SEXP receive(@Current Context context) throws InterruptedException {
+      Job job;
+      synchronized (lock) {
+        job = jobs.peek();
+        if(job == null) {
+          throw new EvalException("no results are pending on cluster node %d", rank);
+        }
+        while(!job.done) {
+          lock.wait();
+        }
+        jobs.poll();
+      }
+      return SessionTransfer.importInto(context, job.result);
+    }
+
+    /**
+     * Stops the worker's thread once it has completed the jobs it has already received.
+     */
+    public void stop() {
+      synchronized (lock) {
+        executor.shutdown();
+      }
+    }
+
+    private boolean hasResult() {
+      Job job = jobs.peek();
+      return job != null && job.done;
+    }
+
+    /**
+     * Evaluates a job on the worker's thread.
+     *
+     * @return the exported result, or, if the job failed, a character vector
+     * with the class "try-error"
+     */
+    private SEXP execute(SEXP exportedCall) {
+      Context context = session.getTopLevelContext();
+      SEXP value;
+      try {
+        ListVector call = (ListVector) SessionTransfer.importInto(context, exportedCall);
+        value = doCall(context, call.getElementAsSEXP(0), (ListVector) call.getElementAsSEXP(1));
+        value = SessionTransfer.export(session, value);
+      } catch (RuntimeException | StackOverflowError e) {
+        value = tryError(e);
+      }
+      return value;
+    }
+
+    private SEXP doCall(Context context, SEXP fun, ListVector args) {
+      SEXP function = fun;
+      if(fun instanceof StringVector && fun.length() == 1) {
+        function = Symbol.get(((StringVector) fun).getElementAsString(0));
+      }
+      // Equivalent to quote = TRUE: the arguments are values, and must not be evaluated again
+      PairList.Builder arguments = new PairList.Builder();
+      for (NamedValue arg : args.namedValues()) {
+        arguments.add(arg.hasName() ? Symbol.get(arg.getName()) : Null.INSTANCE, Promise.repromise(arg.getValue()));
+      }
+      return context.evaluate(new FunctionCall(function, arguments.build()), session.getGlobalEnvironment());
+    }
+
+  }
+
+  private static SEXP tryError(Throwable e) {
+    String message = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+    return new StringArrayVector(new String[] { message + "\n" },
+        AttributeMap.builder().setClass("snow-try-error", "try-error").build());
+  }
+}